@@ -0,0 +1,209 @@
+package com.caiya.cache;
+
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Asynchronous counterpart of {@link CacheApi}, every command returns at once and its result completes the returned
+ * {@link CompletableFuture}.
+ * <p>
+ * Failures, including timeouts ({@link java.util.concurrent.TimeoutException}), complete the future exceptionally.
+ * The deprecated {@link CacheApi#keys(String)} and {@link CacheApi#scan(String, long)} are not mirrored.
+ *
+ * @author wangnan
+ * @see CacheApi
+ * @since 1.2
+ */
+public interface AsyncCacheApi<K, V> {
+
+    /**
+     * @see CacheApi#del(Object[])
+     */
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Long> del(K... keys);
+
+    /**
+     * @see CacheApi#set(Object, Object, long)
+     */
+    CompletableFuture<Void> set(K key, V value, long seconds);
+
+    /**
+     * @see CacheApi#set(Object, Object, long, TimeUnit)
+     */
+    CompletableFuture<Void> set(K key, V value, long liveTime, TimeUnit timeUnit);
+
+    /**
+     * @see CacheApi#set(Object, Object, SetOption, long, TimeUnit)
+     */
+    CompletableFuture<String> set(K key, V value, SetOption setOption, long expirationTime, TimeUnit timeUnit);
+
+    /**
+     * @see CacheApi#mSet(Map, Duration)
+     */
+    CompletableFuture<Map<K, Exception>> mSet(Map<K, V> entries, Duration ttl);
+
+    /**
+     * @see CacheApi#mSet(Map, Function)
+     */
+    CompletableFuture<Map<K, Exception>> mSet(Map<K, V> entries, Function<? super K, Duration> ttlFunction);
+
+    /**
+     * @see CacheApi#get(Object)
+     */
+    CompletableFuture<V> get(K key);
+
+    /**
+     * @see CacheApi#mGet(Collection)
+     */
+    CompletableFuture<Map<K, V>> mGet(Collection<K> keys);
+
+    /**
+     * @see CacheApi#scan(String, String, long)
+     */
+    CompletableFuture<ScanResult<String>> scan(String cursor, String pattern, long count);
+
+    /**
+     * @see CacheApi#exists(Object)
+     */
+    CompletableFuture<Boolean> exists(K key);
+
+    /**
+     * @see CacheApi#expire(Object, long)
+     */
+    CompletableFuture<Boolean> expire(K key, long seconds);
+
+    /**
+     * @see CacheApi#ttl(Object)
+     */
+    CompletableFuture<Long> ttl(K key);
+
+    /**
+     * @see CacheApi#incr(Object)
+     */
+    CompletableFuture<Long> incr(K key);
+
+    /**
+     * @see CacheApi#incrBy(Object, long)
+     */
+    CompletableFuture<Long> incrBy(K key, long value);
+
+    /**
+     * @see CacheApi#decr(Object)
+     */
+    CompletableFuture<Long> decr(K key);
+
+    /**
+     * @see CacheApi#decrBy(Object, long)
+     */
+    CompletableFuture<Long> decrBy(K key, long value);
+
+    /**
+     * @see CacheApi#rename(Object, Object)
+     */
+    CompletableFuture<String> rename(K oldKey, K newKey);
+
+    /**
+     * @see CacheApi#rename(Object, Object, RedisConstant.Operation)
+     */
+    CompletableFuture<String> rename(K oldKey, K newKey, RedisConstant.Operation operation);
+
+    /**
+     * @see CacheApi#append(Object, Object)
+     */
+    CompletableFuture<Long> append(K key, V value);
+
+    /**
+     * @see CacheApi#flushDB()
+     */
+    CompletableFuture<Void> flushDB();
+
+    /**
+     * @see CacheApi#dbSize()
+     */
+    CompletableFuture<Long> dbSize();
+
+    /**
+     * @see CacheApi#ping()
+     */
+    CompletableFuture<String> ping();
+
+    /**
+     * @see CacheApi#hSet(Object, Object, Object)
+     */
+    <HK, HV> CompletableFuture<Boolean> hSet(K key, HK field, HV value);
+
+    /**
+     * @see CacheApi#hGet(Object, Object)
+     */
+    <HK, HV> CompletableFuture<HV> hGet(K key, HK field);
+
+    /**
+     * @see CacheApi#hExists(Object, Object)
+     */
+    <HK> CompletableFuture<Boolean> hExists(K key, HK field);
+
+    /**
+     * @see CacheApi#hKeys(Object)
+     */
+    <HK> CompletableFuture<Set<HK>> hKeys(K key);
+
+    /**
+     * @see CacheApi#hDel(Object, Object[])
+     */
+    @SuppressWarnings("unchecked")
+    <HK> CompletableFuture<Long> hDel(K key, HK... fields);
+
+    /**
+     * @see CacheApi#hMSet(Object, Map)
+     */
+    CompletableFuture<Void> hMSet(K key, Map<String, Object> hashes);
+
+    /**
+     * @see CacheApi#hGetAll(Object)
+     */
+    <HK, HV> CompletableFuture<Map<HK, HV>> hGetAll(K key);
+
+    /**
+     * @see CacheApi#lPush(Object, Object[])
+     */
+    @SuppressWarnings("unchecked")
+    CompletableFuture<Long> lPush(K key, V... values);
+
+    /**
+     * @see CacheApi#lRange(Object, long, long)
+     */
+    CompletableFuture<List<V>> lRange(K key, long begin, long end);
+
+    /**
+     * @see CacheApi#lRem(Object, long, Object)
+     */
+    CompletableFuture<Long> lRem(K key, long count, V value);
+
+    /**
+     * @see CacheApi#lTrim(Object, long, long)
+     */
+    CompletableFuture<Void> lTrim(K key, long begin, long end);
+
+    /**
+     * @see CacheApi#lPop(Object)
+     */
+    CompletableFuture<V> lPop(K key);
+
+    /**
+     * @see CacheApi#lLen(Object)
+     */
+    CompletableFuture<Long> lLen(K key);
+
+    /**
+     * @see CacheApi#eval(String, int, String...)
+     */
+    CompletableFuture<Object> eval(String script, int keyCount, String... params);
+
+}
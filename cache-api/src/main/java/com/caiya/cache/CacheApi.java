@@ -1,10 +1,13 @@
 package com.caiya.cache;
 
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Cache Api.
@@ -82,6 +85,34 @@ public interface CacheApi<K, V> {
      */
     String set(K key, V value, SetOption setOption, long expirationTime, TimeUnit timeUnit);
 
+    /**
+     * Set all given {@code entries}, each of them expires after {@code ttl}.
+     * Compatibility for cluster mode.
+     * <p>
+     * See http://redis.io/commands/setex
+     * See http://redis.io/commands/psetex
+     *
+     * @param entries the cache keys and values, must not be {@literal null}.
+     * @param ttl     live time, {@literal null}, zero or negative means never expires.
+     * @return the failure of each key that could not be set, empty if all succeeded.
+     * @since 1.2
+     */
+    Map<K, Exception> mSet(Map<K, V> entries, Duration ttl);
+
+    /**
+     * Set all given {@code entries}, each of them expires after the live time computed by {@code ttlFunction}.
+     * Compatibility for cluster mode.
+     * <p>
+     * See http://redis.io/commands/setex
+     * See http://redis.io/commands/psetex
+     *
+     * @param entries     the cache keys and values, must not be {@literal null}.
+     * @param ttlFunction live time of each key, {@literal null}, zero or negative means never expires.
+     * @return the failure of each key that could not be set, empty if all succeeded.
+     * @since 1.2
+     */
+    Map<K, Exception> mSet(Map<K, V> entries, Function<? super K, Duration> ttlFunction);
+
     /**
      * Get the value of {@code key}.
      * <p>
@@ -92,6 +123,34 @@ public interface CacheApi<K, V> {
      */
     V get(K key);
 
+    /**
+     * Get the value of {@code key}, on a miss the value computed by {@code loader} is set with live time {@code ttl}
+     * and returned. A hit near its expiration is returned as well while a single reload of the key runs in the
+     * background (refresh-ahead), so that callers do not wait for the loader when a hot key expires.
+     * <p>
+     * See http://redis.io/commands/get
+     * See http://redis.io/commands/ttl
+     *
+     * @param key    the cache key
+     * @param loader computes the value of a key, a {@literal null} value is not cached, must not be {@literal null}.
+     * @param ttl    live time of the loaded values, must be positive.
+     * @return the cache value or the loaded value
+     * @since 1.2
+     */
+    V get(K key, Function<? super K, ? extends V> loader, Duration ttl);
+
+    /**
+     * Get the values of all given {@code keys}.
+     * Compatibility for cluster mode.
+     * <p>
+     * See http://redis.io/commands/mget
+     *
+     * @param keys the cache keys, must not be {@literal null}.
+     * @return the cache values by key, keys that do not exist are absent.
+     * @since 1.2
+     */
+    Map<K, V> mGet(Collection<K> keys);
+
     /**
      * Find all keys matching the given {@code pattern}.
      * <p>
@@ -0,0 +1,84 @@
+package com.caiya.cache.benchmark;
+
+import com.caiya.cache.redis.ClientEngine;
+import com.caiya.cache.redis.JedisConnectionFactory;
+import com.caiya.cache.redis.embedded.EmbeddedRedisServer;
+import com.caiya.serialization.Serializer;
+import redis.clients.jedis.HostAndPort;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Connection settings shared by the benchmarks.
+ * <p>
+ * The Redis nodes are read from the system property {@value #NODES_PROPERTY} ("host:port" separated by commas).
+ * {@link com.caiya.cache.redis.JedisCache} talks to Redis Cluster only, a single local redis-server needs
+ * {@code cluster-enabled yes} and all slots assigned to it. Without the property an {@link EmbeddedRedisServer} of
+ * {@value #EMBEDDED_NODE_COUNT} nodes is started in the benchmark JVM, its latency per round trip is read from
+ * {@value #LATENCY_PROPERTY} (microseconds, 0 by default).
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class BenchmarkSupport {
+
+    static final String NODES_PROPERTY = "cache.benchmark.nodes";
+
+    static final String LATENCY_PROPERTY = "cache.benchmark.latencyMicros";
+
+    static final int EMBEDDED_NODE_COUNT = 3;
+
+    private static EmbeddedRedisServer embeddedServer;
+
+    private BenchmarkSupport() {
+    }
+
+    static Set<HostAndPort> clusterNodes() {
+        String nodes = System.getProperty(NODES_PROPERTY);
+        if (nodes == null) {
+            nodes = String.join(",", embeddedServer().getNodes());
+        }
+        return JedisConnectionFactory.parseClusterNodes(nodes);
+    }
+
+    /**
+     * @return the embedded server, started on first use and shared by the benchmarks of the JVM.
+     */
+    static synchronized EmbeddedRedisServer embeddedServer() {
+        if (embeddedServer == null) {
+            EmbeddedRedisServer server = new EmbeddedRedisServer(EMBEDDED_NODE_COUNT);
+            server.setLatency(Duration.ofNanos(Long.getLong(LATENCY_PROPERTY, 0) * 1000));
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            embeddedServer = server;
+        }
+        return embeddedServer;
+    }
+
+    static JedisConnectionFactory connectionFactory(ClientEngine clientEngine, Serializer<?> keySerializer,
+                                                    Serializer<?> valueSerializer) {
+        JedisConnectionFactory connectionFactory = new JedisConnectionFactory(clusterNodes());
+        connectionFactory.setClientEngine(clientEngine);
+        connectionFactory.setKeySerializer(keySerializer);
+        connectionFactory.setValueSerializer(valueSerializer);
+        connectionFactory.setHashKeySerializer(keySerializer);
+        connectionFactory.setHashValueSerializer(valueSerializer);
+        connectionFactory.afterPropertiesSet();
+        return connectionFactory;
+    }
+
+    static String repeat(char c, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+}
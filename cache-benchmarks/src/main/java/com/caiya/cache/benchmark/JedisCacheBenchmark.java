@@ -0,0 +1,87 @@
+package com.caiya.cache.benchmark;
+
+import com.caiya.cache.Cache;
+import com.caiya.cache.redis.ClientEngine;
+import com.caiya.cache.redis.JedisConnectionFactory;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single key commands of the cache client, per client engine.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class JedisCacheBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"JEDIS", "NIO"})
+    private ClientEngine clientEngine;
+
+    @Param({"16", "1024"})
+    private int valueSize;
+
+    private JedisConnectionFactory connectionFactory;
+
+    private Cache<String, Object> cache;
+
+    private String[] keys;
+
+    private String[] missingKeys;
+
+    private String value;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        connectionFactory = BenchmarkSupport.connectionFactory(clientEngine, new StringSerializer(),
+                new JdkSerializationSerializer());
+        cache = (Cache<String, Object>) connectionFactory.getClusterConnection().getNativeConnection();
+
+        value = BenchmarkSupport.repeat('v', valueSize);
+        keys = new String[KEY_COUNT];
+        missingKeys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "benchmark:cache:" + i;
+            missingKeys[i] = "benchmark:cache:missing:" + i;
+            cache.set(keys[i], value, 600);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.del(keys);
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    public void set() {
+        cache.set(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)], value, 600);
+    }
+
+    /**
+     * Deletes missing keys, so that every invocation does the same work.
+     */
+    @Benchmark
+    public long del() {
+        return cache.del(missingKeys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+
+}
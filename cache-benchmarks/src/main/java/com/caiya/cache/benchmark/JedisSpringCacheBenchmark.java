@@ -0,0 +1,85 @@
+package com.caiya.cache.benchmark;
+
+import com.caiya.cache.redis.ClientEngine;
+import com.caiya.cache.redis.JedisConnectionFactory;
+import com.caiya.cache.redis.springx.JedisCacheConfiguration;
+import com.caiya.cache.redis.springx.JedisCacheManager;
+import com.caiya.cache.redis.springx.JedisCacheWriter;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup and put of the Spring cache, with and without the near cache tier.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class JedisSpringCacheBenchmark {
+
+    private static final int KEY_COUNT = 1024;
+
+    @Param({"0", "2048"})
+    private int nearCacheMaxSize;
+
+    private JedisConnectionFactory connectionFactory;
+
+    private Cache cache;
+
+    private String[] keys;
+
+    private final String value = BenchmarkSupport.repeat('v', 128);
+
+    @Setup
+    public void setUp() {
+        connectionFactory = BenchmarkSupport.connectionFactory(ClientEngine.JEDIS, new StringSerializer(),
+                new JdkSerializationSerializer());
+        JedisCacheConfiguration cacheConfiguration = JedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofMinutes(10));
+        if (nearCacheMaxSize > 0) {
+            cacheConfiguration = cacheConfiguration.enableNearCache(nearCacheMaxSize, Duration.ofMinutes(1));
+        }
+        JedisCacheManager cacheManager = new JedisCacheManager(
+                JedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), cacheConfiguration)
+                .setDefaultCacheName("benchmark");
+        cacheManager.afterPropertiesSet();
+        cache = cacheManager.getCache("benchmark");
+
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key:" + i;
+            cache.put(keys[i], value);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (String key : keys) {
+            cache.evict(key);
+        }
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public Object lookup() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)]);
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(keys[ThreadLocalRandom.current().nextInt(KEY_COUNT)], value);
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.caiya.cache.benchmark;
+
+import com.caiya.cache.redis.KeyEncoder;
+import com.caiya.cache.redis.RedisCacheKey;
+import com.caiya.serialization.Serializer;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key encoding done for every command.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCacheKeyBenchmark {
+
+    @Param({"", "caiya_cache:"})
+    private String prefix;
+
+    private byte[] prefixBytes;
+
+    private final Serializer<String> keySerializer = new StringSerializer();
+
+    private final String key = "UserService:getUser:tomcat";
+
+    private KeyEncoder keyEncoder;
+
+    @Setup
+    public void setUp() {
+        prefixBytes = prefix.isEmpty() ? null : prefix.getBytes(StandardCharsets.UTF_8);
+        keyEncoder = new KeyEncoder(prefixBytes, keySerializer);
+    }
+
+    @Benchmark
+    public byte[] getKeyBytes() {
+        return new RedisCacheKey(key).usePrefix(prefixBytes).withKeySerializer(keySerializer).getKeyBytes();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return keyEncoder.encode(key);
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.caiya.cache.benchmark;
+
+import com.caiya.cache.CacheApi;
+import com.caiya.cache.redis.ClientEngine;
+import com.caiya.cache.redis.JedisConnectionFactory;
+import com.caiya.cache.redis.lock.RedisLock;
+import com.caiya.cache.redis.lock.RedisLockFactory;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Acquire/release cycle of {@link RedisLock}: every thread on its own lock (uncontended) and all threads on one lock
+ * (contended).
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class RedisLockBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LockFactoryState {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        private JedisConnectionFactory connectionFactory;
+
+        private RedisLockFactory lockFactory;
+
+        private RedisLock sharedLock;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setUp() {
+            StringSerializer stringSerializer = new StringSerializer();
+            connectionFactory = BenchmarkSupport.connectionFactory(ClientEngine.JEDIS, stringSerializer, stringSerializer);
+            lockFactory = RedisLockFactory.create(
+                    (CacheApi<String, String>) connectionFactory.getClusterConnection().getNativeConnection());
+            sharedLock = lockFactory.buildLock("benchmark:lock:shared");
+        }
+
+        @TearDown
+        public void tearDown() {
+            connectionFactory.destroy();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadLockState {
+
+        private RedisLock lock;
+
+        @Setup
+        public void setUp(LockFactoryState lockFactoryState) {
+            lock = lockFactoryState.lockFactory.buildLock("benchmark:lock:" + lockFactoryState.threadNumber.incrementAndGet());
+        }
+    }
+
+    @Benchmark
+    public void uncontended(ThreadLockState state) {
+        state.lock.lock();
+        state.lock.unlock();
+    }
+
+    @Benchmark
+    public void contended(LockFactoryState state) {
+        state.sharedLock.lock();
+        state.sharedLock.unlock();
+    }
+
+}
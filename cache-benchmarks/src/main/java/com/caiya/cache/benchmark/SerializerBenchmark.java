@@ -0,0 +1,165 @@
+package com.caiya.cache.benchmark;
+
+import com.caiya.cache.redis.serializer.KryoSerializer;
+import com.caiya.serialization.Serializer;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializers used for keys and values, the serialize benchmarks report the payload size as secondary result
+ * {@code bytes}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"16", "1024"})
+    private int valueSize;
+
+    private final Serializer<String> stringSerializer = new StringSerializer();
+
+    private final Serializer<Object> jdkSerializer = new JdkSerializationSerializer();
+
+    private final Serializer<Object> kryoSerializer = new KryoSerializer<>(User.class, ArrayList.class);
+
+    private String string;
+
+    private byte[] stringBytes;
+
+    private Map<String, Object> object;
+
+    private byte[] objectBytes;
+
+    private byte[] kryoObjectBytes;
+
+    private User user;
+
+    private byte[] userBytes;
+
+    private byte[] kryoUserBytes;
+
+    @Setup
+    public void setUp() {
+        string = BenchmarkSupport.repeat('v', valueSize);
+        stringBytes = stringSerializer.serialize(string);
+
+        object = new HashMap<>();
+        object.put("id", 12345L);
+        object.put("name", "tomcat");
+        object.put("payload", string);
+        objectBytes = jdkSerializer.serialize(object);
+        kryoObjectBytes = kryoSerializer.serialize(object);
+
+        user = new User(12345L, "tomcat", string);
+        userBytes = jdkSerializer.serialize(user);
+        kryoUserBytes = kryoSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public byte[] stringSerialize(PayloadSize payloadSize) {
+        return payloadSize.of(stringSerializer.serialize(string));
+    }
+
+    @Benchmark
+    public String stringDeserialize() {
+        return stringSerializer.deserialize(stringBytes);
+    }
+
+    @Benchmark
+    public byte[] jdkSerialize(PayloadSize payloadSize) {
+        return payloadSize.of(jdkSerializer.serialize(object));
+    }
+
+    @Benchmark
+    public Object jdkDeserialize() {
+        return jdkSerializer.deserialize(objectBytes);
+    }
+
+    @Benchmark
+    public byte[] kryoSerialize(PayloadSize payloadSize) {
+        return payloadSize.of(kryoSerializer.serialize(object));
+    }
+
+    @Benchmark
+    public Object kryoDeserialize() {
+        return kryoSerializer.deserialize(kryoObjectBytes);
+    }
+
+    @Benchmark
+    public byte[] jdkSerializeUser(PayloadSize payloadSize) {
+        return payloadSize.of(jdkSerializer.serialize(user));
+    }
+
+    @Benchmark
+    public Object jdkDeserializeUser() {
+        return jdkSerializer.deserialize(userBytes);
+    }
+
+    @Benchmark
+    public byte[] kryoSerializeUser(PayloadSize payloadSize) {
+        return payloadSize.of(kryoSerializer.serialize(user));
+    }
+
+    @Benchmark
+    public Object kryoDeserializeUser() {
+        return kryoSerializer.deserialize(kryoUserBytes);
+    }
+
+    /**
+     * Size of the serialized payload, reported as is.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long bytes;
+
+        byte[] of(byte[] payload) {
+            bytes = payload.length;
+            return payload;
+        }
+    }
+
+    /**
+     * A typical cached value object.
+     */
+    public static class User implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long id;
+
+        private String name;
+
+        private String description;
+
+        private List<String> roles = new ArrayList<>();
+
+        public User() {
+        }
+
+        User(long id, String name, String description) {
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.roles.add("admin");
+            this.roles.add("user");
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package com.caiya.cache.redis.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One client connection of a node, served by its own thread.
+ * <p>
+ * The replies of the commands read so far are flushed when the client has sent nothing more, after the configured
+ * latency. The latency is thus paid once per round trip, pipelined commands share it.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class ClientConnection implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientConnection.class);
+
+    private static final byte[] SUBSCRIBE = Commands.bytes("subscribe");
+
+    private static final byte[] UNSUBSCRIBE = Commands.bytes("unsubscribe");
+
+    private final EmbeddedNode node;
+
+    private final Socket socket;
+
+    private final InputStream in;
+
+    private final OutputStream out;
+
+    private final Set<ByteBuffer> channels = new LinkedHashSet<>();
+
+    private volatile boolean quit;
+
+    ClientConnection(EmbeddedNode node, Socket socket) throws IOException {
+        this.node = node;
+        this.socket = socket;
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!quit) {
+                List<byte[]> command = Resp.readCommand(in);
+                if (command == null) {
+                    break;
+                }
+                if (command.isEmpty()) {
+                    continue;
+                }
+                Object reply;
+                try {
+                    reply = node.execute(this, command);
+                } catch (CommandError e) {
+                    reply = e;
+                }
+                if (reply != Commands.NO_REPLY) {
+                    write(reply, false);
+                }
+                if (in.available() == 0) {
+                    node.getServer().awaitLatency();
+                    flush();
+                }
+            }
+            flush();
+        } catch (IOException e) {
+            logger.debug("connection closed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close();
+        }
+    }
+
+    boolean isSubscribed() {
+        synchronized (channels) {
+            return !channels.isEmpty();
+        }
+    }
+
+    void subscribe(byte[] channel) {
+        synchronized (channels) {
+            channels.add(ByteBuffer.wrap(channel));
+            node.getServer().subscribe(channel, this);
+            write(Arrays.asList(SUBSCRIBE, channel, (long) channels.size()), false);
+        }
+    }
+
+    /**
+     * @param unsubscribed the channels, all channels if empty
+     */
+    void unsubscribe(List<byte[]> unsubscribed) {
+        synchronized (channels) {
+            List<byte[]> targets = new ArrayList<>(unsubscribed);
+            if (targets.isEmpty()) {
+                for (ByteBuffer channel : channels) {
+                    targets.add(channel.array());
+                }
+            }
+            if (targets.isEmpty()) {
+                write(Arrays.asList(UNSUBSCRIBE, null, 0L), false);
+            }
+            for (byte[] channel : targets) {
+                channels.remove(ByteBuffer.wrap(channel));
+                node.getServer().unsubscribe(channel, this);
+                write(Arrays.asList(UNSUBSCRIBE, channel, (long) channels.size()), false);
+            }
+        }
+    }
+
+    /**
+     * Write and flush a reply not solicited by a command, i.e. a published message.
+     */
+    void push(Object reply) {
+        write(reply, true);
+    }
+
+    void quit() {
+        quit = true;
+    }
+
+    void close() {
+        quit = true;
+        List<byte[]> subscribed = new ArrayList<>();
+        synchronized (channels) {
+            for (ByteBuffer channel : channels) {
+                subscribed.add(channel.array());
+            }
+            channels.clear();
+        }
+        for (byte[] channel : subscribed) {
+            node.getServer().unsubscribe(channel, this);
+        }
+        closeSocket();
+        node.removeClient(this);
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private void write(Object reply, boolean flush) {
+        synchronized (out) {
+            try {
+                Resp.writeReply(out, reply);
+                if (flush) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                logger.debug("write failed: {}", e.getMessage());
+                // the serving thread ends on the closed socket
+                closeSocket();
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.caiya.cache.redis.embedded;
+
+/**
+ * Error reply of a command, the message starts with the error code, e.g. {@code WRONGTYPE} or {@code MOVED}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class CommandError extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CommandError(String message) {
+        super(message, null, false, false);
+    }
+
+    static CommandError wrongType() {
+        return new CommandError("WRONGTYPE Operation against a key holding the wrong kind of value");
+    }
+
+    static CommandError wrongArguments(String command) {
+        return new CommandError("ERR wrong number of arguments for '" + command.toLowerCase() + "' command");
+    }
+
+    static CommandError notInteger() {
+        return new CommandError("ERR value is not an integer or out of range");
+    }
+
+    static CommandError syntax() {
+        return new CommandError("ERR syntax error");
+    }
+
+}
@@ -0,0 +1,712 @@
+package com.caiya.cache.redis.embedded;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The commands understood by the embedded server, executed against the keyspace of one node.
+ * <p>
+ * Keyed commands check that their keys belong to the node and reply {@code MOVED} otherwise, multi-key commands
+ * reply {@code CROSSSLOT} for keys of different slots, like Redis Cluster does.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class Commands {
+
+    /**
+     * The command has written its replies itself, e.g. {@code SUBSCRIBE}.
+     */
+    static final Object NO_REPLY = new Object();
+
+    private static final String OK = "OK";
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final EmbeddedNode node;
+
+    private final Keyspace keyspace;
+
+    Commands(EmbeddedNode node, Keyspace keyspace) {
+        this.node = node;
+        this.keyspace = keyspace;
+    }
+
+    static String name(List<byte[]> command) {
+        return new String(command.get(0), StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Execute a command, the caller holds the lock of the keyspace.
+     *
+     * @param client  the issuing connection, {@literal null} for commands of a script
+     * @param name    the command name in upper case
+     * @param command the command name and its arguments
+     * @return the reply
+     * @throws CommandError on an error reply
+     */
+    Object execute(ClientConnection client, String name, List<byte[]> command) {
+        if (client != null && client.isSubscribed() && !isAllowedWhenSubscribed(name)) {
+            throw new CommandError("ERR only (P)SUBSCRIBE / (P)UNSUBSCRIBE / PING / QUIT allowed in this context");
+        }
+        switch (name) {
+            // connection
+            case "PING":
+                if (client != null && client.isSubscribed()) {
+                    return Arrays.asList(bytes("pong"), command.size() > 1 ? command.get(1) : EMPTY);
+                }
+                return command.size() > 1 ? command.get(1) : "PONG";
+            case "ECHO":
+                arity(command, 2, 2);
+                return command.get(1);
+            case "AUTH":
+            case "ASKING":
+            case "READONLY":
+            case "READWRITE":
+                return OK;
+            case "SELECT":
+                arity(command, 2, 2);
+                if (parseLong(command.get(1)) != 0) {
+                    throw new CommandError("ERR SELECT is not allowed in cluster mode");
+                }
+                return OK;
+            case "CLIENT":
+                arity(command, 2, Integer.MAX_VALUE);
+                return "GETNAME".equals(upper(command.get(1))) ? null : OK;
+            case "QUIT":
+                client.quit();
+                return OK;
+            case "INFO":
+                return bytes("# Server\r\nredis_version:5.0.0\r\nredis_mode:cluster\r\ntcp_port:" + node.getPort()
+                        + "\r\n\r\n# Keyspace\r\ndb0:keys=" + keyspace.size() + "\r\n");
+            case "TIME": {
+                long micros = System.currentTimeMillis() * 1000;
+                return Arrays.asList(bytes(micros / 1000000), bytes(micros % 1000000));
+            }
+            case "CLUSTER":
+                return cluster(command);
+
+            // keyspace
+            case "DBSIZE":
+                return (long) keyspace.size();
+            case "FLUSHDB":
+            case "FLUSHALL":
+                keyspace.clear();
+                return OK;
+            case "KEYS":
+                arity(command, 2, 2);
+                return keyspace.keys(command.get(1));
+            case "SCAN":
+                return scan(command);
+            case "DEL":
+            case "UNLINK": {
+                arity(command, 2, Integer.MAX_VALUE);
+                long removed = 0;
+                for (byte[] key : keys(command, 1, command.size())) {
+                    removed += keyspace.remove(key) ? 1 : 0;
+                }
+                return removed;
+            }
+            case "EXISTS": {
+                arity(command, 2, Integer.MAX_VALUE);
+                long exists = 0;
+                for (byte[] key : keys(command, 1, command.size())) {
+                    exists += keyspace.get(key) != null ? 1 : 0;
+                }
+                return exists;
+            }
+            case "TYPE":
+                arity(command, 2, 2);
+                return type(keyspace.get(key(command, 1)));
+            case "EXPIRE":
+            case "PEXPIRE": {
+                arity(command, 3, 3);
+                Keyspace.Entry entry = keyspace.get(key(command, 1));
+                if (entry == null) {
+                    return 0L;
+                }
+                long ttl = parseLong(command.get(2));
+                entry.expireAt = System.currentTimeMillis() + ("EXPIRE".equals(name) ? ttl * 1000 : ttl);
+                return 1L;
+            }
+            case "PERSIST": {
+                arity(command, 2, 2);
+                Keyspace.Entry entry = keyspace.get(key(command, 1));
+                if (entry == null || entry.expireAt == -1) {
+                    return 0L;
+                }
+                entry.expireAt = -1;
+                return 1L;
+            }
+            case "TTL":
+            case "PTTL": {
+                arity(command, 2, 2);
+                Keyspace.Entry entry = keyspace.get(key(command, 1));
+                if (entry == null) {
+                    return -2L;
+                }
+                if (entry.expireAt == -1) {
+                    return -1L;
+                }
+                long millis = Math.max(entry.expireAt - System.currentTimeMillis(), 0);
+                return "TTL".equals(name) ? (millis + 500) / 1000 : millis;
+            }
+            case "RENAME": {
+                arity(command, 3, 3);
+                List<byte[]> keys = keys(command, 1, 3);
+                Keyspace.Entry entry = keyspace.get(keys.get(0));
+                if (entry == null) {
+                    throw new CommandError("ERR no such key");
+                }
+                long expireAt = entry.expireAt;
+                keyspace.remove(keys.get(0));
+                keyspace.put(keys.get(1), entry.value).expireAt = expireAt;
+                return OK;
+            }
+
+            // strings
+            case "GET":
+                arity(command, 2, 2);
+                return keyspace.getValue(key(command, 1), byte[].class);
+            case "SET":
+                return set(command);
+            case "SETEX":
+            case "PSETEX": {
+                arity(command, 4, 4);
+                long ttl = parseLong(command.get(2));
+                if (ttl <= 0) {
+                    throw new CommandError("ERR invalid expire time in " + name.toLowerCase(Locale.ROOT));
+                }
+                keyspace.put(key(command, 1), command.get(3)).expireAt =
+                        System.currentTimeMillis() + ("SETEX".equals(name) ? ttl * 1000 : ttl);
+                return OK;
+            }
+            case "SETNX":
+                arity(command, 3, 3);
+                if (keyspace.get(key(command, 1)) != null) {
+                    return 0L;
+                }
+                keyspace.put(command.get(1), command.get(2));
+                return 1L;
+            case "GETSET": {
+                arity(command, 3, 3);
+                byte[] previous = keyspace.getValue(key(command, 1), byte[].class);
+                keyspace.put(command.get(1), command.get(2));
+                return previous;
+            }
+            case "MGET": {
+                arity(command, 2, Integer.MAX_VALUE);
+                List<Object> values = new ArrayList<>();
+                for (byte[] key : keys(command, 1, command.size())) {
+                    Keyspace.Entry entry = keyspace.get(key);
+                    values.add(entry != null && entry.value instanceof byte[] ? entry.value : null);
+                }
+                return values;
+            }
+            case "MSET":
+                if (command.size() < 3 || command.size() % 2 == 0) {
+                    throw CommandError.wrongArguments(name);
+                }
+                checkSameSlot(everyOther(command, 1));
+                for (int i = 1; i < command.size(); i += 2) {
+                    keyspace.put(command.get(i), command.get(i + 1));
+                }
+                return OK;
+            case "INCR":
+                arity(command, 2, 2);
+                return incrBy(key(command, 1), 1);
+            case "DECR":
+                arity(command, 2, 2);
+                return incrBy(key(command, 1), -1);
+            case "INCRBY":
+                arity(command, 3, 3);
+                return incrBy(key(command, 1), parseLong(command.get(2)));
+            case "DECRBY":
+                arity(command, 3, 3);
+                return incrBy(key(command, 1), -parseLong(command.get(2)));
+            case "APPEND": {
+                arity(command, 3, 3);
+                Keyspace.Entry entry = keyspace.get(key(command, 1));
+                if (entry != null && !(entry.value instanceof byte[])) {
+                    throw CommandError.wrongType();
+                }
+                byte[] previous = entry != null ? (byte[]) entry.value : EMPTY;
+                byte[] appended = Arrays.copyOf(previous, previous.length + command.get(2).length);
+                System.arraycopy(command.get(2), 0, appended, previous.length, command.get(2).length);
+                if (entry != null) {
+                    entry.value = appended;
+                } else {
+                    keyspace.put(command.get(1), appended);
+                }
+                return (long) appended.length;
+            }
+            case "STRLEN": {
+                arity(command, 2, 2);
+                byte[] value = keyspace.getValue(key(command, 1), byte[].class);
+                return value != null ? (long) value.length : 0L;
+            }
+
+            // hashes
+            case "HSET":
+            case "HMSET":
+            case "HSETNX": {
+                if (command.size() < 4 || command.size() % 2 != 0 || "HSETNX".equals(name) && command.size() != 4) {
+                    throw CommandError.wrongArguments(name);
+                }
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), true);
+                long added = 0;
+                for (int i = 2; i < command.size(); i += 2) {
+                    ByteBuffer field = ByteBuffer.wrap(command.get(i));
+                    if ("HSETNX".equals(name) && hash.containsKey(field)) {
+                        continue;
+                    }
+                    added += hash.put(field, command.get(i + 1)) == null ? 1 : 0;
+                }
+                return "HMSET".equals(name) ? OK : added;
+            }
+            case "HGET": {
+                arity(command, 3, 3);
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), false);
+                return hash != null ? hash.get(ByteBuffer.wrap(command.get(2))) : null;
+            }
+            case "HMGET": {
+                arity(command, 3, Integer.MAX_VALUE);
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), false);
+                List<Object> values = new ArrayList<>();
+                for (byte[] field : command.subList(2, command.size())) {
+                    values.add(hash != null ? hash.get(ByteBuffer.wrap(field)) : null);
+                }
+                return values;
+            }
+            case "HGETALL":
+            case "HKEYS":
+            case "HVALS": {
+                arity(command, 2, 2);
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), false);
+                List<Object> reply = new ArrayList<>();
+                if (hash != null) {
+                    for (Map.Entry<ByteBuffer, byte[]> field : hash.entrySet()) {
+                        if (!"HVALS".equals(name)) {
+                            reply.add(field.getKey().array());
+                        }
+                        if (!"HKEYS".equals(name)) {
+                            reply.add(field.getValue());
+                        }
+                    }
+                }
+                return reply;
+            }
+            case "HDEL": {
+                arity(command, 3, Integer.MAX_VALUE);
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), false);
+                if (hash == null) {
+                    return 0L;
+                }
+                long removed = 0;
+                for (byte[] field : command.subList(2, command.size())) {
+                    removed += hash.remove(ByteBuffer.wrap(field)) != null ? 1 : 0;
+                }
+                removeIfEmpty(command.get(1), hash.isEmpty());
+                return removed;
+            }
+            case "HEXISTS": {
+                arity(command, 3, 3);
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), false);
+                return hash != null && hash.containsKey(ByteBuffer.wrap(command.get(2))) ? 1L : 0L;
+            }
+            case "HLEN": {
+                arity(command, 2, 2);
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), false);
+                return hash != null ? (long) hash.size() : 0L;
+            }
+            case "HINCRBY": {
+                arity(command, 4, 4);
+                Map<ByteBuffer, byte[]> hash = hash(key(command, 1), true);
+                ByteBuffer field = ByteBuffer.wrap(command.get(2));
+                byte[] value = hash.get(field);
+                long incremented = (value != null ? parseLong(value) : 0) + parseLong(command.get(3));
+                hash.put(field, bytes(incremented));
+                return incremented;
+            }
+
+            // lists
+            case "LPUSH":
+            case "RPUSH": {
+                arity(command, 3, Integer.MAX_VALUE);
+                LinkedList<byte[]> list = list(key(command, 1), true);
+                for (byte[] value : command.subList(2, command.size())) {
+                    if ("LPUSH".equals(name)) {
+                        list.addFirst(value);
+                    } else {
+                        list.addLast(value);
+                    }
+                }
+                return (long) list.size();
+            }
+            case "LPOP":
+            case "RPOP": {
+                arity(command, 2, 2);
+                LinkedList<byte[]> list = list(key(command, 1), false);
+                if (list == null) {
+                    return null;
+                }
+                byte[] value = "LPOP".equals(name) ? list.removeFirst() : list.removeLast();
+                removeIfEmpty(command.get(1), list.isEmpty());
+                return value;
+            }
+            case "LLEN": {
+                arity(command, 2, 2);
+                LinkedList<byte[]> list = list(key(command, 1), false);
+                return list != null ? (long) list.size() : 0L;
+            }
+            case "LINDEX": {
+                arity(command, 3, 3);
+                LinkedList<byte[]> list = list(key(command, 1), false);
+                if (list == null) {
+                    return null;
+                }
+                long index = parseLong(command.get(2));
+                index = index < 0 ? list.size() + index : index;
+                return index >= 0 && index < list.size() ? list.get((int) index) : null;
+            }
+            case "LRANGE": {
+                arity(command, 4, 4);
+                LinkedList<byte[]> list = list(key(command, 1), false);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                int[] range = range(list.size(), parseLong(command.get(2)), parseLong(command.get(3)));
+                return new ArrayList<Object>(list.subList(range[0], range[1]));
+            }
+            case "LTRIM": {
+                arity(command, 4, 4);
+                LinkedList<byte[]> list = list(key(command, 1), false);
+                if (list == null) {
+                    return OK;
+                }
+                int[] range = range(list.size(), parseLong(command.get(2)), parseLong(command.get(3)));
+                List<byte[]> kept = new ArrayList<>(list.subList(range[0], range[1]));
+                list.clear();
+                list.addAll(kept);
+                removeIfEmpty(command.get(1), list.isEmpty());
+                return OK;
+            }
+            case "LREM": {
+                arity(command, 4, 4);
+                LinkedList<byte[]> list = list(key(command, 1), false);
+                if (list == null) {
+                    return 0L;
+                }
+                long count = parseLong(command.get(2));
+                long removed = 0;
+                Iterator<byte[]> iterator = count < 0 ? list.descendingIterator() : list.iterator();
+                while (iterator.hasNext() && (count == 0 || removed < Math.abs(count))) {
+                    if (Arrays.equals(iterator.next(), command.get(3))) {
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+                removeIfEmpty(command.get(1), list.isEmpty());
+                return removed;
+            }
+
+            // scripting
+            case "EVAL":
+            case "EVALSHA": {
+                arity(command, 3, Integer.MAX_VALUE);
+                int keyCount = (int) parseLong(command.get(2));
+                if (keyCount < 0 || keyCount > command.size() - 3) {
+                    throw new CommandError("ERR Number of keys can't be greater than number of args");
+                }
+                requireClient(client, name);
+                LuaScripting scripting = node.getServer().getScripting();
+                String sha = "EVAL".equals(name) ? scripting.load(command.get(1))
+                        : new String(command.get(1), StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+                List<byte[]> keys = keyCount > 0 ? keys(command, 3, 3 + keyCount) : Collections.emptyList();
+                return scripting.eval(sha, this::call, keys, command.subList(3 + keyCount, command.size()));
+            }
+            case "SCRIPT":
+                return script(command);
+
+            // pub/sub
+            case "PUBLISH":
+                arity(command, 3, 3);
+                return (long) node.getServer().publish(command.get(1), command.get(2));
+            case "SUBSCRIBE":
+                arity(command, 2, Integer.MAX_VALUE);
+                requireClient(client, name);
+                for (byte[] channel : command.subList(1, command.size())) {
+                    client.subscribe(channel);
+                }
+                return NO_REPLY;
+            case "UNSUBSCRIBE":
+                requireClient(client, name);
+                client.unsubscribe(command.subList(1, command.size()));
+                return NO_REPLY;
+
+            default:
+                throw new CommandError("ERR unknown command '" + name.toLowerCase(Locale.ROOT) + "'");
+        }
+    }
+
+    private Object call(List<byte[]> command) {
+        return execute(null, name(command), command);
+    }
+
+    private Object cluster(List<byte[]> command) {
+        arity(command, 2, Integer.MAX_VALUE);
+        switch (upper(command.get(1))) {
+            case "SLOTS": {
+                List<Object> slots = new ArrayList<>();
+                for (EmbeddedNode each : node.getServer().getClusterNodes()) {
+                    slots.add(Arrays.asList((long) each.getFirstSlot(), (long) each.getLastSlot(),
+                            Arrays.asList(bytes(each.getHost()), (long) each.getPort(), bytes(each.getId()))));
+                }
+                return slots;
+            }
+            case "NODES": {
+                StringBuilder nodes = new StringBuilder();
+                for (EmbeddedNode each : node.getServer().getClusterNodes()) {
+                    nodes.append(each.getId()).append(' ').append(each.getAddress()).append('@')
+                            .append(each.getPort() + 10000).append(each == node ? " myself,master" : " master")
+                            .append(" - 0 0 1 connected ").append(each.getFirstSlot()).append('-')
+                            .append(each.getLastSlot()).append('\n');
+                }
+                return bytes(nodes.toString());
+            }
+            case "INFO":
+                return bytes("cluster_enabled:1\r\ncluster_state:ok\r\ncluster_slots_assigned:" + Slots.SLOT_COUNT
+                        + "\r\ncluster_known_nodes:" + node.getServer().getClusterNodes().size() + "\r\n");
+            case "MYID":
+                return bytes(node.getId());
+            case "KEYSLOT":
+                arity(command, 3, 3);
+                return (long) Slots.getSlot(command.get(2));
+            default:
+                throw new CommandError("ERR Unknown subcommand or wrong number of arguments for '"
+                        + new String(command.get(1), StandardCharsets.UTF_8) + "'");
+        }
+    }
+
+    private Object scan(List<byte[]> command) {
+        arity(command, 2, Integer.MAX_VALUE);
+        long cursor = parseLong(command.get(1));
+        byte[] pattern = null;
+        int count = 10;
+        for (int i = 2; i < command.size(); i += 2) {
+            if (i + 1 == command.size()) {
+                throw CommandError.syntax();
+            }
+            String option = upper(command.get(i));
+            if ("MATCH".equals(option)) {
+                pattern = command.get(i + 1);
+            } else if ("COUNT".equals(option)) {
+                count = (int) parseLong(command.get(i + 1));
+                if (count < 1) {
+                    throw CommandError.syntax();
+                }
+            } else {
+                throw CommandError.syntax();
+            }
+        }
+        List<byte[]> keys = new ArrayList<>();
+        long next = keyspace.scan(cursor, count, pattern, keys);
+        return Arrays.asList(bytes(next), keys);
+    }
+
+    /**
+     * SET key value [EX seconds|PX milliseconds] [NX|XX]
+     */
+    private Object set(List<byte[]> command) {
+        arity(command, 3, Integer.MAX_VALUE);
+        byte[] key = key(command, 1);
+        long expireAt = -1;
+        boolean ifAbsent = false;
+        boolean ifPresent = false;
+        for (int i = 3; i < command.size(); i++) {
+            String option = upper(command.get(i));
+            if (("EX".equals(option) || "PX".equals(option)) && i + 1 < command.size()) {
+                long ttl = parseLong(command.get(++i));
+                if (ttl <= 0) {
+                    throw new CommandError("ERR invalid expire time in set");
+                }
+                expireAt = System.currentTimeMillis() + ("EX".equals(option) ? ttl * 1000 : ttl);
+            } else if ("NX".equals(option)) {
+                ifAbsent = true;
+            } else if ("XX".equals(option)) {
+                ifPresent = true;
+            } else {
+                throw CommandError.syntax();
+            }
+        }
+        boolean exists = keyspace.get(key) != null;
+        if (ifAbsent && exists || ifPresent && !exists) {
+            return null;
+        }
+        keyspace.put(key, command.get(2)).expireAt = expireAt;
+        return OK;
+    }
+
+    private Object script(List<byte[]> command) {
+        arity(command, 2, Integer.MAX_VALUE);
+        LuaScripting scripting = node.getServer().getScripting();
+        switch (upper(command.get(1))) {
+            case "LOAD":
+                arity(command, 3, 3);
+                return bytes(scripting.load(command.get(2)));
+            case "EXISTS": {
+                List<Object> exists = new ArrayList<>();
+                for (byte[] sha : command.subList(2, command.size())) {
+                    exists.add(scripting.exists(new String(sha, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT))
+                            ? 1L : 0L);
+                }
+                return exists;
+            }
+            case "FLUSH":
+                scripting.flush();
+                return OK;
+            default:
+                throw new CommandError("ERR Unknown subcommand '" + new String(command.get(1), StandardCharsets.UTF_8)
+                        + "'");
+        }
+    }
+
+    private long incrBy(byte[] key, long increment) {
+        byte[] value = keyspace.getValue(key, byte[].class);
+        long incremented = (value != null ? parseLong(value) : 0) + increment;
+        Keyspace.Entry entry = keyspace.get(key);
+        if (entry != null) {
+            entry.value = bytes(incremented);
+        } else {
+            keyspace.put(key, bytes(incremented));
+        }
+        return incremented;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<ByteBuffer, byte[]> hash(byte[] key, boolean create) {
+        LinkedHashMap<ByteBuffer, byte[]> hash = keyspace.getValue(key, LinkedHashMap.class);
+        if (hash == null && create) {
+            hash = new LinkedHashMap<>();
+            keyspace.put(key, hash);
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private LinkedList<byte[]> list(byte[] key, boolean create) {
+        LinkedList<byte[]> list = keyspace.getValue(key, LinkedList.class);
+        if (list == null && create) {
+            list = new LinkedList<>();
+            keyspace.put(key, list);
+        }
+        return list;
+    }
+
+    private void removeIfEmpty(byte[] key, boolean empty) {
+        if (empty) {
+            keyspace.remove(key);
+        }
+    }
+
+    /**
+     * @return the key at {@code index}, after checking the node owns it.
+     */
+    private byte[] key(List<byte[]> command, int index) {
+        byte[] key = command.get(index);
+        node.checkSlot(Slots.getSlot(key));
+        return key;
+    }
+
+    private List<byte[]> keys(List<byte[]> command, int from, int to) {
+        List<byte[]> keys = command.subList(from, to);
+        checkSameSlot(keys);
+        return keys;
+    }
+
+    private void checkSameSlot(List<byte[]> keys) {
+        int slot = Slots.getSlot(keys.get(0));
+        for (int i = 1; i < keys.size(); i++) {
+            if (Slots.getSlot(keys.get(i)) != slot) {
+                throw new CommandError("CROSSSLOT Keys in request don't hash to the same slot");
+            }
+        }
+        node.checkSlot(slot);
+    }
+
+    private static List<byte[]> everyOther(List<byte[]> command, int from) {
+        List<byte[]> elements = new ArrayList<>();
+        for (int i = from; i < command.size(); i += 2) {
+            elements.add(command.get(i));
+        }
+        return elements;
+    }
+
+    private static String type(Keyspace.Entry entry) {
+        if (entry == null) {
+            return "none";
+        }
+        if (entry.value instanceof byte[]) {
+            return "string";
+        }
+        return entry.value instanceof Map ? "hash" : "list";
+    }
+
+    /**
+     * @return {@code [from, to)} of the inclusive, possibly negative Redis range {@code start..stop}.
+     */
+    private static int[] range(int size, long start, long stop) {
+        start = start < 0 ? Math.max(size + start, 0) : start;
+        stop = stop < 0 ? size + stop : Math.min(stop, size - 1);
+        if (start > stop || start >= size) {
+            return new int[]{0, 0};
+        }
+        return new int[]{(int) start, (int) stop + 1};
+    }
+
+    private static boolean isAllowedWhenSubscribed(String name) {
+        return "SUBSCRIBE".equals(name) || "UNSUBSCRIBE".equals(name) || "PING".equals(name) || "QUIT".equals(name);
+    }
+
+    private static void requireClient(ClientConnection client, String name) {
+        if (client == null) {
+            throw new CommandError("ERR This Redis command is not allowed from scripts: " + name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static void arity(List<byte[]> command, int min, int max) {
+        if (command.size() < min || command.size() > max) {
+            throw CommandError.wrongArguments(name(command));
+        }
+    }
+
+    private static long parseLong(byte[] value) {
+        try {
+            return Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw CommandError.notInteger();
+        }
+    }
+
+    private static String upper(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8).toUpperCase(Locale.ROOT);
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,159 @@
+package com.caiya.cache.redis.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One master node of the embedded cluster: a listening socket, its clients and the keyspace of its slot range.
+ * Commands are executed one at a time, like the single thread of Redis does.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class EmbeddedNode {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedNode.class);
+
+    private final EmbeddedRedisServer server;
+
+    private final String host;
+
+    private final int firstSlot;
+
+    private final int lastSlot;
+
+    private final Keyspace keyspace = new Keyspace();
+
+    private final Commands commands = new Commands(this, keyspace);
+
+    private final Set<ClientConnection> clients = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger clientNumber = new AtomicInteger();
+
+    private ServerSocket serverSocket;
+
+    private String id;
+
+    EmbeddedNode(EmbeddedRedisServer server, String host, int firstSlot, int lastSlot) {
+        this.server = server;
+        this.host = host;
+        this.firstSlot = firstSlot;
+        this.lastSlot = lastSlot;
+    }
+
+    /**
+     * Bind the port and start accepting clients.
+     *
+     * @param port 0 for an ephemeral port
+     */
+    void start(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getByName(host), port));
+        id = EmbeddedRedisServer.sha1(Commands.bytes(getAddress()));
+
+        Thread acceptor = new Thread(this::accept, "embedded-redis-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        disconnectClients();
+    }
+
+    void disconnectClients() {
+        for (ClientConnection client : new ArrayList<>(clients)) {
+            client.close();
+        }
+    }
+
+    void flush() {
+        synchronized (keyspace) {
+            keyspace.clear();
+        }
+    }
+
+    Object execute(ClientConnection client, List<byte[]> command) {
+        String name = Commands.name(command);
+        server.beforeCommand(name);
+        synchronized (keyspace) {
+            return commands.execute(client, name, command);
+        }
+    }
+
+    /**
+     * @throws CommandError {@code MOVED} if the slot belongs to another node
+     */
+    void checkSlot(int slot) {
+        if (slot < firstSlot || slot > lastSlot) {
+            throw new CommandError("MOVED " + slot + " " + server.getNodeOfSlot(slot).getAddress());
+        }
+    }
+
+    void removeClient(ClientConnection client) {
+        clients.remove(client);
+    }
+
+    EmbeddedRedisServer getServer() {
+        return server;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    String getAddress() {
+        return host + ":" + getPort();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    int getFirstSlot() {
+        return firstSlot;
+    }
+
+    int getLastSlot() {
+        return lastSlot;
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                ClientConnection client = new ClientConnection(this, socket);
+                clients.add(client);
+                Thread thread = new Thread(client, "embedded-redis-" + getPort() + "-client-" + clientNumber.incrementAndGet());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("accept failed on " + getAddress(), e);
+                }
+            }
+        }
+    }
+
+}
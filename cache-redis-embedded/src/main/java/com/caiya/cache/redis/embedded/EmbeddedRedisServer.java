@@ -0,0 +1,313 @@
+package com.caiya.cache.redis.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process server speaking the Redis protocol, emulating a Redis Cluster of master nodes in the JVM of the tests.
+ * <p>
+ * Each node listens on its own port and owns an even share of the 16384 slots, keyed commands for other slots are
+ * answered by {@code MOVED}, {@code CLUSTER SLOTS} describes the nodes. Supported are strings, hashes, lists, expiration,
+ * {@code SCAN}, pub/sub and {@code EVAL}, the scripts run in the Lua interpreter of LuaJ. Data is kept in memory only.
+ * <p>
+ * For deterministic performance and failure tests a latency is added to every round trip ({@link #setLatency(Duration)}),
+ * commands can be made to fail ({@link #injectFailures(String, int)}), clients can be disconnected
+ * ({@link #disconnectClients()}) and the executed commands are counted ({@link #getCommandCount(String)}).
+ * <pre>
+ * EmbeddedRedisServer server = new EmbeddedRedisServer(3);
+ * server.start();
+ * JedisCluster jedisCluster = new JedisCluster(new HostAndPort(server.getHost(), server.getPorts().get(0)));
+ * ...
+ * server.close();
+ * </pre>
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class EmbeddedRedisServer implements Closeable {
+
+    /**
+     * Fails every command, for {@link #injectFailures(String, int)}
+     */
+    public static final String ANY_COMMAND = "*";
+
+    private final String host;
+
+    private final List<EmbeddedNode> nodes = new ArrayList<>();
+
+    private final LuaScripting scripting = new LuaScripting();
+
+    private final Map<ByteBuffer, Set<ClientConnection>> subscribers = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> injectedFailures = new ConcurrentHashMap<>();
+
+    private final Map<String, LongAdder> commandCounts = new ConcurrentHashMap<>();
+
+    private volatile long latencyNanos;
+
+    private volatile boolean started;
+
+    /**
+     * A single node on 127.0.0.1 owning all slots.
+     */
+    public EmbeddedRedisServer() {
+        this(1);
+    }
+
+    /**
+     * @param nodeCount the number of master nodes on 127.0.0.1
+     */
+    public EmbeddedRedisServer(int nodeCount) {
+        this("127.0.0.1", nodeCount);
+    }
+
+    /**
+     * @param host      the address to bind and to announce in {@code CLUSTER SLOTS}
+     * @param nodeCount the number of master nodes
+     */
+    public EmbeddedRedisServer(String host, int nodeCount) {
+        if (host == null)
+            throw new IllegalArgumentException("host cannot be null");
+        if (nodeCount < 1 || nodeCount > Slots.SLOT_COUNT)
+            throw new IllegalArgumentException("nodeCount must be between 1 and " + Slots.SLOT_COUNT);
+
+        this.host = host;
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new EmbeddedNode(this, host, i * Slots.SLOT_COUNT / nodeCount,
+                    (i + 1) * Slots.SLOT_COUNT / nodeCount - 1));
+        }
+    }
+
+    /**
+     * Start the nodes on ephemeral ports.
+     *
+     * @throws IOException if a port cannot be bound
+     */
+    public void start() throws IOException {
+        start(0);
+    }
+
+    /**
+     * Start the nodes on consecutive ports.
+     *
+     * @param firstPort port of the first node, 0 for ephemeral ports
+     * @throws IOException if a port cannot be bound
+     */
+    public synchronized void start(int firstPort) throws IOException {
+        if (started)
+            throw new IllegalStateException("the server is started already");
+
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                nodes.get(i).start(firstPort == 0 ? 0 : firstPort + i);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        started = true;
+    }
+
+    /**
+     * Stop the nodes and disconnect their clients, the data is discarded.
+     */
+    @Override
+    public synchronized void close() {
+        for (EmbeddedNode node : nodes) {
+            node.close();
+        }
+        started = false;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the ports of the nodes, in slot order.
+     */
+    public List<Integer> getPorts() {
+        checkStarted();
+        List<Integer> ports = new ArrayList<>();
+        for (EmbeddedNode node : nodes) {
+            ports.add(node.getPort());
+        }
+        return ports;
+    }
+
+    /**
+     * @return "host:port" of the nodes, in slot order.
+     */
+    public List<String> getNodes() {
+        checkStarted();
+        List<String> addresses = new ArrayList<>();
+        for (EmbeddedNode node : nodes) {
+            addresses.add(node.getAddress());
+        }
+        return addresses;
+    }
+
+    /**
+     * Delay the replies of every round trip, i.e. the replies of all commands a client has pipelined.
+     *
+     * @param latency {@link Duration#ZERO} to reply immediately, must not be {@literal null}.
+     */
+    public void setLatency(Duration latency) {
+        if (latency == null || latency.isNegative())
+            throw new IllegalArgumentException("latency cannot be null or negative");
+
+        this.latencyNanos = latency.toNanos();
+    }
+
+    public Duration getLatency() {
+        return Duration.ofNanos(latencyNanos);
+    }
+
+    /**
+     * Reply {@code ERR injected failure} to the next executions of a command, on any node.
+     *
+     * @param command the command name, e.g. {@code "GET"}, or {@link #ANY_COMMAND}
+     * @param count   how many executions fail
+     */
+    public void injectFailures(String command, int count) {
+        if (command == null)
+            throw new IllegalArgumentException("command cannot be null");
+
+        injectedFailures.put(command.toUpperCase(Locale.ROOT), new AtomicInteger(count));
+    }
+
+    public void clearFailures() {
+        injectedFailures.clear();
+    }
+
+    /**
+     * Close the connections of all clients, like a network failure. Clients may reconnect.
+     */
+    public void disconnectClients() {
+        for (EmbeddedNode node : nodes) {
+            node.disconnectClients();
+        }
+    }
+
+    /**
+     * Remove all keys of all nodes.
+     */
+    public void flushAll() {
+        for (EmbeddedNode node : nodes) {
+            node.flush();
+        }
+    }
+
+    /**
+     * @param command the command name, e.g. {@code "GET"}
+     * @return how many times the command has been received since the start or the last reset, including failed and
+     * redirected executions.
+     */
+    public long getCommandCount(String command) {
+        LongAdder count = commandCounts.get(command.toUpperCase(Locale.ROOT));
+        return count != null ? count.sum() : 0;
+    }
+
+    public void resetCommandCounts() {
+        commandCounts.clear();
+    }
+
+    void beforeCommand(String command) {
+        commandCounts.computeIfAbsent(command, name -> new LongAdder()).increment();
+        if (consumeFailure(command) || consumeFailure(ANY_COMMAND)) {
+            throw new CommandError("ERR injected failure");
+        }
+    }
+
+    void awaitLatency() throws InterruptedException {
+        long latency = latencyNanos;
+        if (latency > 0) {
+            TimeUnit.NANOSECONDS.sleep(latency);
+        }
+    }
+
+    LuaScripting getScripting() {
+        return scripting;
+    }
+
+    List<EmbeddedNode> getClusterNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    EmbeddedNode getNodeOfSlot(int slot) {
+        for (EmbeddedNode node : nodes) {
+            if (slot <= node.getLastSlot()) {
+                return node;
+            }
+        }
+        throw new IllegalArgumentException("slot out of range: " + slot);
+    }
+
+    void subscribe(byte[] channel, ClientConnection client) {
+        subscribers.computeIfAbsent(ByteBuffer.wrap(channel), key -> ConcurrentHashMap.newKeySet()).add(client);
+    }
+
+    void unsubscribe(byte[] channel, ClientConnection client) {
+        Set<ClientConnection> clients = subscribers.get(ByteBuffer.wrap(channel));
+        if (clients != null) {
+            clients.remove(client);
+        }
+    }
+
+    /**
+     * Deliver a message to the subscribers of all nodes, like PUBLISH in Redis Cluster.
+     *
+     * @return the number of receivers
+     */
+    int publish(byte[] channel, byte[] message) {
+        Set<ClientConnection> clients = subscribers.get(ByteBuffer.wrap(channel));
+        if (clients == null) {
+            return 0;
+        }
+        List<Object> reply = Arrays.asList(Commands.bytes("message"), channel, message);
+        int receivers = 0;
+        for (ClientConnection client : clients) {
+            client.push(reply);
+            receivers++;
+        }
+        return receivers;
+    }
+
+    static String sha1(byte[] data) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(data)) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean consumeFailure(String command) {
+        AtomicInteger remaining = injectedFailures.get(command);
+        return remaining != null && remaining.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0;
+    }
+
+    private void checkStarted() {
+        if (!started)
+            throw new IllegalStateException("the server is not started");
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.caiya.cache.redis.embedded;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The keys of one node. Not thread-safe, the node executes one command at a time on it.
+ * <p>
+ * Every key gets a sequence number when it is created, {@code SCAN} walks the keys by it: a key present during the
+ * whole scan is returned exactly once, whatever is added or removed meanwhile. Expired keys are removed lazily.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class Keyspace {
+
+    private final Map<ByteBuffer, Entry> entries = new HashMap<>();
+
+    private final NavigableMap<Long, ByteBuffer> sequences = new TreeMap<>();
+
+    private long nextSequence = 1;
+
+    /**
+     * @return the live entry of the key, {@literal null} if absent or expired.
+     */
+    Entry get(byte[] key) {
+        ByteBuffer wrapped = ByteBuffer.wrap(key);
+        Entry entry = entries.get(wrapped);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            remove(wrapped, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * @return the value of the key, {@literal null} if absent.
+     * @throws CommandError if the value is not a {@code type}
+     */
+    <T> T getValue(byte[] key, Class<T> type) {
+        Entry entry = get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!type.isInstance(entry.value)) {
+            throw CommandError.wrongType();
+        }
+        return type.cast(entry.value);
+    }
+
+    /**
+     * Set the value of the key, discarding its time to live.
+     */
+    Entry put(byte[] key, Object value) {
+        Entry entry = get(key);
+        if (entry == null) {
+            ByteBuffer wrapped = ByteBuffer.wrap(key.clone());
+            entry = new Entry(nextSequence++, wrapped.array());
+            entries.put(wrapped, entry);
+            sequences.put(entry.sequence, wrapped);
+        }
+        entry.value = value;
+        entry.expireAt = -1;
+        return entry;
+    }
+
+    boolean remove(byte[] key) {
+        Entry entry = get(key);
+        if (entry == null) {
+            return false;
+        }
+        remove(ByteBuffer.wrap(key), entry);
+        return true;
+    }
+
+    int size() {
+        purgeExpired();
+        return entries.size();
+    }
+
+    void clear() {
+        entries.clear();
+        sequences.clear();
+    }
+
+    /**
+     * Collect the keys from {@code cursor} on.
+     *
+     * @param cursor  0 to start
+     * @param count   how many keys to visit
+     * @param pattern glob-style pattern, {@literal null} for all keys
+     * @param keys    receives the matching keys
+     * @return the cursor to continue with, 0 when the scan is complete.
+     */
+    long scan(long cursor, int count, byte[] pattern, List<byte[]> keys) {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Long, ByteBuffer>> iterator = sequences.tailMap(cursor, true).entrySet().iterator();
+        for (int visited = 0; iterator.hasNext(); visited++) {
+            Map.Entry<Long, ByteBuffer> next = iterator.next();
+            if (visited == count) {
+                return next.getKey();
+            }
+            Entry entry = entries.get(next.getValue());
+            if (!entry.isExpired(now) && (pattern == null || matches(pattern, 0, entry.key, 0))) {
+                keys.add(entry.key.clone());
+            }
+        }
+        return 0;
+    }
+
+    List<byte[]> keys(byte[] pattern) {
+        List<byte[]> keys = new ArrayList<>();
+        scan(0, Integer.MAX_VALUE, pattern, keys);
+        return keys;
+    }
+
+    private void remove(ByteBuffer key, Entry entry) {
+        entries.remove(key);
+        sequences.remove(entry.sequence);
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isExpired(now)) {
+                iterator.remove();
+                sequences.remove(entry.sequence);
+            }
+        }
+    }
+
+    /**
+     * Glob-style matching of Redis: {@code *}, {@code ?}, {@code [abc]}, {@code [^a-z]} and {@code \} escapes.
+     */
+    static boolean matches(byte[] pattern, int p, byte[] string, int s) {
+        while (p < pattern.length) {
+            switch (pattern[p]) {
+                case '*':
+                    while (p + 1 < pattern.length && pattern[p + 1] == '*') {
+                        p++;
+                    }
+                    if (p + 1 == pattern.length) {
+                        return true;
+                    }
+                    for (int from = s; from <= string.length; from++) {
+                        if (matches(pattern, p + 1, string, from)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case '?':
+                    if (s == string.length) {
+                        return false;
+                    }
+                    s++;
+                    break;
+                case '[': {
+                    if (s == string.length) {
+                        return false;
+                    }
+                    p++;
+                    boolean negate = p < pattern.length && pattern[p] == '^';
+                    if (negate) {
+                        p++;
+                    }
+                    boolean match = false;
+                    while (p < pattern.length && pattern[p] != ']') {
+                        if (pattern[p] == '\\' && p + 1 < pattern.length) {
+                            p++;
+                            match |= pattern[p] == string[s];
+                        } else if (p + 2 < pattern.length && pattern[p + 1] == '-' && pattern[p + 2] != ']') {
+                            int low = Math.min(pattern[p] & 0xFF, pattern[p + 2] & 0xFF);
+                            int high = Math.max(pattern[p] & 0xFF, pattern[p + 2] & 0xFF);
+                            match |= (string[s] & 0xFF) >= low && (string[s] & 0xFF) <= high;
+                            p += 2;
+                        } else {
+                            match |= pattern[p] == string[s];
+                        }
+                        p++;
+                    }
+                    if (match == negate) {
+                        return false;
+                    }
+                    s++;
+                    break;
+                }
+                case '\\':
+                    if (p + 1 < pattern.length) {
+                        p++;
+                    }
+                    // fall through
+                default:
+                    if (s == string.length || pattern[p] != string[s]) {
+                        return false;
+                    }
+                    s++;
+            }
+            p++;
+        }
+        return s == string.length;
+    }
+
+    static final class Entry {
+
+        final long sequence;
+
+        final byte[] key;
+
+        /**
+         * {@code byte[]}, {@link java.util.LinkedHashMap} (hash) or {@link java.util.LinkedList} (list)
+         */
+        Object value;
+
+        /**
+         * Epoch millis, -1 for no expiration
+         */
+        long expireAt = -1;
+
+        private Entry(long sequence, byte[] key) {
+            this.sequence = sequence;
+            this.key = key;
+        }
+
+        boolean isExpired(long now) {
+            return expireAt != -1 && expireAt <= now;
+        }
+    }
+
+}
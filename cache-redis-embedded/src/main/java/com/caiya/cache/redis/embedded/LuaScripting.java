@@ -0,0 +1,295 @@
+package com.caiya.cache.redis.embedded;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LoadState;
+import org.luaj.vm2.LuaClosure;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaString;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Prototype;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.compiler.LuaC;
+import org.luaj.vm2.lib.Bit32Lib;
+import org.luaj.vm2.lib.PackageLib;
+import org.luaj.vm2.lib.StringLib;
+import org.luaj.vm2.lib.TableLib;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JseBaseLib;
+import org.luaj.vm2.lib.jse.JseMathLib;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the Lua scripts of {@code EVAL} in the LuaJ interpreter, with the {@code redis} API of Redis
+ * ({@code call}, {@code pcall}, {@code error_reply}, {@code status_reply}, {@code sha1hex},
+ * {@code replicate_commands}) and its conversions between Lua values and replies.
+ * <p>
+ * Compiled scripts are shared by the nodes, every thread runs them in a Lua state of its own. The libraries are those
+ * of Redis except {@code cjson}, {@code cmsgpack} and {@code struct}; {@code unpack} is global like in Lua 5.1.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class LuaScripting {
+
+    /**
+     * Executes a command of a script on the node running the script.
+     */
+    @FunctionalInterface
+    interface CommandCall {
+
+        /**
+         * @param command the command name and its arguments
+         * @return the reply
+         * @throws CommandError on an error reply
+         */
+        Object call(List<byte[]> command);
+    }
+
+    private final Map<String, Prototype> scripts = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<LuaState> states = ThreadLocal.withInitial(LuaState::new);
+
+    /**
+     * Compile a script unless compiled already.
+     *
+     * @return the SHA1 digest of the script
+     * @throws CommandError if the script does not compile
+     */
+    String load(byte[] script) {
+        String sha = EmbeddedRedisServer.sha1(script);
+        if (!scripts.containsKey(sha)) {
+            try {
+                scripts.putIfAbsent(sha, states.get().globals.compilePrototype(new ByteArrayInputStream(script),
+                        "@user_script"));
+            } catch (LuaError | java.io.IOException e) {
+                throw new CommandError("ERR Error compiling script (new function): " + e.getMessage());
+            }
+        }
+        return sha;
+    }
+
+    boolean exists(String sha) {
+        return scripts.containsKey(sha);
+    }
+
+    void flush() {
+        scripts.clear();
+    }
+
+    /**
+     * Run a loaded script, the caller holds the lock of the keyspace of the node.
+     *
+     * @return the reply of the script
+     * @throws CommandError on an error reply
+     */
+    Object eval(String sha, CommandCall commandCall, List<byte[]> keys, List<byte[]> argv) {
+        Prototype script = scripts.get(sha);
+        if (script == null) {
+            throw new CommandError("NOSCRIPT No matching script. Please use EVAL.");
+        }
+        LuaState state = states.get();
+        state.commandCall = commandCall;
+        state.globals.set("KEYS", table(keys));
+        state.globals.set("ARGV", table(argv));
+        try {
+            return toReply(new LuaClosure(script, state.globals).call());
+        } catch (LuaError e) {
+            if (e.getCause() instanceof CommandError) {
+                // raised by redis.call
+                throw (CommandError) e.getCause();
+            }
+            throw new CommandError("ERR Error running script (call to f_" + sha + "): " + e.getMessage());
+        } finally {
+            state.commandCall = null;
+        }
+    }
+
+    private static LuaTable table(List<byte[]> elements) {
+        LuaTable table = new LuaTable(elements.size(), 0);
+        for (int i = 0; i < elements.size(); i++) {
+            table.set(i + 1, LuaValue.valueOf(elements.get(i)));
+        }
+        return table;
+    }
+
+    /**
+     * Convert a Lua value to a reply, like Redis: numbers are truncated to integers, {@code false} is nil and a table
+     * is an error ({@code err}), a status ({@code ok}) or an array up to its first nil.
+     */
+    private static Object toReply(LuaValue value) {
+        switch (value.type()) {
+            case LuaValue.TNUMBER:
+                return (long) value.todouble();
+            case LuaValue.TSTRING:
+                return bytes(value.checkstring());
+            case LuaValue.TBOOLEAN:
+                return value.toboolean() ? 1L : null;
+            case LuaValue.TTABLE: {
+                LuaValue error = value.get("err");
+                if (error.isstring()) {
+                    throw new CommandError(error.tojstring());
+                }
+                LuaValue status = value.get("ok");
+                if (status.isstring()) {
+                    return status.tojstring();
+                }
+                List<Object> array = new ArrayList<>();
+                for (int i = 1; !value.get(i).isnil(); i++) {
+                    array.add(toReply(value.get(i)));
+                }
+                return array;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Convert a reply to a Lua value, like Redis: nil is {@code false}, a status a table with {@code ok}.
+     */
+    private static LuaValue toLua(Object reply) {
+        if (reply == null) {
+            return LuaValue.FALSE;
+        }
+        if (reply instanceof byte[]) {
+            return LuaValue.valueOf((byte[]) reply);
+        }
+        if (reply instanceof Number) {
+            return LuaValue.valueOf(((Number) reply).doubleValue());
+        }
+        if (reply instanceof String) {
+            return statusTable((String) reply);
+        }
+        if (reply instanceof List) {
+            List<?> array = (List<?>) reply;
+            LuaTable table = new LuaTable(array.size(), 0);
+            for (int i = 0; i < array.size(); i++) {
+                table.set(i + 1, toLua(array.get(i)));
+            }
+            return table;
+        }
+        throw new IllegalArgumentException("Unsupported reply type: " + reply.getClass());
+    }
+
+    private static LuaTable statusTable(String status) {
+        LuaTable table = new LuaTable();
+        table.set("ok", status);
+        return table;
+    }
+
+    private static LuaTable errorTable(String error) {
+        LuaTable table = new LuaTable();
+        table.set("err", error);
+        return table;
+    }
+
+    private static byte[] bytes(LuaString string) {
+        byte[] bytes = new byte[string.length()];
+        string.copyInto(0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * The Lua state of one thread.
+     */
+    private static final class LuaState {
+
+        private final Globals globals = new Globals();
+
+        private CommandCall commandCall;
+
+        private LuaState() {
+            globals.load(new JseBaseLib());
+            globals.load(new PackageLib());
+            globals.load(new Bit32Lib());
+            globals.load(new TableLib());
+            globals.load(new StringLib());
+            globals.load(new JseMathLib());
+            LoadState.install(globals);
+            LuaC.install(globals);
+            globals.set("unpack", globals.get("table").get("unpack"));
+            globals.set("bit", globals.get("bit32"));
+
+            LuaTable redis = new LuaTable();
+            redis.set("call", new RedisCall(false));
+            redis.set("pcall", new RedisCall(true));
+            redis.set("error_reply", new VarArgFunction() {
+                @Override
+                public Varargs invoke(Varargs args) {
+                    return errorTable(args.checkjstring(1));
+                }
+            });
+            redis.set("status_reply", new VarArgFunction() {
+                @Override
+                public Varargs invoke(Varargs args) {
+                    return statusTable(args.checkjstring(1));
+                }
+            });
+            redis.set("sha1hex", new VarArgFunction() {
+                @Override
+                public Varargs invoke(Varargs args) {
+                    return LuaValue.valueOf(EmbeddedRedisServer.sha1(bytes(args.checkstring(1))));
+                }
+            });
+            // effects are not replicated, there are no replicas
+            redis.set("replicate_commands", new VarArgFunction() {
+                @Override
+                public Varargs invoke(Varargs args) {
+                    return LuaValue.TRUE;
+                }
+            });
+            globals.set("redis", redis);
+        }
+
+        /**
+         * {@code redis.call} raises the error replies, {@code redis.pcall} returns them as a table with {@code err}.
+         */
+        private final class RedisCall extends VarArgFunction {
+
+            private final boolean protectedCall;
+
+            private RedisCall(boolean protectedCall) {
+                this.protectedCall = protectedCall;
+            }
+
+            @Override
+            public Varargs invoke(Varargs args) {
+                if (args.narg() == 0) {
+                    throw new LuaError(new CommandError("ERR Please specify at least one argument for redis.call()"));
+                }
+                List<byte[]> command = new ArrayList<>(args.narg());
+                for (int i = 1; i <= args.narg(); i++) {
+                    command.add(argument(args.arg(i)));
+                }
+                try {
+                    return toLua(commandCall.call(command));
+                } catch (CommandError e) {
+                    if (protectedCall) {
+                        return errorTable(e.getMessage());
+                    }
+                    throw new LuaError(e);
+                }
+            }
+
+            private byte[] argument(LuaValue value) {
+                if (value.type() == LuaValue.TNUMBER) {
+                    // formatted like %.17g, integers without fraction
+                    double number = value.todouble();
+                    return Commands.bytes(number == Math.rint(number) && !Double.isInfinite(number)
+                            ? Long.toString((long) number) : Double.toString(number));
+                }
+                if (value.type() == LuaValue.TSTRING) {
+                    return bytes(value.checkstring());
+                }
+                throw new LuaError(new CommandError("ERR Lua redis() command arguments must be strings or integers"));
+            }
+        }
+    }
+
+}
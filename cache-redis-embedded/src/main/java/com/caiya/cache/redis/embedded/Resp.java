@@ -0,0 +1,145 @@
+package com.caiya.cache.redis.embedded;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads commands and writes replies in the Redis serialization protocol.
+ * <p>
+ * Replies are mapped as: {@link String} to a simple string, {@code byte[]} to a bulk string, {@link Number} to an
+ * integer, {@link List} to an array, {@link CommandError} to an error and {@literal null} to the null bulk string.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class Resp {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private Resp() {
+    }
+
+    /**
+     * Read the next command, an array of bulk strings or an inline command.
+     *
+     * @param in the client input
+     * @return the command name and its arguments, {@literal null} at the end of the stream.
+     * @throws IOException on a broken connection or protocol
+     */
+    static List<byte[]> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            return null;
+        }
+        if (type != '*') {
+            return readInline(type, in);
+        }
+        int count = (int) readNumber(in);
+        List<byte[]> command = new ArrayList<>(Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Protocol error: expected '$'");
+            }
+            int length = (int) readNumber(in);
+            byte[] argument = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(argument, offset, length - offset);
+                if (read == -1) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            in.read();
+            in.read();
+            command.add(argument);
+        }
+        return command;
+    }
+
+    static void writeReply(OutputStream out, Object reply) throws IOException {
+        if (reply == null) {
+            out.write(NULL_BULK);
+        } else if (reply instanceof byte[]) {
+            byte[] bulk = (byte[]) reply;
+            writeHeader(out, '$', bulk.length);
+            out.write(bulk);
+            out.write(CRLF);
+        } else if (reply instanceof String) {
+            out.write('+');
+            out.write(((String) reply).getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        } else if (reply instanceof Number) {
+            writeHeader(out, ':', ((Number) reply).longValue());
+        } else if (reply instanceof List) {
+            List<?> array = (List<?>) reply;
+            writeHeader(out, '*', array.size());
+            for (Object element : array) {
+                writeReply(out, element);
+            }
+        } else if (reply instanceof CommandError) {
+            out.write('-');
+            out.write(((CommandError) reply).getMessage().replace('\r', ' ').replace('\n', ' ')
+                    .getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        } else {
+            throw new IllegalArgumentException("Unsupported reply type: " + reply.getClass());
+        }
+    }
+
+    private static void writeHeader(OutputStream out, char type, long number) throws IOException {
+        out.write(type);
+        out.write(Long.toString(number).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private static long readNumber(InputStream in) throws IOException {
+        long number = 0;
+        boolean negative = false;
+        for (int c = in.read(); c != '\r'; c = in.read()) {
+            if (c == -1) {
+                throw new EOFException();
+            }
+            if (c == '-') {
+                negative = true;
+            } else {
+                number = number * 10 + (c - '0');
+            }
+        }
+        in.read();
+        return negative ? -number : number;
+    }
+
+    /**
+     * Commands typed into telnet, e.g. {@code PING}.
+     */
+    private static List<byte[]> readInline(int first, InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int c = first; c != '\n'; c = in.read()) {
+            if (c == -1) {
+                return null;
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        String trimmed = line.toString().trim();
+        if (trimmed.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<byte[]> command = new ArrayList<>();
+        for (String argument : trimmed.split("\\s+")) {
+            command.add(argument.getBytes(StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+}
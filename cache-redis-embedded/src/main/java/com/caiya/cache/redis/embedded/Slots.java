@@ -0,0 +1,52 @@
+package com.caiya.cache.redis.embedded;
+
+/**
+ * Hash slots of Redis Cluster: CRC16 (XMODEM) of the key, or of its hash tag {@code {...}}, modulo 16384.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class Slots {
+
+    static final int SLOT_COUNT = 16384;
+
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private Slots() {
+    }
+
+    static int getSlot(byte[] key) {
+        int start = 0;
+        int end = key.length;
+        for (int open = 0; open < key.length; open++) {
+            if (key[open] == '{') {
+                for (int close = open + 1; close < key.length; close++) {
+                    if (key[close] == '}') {
+                        if (close > open + 1) {
+                            start = open + 1;
+                            end = close;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        int crc = 0;
+        for (int i = start; i < end; i++) {
+            crc = ((crc << 8) ^ TABLE[((crc >>> 8) ^ key[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc & (SLOT_COUNT - 1);
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.caiya.cache.redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * EmbeddedRedisServerTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class EmbeddedRedisServerTest {
+
+    private EmbeddedRedisServer server;
+
+    private JedisCluster jedisCluster;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedRedisServer(3);
+        server.start();
+        jedisCluster = new JedisCluster(new HostAndPort(server.getHost(), server.getPorts().get(0)));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jedisCluster.close();
+        server.close();
+    }
+
+    @Test
+    public void testClusterSlots() {
+        assertEquals(new HashSet<>(server.getNodes()), jedisCluster.getClusterNodes().keySet());
+        for (int i = 0; i < 100; i++) {
+            jedisCluster.set("key" + i, "value" + i);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, jedisCluster.get("key" + i));
+        }
+    }
+
+    @Test
+    public void testStrings() {
+        assertEquals("OK", jedisCluster.set("string", "1", "NX", "PX", 60000));
+        assertNull(jedisCluster.set("string", "2", "NX", "PX", 60000));
+        assertEquals(Long.valueOf(6), jedisCluster.incrBy("string", 5));
+        assertEquals(Long.valueOf(3), jedisCluster.append("string", "00"));
+        assertTrue(jedisCluster.ttl("string") > 0);
+        assertEquals(Long.valueOf(1), jedisCluster.del("string"));
+        assertEquals(Long.valueOf(-2), jedisCluster.ttl("string"));
+    }
+
+    @Test
+    public void testHashesAndLists() {
+        Map<String, String> hash = new HashMap<>();
+        hash.put("f1", "v1");
+        hash.put("f2", "v2");
+        jedisCluster.hmset("hash", hash);
+        assertEquals(hash, jedisCluster.hgetAll("hash"));
+        assertEquals(Long.valueOf(1), jedisCluster.hdel("hash", "f1"));
+        assertFalse(jedisCluster.hexists("hash", "f1"));
+
+        jedisCluster.lpush("list", "c", "b", "a");
+        assertEquals(Arrays.asList("a", "b", "c"), jedisCluster.lrange("list", 0, -1));
+        assertEquals("a", jedisCluster.lpop("list"));
+        jedisCluster.ltrim("list", 0, 0);
+        assertEquals(Long.valueOf(1), jedisCluster.llen("list"));
+    }
+
+    @Test
+    public void testEval() {
+        assertEquals(3L, jedisCluster.eval("return redis.call('incrby', KEYS[1], ARGV[1])", 1, "counter", "3"));
+        assertEquals("3", jedisCluster.eval("return redis.call('get', KEYS[1])", 1, "counter"));
+        assertNull(jedisCluster.eval("return redis.call('get', KEYS[1])", 1, "missing"));
+        assertEquals(1L, jedisCluster.eval("return redis.call('get', KEYS[1]) == false", 1, "missing"));
+        assertEquals("OK", jedisCluster.eval("return redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2])", 1, "px",
+                "value", "30000"));
+        assertTrue(jedisCluster.pttl("px") > 0);
+        assertEquals(5L, jedisCluster.eval("return redis.call('incrby', KEYS[1], 2.0)", 1, "counter"));
+
+        jedisCluster.hset("hash", "field", "value");
+        assertEquals("WRONGTYPE", jedisCluster.eval(
+                "local reply = redis.pcall('get', KEYS[1]) return string.sub(reply.err, 1, 9)", 1, "hash"));
+        try {
+            jedisCluster.eval("return redis.call('get', KEYS[1])", 1, "hash");
+            fail();
+        } catch (JedisDataException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("WRONGTYPE"));
+        }
+        // scripts without keys cannot be routed by JedisCluster
+        try (Jedis jedis = new Jedis(server.getHost(), server.getPorts().get(0))) {
+            // numbers are truncated, arguments formatted without fraction, false is nil, arrays end at the first nil
+            assertEquals(3L, jedis.eval("return 3.7", 0));
+            assertNull(jedis.eval("return false", 0));
+            assertEquals(Arrays.asList(1L, "a"), jedis.eval("return {1, 'a', nil, 'b'}", 0));
+            assertEquals(Arrays.asList("a", "b"), jedis.eval("return {unpack(ARGV)}", 0, "a", "b"));
+            assertEquals(2L, jedis.eval("redis.replicate_commands() return #redis.call('time')", 0));
+            assertEquals("OK", jedis.eval("return redis.status_reply('OK')", 0));
+            try {
+                jedis.eval("return redis.error_reply('MY error')", 0);
+                fail();
+            } catch (JedisDataException e) {
+                assertEquals("MY error", e.getMessage());
+            }
+            try {
+                jedis.eval("return nil + 1", 0);
+                fail();
+            } catch (JedisDataException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("ERR Error running script"));
+            }
+            try {
+                jedis.eval("return (", 0);
+                fail();
+            } catch (JedisDataException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("ERR Error compiling script"));
+            }
+
+
+            String sha = jedis.scriptLoad("return ARGV[1]");
+            assertEquals(40, sha.length());
+            assertTrue(jedis.scriptExists(sha));
+            assertEquals("a", jedis.evalsha(sha, 0, "a"));
+            jedis.scriptFlush();
+            assertFalse(jedis.scriptExists(sha));
+            try {
+                jedis.evalsha(sha, 0, "a");
+                fail();
+            } catch (JedisDataException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("NOSCRIPT"));
+            }
+        }
+    }
+
+    @Test
+    public void testScan() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add("scan" + i);
+            jedisCluster.set("scan" + i, "");
+        }
+        Set<String> scanned = new HashSet<>();
+        for (JedisPool pool : jedisCluster.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                String cursor = ScanParams.SCAN_POINTER_START;
+                do {
+                    ScanResult<String> result = jedis.scan(cursor, new ScanParams().match("scan*").count(30));
+                    scanned.addAll(result.getResult());
+                    cursor = result.getStringCursor();
+                } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+            }
+        }
+        assertEquals(keys, scanned);
+    }
+
+    @Test
+    public void testLatencyPerRoundTrip() {
+        server.setLatency(Duration.ofMillis(50));
+        try (Jedis jedis = new Jedis(server.getHost(), server.getPorts().get(0))) {
+            long start = System.nanoTime();
+            Pipeline pipeline = jedis.pipelined();
+            for (int i = 0; i < 100; i++) {
+                pipeline.ping();
+            }
+            pipeline.sync();
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(millis >= 50);
+            assertTrue("pipelined commands share the latency: " + millis, millis < 100 * 50);
+        }
+    }
+
+    @Test
+    public void testInjectedFailures() {
+        jedisCluster.set("key", "value");
+        server.injectFailures("GET", 1);
+        try {
+            jedisCluster.get("key");
+            fail();
+        } catch (JedisDataException e) {
+            assertEquals("ERR injected failure", e.getMessage());
+        }
+        assertEquals("value", jedisCluster.get("key"));
+        assertEquals(2, server.getCommandCount("GET"));
+    }
+
+    @Test
+    public void testPublishSubscribe() throws Exception {
+        CountDownLatch subscribed = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        JedisPubSub pubSub = new JedisPubSub() {
+            @Override
+            public void onSubscribe(String channel, int subscribedChannels) {
+                subscribed.countDown();
+            }
+
+            @Override
+            public void onMessage(String channel, String message) {
+                if ("hello".equals(message)) {
+                    received.countDown();
+                }
+            }
+        };
+        Thread subscriber = new Thread(() -> jedisCluster.subscribe(pubSub, "channel"));
+        subscriber.start();
+        assertTrue(subscribed.await(5, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(1), jedisCluster.publish("channel", "hello"));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        pubSub.unsubscribe();
+        subscriber.join(5000);
+    }
+
+}
@@ -5,6 +5,7 @@ import com.caiya.cache.RedisConstant;
 import com.caiya.cache.ScanResult;
 import com.caiya.cache.SetOption;
 import com.caiya.cache.redis.RedisCacheKey;
+import com.caiya.cache.redis.RefreshAheadLoader;
 import org.springframework.data.redis.connection.RedisConnectionCommands;
 import org.springframework.data.redis.connection.RedisServerCommands;
 import org.springframework.data.redis.connection.RedisStringCommands;
@@ -18,8 +19,10 @@ import org.springframework.data.redis.serializer.SerializationUtils;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import redis.clients.util.JedisClusterCRC16;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Redis Cache Implementation, Base on spring-data-redis.
@@ -64,6 +67,8 @@ public class RedisCache<K, V> implements CacheApi<K, V> {
     private RedisSerializer hashKeySerializer = DEFAULT_REDIS_SERIALIZER;
     private RedisSerializer hashValueSerializer = DEFAULT_REDIS_SERIALIZER;
 
+    private final RefreshAheadLoader<K, V> refreshAheadLoader = new RefreshAheadLoader<>(this);
+
     public RedisCache(RedisOperations<K, V> redisOperations) {
         this(null, null, redisOperations);
     }
@@ -183,6 +188,68 @@ public class RedisCache<K, V> implements CacheApi<K, V> {
         });
     }
 
+    @Override
+    public V get(final K key, final Function<? super K, ? extends V> loader, final Duration ttl) {
+        return refreshAheadLoader.get(key, loader, ttl);
+    }
+
+    @Override
+    public Map<K, Exception> mSet(final Map<K, V> entries, final Duration ttl) {
+        return mSet(entries, key -> ttl);
+    }
+
+    /**
+     * Set the entries one by one, as spring-data-redis does not support pipelining in cluster mode.
+     */
+    @Override
+    public Map<K, Exception> mSet(final Map<K, V> entries, final Function<? super K, Duration> ttlFunction) {
+        if (entries == null)
+            throw new IllegalArgumentException("entries cannot be null");
+        if (ttlFunction == null)
+            throw new IllegalArgumentException("ttlFunction cannot be null");
+
+        Map<K, Exception> failedKeys = new HashMap<>();
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            try {
+                Duration ttl = ttlFunction.apply(entry.getKey());
+                if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+                    set(entry.getKey(), entry.getValue(), 0, TimeUnit.MILLISECONDS);
+                } else {
+                    set(entry.getKey(), entry.getValue(), ttl.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (Exception e) {
+                failedKeys.put(entry.getKey(), e);
+            }
+        }
+        return failedKeys;
+    }
+
+    @Override
+    public Map<K, V> mGet(final Collection<K> keys) {
+        if (keys == null)
+            throw new IllegalArgumentException("keys cannot be null");
+
+        List<K> keyList = new ArrayList<>(keys);
+        Map<K, V> result = new HashMap<>(keyList.size() * 4 / 3 + 1);
+        if (keyList.isEmpty()) {
+            return result;
+        }
+
+        byte[][] rawKeys = new byte[keyList.size()][];
+        int index = 0;
+        for (K key : keyList) {
+            rawKeys[index++] = rawKey(key);
+        }
+        List<byte[]> values = redisOperations.execute((RedisCallback<List<byte[]>>) connection -> connection.mGet(rawKeys));
+        for (int i = 0; i < keyList.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                result.put(keyList.get(i), deserializeValue(value));
+            }
+        }
+        return result;
+    }
+
     @SuppressWarnings("unchecked")
     public <T> T get(final K key, RedisSerializer keySerializer, RedisSerializer valueSerializer) {
         return redisOperations.execute((RedisCallback<T>) connection -> {
@@ -487,6 +554,13 @@ public class RedisCache<K, V> implements CacheApi<K, V> {
         return hashValueSerializer;
     }
 
+    /**
+     * @return the loader of {@link #get(Object, Function, Duration)}, to configure its refresh-ahead factor and executor.
+     */
+    public RefreshAheadLoader<K, V> getRefreshAheadLoader() {
+        return refreshAheadLoader;
+    }
+
     public void setKeyPrefix(byte[] keyPrefix) {
         this.keyPrefix = keyPrefix;
     }
@@ -93,12 +93,14 @@ public class RedisCacheTest {
 
     @Test
     @Ignore
+    @SuppressWarnings("deprecation")
     public void testKeys() {
         cache.keys("");
     }
 
     @Test
     @Ignore
+    @SuppressWarnings("deprecation")
     public void test_C_Scan() {
         List<String> keySet = cache.scan("erp_session*", 100);
         assertTrue(keySet.size() > 0);
@@ -181,6 +183,7 @@ public class RedisCacheTest {
         assertEquals(getLength(value) + getLength(appendVal), (long) result);
     }
 
+    @SuppressWarnings("unchecked")
     private long getLength(Object obj) {
         return (((RedisCache) cache).getValueSerializer()).serialize(obj).length;
     }
@@ -5,12 +5,16 @@ import com.caiya.cache.redis.*;
 import com.caiya.cache.redis.springx.JedisCacheConfiguration;
 import com.caiya.cache.redis.springx.JedisCacheManager;
 import com.caiya.cache.redis.springx.JedisCacheWriter;
+import com.caiya.cache.redis.serializer.KryoSerializer;
+import com.caiya.cache.redis.springx.NearCacheInvalidator;
 import com.caiya.serialization.Serializer;
 import com.caiya.serialization.jdk.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
@@ -24,7 +28,9 @@ import redis.clients.jedis.JedisPoolConfig;
 
 import java.nio.charset.Charset;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Configuration
@@ -34,6 +40,11 @@ import java.util.Set;
 @EnableConfigurationProperties({CacheRedisProperties.class})
 public class CacheRedisAutoConfiguration {
 
+    /**
+     * serializer name of {@link KryoSerializer}, configured by {@link CacheRedisProperties#getKryoRegisteredClasses()}
+     */
+    public static final String KRYO_SERIALIZER = "kryo";
+
     @Autowired
     private CacheRedisProperties cacheRedisProperties;
 
@@ -72,6 +83,8 @@ public class CacheRedisAutoConfiguration {
         if (cacheRedisProperties.getHashValueSerializer() != null) {
             jedisConnectionFactory.setHashValueSerializer(getSerializerInstance(cacheRedisProperties.getHashValueSerializer()));
         }
+        jedisConnectionFactory.setValueCompressionThreshold(cacheRedisProperties.getValueCompressionThreshold());
+        jedisConnectionFactory.setXFetchBeta(cacheRedisProperties.getXFetchBeta());
         return jedisConnectionFactory;
     }
 
@@ -113,8 +126,15 @@ public class CacheRedisAutoConfiguration {
         }
     }
 
-    private static Serializer<?> getSerializerInstance(String serializerString) {
+    private Serializer<?> getSerializerInstance(String serializerString) {
         try {
+            if (KRYO_SERIALIZER.equalsIgnoreCase(serializerString)) {
+                List<Class<?>> registeredClasses = new ArrayList<>();
+                for (String className : cacheRedisProperties.getKryoRegisteredClasses()) {
+                    registeredClasses.add(Class.forName(className.trim()));
+                }
+                return new KryoSerializer<>(registeredClasses);
+            }
             return (Serializer<?>) Class.forName(serializerString).newInstance();
         } catch (InstantiationException | ClassNotFoundException | IllegalAccessException e) {
             throw new CacheException("get serializer object failed");
@@ -135,8 +155,10 @@ public class CacheRedisAutoConfiguration {
      */
     @Bean
     @ConditionalOnMissingBean(CacheManager.class)
-    public CacheManager cacheManager(RedisConnectionFactory jedisConnectionFactory) {
-        JedisCacheWriter cacheWriter = JedisCacheWriter.nonLockingRedisCacheWriter(jedisConnectionFactory);
+    public CacheManager cacheManager(RedisConnectionFactory jedisConnectionFactory,
+                                     ObjectProvider<NearCacheInvalidator> nearCacheInvalidator) {
+        JedisCacheWriter cacheWriter = JedisCacheWriter.nonLockingRedisCacheWriter(jedisConnectionFactory,
+                cacheRedisProperties.getCleanBatchSize());
         JedisCacheConfiguration cacheConfiguration = JedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofSeconds(cacheRedisProperties.getDefaultExpirationSeconds()));
         if (cacheRedisProperties.isUseKeyPrefix()) {
@@ -146,9 +168,38 @@ public class CacheRedisAutoConfiguration {
         } else {
             cacheConfiguration.disableKeyPrefix();
         }
+        if (cacheRedisProperties.getNearCacheMaxSize() > 0) {
+            cacheConfiguration = cacheConfiguration.enableNearCache(cacheRedisProperties.getNearCacheMaxSize(),
+                    Duration.ofSeconds(cacheRedisProperties.getNearCacheExpirationSeconds()));
+        }
+        if (cacheRedisProperties.getValueCompressionThreshold() >= 0) {
+            cacheConfiguration = cacheConfiguration.compressValuesAbove(cacheRedisProperties.getValueCompressionThreshold());
+        }
+        if (cacheRedisProperties.getXFetchBeta() > 0) {
+            cacheConfiguration = cacheConfiguration.enableEarlyRecomputation(cacheRedisProperties.getXFetchBeta());
+        }
+        if (cacheRedisProperties.getLoadingMarkerExpirationSeconds() > 0) {
+            cacheConfiguration = cacheConfiguration.enableLoadingMarker(
+                    Duration.ofSeconds(cacheRedisProperties.getLoadingMarkerExpirationSeconds()));
+        }
         return new JedisCacheManager(cacheWriter, cacheConfiguration)
+                .setNearCacheInvalidator(nearCacheInvalidator.getIfAvailable())
                 .setDefaultCacheName(cacheRedisProperties.getDefaultCacheName());
     }
 
+    /**
+     * 开启本地缓存时，通过 Redis pub/sub 通知其它实例失效本地缓存
+     */
+    @Bean(destroyMethod = "destroy")
+    @ConditionalOnMissingBean(NearCacheInvalidator.class)
+    @ConditionalOnExpression("${cache.redis.near-cache-max-size:0} > 0")
+    public NearCacheInvalidator nearCacheInvalidator(RedisConnectionFactory jedisConnectionFactory) {
+        if (!(jedisConnectionFactory instanceof JedisConnectionFactory)) {
+            throw new CacheException("near cache invalidation requires a JedisConnectionFactory");
+        }
+        return new NearCacheInvalidator((JedisConnectionFactory) jedisConnectionFactory,
+                cacheRedisProperties.getNearCacheInvalidationChannel(), Duration.ofMillis(10), 500);
+    }
+
 
 }
@@ -2,6 +2,9 @@ package com.caiya.cache.redis.spring.starter;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "cache.redis")
 public class CacheRedisProperties {
 
@@ -27,6 +30,21 @@ public class CacheRedisProperties {
 
     private String hashValueSerializer;
 
+    /**
+     * classes registered in order with the {@value CacheRedisAutoConfiguration#KRYO_SERIALIZER} serializer
+     */
+    private List<String> kryoRegisteredClasses = new ArrayList<>();
+
+    /**
+     * values of more serialized bytes are compressed by LZ4, negative to disable
+     */
+    private int valueCompressionThreshold = -1;
+
+    /**
+     * beta of the probabilistic early recomputation of entries with a ttl, 0 to disable
+     */
+    private double xFetchBeta = 0;
+
     private String defaultCacheName;
 
     private boolean useKeyPrefix = true;
@@ -35,6 +53,16 @@ public class CacheRedisProperties {
 
     private long defaultExpirationSeconds = 0;
 
+    private int nearCacheMaxSize = 0;
+
+    private long nearCacheExpirationSeconds = 0;
+
+    private long loadingMarkerExpirationSeconds = 0;
+
+    private String nearCacheInvalidationChannel = "caiya:near-cache:invalidation";
+
+    private int cleanBatchSize = 500;
+
 
     public String getHostNames() {
         return hostNames;
@@ -124,6 +152,30 @@ public class CacheRedisProperties {
         this.hashValueSerializer = hashValueSerializer;
     }
 
+    public List<String> getKryoRegisteredClasses() {
+        return kryoRegisteredClasses;
+    }
+
+    public void setKryoRegisteredClasses(List<String> kryoRegisteredClasses) {
+        this.kryoRegisteredClasses = kryoRegisteredClasses;
+    }
+
+    public int getValueCompressionThreshold() {
+        return valueCompressionThreshold;
+    }
+
+    public void setValueCompressionThreshold(int valueCompressionThreshold) {
+        this.valueCompressionThreshold = valueCompressionThreshold;
+    }
+
+    public double getXFetchBeta() {
+        return xFetchBeta;
+    }
+
+    public void setXFetchBeta(double xFetchBeta) {
+        this.xFetchBeta = xFetchBeta;
+    }
+
     public String getDefaultCacheName() {
         return defaultCacheName;
     }
@@ -155,4 +207,44 @@ public class CacheRedisProperties {
     public void setDefaultExpirationSeconds(long defaultExpirationSeconds) {
         this.defaultExpirationSeconds = defaultExpirationSeconds;
     }
+
+    public int getNearCacheMaxSize() {
+        return nearCacheMaxSize;
+    }
+
+    public void setNearCacheMaxSize(int nearCacheMaxSize) {
+        this.nearCacheMaxSize = nearCacheMaxSize;
+    }
+
+    public long getNearCacheExpirationSeconds() {
+        return nearCacheExpirationSeconds;
+    }
+
+    public void setNearCacheExpirationSeconds(long nearCacheExpirationSeconds) {
+        this.nearCacheExpirationSeconds = nearCacheExpirationSeconds;
+    }
+
+    public long getLoadingMarkerExpirationSeconds() {
+        return loadingMarkerExpirationSeconds;
+    }
+
+    public void setLoadingMarkerExpirationSeconds(long loadingMarkerExpirationSeconds) {
+        this.loadingMarkerExpirationSeconds = loadingMarkerExpirationSeconds;
+    }
+
+    public String getNearCacheInvalidationChannel() {
+        return nearCacheInvalidationChannel;
+    }
+
+    public void setNearCacheInvalidationChannel(String nearCacheInvalidationChannel) {
+        this.nearCacheInvalidationChannel = nearCacheInvalidationChannel;
+    }
+
+    public int getCleanBatchSize() {
+        return cleanBatchSize;
+    }
+
+    public void setCleanBatchSize(int cleanBatchSize) {
+        this.cleanBatchSize = cleanBatchSize;
+    }
 }
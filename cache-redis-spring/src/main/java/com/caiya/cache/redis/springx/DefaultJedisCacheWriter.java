@@ -3,10 +3,13 @@ package com.caiya.cache.redis.springx;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.caiya.cache.CacheException;
+import com.caiya.cache.redis.ClusterScanIterator;
 import com.caiya.cache.redis.JedisCache;
 import com.caiya.cache.redis.JedisClusterConnection;
 import com.caiya.cache.redis.RedisConnection;
@@ -14,8 +17,6 @@ import com.caiya.cache.redis.RedisConnectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
-import redis.clients.jedis.ScanParams;
-import redis.clients.jedis.ScanResult;
 
 /**
  * {@link JedisCacheWriter} implementation capable of reading/writing binary data from/to Redis in {@literal standalone}
@@ -36,8 +37,14 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultJedisCacheWriter.class);
 
+    private static final byte[] SET_IF_ABSENT = "NX".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SET_EXPIRE_MILLIS = "PX".getBytes(StandardCharsets.UTF_8);
+
+    static final int DEFAULT_CLEAN_BATCH_SIZE = 500;
+
     private final RedisConnectionFactory connectionFactory;
     private final Duration sleepTime;
+    private final int cleanBatchSize;
 
     /**
      * @param connectionFactory must not be {@literal null}.
@@ -52,12 +59,26 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
      *                          to disable locking.
      */
     DefaultJedisCacheWriter(RedisConnectionFactory connectionFactory, Duration sleepTime) {
+        this(connectionFactory, sleepTime, DEFAULT_CLEAN_BATCH_SIZE);
+    }
+
+    /**
+     * @param connectionFactory must not be {@literal null}.
+     * @param sleepTime         sleep time between lock request attempts. Must not be {@literal null}. Use {@link Duration#ZERO}
+     *                          to disable locking.
+     * @param cleanBatchSize    number of keys scanned and unlinked per round trip by {@link #clean(String, byte[])}, must
+     *                          be positive.
+     * @since 1.2
+     */
+    DefaultJedisCacheWriter(RedisConnectionFactory connectionFactory, Duration sleepTime, int cleanBatchSize) {
 
         Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
         Assert.notNull(sleepTime, "SleepTime must not be null!");
+        Assert.isTrue(cleanBatchSize > 0, "CleanBatchSize must be positive!");
 
         this.connectionFactory = connectionFactory;
         this.sleepTime = sleepTime;
+        this.cleanBatchSize = cleanBatchSize;
     }
 
     /*
@@ -111,11 +132,11 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
             }
 
             try {
-                if (connection.getNativeJedisCluster().setnx(key, value) != -1) {
-
-                    if (shouldExpireWithin(ttl)) {
-                        connection.getNativeJedisCluster().pexpire(key, ttl.toMillis());
-                    }
+                // SET NX PX writes the value and its expiration atomically
+                boolean set = shouldExpireWithin(ttl)
+                        ? "OK".equals(connection.getNativeJedisCluster().set(key, value, SET_IF_ABSENT, SET_EXPIRE_MILLIS, ttl.toMillis()))
+                        : Long.valueOf(1L).equals(connection.getNativeJedisCluster().setnx(key, value));
+                if (set) {
                     return null;
                 }
 
@@ -162,21 +183,20 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
                     wasLocked = true;
                 }
 
-                // 循环情况key
-                String scanCursor = "0";
-                int batchMaxSize = 100;
-                do {
-                    ScanParams scanParams = new ScanParams()
-                            .match(pattern)
-                            .count(batchMaxSize);
-                    ScanResult<String> scanResult = connection.getNativeJedisCluster().scan(scanCursor, scanParams);
-                    scanCursor = scanResult.getStringCursor();
-                    if (scanResult.getResult().size() > 0) {
-                        connection.getNativeJedisCluster().del(scanResult.getResult().toArray(new String[0]));
-                    } else {
-                        break;
+                // 所有主节点并行扫描，扫描线程与当前的删除线程同时进行；按slot分组UNLINK，按节点pipeline批量发送
+                List<byte[]> batch = new ArrayList<>(cleanBatchSize);
+                try (ClusterScanIterator keys = connection.scanCluster(new String(pattern, StandardCharsets.UTF_8), cleanBatchSize)) {
+                    while (keys.hasNext()) {
+                        batch.add(keys.next());
+                        if (batch.size() == cleanBatchSize) {
+                            connection.unlinkRaw(batch, cleanBatchSize);
+                            batch.clear();
+                        }
                     }
-                } while (!scanCursor.equals("0"));
+                }
+                if (!batch.isEmpty()) {
+                    connection.unlinkRaw(batch, cleanBatchSize);
+                }
             } finally {
 
                 if (wasLocked && isLockingCacheWriter()) {
@@ -206,15 +226,15 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
         executeLockFree(connection -> doUnlock(name, connection));
     }
 
-    private Boolean doLock(String name, JedisCache connection) {
+    private Boolean doLock(String name, JedisCache<?, ?> connection) {
         return connection.getNativeJedisCluster().setnx(createCacheLockKey(name), new byte[0]) != -1;
     }
 
-    private Long doUnlock(String name, JedisCache connection) {
+    private Long doUnlock(String name, JedisCache<?, ?> connection) {
         return connection.getNativeJedisCluster().del(createCacheLockKey(name));
     }
 
-    boolean doCheckLock(String name, JedisCache connection) {
+    boolean doCheckLock(String name, JedisCache<?, ?> connection) {
         return connection.getNativeJedisCluster().exists(createCacheLockKey(name));
     }
 
@@ -225,9 +245,9 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
         return !sleepTime.isZero() && !sleepTime.isNegative();
     }
 
-    private <T> T execute(String name, Function<JedisCache, T> callback) {
+    private <T> T execute(String name, Function<JedisCache<?, ?>, T> callback) {
 
-        JedisCache connection = ((JedisClusterConnection) (connectionFactory.getConnection())).getNativeConnection();
+        JedisCache<?, ?> connection = ((JedisClusterConnection) (connectionFactory.getConnection())).getNativeConnection();
         try {
 
             checkAndPotentiallyWaitUntilUnlocked(name, connection);
@@ -241,9 +261,9 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
         }
     }
 
-    private void executeLockFree(Consumer<JedisCache> callback) {
+    private void executeLockFree(Consumer<JedisCache<?, ?>> callback) {
 
-        JedisCache connection = ((JedisClusterConnection) (connectionFactory.getConnection())).getNativeConnection();
+        JedisCache<?, ?> connection = ((JedisClusterConnection) (connectionFactory.getConnection())).getNativeConnection();
 
         try {
             callback.accept(connection);
@@ -256,7 +276,7 @@ class DefaultJedisCacheWriter implements JedisCacheWriter {
         }
     }
 
-    private void checkAndPotentiallyWaitUntilUnlocked(String name, JedisCache connection) {
+    private void checkAndPotentiallyWaitUntilUnlocked(String name, JedisCache<?, ?> connection) {
 
         if (!isLockingCacheWriter()) {
             return;
@@ -0,0 +1,180 @@
+package com.caiya.cache.redis.springx;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import com.caiya.cache.redis.ClientEngine;
+import com.caiya.cache.redis.RedisConnection;
+import com.caiya.cache.redis.RedisConnectionFactory;
+import com.caiya.cache.redis.nio.NioClusterConnection;
+import com.caiya.cache.redis.nio.NioRedisCache;
+import com.caiya.cache.redis.nio.NioRedisClient;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveJedisCacheWriter} implementation on top of the {@link NioRedisClient} of a
+ * {@link RedisConnectionFactory} using {@link ClientEngine#NIO}. Each command is one request on the shared, pipelined
+ * connection of the node owning the key, no thread waits for a reply.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+class DefaultReactiveJedisCacheWriter implements ReactiveJedisCacheWriter {
+
+    private static final byte[] GET = bytes("GET");
+    private static final byte[] SET = bytes("SET");
+    private static final byte[] DEL = bytes("DEL");
+    private static final byte[] SCAN = bytes("SCAN");
+    private static final byte[] MATCH = bytes("MATCH");
+    private static final byte[] COUNT = bytes("COUNT");
+    private static final byte[] SET_IF_ABSENT = bytes("NX");
+    private static final byte[] SET_EXPIRE_MILLIS = bytes("PX");
+
+    private static final byte[] SCAN_START = bytes("0");
+
+    /**
+     * Keys per SCAN and per UNLINK when cleaning a cache
+     */
+    private static final int CLEAN_BATCH_SIZE = 100;
+    private static final byte[] SCAN_BATCH_SIZE = bytes(CLEAN_BATCH_SIZE);
+
+    private final RedisConnectionFactory connectionFactory;
+
+    /**
+     * @param connectionFactory must not be {@literal null}.
+     */
+    DefaultReactiveJedisCacheWriter(RedisConnectionFactory connectionFactory) {
+
+        Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+
+        this.connectionFactory = connectionFactory;
+    }
+
+    /*
+     * (non-Javadoc)
+     */
+    @Override
+    public Mono<Void> put(String name, byte[] key, byte[] value, Duration ttl) {
+
+        Assert.notNull(name, "Name must not be null!");
+        Assert.notNull(key, "Key must not be null!");
+        Assert.notNull(value, "Value must not be null!");
+
+        return execute(client -> Mono.fromFuture(shouldExpireWithin(ttl)
+                ? client.execute(key, SET, key, value, SET_EXPIRE_MILLIS, bytes(ttl.toMillis()))
+                : client.execute(key, SET, key, value)))
+                .then();
+    }
+
+    /*
+     * (non-Javadoc)
+     */
+    @Override
+    public Mono<byte[]> get(String name, byte[] key) {
+
+        Assert.notNull(name, "Name must not be null!");
+        Assert.notNull(key, "Key must not be null!");
+
+        return execute(client -> Mono.fromFuture(client.execute(key, GET, key)))
+                .cast(byte[].class);
+    }
+
+    /*
+     * (non-Javadoc)
+     */
+    @Override
+    public Mono<byte[]> putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+
+        Assert.notNull(name, "Name must not be null!");
+        Assert.notNull(key, "Key must not be null!");
+        Assert.notNull(value, "Value must not be null!");
+
+        return execute(client -> Mono.fromFuture((shouldExpireWithin(ttl)
+                ? client.execute(key, SET, key, value, SET_IF_ABSENT, SET_EXPIRE_MILLIS, bytes(ttl.toMillis()))
+                : client.execute(key, SET, key, value, SET_IF_ABSENT))
+                .thenApply("OK"::equals))
+                .flatMap(written -> written
+                        ? Mono.<byte[]>empty()
+                        : Mono.fromFuture(client.execute(key, GET, key)).cast(byte[].class)));
+    }
+
+    /*
+     * (non-Javadoc)
+     */
+    @Override
+    public Mono<Void> remove(String name, byte[] key) {
+
+        Assert.notNull(name, "Name must not be null!");
+        Assert.notNull(key, "Key must not be null!");
+
+        return execute(client -> Mono.fromFuture(client.execute(key, DEL, key)))
+                .then();
+    }
+
+    /*
+     * (non-Javadoc)
+     */
+    @Override
+    public Mono<Void> clean(String name, byte[] pattern) {
+
+        Assert.notNull(name, "Name must not be null!");
+        Assert.notNull(pattern, "Pattern must not be null!");
+
+        return executeOnCache(cache -> Flux.fromIterable(cache.getNativeClient().getMasterNodes())
+                .flatMap(node -> cleanNode(cache, node, pattern, SCAN_START))
+                .then());
+    }
+
+    /**
+     * Scan one node page by page, unlinking the keys of a page before requesting the next one.
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Void> cleanNode(NioRedisCache<?, ?> cache, String node, byte[] pattern, byte[] cursor) {
+
+        return Mono.fromFuture(cache.getNativeClient().executeOnNode(node, SCAN, cursor, MATCH, pattern, COUNT, SCAN_BATCH_SIZE))
+                .flatMap(reply -> {
+                    List<Object> cursorAndKeys = (List<Object>) reply;
+                    byte[] nextCursor = (byte[]) cursorAndKeys.get(0);
+                    List<byte[]> keys = (List<byte[]>) (List<?>) cursorAndKeys.get(1);
+                    // keys of one node may belong to different slots, one UNLINK per slot
+                    Mono<Void> deleted = keys.isEmpty()
+                            ? Mono.empty()
+                            : Mono.fromFuture(cache.unlinkRaw(keys, CLEAN_BATCH_SIZE)).then();
+                    return Arrays.equals(nextCursor, SCAN_START)
+                            ? deleted
+                            : deleted.then(Mono.defer(() -> cleanNode(cache, node, pattern, nextCursor)));
+                });
+    }
+
+    private <T> Mono<T> execute(Function<NioRedisClient, Mono<T>> callback) {
+
+        return executeOnCache(cache -> callback.apply(cache.getNativeClient()));
+    }
+
+    private <T> Mono<T> executeOnCache(Function<NioRedisCache<?, ?>, Mono<T>> callback) {
+
+        return Mono.defer(() -> {
+
+            RedisConnection<?> connection = connectionFactory.getClusterConnection();
+            if (!(connection instanceof NioClusterConnection)) {
+                return Mono.error(new IllegalStateException(
+                        "Reactive cache writer needs client engine " + ClientEngine.NIO));
+            }
+
+            return callback.apply(((NioClusterConnection) connection).getNativeConnection().getAsyncCache());
+        });
+    }
+
+    private static boolean shouldExpireWithin(Duration ttl) {
+        return ttl != null && !ttl.isZero() && !ttl.isNegative();
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -4,6 +4,8 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Optional;
 
+import com.caiya.cache.redis.XFetchValue;
+import com.caiya.cache.redis.serializer.CompressingSerializer;
 import com.caiya.serialization.Serializer;
 import com.caiya.serialization.jdk.JdkSerializationSerializer;
 import com.caiya.serialization.jdk.StringSerializer;
@@ -33,14 +35,55 @@ public class JedisCacheConfiguration {
     private final Serializer<String> keySerializer;
     private final Serializer<Object> valueSerializer;
 
+    private final int nearCacheMaxSize;
+    private final Duration nearCacheTtl;
+
+    private final Duration loadingMarkerTtl;
+
+    private final double xFetchBeta;
+
     public JedisCacheConfiguration(Duration ttl, boolean cacheNullValues, boolean usePrefix, CacheKeyPrefix keyPrefix,
                                    Serializer<String> keySerializer, Serializer<Object> valueSerializer) {
+        this(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer, valueSerializer, 0, Duration.ZERO);
+    }
+
+    /**
+     * @since 1.2
+     */
+    public JedisCacheConfiguration(Duration ttl, boolean cacheNullValues, boolean usePrefix, CacheKeyPrefix keyPrefix,
+                                   Serializer<String> keySerializer, Serializer<Object> valueSerializer,
+                                   int nearCacheMaxSize, Duration nearCacheTtl) {
+        this(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer, valueSerializer, nearCacheMaxSize, nearCacheTtl,
+                Duration.ZERO);
+    }
+
+    /**
+     * @since 1.2
+     */
+    public JedisCacheConfiguration(Duration ttl, boolean cacheNullValues, boolean usePrefix, CacheKeyPrefix keyPrefix,
+                                   Serializer<String> keySerializer, Serializer<Object> valueSerializer,
+                                   int nearCacheMaxSize, Duration nearCacheTtl, Duration loadingMarkerTtl) {
+        this(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer, valueSerializer, nearCacheMaxSize, nearCacheTtl,
+                loadingMarkerTtl, 0);
+    }
+
+    /**
+     * @since 1.2
+     */
+    public JedisCacheConfiguration(Duration ttl, boolean cacheNullValues, boolean usePrefix, CacheKeyPrefix keyPrefix,
+                                   Serializer<String> keySerializer, Serializer<Object> valueSerializer,
+                                   int nearCacheMaxSize, Duration nearCacheTtl, Duration loadingMarkerTtl,
+                                   double xFetchBeta) {
         this.ttl = ttl;
         this.cacheNullValues = cacheNullValues;
         this.usePrefix = usePrefix;
         this.keyPrefix = keyPrefix;
         this.keySerializer = keySerializer;
         this.valueSerializer = valueSerializer;
+        this.nearCacheMaxSize = nearCacheMaxSize;
+        this.nearCacheTtl = nearCacheTtl;
+        this.loadingMarkerTtl = loadingMarkerTtl;
+        this.xFetchBeta = xFetchBeta;
     }
 
     /**
@@ -58,6 +101,12 @@ public class JedisCacheConfiguration {
      * <dd>StringRedisSerializer.class</dd>
      * <dt>value serializer</dt>
      * <dd>JdkSerializationRedisSerializer.class</dd>
+     * <dt>near cache</dt>
+     * <dd>disabled</dd>
+     * <dt>cluster-wide loading marker</dt>
+     * <dd>disabled</dd>
+     * <dt>probabilistic early recomputation</dt>
+     * <dd>disabled</dd>
      * <dt>conversion service</dt>
      * <dd>{@link DefaultFormattingConversionService} with {@link #registerDefaultConverters(ConverterRegistry) default}
      * cache key converters</dd>
@@ -86,7 +135,8 @@ public class JedisCacheConfiguration {
 
         Assert.notNull(ttl, "TTL duration must not be null!");
 
-        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer, valueSerializer);
+        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer, valueSerializer,
+                nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
     }
 
     /**
@@ -115,7 +165,7 @@ public class JedisCacheConfiguration {
         Assert.notNull(cacheKeyPrefix, "Function for computing prefix must not be null!");
 
         return new JedisCacheConfiguration(ttl, cacheNullValues, true, cacheKeyPrefix, keySerializer,
-                valueSerializer);
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
     }
 
     /**
@@ -127,7 +177,8 @@ public class JedisCacheConfiguration {
      * @return new {@link JedisCacheConfiguration}.
      */
     public JedisCacheConfiguration disableCachingNullValues() {
-        return new JedisCacheConfiguration(ttl, false, usePrefix, keyPrefix, keySerializer, valueSerializer);
+        return new JedisCacheConfiguration(ttl, false, usePrefix, keyPrefix, keySerializer, valueSerializer,
+                nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
     }
 
     /**
@@ -140,7 +191,102 @@ public class JedisCacheConfiguration {
     public JedisCacheConfiguration disableKeyPrefix() {
 
         return new JedisCacheConfiguration(ttl, cacheNullValues, false, keyPrefix, keySerializer,
-                valueSerializer);
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
+    }
+
+    /**
+     * Keep up to {@code maxSize} deserialized values in an in-process tier in front of Redis, each of them for at most
+     * {@code ttl} (and never longer than the {@link #entryTtl(Duration) entry ttl}). <br />
+     * <strong>NOTE</strong> a value changed by another application instance may be served from the local tier until it
+     * expires there.
+     *
+     * @param maxSize maximum number of local entries per cache, must be positive.
+     * @param ttl     must not be {@literal null}. Use {@link Duration#ZERO} to rely on the size bound and entry ttl only.
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration enableNearCache(int maxSize, Duration ttl) {
+
+        Assert.isTrue(maxSize > 0, "Near cache maxSize must be positive!");
+        Assert.notNull(ttl, "Near cache TTL duration must not be null!");
+
+        return new JedisCacheConfiguration(this.ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                valueSerializer, maxSize, ttl, loadingMarkerTtl, xFetchBeta);
+    }
+
+    /**
+     * Disable the in-process tier in front of Redis.
+     *
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration disableNearCache() {
+
+        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                valueSerializer, 0, Duration.ZERO, loadingMarkerTtl, xFetchBeta);
+    }
+
+    /**
+     * Let only one application instance at a time run the value loader of
+     * {@link JedisSpringCache#get(Object, java.util.concurrent.Callable)} for a key. The loading instance holds a marker
+     * key in Redis for at most {@code ttl}, the others poll the cache meanwhile and only load themselves once the marker
+     * is gone without a value being written. <br />
+     * Loads of the same key inside one instance are always single-flight.
+     *
+     * @param ttl time to live of the marker, should exceed the usual load time. Must be positive.
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration enableLoadingMarker(Duration ttl) {
+
+        Assert.notNull(ttl, "Loading marker TTL duration must not be null!");
+        Assert.isTrue(!ttl.isZero() && !ttl.isNegative(), "Loading marker TTL duration must be positive!");
+
+        return new JedisCacheConfiguration(this.ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, ttl, xFetchBeta);
+    }
+
+    /**
+     * Disable the cluster-wide loading marker, loads are single-flight per application instance only.
+     *
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration disableLoadingMarker() {
+
+        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, Duration.ZERO, xFetchBeta);
+    }
+
+    /**
+     * Protect from stampedes at expiration by probabilistic early recomputation (XFetch): the values are stored with
+     * the time their loading took and their expiration, and every lookup turns into a miss before the expiration with
+     * a probability growing with both, so that the reloads of a hot key are spread out before it expires. <br />
+     * Applies to caches with an {@link #entryTtl(Duration) entry ttl} only. The stored values carry a header then, to be
+     * read by caches with early recomputation only.
+     *
+     * @param beta {@link XFetchValue#DEFAULT_BETA} as recommended, above to reload earlier. Must be positive.
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration enableEarlyRecomputation(double beta) {
+
+        Assert.isTrue(beta > 0, "Early recomputation beta must be positive!");
+
+        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, beta);
+    }
+
+    /**
+     * Let the entries expire at their ttl only. Values stored with early recomputation are not readable then.
+     *
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration disableEarlyRecomputation() {
+
+        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, 0);
     }
 
     /**
@@ -154,7 +300,7 @@ public class JedisCacheConfiguration {
         Assert.notNull(conversionService, "ConversionService must not be null!");
 
         return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
-                valueSerializer);
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
     }
 
     /**
@@ -168,7 +314,7 @@ public class JedisCacheConfiguration {
         Assert.notNull(keySerializer, "keySerializer must not be null!");
 
         return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
-                valueSerializer);
+                valueSerializer, nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
     }
 
     /**
@@ -177,12 +323,43 @@ public class JedisCacheConfiguration {
      * @param valueSerializer must not be {@literal null}.
      * @return new {@link JedisCacheConfiguration}.
      */
+    @SuppressWarnings("unchecked")
     public JedisCacheConfiguration serializeValuesWith(Serializer<?> valueSerializer) {
 
         Assert.notNull(valueSerializer, "valueSerializer must not be null!");
 
         return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
-                (Serializer<Object>) valueSerializer);
+                (Serializer<Object>) valueSerializer, nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
+    }
+
+    /**
+     * Compress the values of more serialized bytes than {@code threshold} by LZ4, wrapping the current value serializer
+     * in a {@link CompressingSerializer}. Values stored before stay readable. <br />
+     * <strong>NOTE</strong> apply it after {@link #serializeValuesWith(Serializer)}, which replaces the wrapper.
+     *
+     * @param threshold in bytes, must not be negative.
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration compressValuesAbove(int threshold) {
+
+        Assert.isTrue(threshold >= 0, "Compression threshold must not be negative!");
+
+        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                new CompressingSerializer<>(getUncompressedValueSerializer(), threshold), nearCacheMaxSize,
+                nearCacheTtl, loadingMarkerTtl, xFetchBeta);
+    }
+
+    /**
+     * Store values as serialized. Values compressed before are no longer readable.
+     *
+     * @return new {@link JedisCacheConfiguration}.
+     * @since 1.2
+     */
+    public JedisCacheConfiguration disableValueCompression() {
+
+        return new JedisCacheConfiguration(ttl, cacheNullValues, usePrefix, keyPrefix, keySerializer,
+                getUncompressedValueSerializer(), nearCacheMaxSize, nearCacheTtl, loadingMarkerTtl, xFetchBeta);
     }
 
     /**
@@ -243,6 +420,68 @@ public class JedisCacheConfiguration {
         return ttl;
     }
 
+    /**
+     * @return {@literal true} if values are kept in an in-process tier in front of Redis.
+     * @since 1.2
+     */
+    public boolean useNearCache() {
+        return nearCacheMaxSize > 0;
+    }
+
+    /**
+     * @return maximum number of local entries per cache, {@literal 0} if the near cache is disabled.
+     * @since 1.2
+     */
+    public int getNearCacheMaxSize() {
+        return nearCacheMaxSize;
+    }
+
+    /**
+     * @return The expiration time of local entries. Never {@literal null}.
+     * @since 1.2
+     */
+    public Duration getNearCacheTtl() {
+        return nearCacheTtl;
+    }
+
+    /**
+     * @return {@literal true} if value loaders are coordinated across application instances by a Redis marker.
+     * @since 1.2
+     */
+    public boolean useLoadingMarker() {
+        return !loadingMarkerTtl.isZero() && !loadingMarkerTtl.isNegative();
+    }
+
+    /**
+     * @return The expiration time of the loading marker, {@link Duration#ZERO} if disabled. Never {@literal null}.
+     * @since 1.2
+     */
+    public Duration getLoadingMarkerTtl() {
+        return loadingMarkerTtl;
+    }
+
+    /**
+     * @return {@literal true} if entries with a ttl are recomputed early with a probability.
+     * @since 1.2
+     */
+    public boolean useEarlyRecomputation() {
+        return xFetchBeta > 0 && !ttl.isZero() && !ttl.isNegative();
+    }
+
+    /**
+     * @return The beta of the early recomputation, {@literal 0} if disabled.
+     * @since 1.2
+     */
+    public double getXFetchBeta() {
+        return xFetchBeta;
+    }
+
+    private Serializer<Object> getUncompressedValueSerializer() {
+        return valueSerializer instanceof CompressingSerializer
+                ? ((CompressingSerializer<Object>) valueSerializer).getDelegate()
+                : valueSerializer;
+    }
+
     /**
      * Registers default cache key converters. The following converters get registered:
      * <ul>
@@ -13,6 +13,8 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 /**
@@ -45,6 +47,16 @@ public class JedisCacheManager extends AbstractCacheManager {
     private final Map<String, JedisCacheConfiguration> initialCacheConfiguration;
     private final boolean allowInFlightCacheCreation;
 
+    /**
+     * Caches whose expiration is part of the name, by full name
+     */
+    private final ConcurrentMap<String, JedisSpringCache> expiringCaches = new ConcurrentHashMap<>(16);
+
+    /**
+     * Reactive caches by full name
+     */
+    private final ConcurrentMap<String, ReactiveJedisSpringCache> reactiveCaches = new ConcurrentHashMap<>(16);
+
     private static final String SCRIPT_ENGINE_NAME = "nashorn";
 
     private static final ScriptEngine SCRIPT_ENGINE = new ScriptEngineManager().getEngineByName(SCRIPT_ENGINE_NAME);
@@ -55,6 +67,10 @@ public class JedisCacheManager extends AbstractCacheManager {
 
     private char separator = '#';
 
+    private NearCacheInvalidator nearCacheInvalidator;
+
+    private ReactiveJedisCacheWriter reactiveCacheWriter;
+
 
     /**
      * Creates new {@link JedisCacheManager} using given {@link JedisCacheWriter} and default
@@ -209,6 +225,12 @@ public class JedisCacheManager extends AbstractCacheManager {
             return super.getCache(cacheName);
         }
 
+        // reuse the created one, so that its state(eg: near cache) survives
+        JedisSpringCache expiringCache = expiringCaches.get(name);
+        if (expiringCache != null) {
+            return expiringCache;
+        }
+
         // split name by the separator, use extended cacheManager
         cacheName = name.substring(0, index);
         if (cacheName.trim().equals("")) {
@@ -224,7 +246,56 @@ public class JedisCacheManager extends AbstractCacheManager {
             logger.warn("Default expiration time will be used for cache: '{}' because cannot parse: '{}', original name: {}", cacheName, expiration, name);
         }
 
-        return new JedisSpringCache(cacheName, cacheWriter, currentCacheConfiguration);
+        expiringCache = createRedisCache(cacheName, currentCacheConfiguration);
+        JedisSpringCache existingCache = expiringCaches.putIfAbsent(name, expiringCache);
+        return existingCache != null ? existingCache : expiringCache;
+    }
+
+    /**
+     * Get the reactive cache of the given name, the expiration may be part of the name like for
+     * {@link #getCache(String)}.
+     *
+     * @param name the cache name
+     * @return {@literal null} if in-flight cache creation is disabled and the cache is not configured.
+     * @throws IllegalStateException if no {@link ReactiveJedisCacheWriter} is set.
+     * @since 1.2
+     */
+    public ReactiveJedisSpringCache getReactiveCache(String name) {
+
+        Assert.state(reactiveCacheWriter != null, "ReactiveCacheWriter must be set!");
+
+        if (name == null || name.trim().equals("")) {
+            name = defaultCacheName;
+        }
+
+        ReactiveJedisSpringCache reactiveCache = reactiveCaches.get(name);
+        if (reactiveCache != null) {
+            return reactiveCache;
+        }
+
+        String cacheName = name;
+        JedisCacheConfiguration cacheConfig = initialCacheConfiguration.get(name);
+        int index = name.lastIndexOf(getSeparator());
+        if (index >= 0) {
+            cacheName = name.substring(0, index);
+            if (cacheName.trim().equals("")) {
+                cacheName = defaultCacheName;
+            }
+            Long expiration = getExpiration(name, index);
+            if (expiration != null && expiration >= 0) {
+                cacheConfig = defaultCacheConfig.entryTtl(Duration.ofSeconds(expiration));
+            }
+        }
+        if (cacheConfig == null) {
+            if (!allowInFlightCacheCreation && index < 0) {
+                return null;
+            }
+            cacheConfig = defaultCacheConfig;
+        }
+
+        reactiveCache = new ReactiveJedisSpringCache(cacheName, reactiveCacheWriter, cacheConfig);
+        ReactiveJedisSpringCache existingCache = reactiveCaches.putIfAbsent(name, reactiveCache);
+        return existingCache != null ? existingCache : reactiveCache;
     }
 
     @Override
@@ -251,7 +322,8 @@ public class JedisCacheManager extends AbstractCacheManager {
      * @return never {@literal null}.
      */
     protected JedisSpringCache createRedisCache(String name, JedisCacheConfiguration cacheConfig) {
-        return new JedisSpringCache(name, cacheWriter, cacheConfig != null ? cacheConfig : defaultCacheConfig);
+        return new JedisSpringCache(name, cacheWriter, cacheConfig != null ? cacheConfig : defaultCacheConfig,
+                nearCacheInvalidator);
     }
 
     public char getSeparator() {
@@ -280,6 +352,31 @@ public class JedisCacheManager extends AbstractCacheManager {
         return expiration;
     }
 
+    /**
+     * Propagate the writes of caches using a near cache to the other application instances, must be set before the
+     * caches are created.
+     *
+     * @param nearCacheInvalidator can be {@literal null}.
+     * @return this {@link JedisCacheManager}.
+     * @since 1.2
+     */
+    public JedisCacheManager setNearCacheInvalidator(NearCacheInvalidator nearCacheInvalidator) {
+        this.nearCacheInvalidator = nearCacheInvalidator;
+        return this;
+    }
+
+    /**
+     * Set the writer of the caches returned by {@link #getReactiveCache(String)}.
+     *
+     * @param reactiveCacheWriter can be {@literal null}.
+     * @return this {@link JedisCacheManager}.
+     * @since 1.2
+     */
+    public JedisCacheManager setReactiveCacheWriter(ReactiveJedisCacheWriter reactiveCacheWriter) {
+        this.reactiveCacheWriter = reactiveCacheWriter;
+        return this;
+    }
+
     public JedisCacheManager setDefaultCacheName(String defaultCacheName) {
         this.defaultCacheName = defaultCacheName;
         return this;
@@ -30,6 +30,22 @@ public interface JedisCacheWriter {
         return new DefaultJedisCacheWriter(connectionFactory);
     }
 
+    /**
+     * Create new {@link JedisCacheWriter} without locking behavior.
+     *
+     * @param connectionFactory must not be {@literal null}.
+     * @param cleanBatchSize    number of keys scanned and unlinked per round trip when clearing a cache, must be
+     *                          positive.
+     * @return new instance of {@link DefaultJedisCacheWriter}.
+     * @since 1.2
+     */
+    static JedisCacheWriter nonLockingRedisCacheWriter(RedisConnectionFactory connectionFactory, int cleanBatchSize) {
+
+        Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+
+        return new DefaultJedisCacheWriter(connectionFactory, Duration.ZERO, cleanBatchSize);
+    }
+
     /**
      * Create new {@link JedisCacheWriter} with locking behavior.
      *
@@ -84,7 +100,7 @@ public interface JedisCacheWriter {
     void remove(String name, byte[] key);
 
     /**
-     * Remove all keys following the given pattern.
+     * Remove all keys following the given pattern, on every master node.
      *
      * @param name    The cache name must not be {@literal null}.
      * @param pattern The pattern for the keys to remove. Must not be {@literal null}.
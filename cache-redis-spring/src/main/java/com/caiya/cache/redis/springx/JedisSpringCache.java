@@ -1,5 +1,6 @@
 package com.caiya.cache.redis.springx;
 
+import com.caiya.cache.redis.XFetchValue;
 import com.caiya.serialization.jdk.JdkSerializationSerializer;
 import org.springframework.cache.support.AbstractValueAdaptingCache;
 import org.springframework.cache.support.NullValue;
@@ -10,7 +11,13 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link org.springframework.cache.Cache} implementation using for Redis as underlying store.
@@ -26,9 +33,30 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
 
     private static final byte[] BINARY_NULL_VALUE = new JdkSerializationSerializer().serialize(NullValue.INSTANCE);
 
+    private static final String LOADING_MARKER_SUFFIX = "~loading";
+    private static final byte[] LOADING_MARKER_VALUE = new byte[]{1};
+    private static final long LOADING_MARKER_POLL_MILLIS = 20;
+
+    /**
+     * The time a loading took counts for at most this fraction of the ttl, a miss may be followed by a put much later
+     */
+    private static final long MAX_RECOMPUTATION_DELTA_DIVISOR = 10;
+
     private final String name;
     private final JedisCacheWriter cacheWriter;
     private final JedisCacheConfiguration cacheConfig;
+    private final NearCache nearCache;
+    private final NearCacheInvalidator nearCacheInvalidator;
+
+    /**
+     * Value loads in progress in this instance, by cache key
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * The last miss of the current thread, so that the following put of the key knows the time its loading took
+     */
+    private final ThreadLocal<Recomputation> recomputation = new ThreadLocal<>();
 
     /**
      * Create new {@link JedisSpringCache}.
@@ -38,6 +66,20 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
      * @param cacheConfig must not be {@literal null}.
      */
     protected JedisSpringCache(String name, JedisCacheWriter cacheWriter, JedisCacheConfiguration cacheConfig) {
+        this(name, cacheWriter, cacheConfig, null);
+    }
+
+    /**
+     * Create new {@link JedisSpringCache}.
+     *
+     * @param name                 must not be {@literal null}.
+     * @param cacheWriter          must not be {@literal null}.
+     * @param cacheConfig          must not be {@literal null}.
+     * @param nearCacheInvalidator propagates the writes to the near caches of other instances, can be {@literal null}.
+     * @since 1.2
+     */
+    protected JedisSpringCache(String name, JedisCacheWriter cacheWriter, JedisCacheConfiguration cacheConfig,
+                               NearCacheInvalidator nearCacheInvalidator) {
 
         super(cacheConfig.getAllowCacheNullValues());
 
@@ -48,18 +90,53 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
         this.name = name;
         this.cacheWriter = cacheWriter;
         this.cacheConfig = cacheConfig;
+        this.nearCache = cacheConfig.useNearCache() ? createNearCache(cacheConfig) : null;
+        this.nearCacheInvalidator = this.nearCache != null ? nearCacheInvalidator : null;
+
+        if (this.nearCacheInvalidator != null) {
+            this.nearCacheInvalidator.register(this);
+        }
     }
 
     @Override
     protected Object lookup(Object key) {
 
-        byte[] value = cacheWriter.get(name, createAndConvertCacheKey(key));
+        String cacheKey = createCacheKey(key);
+
+        long stamp = 0;
+        if (nearCache != null) {
+            Object localValue = nearCache.get(cacheKey);
+            if (localValue != null) {
+                return localValue;
+            }
+            // an evict racing with the read must not be undone by the put below
+            stamp = nearCache.stamp(cacheKey);
+        }
+
+        byte[] value = cacheWriter.get(name, serializeCacheKey(cacheKey));
+
+        if (cacheConfig.useEarlyRecomputation()) {
+            XFetchValue xFetchValue = XFetchValue.parse(value);
+            if (value == null || xFetchValue != null && xFetchValue.shouldRecompute(cacheConfig.getXFetchBeta())) {
+                recomputation.set(new Recomputation(cacheKey));
+                return null;
+            }
+            Recomputation current = recomputation.get();
+            if (current != null && current.cacheKey.equals(cacheKey)) {
+                // loaded meanwhile by another caller
+                recomputation.remove();
+            }
+        }
 
         if (value == null) {
             return null;
         }
 
-        return deserializeCacheValue(value);
+        Object cacheValue = deserializeCacheValue(value);
+        if (nearCache != null && cacheValue != null) {
+            nearCache.put(cacheKey, cacheValue, stamp);
+        }
+        return cacheValue;
     }
 
     @Override
@@ -72,19 +149,44 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
         return this.cacheWriter;
     }
 
+    /**
+     * Loads are single-flight per key: concurrent callers of the same key wait for the value loaded by the first one,
+     * different keys are loaded in parallel.
+     */
     @Override
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get(Object key, Callable<T> valueLoader) {
-
-        ValueWrapper result = get(key);
+    public <T> T get(Object key, Callable<T> valueLoader) {
 
-        if (result != null) {
-            return (T) result.get();
+        try {
+            ValueWrapper result = get(key);
+
+            if (result != null) {
+                return (T) result.get();
+            }
+
+            String cacheKey = createCacheKey(key);
+            CompletableFuture<Object> load = new CompletableFuture<>();
+            CompletableFuture<Object> inFlightLoad = inFlightLoads.putIfAbsent(cacheKey, load);
+            if (inFlightLoad != null) {
+                return (T) awaitLoad(key, valueLoader, inFlightLoad);
+            }
+
+            try {
+                // the previous load may have completed between the lookup and the registration
+                result = get(key);
+                T value = result != null ? (T) result.get() : load(key, cacheKey, valueLoader);
+                load.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                load.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlightLoads.remove(cacheKey, load);
+            }
+        } finally {
+            // a miss not followed by a put, the loader failed or another caller loaded the value
+            recomputation.remove();
         }
-
-        T value = valueFromLoader(key, valueLoader);
-        put(key, value);
-        return value;
     }
 
     @Override
@@ -99,7 +201,16 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
                     name));
         }
 
-        cacheWriter.put(name, createAndConvertCacheKey(key), serializeCacheValue(cacheValue), cacheConfig.getTtl());
+        String cacheKey = createCacheKey(key);
+        cacheWriter.put(name, serializeCacheKey(cacheKey), serializeStoreValue(cacheKey, cacheValue),
+                cacheConfig.getTtl());
+
+        if (nearCache != null) {
+            nearCache.put(cacheKey, cacheValue);
+        }
+        if (nearCacheInvalidator != null) {
+            nearCacheInvalidator.invalidate(name, cacheKey);
+        }
     }
 
     @Override
@@ -111,29 +222,151 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
             return get(key);
         }
 
-        byte[] result = cacheWriter.putIfAbsent(name, createAndConvertCacheKey(key), serializeCacheValue(cacheValue),
-                cacheConfig.getTtl());
+        String cacheKey = createCacheKey(key);
+        long stamp = nearCache != null ? nearCache.stamp(cacheKey) : 0;
+        byte[] result = cacheWriter.putIfAbsent(name, serializeCacheKey(cacheKey),
+                serializeStoreValue(cacheKey, cacheValue), cacheConfig.getTtl());
 
         if (result == null) {
+            if (nearCache != null) {
+                nearCache.put(cacheKey, cacheValue);
+            }
+            if (nearCacheInvalidator != null) {
+                nearCacheInvalidator.invalidate(name, cacheKey);
+            }
             return null;
         }
 
-        return new SimpleValueWrapper(fromStoreValue(deserializeCacheValue(result)));
+        Object existingValue = deserializeCacheValue(result);
+        if (nearCache != null && existingValue != null) {
+            nearCache.put(cacheKey, existingValue, stamp);
+        }
+        return new SimpleValueWrapper(fromStoreValue(existingValue));
     }
 
     @Override
     public void evict(Object key) {
-        cacheWriter.remove(name, createAndConvertCacheKey(key));
+        String cacheKey = createCacheKey(key);
+        cacheWriter.remove(name, serializeCacheKey(cacheKey));
+
+        if (nearCache != null) {
+            nearCache.evict(cacheKey);
+        }
+        if (nearCacheInvalidator != null) {
+            nearCacheInvalidator.invalidate(name, cacheKey);
+        }
     }
 
     @Override
     public void clear() {
-        cacheWriter.clean(name, "*".getBytes());
+        // the keys of this cache only, every key without prefix
+        cacheWriter.clean(name, serializeCacheKey(createCacheKey("*")));
+
+        if (nearCache != null) {
+            nearCache.clear();
+        }
+        if (nearCacheInvalidator != null) {
+            nearCacheInvalidator.invalidateAll(name);
+        }
     }
 
+    /**
+     * Drop a local entry written by another instance.
+     *
+     * @param cacheKey must not be {@literal null}.
+     */
+    void evictNearCache(String cacheKey) {
+        if (nearCache != null) {
+            nearCache.evict(cacheKey);
+        }
+    }
 
-    private byte[] createAndConvertCacheKey(Object key) {
-        return serializeCacheKey(createCacheKey(key));
+    /**
+     * Drop all local entries after another instance cleared the cache.
+     */
+    void clearNearCache() {
+        if (nearCache != null) {
+            nearCache.clear();
+        }
+    }
+
+
+    /**
+     * Run the value loader and cache its result, guarded by a loading marker in Redis if configured.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T load(Object key, String cacheKey, Callable<T> valueLoader) {
+
+        if (!cacheConfig.useLoadingMarker()) {
+            return loadAndPut(key, valueLoader);
+        }
+
+        Duration markerTtl = cacheConfig.getLoadingMarkerTtl();
+        byte[] markerKey = serializeCacheKey(cacheKey + LOADING_MARKER_SUFFIX);
+        long deadline = System.nanoTime() + markerTtl.toNanos();
+        boolean marked;
+        // another instance is loading while the marker exists, wait for its value
+        while (!(marked = cacheWriter.putIfAbsent(name, markerKey, LOADING_MARKER_VALUE, markerTtl) == null)
+                && deadline - System.nanoTime() > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(LOADING_MARKER_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            ValueWrapper result = get(key);
+            if (result != null) {
+                return (T) result.get();
+            }
+        }
+
+        try {
+            return loadAndPut(key, valueLoader);
+        } finally {
+            if (marked) {
+                cacheWriter.remove(name, markerKey);
+            }
+        }
+    }
+
+    private <T> T loadAndPut(Object key, Callable<T> valueLoader) {
+
+        T value = valueFromLoader(key, valueLoader);
+        put(key, value);
+        return value;
+    }
+
+    private static Object awaitLoad(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    /**
+     * The local tier never keeps an entry longer than Redis does.
+     */
+    private static NearCache createNearCache(JedisCacheConfiguration cacheConfig) {
+
+        Duration ttl = cacheConfig.getNearCacheTtl();
+        Duration entryTtl = cacheConfig.getTtl();
+        if (entryTtl != null && !entryTtl.isZero() && !entryTtl.isNegative()
+                && (ttl.isZero() || ttl.isNegative() || entryTtl.compareTo(ttl) < 0)) {
+            ttl = entryTtl;
+        }
+        return new NearCache(cacheConfig.getNearCacheMaxSize(), ttl);
     }
 
     /**
@@ -161,6 +394,31 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
         return cacheConfig.getvalueSerializer().serialize(value);
     }
 
+    /**
+     * Serialize the value to store, with the time its loading took and its expiration if recomputed early.
+     */
+    private byte[] serializeStoreValue(String cacheKey, Object value) {
+
+        byte[] storeValue = serializeCacheValue(value);
+
+        if (!cacheConfig.useEarlyRecomputation()) {
+            return storeValue;
+        }
+
+        Recomputation current = recomputation.get();
+        long ttlMillis = cacheConfig.getTtl().toMillis();
+        long deltaMillis = 0;
+        if (current != null) {
+            recomputation.remove();
+            // a miss not followed by a put of its key is no loading
+            if (current.cacheKey.equals(cacheKey)) {
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.startNanos);
+                deltaMillis = Math.min(elapsedMillis, ttlMillis / MAX_RECOMPUTATION_DELTA_DIVISOR);
+            }
+        }
+        return XFetchValue.wrap(storeValue, deltaMillis, ttlMillis);
+    }
+
     /**
      * Customization hook for creating cache key before it gets serialized.
      *
@@ -213,6 +471,10 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
      */
     protected Object deserializeCacheValue(byte[] value) {
 
+        if (cacheConfig.useEarlyRecomputation()) {
+            value = XFetchValue.unwrap(value);
+        }
+
         if (isAllowNullValues() && ObjectUtils.nullSafeEquals(value, BINARY_NULL_VALUE)) {
             return NullValue.INSTANCE;
         }
@@ -244,4 +506,17 @@ public class JedisSpringCache extends AbstractValueAdaptingCache {
 
         return isAllowNullValues() ? NullValue.INSTANCE : null;
     }
+
+    /**
+     * A miss of {@link #lookup(Object)}, the start of the loading of its value.
+     */
+    private static final class Recomputation {
+
+        private final String cacheKey;
+        private final long startNanos = System.nanoTime();
+
+        private Recomputation(String cacheKey) {
+            this.cacheKey = cacheKey;
+        }
+    }
 }
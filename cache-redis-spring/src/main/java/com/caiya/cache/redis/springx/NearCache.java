@@ -0,0 +1,211 @@
+package com.caiya.cache.redis.springx;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bounded in-process tier in front of Redis, holding the already deserialized cache values of a {@link JedisSpringCache}.
+ * <br />
+ * Entries expire after the configured ttl and the least recently used entries are evicted once the cache grows beyond
+ * its maximum size. The keys are spread by hash over segments, each an access ordered map guarded by a lock of its own,
+ * so readers of different segments do not contend and the eviction order is kept per segment. Small caches have a
+ * single segment and an exact LRU order. Values are shared by all readers, so they should be treated as immutable.
+ * <br />
+ * Every write or removal bumps the version of its segment: a value read from Redis is only stored with
+ * {@link #put(String, Object, long)} if no write or removal of the segment happened since {@link #stamp(String)}.
+ *
+ * @author wangnan
+ * @see JedisCacheConfiguration#enableNearCache(int, Duration)
+ * @since 1.2
+ */
+class NearCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * Minimum number of entries of a segment, keeps the per segment LRU order close to the global one
+     */
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final long ttlNanos;
+
+    private final Segment[] segments;
+
+    /**
+     * @param maxSize maximum number of entries, must be positive.
+     * @param ttl     time to live of an entry. Use {@link Duration#ZERO} to keep entries until they are evicted by size.
+     */
+    NearCache(int maxSize, Duration ttl) {
+
+        Assert.isTrue(maxSize > 0, "MaxSize must be positive!");
+        Assert.notNull(ttl, "TTL duration must not be null!");
+
+        this.ttlNanos = ttl.isNegative() ? 0 : ttl.toNanos();
+
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize / MIN_SEGMENT_SIZE)));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // the remainder goes to the first segments
+            segments[i] = new Segment(maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * @param key must not be {@literal null}.
+     * @return the store value, {@literal null} if absent or expired.
+     */
+    Object get(String key) {
+
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            Entry entry = segment.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (ttlNanos != 0 && entry.expireAt - System.nanoTime() <= 0) {
+                segment.entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Take the version to pass to {@link #put(String, Object, long)}, before reading the value from Redis.
+     *
+     * @param key must not be {@literal null}.
+     */
+    long stamp(String key) {
+        return segmentFor(key).version;
+    }
+
+    /**
+     * Store a value written to Redis.
+     *
+     * @param key   must not be {@literal null}.
+     * @param value the store value, must not be {@literal null}.
+     */
+    void put(String key, Object value) {
+
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            segment.entries.put(key, newEntry(value));
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Store a value read from Redis, unless the key may have been written or removed since the stamp.
+     *
+     * @param key   must not be {@literal null}.
+     * @param value the store value, must not be {@literal null}.
+     * @param stamp the version of {@link #stamp(String)} taken before the read.
+     * @return {@literal true} if stored.
+     */
+    boolean put(String key, Object value, long stamp) {
+
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            if (segment.version != stamp) {
+                return false;
+            }
+            segment.entries.put(key, newEntry(value));
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void evict(String key) {
+
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            segment.entries.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void clear() {
+
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.version++;
+                segment.entries.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    int size() {
+
+        int size = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Entry newEntry(Object value) {
+        return new Entry(value, ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos);
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        // spread the high bits like HashMap, the segment count is a power of two
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static final class Segment {
+
+        private final Lock lock = new ReentrantLock();
+        private final Map<String, Entry> entries;
+
+        /**
+         * Written under the lock only
+         */
+        private volatile long version;
+
+        private Segment(int maxSize) {
+            this.entries = new LinkedHashMap<String, Entry>(Math.min(maxSize, 1024), 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long expireAt;
+
+        private Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
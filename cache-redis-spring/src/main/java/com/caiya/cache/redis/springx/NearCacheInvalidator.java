@@ -0,0 +1,302 @@
+package com.caiya.cache.redis.springx;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.caiya.cache.redis.JedisClusterConnection;
+import com.caiya.cache.redis.JedisConnectionFactory;
+import com.caiya.cache.redis.JedisMessageSubscriber;
+import com.caiya.cache.redis.RedisMessageListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * Keeps the {@link NearCache near caches} of several application instances consistent over Redis pub/sub.
+ * <br />
+ * Writes of a {@link JedisSpringCache} are queued as key (or whole cache) invalidations and published in batches every
+ * {@code flushInterval}, a burst of writes to the same keys is coalesced into one message. Every instance receives the
+ * messages on the single subscriber thread of its {@link JedisConnectionFactory} and drops the matching local entries,
+ * its own messages are ignored. Messages lost during a connection failure are not replayed, the near cache ttl bounds
+ * the staleness in that case.
+ *
+ * @author wangnan
+ * @see JedisCacheManager#setNearCacheInvalidator(NearCacheInvalidator)
+ * @since 1.2
+ */
+public class NearCacheInvalidator implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheInvalidator.class);
+
+    public static final String DEFAULT_CHANNEL = "caiya:near-cache:invalidation";
+
+    private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(10);
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    private static final String CLEAR = "C";
+    private static final String KEYS = "K";
+
+    private final JedisConnectionFactory connectionFactory;
+    private final String channel;
+    private final int maxBatchSize;
+
+    /**
+     * Identifies the messages of this instance
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, List<JedisSpringCache>> caches = new ConcurrentHashMap<>();
+    private final Queue<Invalidation> pending = new ConcurrentLinkedQueue<>();
+    private final RedisMessageListener listener = this::onMessage;
+    private final JedisMessageSubscriber subscriber;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Create new {@link NearCacheInvalidator} publishing to {@link #DEFAULT_CHANNEL} every 10ms.
+     *
+     * @param connectionFactory must not be {@literal null}.
+     */
+    public NearCacheInvalidator(JedisConnectionFactory connectionFactory) {
+        this(connectionFactory, DEFAULT_CHANNEL, DEFAULT_FLUSH_INTERVAL, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Create new {@link NearCacheInvalidator}.
+     *
+     * @param connectionFactory must not be {@literal null}.
+     * @param channel           the pub/sub channel shared by all instances, must not be {@literal null}.
+     * @param flushInterval     the delay between two batches, must be positive.
+     * @param maxBatchSize      the maximum number of invalidations in one message, must be positive.
+     */
+    public NearCacheInvalidator(JedisConnectionFactory connectionFactory, String channel, Duration flushInterval,
+                                int maxBatchSize) {
+
+        Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+        Assert.hasText(channel, "Channel must not be empty!");
+        Assert.notNull(flushInterval, "FlushInterval must not be null!");
+        Assert.isTrue(!flushInterval.isZero() && !flushInterval.isNegative(), "FlushInterval must be positive!");
+        Assert.isTrue(maxBatchSize > 0, "MaxBatchSize must be positive!");
+
+        this.connectionFactory = connectionFactory;
+        this.channel = channel;
+        this.maxBatchSize = maxBatchSize;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "near-cache-invalidator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toNanos(), flushInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+
+        this.subscriber = connectionFactory.getMessageSubscriber();
+        this.subscriber.subscribe(channel, listener);
+    }
+
+    /**
+     * Register the cache whose near cache is dropped on remote invalidations.
+     *
+     * @param cache must not be {@literal null}.
+     */
+    void register(JedisSpringCache cache) {
+        caches.computeIfAbsent(cache.getName(), name -> new CopyOnWriteArrayList<>())
+                .add(cache);
+    }
+
+    /**
+     * Queue the invalidation of one key.
+     *
+     * @param cacheName must not be {@literal null}.
+     * @param cacheKey  must not be {@literal null}.
+     */
+    void invalidate(String cacheName, String cacheKey) {
+        pending.offer(new Invalidation(cacheName, cacheKey));
+    }
+
+    /**
+     * Queue the invalidation of all keys of a cache.
+     *
+     * @param cacheName must not be {@literal null}.
+     */
+    void invalidateAll(String cacheName) {
+        pending.offer(new Invalidation(cacheName, null));
+    }
+
+    /**
+     * Publish the queued invalidations now.
+     */
+    public void flush() {
+
+        while (!pending.isEmpty()) {
+            Set<String> clearedNames = new LinkedHashSet<>();
+            Map<String, Set<String>> keysByName = new LinkedHashMap<>();
+
+            Invalidation invalidation;
+            int count = 0;
+            while (count < maxBatchSize && (invalidation = pending.poll()) != null) {
+                count++;
+                if (invalidation.cacheKey == null) {
+                    clearedNames.add(invalidation.cacheName);
+                } else {
+                    keysByName.computeIfAbsent(invalidation.cacheName, name -> new LinkedHashSet<>())
+                            .add(invalidation.cacheKey);
+                }
+            }
+            // a cleared cache drops its keys anyway
+            keysByName.keySet().removeAll(clearedNames);
+
+            if (clearedNames.isEmpty() && keysByName.isEmpty()) {
+                return;
+            }
+            ((JedisClusterConnection) connectionFactory.getClusterConnection()).getNativeConnection()
+                    .publish(channel, encode(clearedNames, keysByName));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+        flushQuietly();
+        // the subscriber subscribed to, not a new one of the factory
+        subscriber.unsubscribe(channel, listener);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("publish near cache invalidations failed", e);
+        }
+    }
+
+    private void onMessage(String channel, String message) {
+        Message decoded = decode(message);
+        if (instanceId.equals(decoded.instanceId)) {
+            return;
+        }
+
+        for (String cacheName : decoded.clearedNames) {
+            for (JedisSpringCache cache : caches.getOrDefault(cacheName, Collections.emptyList())) {
+                cache.clearNearCache();
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : decoded.keysByName.entrySet()) {
+            for (JedisSpringCache cache : caches.getOrDefault(entry.getKey(), Collections.emptyList())) {
+                for (String cacheKey : entry.getValue()) {
+                    cache.evictNearCache(cacheKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Every field is written as {@code <length>:<chars>}, so that names and keys may contain any character:
+     * instance id, then {@code C name} per cleared cache and {@code K name count key...} per cache with evicted keys.
+     */
+    private String encode(Set<String> clearedNames, Map<String, Set<String>> keysByName) {
+
+        StringBuilder message = new StringBuilder(64);
+        appendField(message, instanceId);
+        for (String cacheName : clearedNames) {
+            appendField(message, CLEAR);
+            appendField(message, cacheName);
+        }
+        for (Map.Entry<String, Set<String>> entry : keysByName.entrySet()) {
+            appendField(message, KEYS);
+            appendField(message, entry.getKey());
+            appendField(message, String.valueOf(entry.getValue().size()));
+            for (String cacheKey : entry.getValue()) {
+                appendField(message, cacheKey);
+            }
+        }
+        return message.toString();
+    }
+
+    private static void appendField(StringBuilder message, String field) {
+        message.append(field.length()).append(':').append(field);
+    }
+
+    private static Message decode(String message) {
+
+        FieldReader reader = new FieldReader(message);
+        Message decoded = new Message(reader.next());
+        while (reader.hasNext()) {
+            String type = reader.next();
+            String cacheName = reader.next();
+            if (CLEAR.equals(type)) {
+                decoded.clearedNames.add(cacheName);
+            } else if (KEYS.equals(type)) {
+                int count = Integer.parseInt(reader.next());
+                Set<String> keys = decoded.keysByName.computeIfAbsent(cacheName, name -> new LinkedHashSet<>());
+                for (int i = 0; i < count; i++) {
+                    keys.add(reader.next());
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown invalidation type: " + type);
+            }
+        }
+        return decoded;
+    }
+
+    private static final class FieldReader {
+
+        private final String message;
+        private int position;
+
+        private FieldReader(String message) {
+            this.message = message;
+        }
+
+        private boolean hasNext() {
+            return position < message.length();
+        }
+
+        private String next() {
+            int colon = message.indexOf(':', position);
+            if (colon < 0) {
+                throw new IllegalArgumentException("Malformed invalidation message: " + message);
+            }
+            int length = Integer.parseInt(message.substring(position, colon));
+            position = colon + 1 + length;
+            return message.substring(colon + 1, position);
+        }
+    }
+
+    private static final class Message {
+
+        private final String instanceId;
+        private final Set<String> clearedNames = new LinkedHashSet<>();
+        private final Map<String, Set<String>> keysByName = new LinkedHashMap<>();
+
+        private Message(String instanceId) {
+            this.instanceId = instanceId;
+        }
+    }
+
+    private static final class Invalidation {
+
+        private final String cacheName;
+        private final String cacheKey;
+
+        private Invalidation(String cacheName, String cacheKey) {
+            this.cacheName = cacheName;
+            this.cacheKey = cacheKey;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.caiya.cache.redis.springx;
+
+import java.time.Duration;
+
+import com.caiya.cache.redis.RedisConnectionFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link JedisCacheWriter}, reading / writing binary data from / to Redis without blocking the
+ * subscriber thread. <br />
+ * The commands are sent by the non-blocking engine ({@link com.caiya.cache.redis.ClientEngine#NIO}), the returned
+ * {@link Mono}s signal on its I/O thread, so blocking work downstream must switch threads, e.g. by
+ * {@link Mono#publishOn(reactor.core.scheduler.Scheduler)}.
+ *
+ * @author wangnan
+ * @see ReactiveJedisSpringCache
+ * @since 1.2
+ */
+public interface ReactiveJedisCacheWriter {
+
+    /**
+     * Create new {@link ReactiveJedisCacheWriter} without locking behavior.
+     *
+     * @param connectionFactory must not be {@literal null}, its client engine must be
+     *                          {@link com.caiya.cache.redis.ClientEngine#NIO}.
+     * @return new instance of {@link DefaultReactiveJedisCacheWriter}.
+     */
+    static ReactiveJedisCacheWriter nonLockingRedisCacheWriter(RedisConnectionFactory connectionFactory) {
+
+        Assert.notNull(connectionFactory, "ConnectionFactory must not be null!");
+
+        return new DefaultReactiveJedisCacheWriter(connectionFactory);
+    }
+
+    /**
+     * Write the given key/value pair to Redis an set the expiration time if defined.
+     *
+     * @param name  The cache name must not be {@literal null}.
+     * @param key   The key for the cache entry. Must not be {@literal null}.
+     * @param value The value stored for the key. Must not be {@literal null}.
+     * @param ttl   Optional expiration time. Can be {@literal null}.
+     * @return completes when the value is written.
+     */
+    Mono<Void> put(String name, byte[] key, byte[] value, @Nullable Duration ttl);
+
+    /**
+     * Get the binary value representation from Redis stored for the given key.
+     *
+     * @param name must not be {@literal null}.
+     * @param key  must not be {@literal null}.
+     * @return empty if key does not exist.
+     */
+    Mono<byte[]> get(String name, byte[] key);
+
+    /**
+     * Write the given value to Redis if the key does not already exist.
+     *
+     * @param name  The cache name must not be {@literal null}.
+     * @param key   The key for the cache entry. Must not be {@literal null}.
+     * @param value The value stored for the key. Must not be {@literal null}.
+     * @param ttl   Optional expiration time. Can be {@literal null}.
+     * @return empty if the value has been written, the value stored for the key if it already exists.
+     */
+    Mono<byte[]> putIfAbsent(String name, byte[] key, byte[] value, @Nullable Duration ttl);
+
+    /**
+     * Remove the given key from Redis.
+     *
+     * @param name The cache name must not be {@literal null}.
+     * @param key  The key for the cache entry. Must not be {@literal null}.
+     * @return completes when the key is removed.
+     */
+    Mono<Void> remove(String name, byte[] key);
+
+    /**
+     * Remove all keys following the given pattern, on every master node.
+     *
+     * @param name    The cache name must not be {@literal null}.
+     * @param pattern The pattern for the keys to remove. Must not be {@literal null}.
+     * @return completes when all keys are removed.
+     */
+    Mono<Void> clean(String name, byte[] pattern);
+}
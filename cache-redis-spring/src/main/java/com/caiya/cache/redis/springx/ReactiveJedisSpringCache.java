@@ -0,0 +1,238 @@
+package com.caiya.cache.redis.springx;
+
+import com.caiya.cache.redis.XFetchValue;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reactive cache using Redis as underlying store, the non-blocking counterpart of {@link JedisSpringCache} sharing its
+ * key layout and serialization, so both can work on the same entries.
+ * <p/>
+ * Use {@link JedisCacheManager#getReactiveCache(String)} to create {@link ReactiveJedisSpringCache} instances. Near
+ * caches are not supported, writes are not propagated to the near caches of {@link JedisSpringCache}s.
+ *
+ * @author wangnan
+ * @see ReactiveJedisCacheWriter
+ * @since 1.2
+ */
+public class ReactiveJedisSpringCache {
+
+    private static final byte[] BINARY_NULL_VALUE = new JdkSerializationSerializer().serialize(NullValue.INSTANCE);
+
+    private final String name;
+    private final ReactiveJedisCacheWriter cacheWriter;
+    private final JedisCacheConfiguration cacheConfig;
+
+    /**
+     * Create new {@link ReactiveJedisSpringCache}.
+     *
+     * @param name        must not be {@literal null}.
+     * @param cacheWriter must not be {@literal null}.
+     * @param cacheConfig must not be {@literal null}.
+     */
+    protected ReactiveJedisSpringCache(String name, ReactiveJedisCacheWriter cacheWriter,
+                                       JedisCacheConfiguration cacheConfig) {
+
+        Assert.notNull(name, "Name must not be null!");
+        Assert.notNull(cacheWriter, "CacheWriter must not be null!");
+        Assert.notNull(cacheConfig, "CacheConfig must not be null!");
+
+        this.name = name;
+        this.cacheWriter = cacheWriter;
+        this.cacheConfig = cacheConfig;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public ReactiveJedisCacheWriter getNativeCache() {
+        return this.cacheWriter;
+    }
+
+    /**
+     * Return the value to which this cache maps the specified key.
+     *
+     * @param key must not be {@literal null}.
+     * @return empty if there is no mapping, a wrapper of {@literal null} for a cached {@literal null} value.
+     */
+    public Mono<Cache.ValueWrapper> get(Object key) {
+
+        return cacheWriter.get(name, serializeCacheKey(createCacheKey(key)))
+                .map(value -> new SimpleValueWrapper(fromStoreValue(deserializeCacheValue(value))));
+    }
+
+    /**
+     * Associate the specified value with the specified key in this cache.
+     *
+     * @param key   must not be {@literal null}.
+     * @param value can be {@literal null} if the cache allows {@literal null} values.
+     * @return completes when the value is written.
+     */
+    public Mono<Void> put(Object key, Object value) {
+
+        Object cacheValue = preProcessCacheValue(value);
+
+        if (cacheValue == null) {
+
+            return Mono.error(new IllegalArgumentException(String.format(
+                    "Cache '%s' does not allow 'null' values. Avoid storing null or configure JedisCacheConfiguration to allow 'null'.",
+                    name)));
+        }
+
+        return cacheWriter.put(name, serializeCacheKey(createCacheKey(key)), serializeCacheValue(cacheValue),
+                cacheConfig.getTtl());
+    }
+
+    /**
+     * Associate the specified value with the specified key in this cache if it is not set already.
+     *
+     * @param key   must not be {@literal null}.
+     * @param value can be {@literal null} if the cache allows {@literal null} values.
+     * @return empty if the value has been written, the existing value otherwise.
+     */
+    public Mono<Cache.ValueWrapper> putIfAbsent(Object key, Object value) {
+
+        Object cacheValue = preProcessCacheValue(value);
+
+        if (cacheValue == null) {
+            return get(key);
+        }
+
+        return cacheWriter.putIfAbsent(name, serializeCacheKey(createCacheKey(key)), serializeCacheValue(cacheValue),
+                cacheConfig.getTtl())
+                .map(existingValue -> new SimpleValueWrapper(fromStoreValue(deserializeCacheValue(existingValue))));
+    }
+
+    /**
+     * Evict the mapping for this key from this cache if it is present.
+     *
+     * @param key must not be {@literal null}.
+     * @return completes when the key is removed.
+     */
+    public Mono<Void> evict(Object key) {
+        return cacheWriter.remove(name, serializeCacheKey(createCacheKey(key)));
+    }
+
+    /**
+     * Remove all mappings from the cache.
+     *
+     * @return completes when all keys are removed.
+     */
+    public Mono<Void> clear() {
+        // the keys of this cache only, every key without prefix
+        return cacheWriter.clean(name, serializeCacheKey(createCacheKey("*")));
+    }
+
+    /**
+     * Serialize the key.
+     *
+     * @param cacheKey must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    protected byte[] serializeCacheKey(String cacheKey) {
+        return cacheConfig.getkeySerializer().serialize(cacheKey);
+    }
+
+    /**
+     * Serialize the value to cache.
+     *
+     * @param value must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    protected byte[] serializeCacheValue(Object value) {
+
+        if (cacheConfig.getAllowCacheNullValues() && value instanceof NullValue) {
+            return BINARY_NULL_VALUE;
+        }
+
+        byte[] cacheValue = cacheConfig.getvalueSerializer().serialize(value);
+        // read by a JedisSpringCache with early recomputation
+        return cacheConfig.useEarlyRecomputation() ? XFetchValue.escape(cacheValue) : cacheValue;
+    }
+
+    /**
+     * Deserialize the given value to the actual cache value.
+     *
+     * @param value must not be {@literal null}.
+     * @return can be {@literal null}.
+     */
+    protected Object deserializeCacheValue(byte[] value) {
+
+        // written by a JedisSpringCache with early recomputation
+        if (cacheConfig.useEarlyRecomputation()) {
+            value = XFetchValue.unwrap(value);
+        }
+
+        if (cacheConfig.getAllowCacheNullValues() && ObjectUtils.nullSafeEquals(value, BINARY_NULL_VALUE)) {
+            return NullValue.INSTANCE;
+        }
+
+        return cacheConfig.getvalueSerializer().deserialize(value);
+    }
+
+    /**
+     * Customization hook for creating cache key before it gets serialized.
+     *
+     * @param key will never be {@literal null}.
+     * @return never {@literal null}.
+     */
+    protected String createCacheKey(Object key) {
+
+        String convertedKey = convertKey(key);
+
+        if (!cacheConfig.usePrefix()) {
+            return convertedKey;
+        }
+
+        return cacheConfig.getKeyPrefixFor(name) + convertedKey;
+    }
+
+    /**
+     * Convert {@code key} to a {@link String} representation used for cache key creation.
+     *
+     * @param key will never be {@literal null}.
+     * @return never {@literal null}.
+     * @throws IllegalStateException if {@code key} cannot be converted to {@link String}.
+     */
+    protected String convertKey(Object key) {
+
+        Method toString = ReflectionUtils.findMethod(key.getClass(), "toString");
+
+        if (toString != null && !Object.class.equals(toString.getDeclaringClass())) {
+            return key.toString();
+        }
+
+        throw new IllegalStateException(String.format("Cannot convert %s to String. Register a Converter or override toString().",
+                TypeDescriptor.forObject(key)));
+    }
+
+    /**
+     * Customization hook called before passing object to
+     * {@link com.caiya.serialization.Serializer}.
+     *
+     * @param value can be {@literal null}.
+     * @return preprocessed value. Can be {@literal null}.
+     */
+    protected Object preProcessCacheValue(Object value) {
+
+        if (value != null) {
+            return value;
+        }
+
+        return cacheConfig.getAllowCacheNullValues() ? NullValue.INSTANCE : null;
+    }
+
+    private Object fromStoreValue(Object storeValue) {
+        return cacheConfig.getAllowCacheNullValues() && storeValue == NullValue.INSTANCE ? null : storeValue;
+    }
+}
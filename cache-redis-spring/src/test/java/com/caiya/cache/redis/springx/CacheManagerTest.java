@@ -1,5 +1,12 @@
 package com.caiya.cache.redis.springx;
 
+import com.caiya.cache.redis.ClientEngine;
+import com.caiya.cache.redis.JedisCache;
+import com.caiya.cache.redis.JedisClusterConnection;
+import com.caiya.cache.redis.JedisConnectionFactory;
+import com.caiya.cache.redis.JedisMessageSubscriber;
+import com.caiya.cache.redis.RedisConnectionFactory;
+import com.caiya.cache.redis.RedisMessageListener;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -7,15 +14,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import redis.clients.jedis.JedisCluster;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = CacheManagerApplication.class)
+@ContextConfiguration(initializers = TestRedisClusterInitializer.class)
 public class CacheManagerTest {
 
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private RedisConnectionFactory jedisConnectionFactory;
+
     @Test
     public void test() {
         Cache cache = cacheManager.getCache("caiya_cache");
@@ -28,4 +54,192 @@ public class CacheManagerTest {
         Assert.assertNull(cache.get(key));
     }
 
+    @Test
+    public void testClear() {
+        JedisCacheManager clearCacheManager = new JedisCacheManager(JedisCacheWriter.nonLockingRedisCacheWriter(jedisConnectionFactory),
+                JedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(10)))
+                .setDefaultCacheName("caiya_cache");
+        clearCacheManager.afterPropertiesSet();
+        Cache cache = clearCacheManager.getCache("caiya_clear_cache");
+        // its name starts with the name of the cleared cache
+        Cache siblingCache = clearCacheManager.getCache("caiya_clear_cache_sibling");
+        JedisCluster jedisCluster = ((JedisClusterConnection) jedisConnectionFactory.getClusterConnection())
+                .getNativeConnection().getNativeJedisCluster();
+        String key = "测试clear";
+        try {
+            cache.put(key, "测试clear_value");
+            siblingCache.put(key, "测试clear_sibling_value");
+            jedisCluster.set(key, "测试clear_plain_value");
+
+            cache.clear();
+            Assert.assertNull(cache.get(key));
+            Assert.assertEquals("测试clear_sibling_value", siblingCache.get(key).get());
+            Assert.assertEquals("测试clear_plain_value", jedisCluster.get(key));
+        } finally {
+            siblingCache.evict(key);
+            jedisCluster.del(key);
+        }
+    }
+
+    @Test
+    public void testNearCache() {
+        JedisCacheManager nearCacheManager = new JedisCacheManager(JedisCacheWriter.nonLockingRedisCacheWriter(jedisConnectionFactory),
+                JedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofMinutes(10))
+                        .enableNearCache(100, Duration.ofMinutes(1)));
+        nearCacheManager.setDefaultCacheName("caiya_cache");
+        nearCacheManager.afterPropertiesSet();
+        Cache cache = nearCacheManager.getCache("caiya_near_cache");
+        String key = "测试nearCache";
+        Object value = "测试nearCache_value";
+        cache.put(key, value);
+        // removed from redis only, still served by the near cache
+        ((JedisSpringCache) cache).getNativeCache().remove("caiya_near_cache", ("caiya_near_cache::" + key).getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(value, cache.get(key).get());
+        cache.evict(key);
+        Assert.assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testNearCacheInvalidation() throws InterruptedException {
+        // two managers with their own invalidator act as two application instances
+        JedisCacheManager[] managers = new JedisCacheManager[2];
+        NearCacheInvalidator[] invalidators = new NearCacheInvalidator[2];
+        for (int i = 0; i < managers.length; i++) {
+            invalidators[i] = new NearCacheInvalidator((JedisConnectionFactory) jedisConnectionFactory);
+            managers[i] = new JedisCacheManager(JedisCacheWriter.nonLockingRedisCacheWriter(jedisConnectionFactory),
+                    JedisCacheConfiguration.defaultCacheConfig()
+                            .entryTtl(Duration.ofMinutes(10))
+                            .enableNearCache(100, Duration.ofMinutes(1)))
+                    .setNearCacheInvalidator(invalidators[i])
+                    .setDefaultCacheName("caiya_cache");
+            managers[i].afterPropertiesSet();
+        }
+        // registered after the invalidators on the same subscriber thread, so a message is handled by them first
+        BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        RedisMessageListener listener = (channel, message) -> messages.add(message);
+        JedisMessageSubscriber subscriber = ((JedisConnectionFactory) jedisConnectionFactory).getMessageSubscriber();
+        subscriber.subscribe(NearCacheInvalidator.DEFAULT_CHANNEL, listener);
+        try {
+            awaitSubscription(messages);
+            Cache cacheA = managers[0].getCache("caiya_near_cache");
+            Cache cacheB = managers[1].getCache("caiya_near_cache");
+            String key = "测试nearCacheInvalidation";
+            cacheA.put(key, "value_1");
+            awaitInvalidation(invalidators[0], messages);
+            Assert.assertEquals("value_1", cacheB.get(key).get());
+
+            cacheA.put(key, "value_2");
+            awaitInvalidation(invalidators[0], messages);
+            Assert.assertEquals("value_2", cacheB.get(key).get());
+
+            cacheA.evict(key);
+            awaitInvalidation(invalidators[0], messages);
+            Assert.assertNull(cacheB.get(key));
+        } finally {
+            subscriber.unsubscribe(NearCacheInvalidator.DEFAULT_CHANNEL, listener);
+            for (NearCacheInvalidator invalidator : invalidators) {
+                invalidator.destroy();
+            }
+        }
+    }
+
+    /**
+     * The subscription becomes active some time after subscribing, until then messages are lost.
+     */
+    private void awaitSubscription(BlockingQueue<String> messages) throws InterruptedException {
+        JedisCache<?, ?> connection = ((JedisClusterConnection) jedisConnectionFactory.getClusterConnection())
+                .getNativeConnection();
+        // a message of an unknown instance without invalidations
+        do {
+            connection.publish(NearCacheInvalidator.DEFAULT_CHANNEL, "5:probe");
+        } while (messages.poll(10, TimeUnit.MILLISECONDS) == null);
+        messages.clear();
+    }
+
+    /**
+     * Publish the queued invalidations and wait until they are handled by the other invalidator.
+     */
+    private static void awaitInvalidation(NearCacheInvalidator invalidator, BlockingQueue<String> messages)
+            throws InterruptedException {
+        invalidator.flush();
+        Assert.assertNotNull(messages.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSingleFlightLoad() throws Exception {
+        Cache cache = cacheManager.getCache("caiya_cache");
+        String key = "测试singleFlight";
+        cache.evict(key);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch callers = new CountDownLatch(16);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> {
+                    callers.countDown();
+                    return cache.get(key, () -> {
+                        loads.incrementAndGet();
+                        // loading until all callers arrived, a caller arriving later hits the loaded value
+                        callers.await();
+                        return "测试singleFlight_value";
+                    });
+                }));
+            }
+            for (Future<String> future : futures) {
+                Assert.assertEquals("测试singleFlight_value", future.get());
+            }
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdown();
+            cache.evict(key);
+        }
+    }
+
+    @Test
+    public void testReactiveCache() {
+        JedisConnectionFactory nioConnectionFactory = new JedisConnectionFactory(((JedisConnectionFactory) jedisConnectionFactory).getClusterNodes());
+        nioConnectionFactory.setClientEngine(ClientEngine.NIO);
+        nioConnectionFactory.afterPropertiesSet();
+        try {
+            JedisCacheManager reactiveCacheManager = new JedisCacheManager(JedisCacheWriter.nonLockingRedisCacheWriter(jedisConnectionFactory),
+                    JedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(10)))
+                    .setReactiveCacheWriter(ReactiveJedisCacheWriter.nonLockingRedisCacheWriter(nioConnectionFactory))
+                    .setDefaultCacheName("caiya_cache");
+            reactiveCacheManager.afterPropertiesSet();
+            ReactiveJedisSpringCache reactiveCache = reactiveCacheManager.getReactiveCache("caiya_cache");
+            Cache cache = reactiveCacheManager.getCache("caiya_cache");
+            String key = "测试reactiveCache";
+            Object value = "测试reactiveCache_value";
+
+            reactiveCache.put(key, value).block();
+            Assert.assertEquals(value, reactiveCache.get(key).block().get());
+            // same entries as the blocking cache
+            Assert.assertEquals(value, cache.get(key).get());
+            Assert.assertEquals(value, reactiveCache.putIfAbsent(key, "other").block().get());
+
+            reactiveCache.evict(key).block();
+            Assert.assertNull(reactiveCache.get(key).block());
+            Assert.assertNull(reactiveCache.putIfAbsent(key, value).block());
+            reactiveCache.evict(key).block();
+
+            // clear removes the keys of its cache only
+            ReactiveJedisSpringCache clearedCache = reactiveCacheManager.getReactiveCache("caiya_clear_cache");
+            ReactiveJedisSpringCache siblingCache = reactiveCacheManager.getReactiveCache("caiya_clear_cache_sibling");
+            for (int i = 0; i < 300; i++) {
+                clearedCache.put(key + i, value).block();
+            }
+            siblingCache.put(key, value).block();
+            clearedCache.clear().block();
+            for (int i = 0; i < 300; i++) {
+                Assert.assertNull(clearedCache.get(key + i).block());
+            }
+            Assert.assertEquals(value, siblingCache.get(key).block().get());
+            siblingCache.evict(key).block();
+        } finally {
+            nioConnectionFactory.destroy();
+        }
+    }
+
 }
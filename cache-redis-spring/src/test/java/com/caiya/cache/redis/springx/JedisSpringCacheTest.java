@@ -0,0 +1,115 @@
+package com.caiya.cache.redis.springx;
+
+import com.caiya.cache.redis.XFetchValue;
+import com.caiya.serialization.Serializer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class JedisSpringCacheTest {
+
+    private final InMemoryCacheWriter cacheWriter = new InMemoryCacheWriter();
+
+    private final JedisSpringCache cache = new JedisSpringCache("test", cacheWriter,
+            JedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofSeconds(1)).disableKeyPrefix()
+                    .enableEarlyRecomputation(XFetchValue.DEFAULT_BETA));
+
+    @Test
+    public void testFailedLoadIsNoRecomputation() throws Exception {
+        try {
+            cache.get("key", () -> {
+                throw new IllegalStateException("failed");
+            });
+            Assert.fail();
+        } catch (Cache.ValueRetrievalException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        TimeUnit.MILLISECONDS.sleep(200);
+        cache.put("key", "value");
+        Assert.assertEquals(0, cacheWriter.stored("key").getDelta());
+    }
+
+    @Test
+    public void testRecomputationDeltaCapped() throws Exception {
+        // a miss of @Cacheable followed by a put much later
+        Assert.assertNull(cache.get("key"));
+        TimeUnit.MILLISECONDS.sleep(200);
+        cache.put("key", "value");
+        int delta = cacheWriter.stored("key").getDelta();
+        Assert.assertTrue("delta: " + delta, delta > 0 && delta <= 100);
+        Assert.assertEquals("value", cache.get("key").get());
+    }
+
+    @Test
+    public void testValuesLikeHeaders() {
+        // a value starting like a header of early recomputation
+        byte[] value = XFetchValue.wrap(new byte[]{1, 2, 3}, 250, 60000);
+        JedisCacheConfiguration config = JedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(1))
+                .disableKeyPrefix().serializeValuesWith(new BytesSerializer());
+
+        JedisSpringCache plain = new JedisSpringCache("test", cacheWriter, config);
+        plain.put("plain", value);
+        Assert.assertArrayEquals(value, (byte[]) plain.get("plain").get());
+
+        JedisSpringCache recomputing = new JedisSpringCache("test", cacheWriter,
+                config.enableEarlyRecomputation(XFetchValue.DEFAULT_BETA));
+        recomputing.put("recomputing", value);
+        Assert.assertArrayEquals(value, (byte[]) recomputing.get("recomputing").get());
+    }
+
+    private static final class BytesSerializer implements Serializer<byte[]> {
+
+        @Override
+        public byte[] serialize(byte[] bytes) {
+            return bytes;
+        }
+
+        @Override
+        public byte[] deserialize(byte[] bytes) {
+            return bytes;
+        }
+    }
+
+    private static final class InMemoryCacheWriter implements JedisCacheWriter {
+
+        private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+        XFetchValue stored(String key) {
+            XFetchValue value = XFetchValue.parse(values.get(key));
+            Assert.assertNotNull(value);
+            return value;
+        }
+
+        @Override
+        public void put(String name, byte[] key, byte[] value, Duration ttl) {
+            values.put(new String(key, StandardCharsets.UTF_8), value);
+        }
+
+        @Override
+        public byte[] get(String name, byte[] key) {
+            return values.get(new String(key, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+            return values.putIfAbsent(new String(key, StandardCharsets.UTF_8), value);
+        }
+
+        @Override
+        public void remove(String name, byte[] key) {
+            values.remove(new String(key, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void clean(String name, byte[] pattern) {
+            values.clear();
+        }
+    }
+
+}
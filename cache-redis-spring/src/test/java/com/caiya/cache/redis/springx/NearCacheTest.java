@@ -0,0 +1,134 @@
+package com.caiya.cache.redis.springx;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class NearCacheTest {
+
+    @Test
+    public void testEvictThenPut() {
+        NearCache nearCache = new NearCache(2, Duration.ZERO);
+        nearCache.put("a", "1");
+        nearCache.evict("a");
+        nearCache.put("a", "2");
+        nearCache.put("b", "1");
+        Assert.assertEquals("2", nearCache.get("a"));
+        Assert.assertEquals("1", nearCache.get("b"));
+        // the least recently used entry is evicted
+        nearCache.put("c", "1");
+        Assert.assertNull(nearCache.get("a"));
+        Assert.assertEquals(2, nearCache.size());
+    }
+
+    @Test
+    public void testPutAfterClear() {
+        NearCache nearCache = new NearCache(2, Duration.ZERO);
+        nearCache.put("a", "1");
+        nearCache.put("b", "1");
+        nearCache.clear();
+        nearCache.put("c", "1");
+        nearCache.put("d", "1");
+        Assert.assertEquals("1", nearCache.get("c"));
+        Assert.assertEquals("1", nearCache.get("d"));
+        Assert.assertEquals(2, nearCache.size());
+    }
+
+    @Test
+    public void testStalePutSkipped() {
+        NearCache nearCache = new NearCache(2, Duration.ZERO);
+        long stamp = nearCache.stamp("a");
+        // evicted while the value was read from Redis
+        nearCache.evict("a");
+        Assert.assertFalse(nearCache.put("a", "stale", stamp));
+        Assert.assertNull(nearCache.get("a"));
+
+        stamp = nearCache.stamp("a");
+        nearCache.put("a", "written");
+        Assert.assertFalse(nearCache.put("a", "stale", stamp));
+        Assert.assertEquals("written", nearCache.get("a"));
+
+        stamp = nearCache.stamp("a");
+        nearCache.clear();
+        Assert.assertFalse(nearCache.put("a", "stale", stamp));
+
+        stamp = nearCache.stamp("a");
+        Assert.assertTrue(nearCache.put("a", "read", stamp));
+        Assert.assertEquals("read", nearCache.get("a"));
+    }
+
+    @Test
+    public void testSegmentsBounded() {
+        NearCache nearCache = new NearCache(1000, Duration.ZERO);
+        for (int i = 0; i < 10000; i++) {
+            nearCache.put("key" + i, i);
+        }
+        Assert.assertTrue(nearCache.size() <= 1000);
+        Assert.assertTrue(nearCache.size() > 900);
+        Assert.assertEquals(9999, nearCache.get("key9999"));
+    }
+
+    @Test
+    public void testEvictDuringLookup() {
+        InMemoryCacheWriter cacheWriter = new InMemoryCacheWriter();
+        JedisSpringCache cache = new JedisSpringCache("test", cacheWriter,
+                JedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(1)).disableKeyPrefix()
+                        .enableNearCache(10, Duration.ofMinutes(1)));
+        cache.put("key", "value");
+        byte[] value = cacheWriter.values.get("key");
+        cache.evict("key");
+        cacheWriter.values.put("key", value);
+        // evicted by another thread while the value is read from Redis
+        cacheWriter.onGet = () -> {
+            cacheWriter.onGet = null;
+            cache.evict("key");
+        };
+        Assert.assertEquals("value", cache.get("key").get());
+        Assert.assertNull(cache.get("key"));
+    }
+
+    private static final class InMemoryCacheWriter implements JedisCacheWriter {
+
+        private final Map<String, byte[]> values = new ConcurrentHashMap<>();
+
+        /**
+         * Runs after the next read
+         */
+        private volatile Runnable onGet;
+
+        @Override
+        public void put(String name, byte[] key, byte[] value, Duration ttl) {
+            values.put(new String(key, StandardCharsets.UTF_8), value);
+        }
+
+        @Override
+        public byte[] get(String name, byte[] key) {
+            byte[] value = values.get(new String(key, StandardCharsets.UTF_8));
+            Runnable action = onGet;
+            if (action != null) {
+                action.run();
+            }
+            return value;
+        }
+
+        @Override
+        public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+            return values.putIfAbsent(new String(key, StandardCharsets.UTF_8), value);
+        }
+
+        @Override
+        public void remove(String name, byte[] key) {
+            values.remove(new String(key, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void clean(String name, byte[] pattern) {
+            values.clear();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.caiya.cache.redis.springx;
+
+import com.caiya.cache.redis.embedded.EmbeddedRedisServer;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Points {@code cache.redis.host-names} at the Redis Cluster of the tests: the nodes of the system property
+ * {@value #NODES_PROPERTY} ("host:port" separated by commas), otherwise an {@link EmbeddedRedisServer} of 3 nodes
+ * shared by all tests of the JVM.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class TestRedisClusterInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    public static final String NODES_PROPERTY = "cache.test.nodes";
+
+    private static EmbeddedRedisServer embeddedServer;
+
+    @Override
+    public void initialize(ConfigurableApplicationContext applicationContext) {
+        String nodes = System.getProperty(NODES_PROPERTY);
+        if (nodes == null) {
+            nodes = String.join(",", embeddedServer().getNodes());
+        }
+        TestPropertyValues.of("cache.redis.host-names=" + nodes).applyTo(applicationContext);
+    }
+
+    /**
+     * @return the embedded server, started on first use and stopped with the JVM.
+     */
+    private static synchronized EmbeddedRedisServer embeddedServer() {
+        if (embeddedServer == null) {
+            EmbeddedRedisServer server = new EmbeddedRedisServer(3);
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            embeddedServer = server;
+        }
+        return embeddedServer;
+    }
+
+}
@@ -0,0 +1,355 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.AsyncCacheApi;
+import com.caiya.cache.CacheException;
+import com.caiya.cache.RedisConstant;
+import com.caiya.cache.ScanResult;
+import com.caiya.cache.SetOption;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link AsyncCacheApi} implementation running the blocking commands of a {@link JedisCache} on a dedicated, bounded
+ * executor.
+ * <p>
+ * The returned futures are completed by the executor threads (or by the timeout thread), so that an event loop is not
+ * blocked by Redis. Only a command that cannot be queued because the executor is saturated fails at once, with a
+ * {@link CacheException}. A command still running after the timeout fails with a {@link TimeoutException}.
+ * <p>
+ * Method {@link #close()} releases the executor created by this instance, not the {@link JedisCache}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class AsyncJedisCache<K, V> implements AsyncCacheApi<K, V>, Closeable {
+
+    private static final int DEFAULT_POOL_SIZE = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "async-jedis-cache-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final JedisCache<K, V> jedisCache;
+
+    private final ExecutorService executor;
+
+    private final boolean ownExecutor;
+
+    private final long timeoutMillis;
+
+    /**
+     * Create an {@link AsyncJedisCache} with its own bounded executor and a timeout of 2 seconds.
+     *
+     * @param jedisCache must not be {@literal null}.
+     */
+    public AsyncJedisCache(JedisCache<K, V> jedisCache) {
+        this(jedisCache, createExecutor(DEFAULT_POOL_SIZE, DEFAULT_QUEUE_CAPACITY), true, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Create an {@link AsyncJedisCache} with its own bounded executor.
+     *
+     * @param jedisCache    must not be {@literal null}.
+     * @param poolSize      number of threads running the commands, should not exceed the connection pool size.
+     * @param queueCapacity maximum number of commands waiting for a thread.
+     * @param timeout       per command timeout, must be positive.
+     */
+    public AsyncJedisCache(JedisCache<K, V> jedisCache, int poolSize, int queueCapacity, Duration timeout) {
+        this(jedisCache, createExecutor(poolSize, queueCapacity), true, timeout);
+    }
+
+    /**
+     * Create an {@link AsyncJedisCache} on a given executor, which should be bounded and is not shut down by
+     * {@link #close()}.
+     *
+     * @param jedisCache must not be {@literal null}.
+     * @param executor   must not be {@literal null}.
+     * @param timeout    per command timeout, must be positive.
+     */
+    public AsyncJedisCache(JedisCache<K, V> jedisCache, ExecutorService executor, Duration timeout) {
+        this(jedisCache, executor, false, timeout);
+    }
+
+    private AsyncJedisCache(JedisCache<K, V> jedisCache, ExecutorService executor, boolean ownExecutor, Duration timeout) {
+        if (jedisCache == null)
+            throw new IllegalArgumentException("JedisCache must not be null!");
+        if (executor == null)
+            throw new IllegalArgumentException("Executor must not be null!");
+        if (timeout == null || timeout.isZero() || timeout.isNegative())
+            throw new IllegalArgumentException("Timeout must be positive");
+
+        this.jedisCache = jedisCache;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    @SafeVarargs
+    @Override
+    public final CompletableFuture<Long> del(K... keys) {
+        return supply(() -> jedisCache.del(keys));
+    }
+
+    @Override
+    public CompletableFuture<Void> set(K key, V value, long seconds) {
+        return run(() -> jedisCache.set(key, value, seconds));
+    }
+
+    @Override
+    public CompletableFuture<Void> set(K key, V value, long liveTime, TimeUnit timeUnit) {
+        return run(() -> jedisCache.set(key, value, liveTime, timeUnit));
+    }
+
+    @Override
+    public CompletableFuture<String> set(K key, V value, SetOption setOption, long expirationTime, TimeUnit timeUnit) {
+        return supply(() -> jedisCache.set(key, value, setOption, expirationTime, timeUnit));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Exception>> mSet(Map<K, V> entries, Duration ttl) {
+        return supply(() -> jedisCache.mSet(entries, ttl));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Exception>> mSet(Map<K, V> entries, Function<? super K, Duration> ttlFunction) {
+        return supply(() -> jedisCache.mSet(entries, ttlFunction));
+    }
+
+    @Override
+    public CompletableFuture<V> get(K key) {
+        return supply(() -> jedisCache.get(key));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, V>> mGet(Collection<K> keys) {
+        return supply(() -> jedisCache.mGet(keys));
+    }
+
+    @Override
+    public CompletableFuture<ScanResult<String>> scan(String cursor, String pattern, long count) {
+        return supply(() -> jedisCache.scan(cursor, pattern, count));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(K key) {
+        return supply(() -> jedisCache.exists(key));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> expire(K key, long seconds) {
+        return supply(() -> jedisCache.expire(key, seconds));
+    }
+
+    @Override
+    public CompletableFuture<Long> ttl(K key) {
+        return supply(() -> jedisCache.ttl(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> incr(K key) {
+        return supply(() -> jedisCache.incr(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(K key, long value) {
+        return supply(() -> jedisCache.incrBy(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Long> decr(K key) {
+        return supply(() -> jedisCache.decr(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> decrBy(K key, long value) {
+        return supply(() -> jedisCache.decrBy(key, value));
+    }
+
+    @Override
+    public CompletableFuture<String> rename(K oldKey, K newKey) {
+        return supply(() -> jedisCache.rename(oldKey, newKey));
+    }
+
+    @Override
+    public CompletableFuture<String> rename(K oldKey, K newKey, RedisConstant.Operation operation) {
+        return supply(() -> jedisCache.rename(oldKey, newKey, operation));
+    }
+
+    @Override
+    public CompletableFuture<Long> append(K key, V value) {
+        return supply(() -> jedisCache.append(key, value));
+    }
+
+    @Override
+    @Deprecated
+    public CompletableFuture<Void> flushDB() {
+        return run(jedisCache::flushDB);
+    }
+
+    @Override
+    @Deprecated
+    public CompletableFuture<Long> dbSize() {
+        return supply(jedisCache::dbSize);
+    }
+
+    @Override
+    @Deprecated
+    public CompletableFuture<String> ping() {
+        return supply(jedisCache::ping);
+    }
+
+    @Override
+    public <HK, HV> CompletableFuture<Boolean> hSet(K key, HK field, HV value) {
+        return supply(() -> jedisCache.hSet(key, field, value));
+    }
+
+    @Override
+    public <HK, HV> CompletableFuture<HV> hGet(K key, HK field) {
+        return supply(() -> jedisCache.hGet(key, field));
+    }
+
+    @Override
+    public <HK> CompletableFuture<Boolean> hExists(K key, HK field) {
+        return supply(() -> jedisCache.hExists(key, field));
+    }
+
+    @Override
+    public <HK> CompletableFuture<Set<HK>> hKeys(K key) {
+        return supply(() -> jedisCache.hKeys(key));
+    }
+
+    @SafeVarargs
+    @Override
+    public final <HK> CompletableFuture<Long> hDel(K key, HK... fields) {
+        return supply(() -> jedisCache.hDel(key, fields));
+    }
+
+    @Override
+    public CompletableFuture<Void> hMSet(K key, Map<String, Object> hashes) {
+        return run(() -> jedisCache.hMSet(key, hashes));
+    }
+
+    @Override
+    public <HK, HV> CompletableFuture<Map<HK, HV>> hGetAll(K key) {
+        return supply(() -> jedisCache.hGetAll(key));
+    }
+
+    @SafeVarargs
+    @Override
+    public final CompletableFuture<Long> lPush(K key, V... values) {
+        return supply(() -> jedisCache.lPush(key, values));
+    }
+
+    @Override
+    public CompletableFuture<List<V>> lRange(K key, long begin, long end) {
+        return supply(() -> jedisCache.lRange(key, begin, end));
+    }
+
+    @Override
+    public CompletableFuture<Long> lRem(K key, long count, V value) {
+        return supply(() -> jedisCache.lRem(key, count, value));
+    }
+
+    @Override
+    public CompletableFuture<Void> lTrim(K key, long begin, long end) {
+        return run(() -> jedisCache.lTrim(key, begin, end));
+    }
+
+    @Override
+    public CompletableFuture<V> lPop(K key) {
+        return supply(() -> jedisCache.lPop(key));
+    }
+
+    @Override
+    public CompletableFuture<Long> lLen(K key) {
+        return supply(() -> jedisCache.lLen(key));
+    }
+
+    @Override
+    public CompletableFuture<Object> eval(String script, int keyCount, String... params) {
+        return supply(() -> jedisCache.eval(script, keyCount, params));
+    }
+
+    /**
+     * Shut down the executor if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    public JedisCache<K, V> getJedisCache() {
+        return jedisCache;
+    }
+
+    private CompletableFuture<Void> run(Runnable command) {
+        return supply(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (future.isDone()) {
+                    // timed out while queued
+                    return;
+                }
+                try {
+                    future.complete(command.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new CacheException("Too many pending cache commands", e));
+            return future;
+        }
+
+        ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(() -> {
+            if (future.completeExceptionally(new TimeoutException("Cache command timed out after " + timeoutMillis + "ms"))) {
+                // a running command cannot be interrupted safely while it holds a pooled connection
+                task.cancel(false);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, e) -> timeout.cancel(false));
+        return future;
+    }
+
+    private static ExecutorService createExecutor(int poolSize, int queueCapacity) {
+        if (poolSize <= 0 || queueCapacity <= 0)
+            throw new IllegalArgumentException("PoolSize and queueCapacity must be positive");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+                60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "async-jedis-cache-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+}
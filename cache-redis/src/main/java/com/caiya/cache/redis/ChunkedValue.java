@@ -0,0 +1,253 @@
+package com.caiya.cache.redis;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The manifest of a value stored in chunks: the key holds the manifest, the chunks are separate keys named after the
+ * key, the version of the value and the chunk index. A new version never overwrites the chunks of a previous one, so a
+ * reader streaming an old version sees it complete or not at all.
+ * <p>
+ * Manifest layout: magic {@code 0xFF 'C'}, version (8 bytes), chunk count (4 bytes), total length (8 bytes).
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class ChunkedValue {
+
+    private static final byte[] MAGIC = {(byte) 0xFF, 'C'};
+
+    private static final int MANIFEST_LENGTH = MAGIC.length + 8 + 4 + 8;
+
+    private static final byte[] CHUNK_INFIX = ":chunk:".getBytes(StandardCharsets.UTF_8);
+
+    private final long version;
+
+    private final int chunkCount;
+
+    private final long length;
+
+    ChunkedValue(long version, int chunkCount, long length) {
+        this.version = version;
+        this.chunkCount = chunkCount;
+        this.length = length;
+    }
+
+    /**
+     * @param value the stored value, can be {@literal null}.
+     * @return the manifest, {@literal null} if the value is none.
+     */
+    static ChunkedValue parse(byte[] value) {
+        if (value == null || value.length != MANIFEST_LENGTH || value[0] != MAGIC[0] || value[1] != MAGIC[1]) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value, MAGIC.length, MANIFEST_LENGTH - MAGIC.length);
+        return new ChunkedValue(buffer.getLong(), buffer.getInt(), buffer.getLong());
+    }
+
+    byte[] toBytes() {
+        return ByteBuffer.allocate(MANIFEST_LENGTH)
+                .put(MAGIC)
+                .putLong(version)
+                .putInt(chunkCount)
+                .putLong(length)
+                .array();
+    }
+
+    static byte[] chunkKey(byte[] rawKey, long version, int index) {
+        byte[] suffix = (Long.toHexString(version) + ":" + index).getBytes(StandardCharsets.UTF_8);
+        byte[] chunkKey = Arrays.copyOf(rawKey, rawKey.length + CHUNK_INFIX.length + suffix.length);
+        System.arraycopy(CHUNK_INFIX, 0, chunkKey, rawKey.length, CHUNK_INFIX.length);
+        System.arraycopy(suffix, 0, chunkKey, rawKey.length + CHUNK_INFIX.length, suffix.length);
+        return chunkKey;
+    }
+
+    List<byte[]> chunkKeys(byte[] rawKey) {
+        List<byte[]> chunkKeys = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            chunkKeys.add(chunkKey(rawKey, version, i));
+        }
+        return chunkKeys;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    int getChunkCount() {
+        return chunkCount;
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * Writes every chunk as soon as it is full, holding at most one chunk in memory.
+     */
+    static final class ChunkOutputStream extends OutputStream {
+
+        private final byte[] rawKey;
+
+        private final long version;
+
+        private final byte[] chunk;
+
+        private final BiConsumer<byte[], byte[]> writer;
+
+        private int position;
+
+        private int chunkCount;
+
+        private long length;
+
+        /**
+         * @param writer stores a chunk (key, value), the value array is reused after it returns.
+         */
+        ChunkOutputStream(byte[] rawKey, long version, int chunkSize, BiConsumer<byte[], byte[]> writer) {
+            this.rawKey = rawKey;
+            this.version = version;
+            this.chunk = new byte[chunkSize];
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(int b) {
+            if (position == chunk.length) {
+                flushChunk();
+            }
+            chunk[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (position == chunk.length) {
+                    flushChunk();
+                }
+                int count = Math.min(len, chunk.length - position);
+                System.arraycopy(b, off, chunk, position, count);
+                position += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        /**
+         * Write the last chunk.
+         *
+         * @return the manifest of the written value.
+         */
+        ChunkedValue finish() {
+            if (position > 0) {
+                flushChunk();
+            }
+            return written();
+        }
+
+        /**
+         * @return the manifest of the chunks written so far.
+         */
+        ChunkedValue written() {
+            return new ChunkedValue(version, chunkCount, length);
+        }
+
+        private void flushChunk() {
+            writer.accept(chunkKey(rawKey, version, chunkCount),
+                    position == chunk.length ? chunk : Arrays.copyOf(chunk, position));
+            chunkCount++;
+            length += position;
+            position = 0;
+        }
+    }
+
+    /**
+     * Reads the chunks one at a time.
+     */
+    static final class ChunkInputStream extends InputStream {
+
+        private final byte[] rawKey;
+
+        private final ChunkedValue manifest;
+
+        private final Function<byte[], byte[]> reader;
+
+        private byte[] chunk = new byte[0];
+
+        private int position;
+
+        private int nextChunk;
+
+        /**
+         * @param reader reads a chunk by its key, {@literal null} if missing.
+         */
+        ChunkInputStream(byte[] rawKey, ChunkedValue manifest, Function<byte[], byte[]> reader) {
+            this.rawKey = rawKey;
+            this.manifest = manifest;
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureChunk()) {
+                return -1;
+            }
+            return chunk[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureChunk()) {
+                return -1;
+            }
+            int count = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return chunk.length - position;
+        }
+
+        private boolean ensureChunk() throws MissingChunkException {
+            while (position == chunk.length) {
+                if (nextChunk == manifest.chunkCount) {
+                    return false;
+                }
+                byte[] next = reader.apply(chunkKey(rawKey, manifest.version, nextChunk++));
+                if (next == null) {
+                    throw new MissingChunkException();
+                }
+                chunk = next;
+                position = 0;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A chunk expired or was evicted before the manifest.
+     */
+    static final class MissingChunkException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        MissingChunkException() {
+            super("missing chunk");
+        }
+    }
+
+}
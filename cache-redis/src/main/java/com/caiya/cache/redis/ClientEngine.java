@@ -0,0 +1,22 @@
+package com.caiya.cache.redis;
+
+/**
+ * Client engine of {@link JedisConnectionFactory}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public enum ClientEngine {
+
+    /**
+     * Blocking {@link redis.clients.jedis.JedisCluster} with a connection pool per node, see {@link JedisCache}.
+     */
+    JEDIS,
+
+    /**
+     * Non-blocking client with one pipelined connection per node, see {@link com.caiya.cache.redis.nio.NioCache}.
+     * {@link RedisTemplate} and pub/sub need {@link #JEDIS}.
+     */
+    NIO
+
+}
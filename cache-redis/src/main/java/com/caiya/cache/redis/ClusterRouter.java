@@ -0,0 +1,168 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.CacheException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Routes hash slots to the master nodes of a {@link JedisCluster} and their connection pools.
+ * <p>
+ * The slot table and the pools are an immutable snapshot read without locking, unlike
+ * {@link JedisCluster#getClusterNodes()} which copies the node map under the read lock of Jedis on every call. The
+ * snapshot is loaded by {@code CLUSTER SLOTS} on first use; a {@code MOVED} redirection replaces the owner of its slot
+ * (copy on write), a connection failure or an unknown node discards the snapshot so that the next lookup reloads it.
+ * {@code ASK} redirections are temporary and leave the table untouched.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+class ClusterRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRouter.class);
+
+    private static final int SLOT_COUNT = 16384;
+
+    private final JedisCluster jedisCluster;
+
+    /**
+     * {@literal null} means the snapshot should be (re)loaded
+     */
+    private final AtomicReference<Routes> routes = new AtomicReference<>();
+
+    ClusterRouter(JedisCluster jedisCluster) {
+        if (jedisCluster == null)
+            throw new IllegalArgumentException("JedisCluster must not be null!");
+
+        this.jedisCluster = jedisCluster;
+    }
+
+    /**
+     * @param slot the hash slot
+     * @return "host:port" of the master node owning the slot, {@literal null} if the slot is not served.
+     */
+    String getNode(int slot) {
+        return getRoutes().slotNodes[slot];
+    }
+
+    /**
+     * @param node "host:port" of a node, can be {@literal null}.
+     * @return the connection pool of the node, {@literal null} if the node is unknown.
+     */
+    JedisPool getPool(String node) {
+        if (node == null) {
+            return null;
+        }
+        JedisPool pool = getRoutes().pools.get(node);
+        if (pool == null) {
+            // a node added since the snapshot, Jedis may know it already
+            invalidate();
+            pool = jedisCluster.getClusterNodes().get(node);
+        }
+        return pool;
+    }
+
+    /**
+     * @return "host:port" of every master node owning slots.
+     */
+    Set<String> getMasterNodes() {
+        Set<String> masterNodes = new LinkedHashSet<>();
+        for (String node : getRoutes().slotNodes) {
+            if (node != null) {
+                masterNodes.add(node);
+            }
+        }
+        return masterNodes;
+    }
+
+    /**
+     * Learn from a redirection reply of a node.
+     */
+    void onRedirection(JedisRedirectionException e) {
+        if (e instanceof JedisAskDataException || e.getTargetNode() == null) {
+            return;
+        }
+        String node = e.getTargetNode().getHost() + ":" + e.getTargetNode().getPort();
+        Routes current = routes.get();
+        if (current == null || !current.pools.containsKey(node)) {
+            invalidate();
+            return;
+        }
+        String[] slotNodes = current.slotNodes.clone();
+        slotNodes[e.getSlot()] = node;
+        // a lost race means a newer snapshot, which knows the redirection or will be corrected by the next one
+        routes.compareAndSet(current, new Routes(slotNodes, current.pools));
+    }
+
+    /**
+     * Discard the snapshot, e.g. after a connection failure.
+     */
+    void invalidate() {
+        routes.set(null);
+    }
+
+    private Routes getRoutes() {
+        Routes current = routes.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = routes.get();
+            if (current == null) {
+                current = loadRoutes();
+                routes.set(current);
+            }
+            return current;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Routes loadRoutes() {
+        Map<String, JedisPool> pools = jedisCluster.getClusterNodes();
+        for (JedisPool pool : pools.values()) {
+            try (Jedis jedis = pool.getResource()) {
+                String[] slotNodes = new String[SLOT_COUNT];
+                for (Object slotInfoObj : jedis.clusterSlots()) {
+                    List<Object> slotInfo = (List<Object>) slotInfoObj;
+                    if (slotInfo.size() <= 2) {
+                        continue;
+                    }
+                    int start = ((Long) slotInfo.get(0)).intValue();
+                    int end = ((Long) slotInfo.get(1)).intValue();
+                    List<Object> master = (List<Object>) slotInfo.get(2);
+                    String node = SafeEncoder.encode((byte[]) master.get(0)) + ":" + master.get(1);
+                    Arrays.fill(slotNodes, start, end + 1, node);
+                }
+                return new Routes(slotNodes, Collections.unmodifiableMap(new HashMap<>(pools)));
+            } catch (JedisException e) {
+                logger.warn("cannot load cluster slots from node, try next one", e);
+            }
+        }
+        throw new CacheException("Cannot load cluster slots from any node");
+    }
+
+    private static final class Routes {
+
+        /**
+         * slot -> "host:port" of the master node
+         */
+        private final String[] slotNodes;
+
+        private final Map<String, JedisPool> pools;
+
+        private Routes(String[] slotNodes, Map<String, JedisPool> pools) {
+            this.slotNodes = slotNodes;
+            this.pools = pools;
+        }
+    }
+
+}
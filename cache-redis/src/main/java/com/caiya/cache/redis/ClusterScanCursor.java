@@ -0,0 +1,71 @@
+package com.caiya.cache.redis;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Position of a cluster wide scan, the {@code SCAN} cursor of every master node.
+ * <p>
+ * A node absent from the cursor has not been scanned yet, a finished node keeps the cursor {@code "0"}. Nodes which
+ * left the cluster since are ignored when the scan is resumed; keys moved between nodes meanwhile may be missed or
+ * returned twice, like {@code SCAN} may return a key twice.
+ *
+ * @author wangnan
+ * @see ClusterScanIterator
+ * @since 1.2
+ */
+public final class ClusterScanCursor {
+
+    static final String START = "0";
+
+    private final Map<String, String> nodeCursors;
+
+    private ClusterScanCursor(Map<String, String> nodeCursors) {
+        this.nodeCursors = Collections.unmodifiableMap(nodeCursors);
+    }
+
+    /**
+     * @return the cursor of a scan which has not started yet.
+     */
+    public static ClusterScanCursor initial() {
+        return new ClusterScanCursor(new LinkedHashMap<>());
+    }
+
+    /**
+     * @param nodeCursors "host:port" of a scanned master node -> its cursor, must not be {@literal null}.
+     * @return the cursor of a started scan, e.g. to resume one.
+     */
+    public static ClusterScanCursor of(Map<String, String> nodeCursors) {
+        if (nodeCursors == null)
+            throw new IllegalArgumentException("nodeCursors cannot be null");
+
+        return new ClusterScanCursor(new LinkedHashMap<>(nodeCursors));
+    }
+
+    /**
+     * @param node "host:port" of a master node
+     * @return the cursor to continue the node with, {@link #START} if the node has not been scanned yet.
+     */
+    public String getCursor(String node) {
+        String cursor = nodeCursors.get(node);
+        return cursor != null ? cursor : START;
+    }
+
+    /**
+     * @param node "host:port" of a master node
+     * @return {@literal true} if all keys of the node have been returned.
+     */
+    public boolean isFinished(String node) {
+        return START.equals(nodeCursors.get(node));
+    }
+
+    public Map<String, String> getNodeCursors() {
+        return nodeCursors;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterScanCursor" + nodeCursors;
+    }
+}
@@ -0,0 +1,216 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.CacheException;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.util.SafeEncoder;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates the keys of all master nodes of a {@link JedisCluster} matching a pattern.
+ * <p>
+ * Every node is scanned by its own thread, the pages are merged into this iterator in the order they arrive. A
+ * bounded buffer of pages keeps the scanners at most a few pages ahead of the consumer. {@link #getCursor()} tells the
+ * position of the consumed pages, a scan can be resumed from it later.
+ * <p>
+ * Method {@link #close()} must be invoked if the iteration is abandoned before its end.
+ *
+ * @author wangnan
+ * @see JedisCache#scanCluster(ClusterScanCursor, String, int)
+ * @since 1.2
+ */
+public class ClusterScanIterator implements Iterator<byte[]>, Closeable {
+
+    private static final int PAGES_PER_NODE = 2;
+
+    private static final ExecutorService SCAN_EXECUTOR = createExecutor();
+
+    private static final Page END = new Page(null, null, Collections.emptyList(), null);
+
+    private final JedisCluster jedisCluster;
+
+    private final ScanParams scanParams;
+
+    private final BlockingQueue<Page> pages;
+
+    private final List<Future<?>> scanners = new ArrayList<>();
+
+    private final Map<String, String> nodeCursors;
+
+    private int runningScanners;
+
+    private Iterator<byte[]> currentKeys = Collections.emptyIterator();
+
+    private volatile boolean closed;
+
+    /**
+     * Start scanning every master node which is not finished in {@code cursor}.
+     *
+     * @param jedisCluster must not be {@literal null}.
+     * @param masterNodes  "host:port" of the master nodes, must not be {@literal null}.
+     * @param cursor       position to resume from, must not be {@literal null}.
+     * @param pattern      the MATCH pattern, must not be {@literal null}.
+     * @param count        the COUNT hint of every SCAN
+     */
+    ClusterScanIterator(JedisCluster jedisCluster, Collection<String> masterNodes, ClusterScanCursor cursor,
+                        byte[] pattern, int count) {
+        if (jedisCluster == null || masterNodes == null || cursor == null || pattern == null)
+            throw new IllegalArgumentException("jedisCluster, masterNodes, cursor and pattern cannot be null");
+
+        this.jedisCluster = jedisCluster;
+        this.scanParams = new ScanParams().match(pattern).count(count);
+        this.pages = new LinkedBlockingQueue<>(Math.max(1, masterNodes.size() * PAGES_PER_NODE));
+        this.nodeCursors = new LinkedHashMap<>(cursor.getNodeCursors());
+        this.nodeCursors.keySet().retainAll(masterNodes);
+
+        for (String node : masterNodes) {
+            if (cursor.isFinished(node)) {
+                continue;
+            }
+            String nodeCursor = cursor.getCursor(node);
+            scanners.add(SCAN_EXECUTOR.submit(() -> scanNode(node, nodeCursor)));
+            runningScanners++;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentKeys.hasNext()) {
+            if (runningScanners == 0 || closed) {
+                return false;
+            }
+            Page page = takePage();
+            if (page == END) {
+                runningScanners--;
+                continue;
+            }
+            if (page.failure != null) {
+                close();
+                throw new CacheException("Scan of node " + page.node + " failed", page.failure);
+            }
+            nodeCursors.put(page.node, page.nextCursor);
+            currentKeys = page.keys.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public byte[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentKeys.next();
+    }
+
+    /**
+     * The cursor after the pages handed out so far; keys of the current page may be returned again on resume.
+     *
+     * @return never {@literal null}.
+     */
+    public ClusterScanCursor getCursor() {
+        return ClusterScanCursor.of(nodeCursors);
+    }
+
+    /**
+     * @return a sequential stream of the keys, closing the stream closes this iterator.
+     */
+    public Stream<byte[]> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * Stop the scanners.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Future<?> scanner : scanners) {
+            scanner.cancel(true);
+        }
+        pages.clear();
+    }
+
+    private Page takePage() {
+        try {
+            return pages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CacheException("Interrupted while waiting for scan results", e);
+        }
+    }
+
+    private void scanNode(String node, String startCursor) {
+        byte[] cursor = SafeEncoder.encode(startCursor);
+        Page last = END;
+        try {
+            JedisPool pool = jedisCluster.getClusterNodes().get(node);
+            if (pool == null) {
+                throw new CacheException("No connection pool for the node: " + node);
+            }
+            try (Jedis jedis = pool.getResource()) {
+                do {
+                    ScanResult<byte[]> result = jedis.scan(cursor, scanParams);
+                    cursor = result.getCursorAsBytes();
+                    pages.put(new Page(node, SafeEncoder.encode(cursor), result.getResult(), null));
+                } while (!closed && !ClusterScanCursor.START.equals(SafeEncoder.encode(cursor)));
+            }
+        } catch (InterruptedException e) {
+            // closed
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            last = new Page(node, null, Collections.emptyList(), e);
+        }
+
+        try {
+            if (!closed) {
+                pages.put(last);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // one thread per scanned node, idle threads time out
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "jedis-cluster-scan-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Page {
+
+        private final String node;
+
+        private final String nextCursor;
+
+        private final List<byte[]> keys;
+
+        private final RuntimeException failure;
+
+        private Page(String node, String nextCursor, List<byte[]> keys, RuntimeException failure) {
+            this.node = node;
+            this.nextCursor = nextCursor;
+            this.keys = keys;
+            this.failure = failure;
+        }
+    }
+
+}
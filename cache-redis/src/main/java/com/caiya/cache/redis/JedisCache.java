@@ -1,6 +1,9 @@
 package com.caiya.cache.redis;
 
 import com.caiya.cache.*;
+import com.caiya.cache.redis.serializer.CompressingSerializer;
+import com.caiya.cache.redis.serializer.JdkStreamingSerializer;
+import com.caiya.cache.redis.serializer.StreamingSerializer;
 import com.caiya.serialization.Serializer;
 import com.caiya.serialization.jdk.JdkSerializationSerializer;
 import com.caiya.serialization.jdk.StringSerializer;
@@ -8,12 +11,18 @@ import com.caiya.serialization.util.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.ScanParams;
 import redis.clients.util.JedisClusterCRC16;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Redis Cache Implementation, Based on JedisCluster.
@@ -46,6 +55,40 @@ public class JedisCache<K, V> implements Cache<K, V> {
      */
     private static final Serializer<?> DEFAULT_SERIALIZER = JDK_SERIALIZATION_SERIALIZER;
 
+    /**
+     * UNLINK frees the values in the background, DEL before Redis 4.0
+     */
+    private static final byte[] UNLINK_SCRIPT = STRING_SERIALIZER.serialize(
+            "local removed = redis.pcall('UNLINK', unpack(KEYS)) "
+                    + "if type(removed) == 'table' and removed.err then return redis.call('DEL', unpack(KEYS)) end "
+                    + "return removed");
+
+    /**
+     * Replaces the manifest of a chunked value and returns the replaced one, so that each of concurrent writers removes
+     * the chunks of the manifest it actually replaced
+     */
+    private static final byte[] SWAP_MANIFEST_SCRIPT = STRING_SERIALIZER.serialize(
+            "local previous = redis.call('GET', KEYS[1]) "
+                    + "if tonumber(ARGV[2]) > 0 then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "else redis.call('SET', KEYS[1], ARGV[1]) end "
+                    + "return previous");
+
+    /**
+     * SET PX without condition, JedisCluster has no binary PSETEX
+     */
+    private static final byte[] SET_MILLISECONDS_SCRIPT = STRING_SERIALIZER.serialize(
+            "return redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])");
+
+    /**
+     * 256 KB, below the humongous object size of G1 regions from 1 MB on
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /**
+     * Chunk keys per UNLINK when removing the chunks of a replaced value
+     */
+    private static final int CHUNK_CLEAN_BATCH_SIZE = 100;
+
     /**
      * Cache Name
      */
@@ -56,13 +99,53 @@ public class JedisCache<K, V> implements Cache<K, V> {
      */
     private byte[] keyPrefix;
 
+    /**
+     * Encodes the keys with the prefix, created on first use after a change of prefix or key serializer
+     */
+    private volatile KeyEncoder keyEncoder;
+
     private JedisCluster jedisCluster;
 
+    /**
+     * Node level pipelines of batch operations, created on first use
+     */
+    private volatile JedisClusterPipeline clusterPipeline;
+
     private Serializer keySerializer = DEFAULT_SERIALIZER;
     private Serializer valueSerializer = DEFAULT_SERIALIZER;
     private Serializer hashKeySerializer = DEFAULT_SERIALIZER;
     private Serializer hashValueSerializer = DEFAULT_SERIALIZER;
 
+    /**
+     * Values of more serialized bytes are compressed, negative to disable
+     */
+    private int valueCompressionThreshold = -1;
+
+    /**
+     * The value serializer, wrapped by a {@link CompressingSerializer} if compression is enabled
+     */
+    private volatile Serializer valueCodec;
+
+    /**
+     * Serializer of the values stored in chunks
+     */
+    private StreamingSerializer streamingValueSerializer = new JdkStreamingSerializer();
+
+    /**
+     * Bytes per chunk of a chunked value
+     */
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Loads the misses of {@link #get(Object, Function, Duration)} and refreshes its hits ahead of expiration
+     */
+    private final RefreshAheadLoader<K, V> refreshAheadLoader = new RefreshAheadLoader<>(this);
+
+    /**
+     * Beta of the probabilistic early recomputation of {@link #get(Object, Function, Duration)}, 0 to refresh ahead
+     */
+    private volatile double xFetchBeta;
+
     public JedisCache(JedisCluster jedisCluster) {
         this(null, null, jedisCluster);
     }
@@ -95,20 +178,35 @@ public class JedisCache<K, V> implements Cache<K, V> {
         if (keys.length == 1) {
             return jedisCluster.del(rawKey(keys[0]));
         }
-        // group by hash slot
+        // group by hash slot, the slot of each key is computed once
         Map<Integer, List<byte[]>> slotKeyMap = new HashMap<>();
         for (K key : keys) {
-            byte[] rawKey = rawKey(key);
-            int slot = JedisClusterCRC16.getSlot(rawKey);
-            if (!slotKeyMap.containsKey(slot)) {
-                slotKeyMap.put(slot, new ArrayList<>());
+            SlotKey slotKey = rawSlotKey(key);
+            if (!slotKeyMap.containsKey(slotKey.getSlot())) {
+                slotKeyMap.put(slotKey.getSlot(), new ArrayList<>());
             }
-            slotKeyMap.get(slot)
-                    .add(rawKey);
+            slotKeyMap.get(slotKey.getSlot())
+                    .add(slotKey.getRawKey());
+        }
+        List<byte[][]> batches = new ArrayList<>(slotKeyMap.size());
+        List<SlotKey> routingKeys = new ArrayList<>(slotKeyMap.size());
+        for (Map.Entry<Integer, List<byte[]>> entry : slotKeyMap.entrySet()) {
+            byte[][] batch = entry.getValue().toArray(new byte[0][]);
+            batches.add(batch);
+            routingKeys.add(SlotKey.of(batch[0], entry.getKey()));
         }
+        if (batches.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<Long> removed = batches.size() == 1
+                ? Collections.singletonList(jedisCluster.del(batches.get(0)))
+                : getClusterPipeline().execute(routingKeys, (pipeline, index) -> pipeline.del(batches.get(index)), failures);
         long result = 0;
-        for (List<byte[]> rawKeys : slotKeyMap.values()) {
-            result += jedisCluster.del(rawKeys.toArray(new byte[rawKeys.size()][]));
+        for (int i = 0; i < batches.size(); i++) {
+            // retry the failed ones(moved slots etc.) by JedisCluster
+            result += failures.containsKey(i) ? jedisCluster.del(batches.get(i)) : removed.get(i);
         }
         return result;
     }
@@ -164,6 +262,246 @@ public class JedisCache<K, V> implements Cache<K, V> {
         return deserializeValue(jedisCluster.get(rawKey(key)));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key, Function<? super K, ? extends V> loader, Duration ttl) {
+        double beta = xFetchBeta;
+        if (beta <= 0) {
+            return refreshAheadLoader.get(key, loader, ttl);
+        }
+        if (loader == null)
+            throw new IllegalArgumentException("loader cannot be null");
+        if (ttl == null || ttl.isZero() || ttl.isNegative())
+            throw new IllegalArgumentException("ttl must be positive");
+
+        byte[] rawKey = rawKey(key);
+        byte[] stored = jedisCluster.get(rawKey);
+        if (stored != null) {
+            XFetchValue xFetchValue = XFetchValue.parse(stored);
+            if (xFetchValue == null) {
+                // set by the other methods, without load time to weigh
+                return deserializeValue(stored);
+            }
+            if (!xFetchValue.shouldRecompute(beta)) {
+                return (V) getValueCodec().deserialize(xFetchValue.getValue());
+            }
+        }
+
+        long start = System.nanoTime();
+        V value = loader.apply(key);
+        if (value != null) {
+            long ttlMillis = ttl.toMillis();
+            long deltaMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            setRaw(rawKey, XFetchValue.wrap(getValueCodec().serialize(value), deltaMillis, ttlMillis), ttlMillis);
+        }
+        return value;
+    }
+
+    /**
+     * Get the stored bytes of a key as they are, without deserializing (nor decompressing) them.
+     *
+     * @param key the key
+     * @return a buffer over the bytes of the reply, {@literal null} if the key does not exist.
+     * @since 1.2
+     */
+    public ByteBuffer getRaw(K key) {
+        byte[] value = jedisCluster.get(rawKey(key));
+        return value == null ? null : ByteBuffer.wrap(value);
+    }
+
+    /**
+     * Store the remaining bytes of {@code value} as they are, without serializing them. A heap buffer spanning its
+     * whole array is sent without a copy, other buffers (e.g. direct ones) are copied once.
+     *
+     * @param key   the key
+     * @param value must not be {@literal null}, its position is not changed.
+     * @param ttl   must not be {@literal null}, {@link Duration#ZERO} never expires.
+     * @since 1.2
+     */
+    public void setRaw(K key, ByteBuffer value, Duration ttl) {
+        if (value == null)
+            throw new IllegalArgumentException("value cannot be null");
+        if (ttl == null)
+            throw new IllegalArgumentException("ttl cannot be null");
+
+        setRaw(rawKey(key), toBytes(value), ttl.toMillis());
+    }
+
+    /**
+     * Store a large value in chunks of {@link #setChunkSize(int) chunkSize} bytes, streamed by the
+     * {@link #setStreamingValueSerializer(StreamingSerializer) streaming value serializer} so that the serialized value
+     * is never held as a whole. The key holds a small manifest written after the chunks, read the value by
+     * {@link #getChunked(Object)} and remove it by {@link #delChunked(Object)}. The manifest is swapped atomically and
+     * the chunks of the value it replaced are removed, also when writers replace each other.
+     *
+     * @param key   the key
+     * @param value must not be {@literal null}.
+     * @param ttl   must not be {@literal null}, {@link Duration#ZERO} never expires.
+     * @since 1.2
+     */
+    @SuppressWarnings("unchecked")
+    public void setChunked(K key, V value, Duration ttl) {
+        if (value == null)
+            throw new IllegalArgumentException("value cannot be null");
+        if (ttl == null)
+            throw new IllegalArgumentException("ttl cannot be null");
+
+        byte[] rawKey = rawKey(key);
+        long ttlMillis = ttl.toMillis();
+        ChunkedValue.ChunkOutputStream out = new ChunkedValue.ChunkOutputStream(rawKey,
+                ThreadLocalRandom.current().nextLong(), chunkSize, (chunkKey, chunk) -> setRaw(chunkKey, chunk, ttlMillis));
+        ChunkedValue manifest;
+        try {
+            streamingValueSerializer.serialize(value, out);
+            manifest = out.finish();
+        } catch (RuntimeException e) {
+            unlinkRaw(out.written().chunkKeys(rawKey), CHUNK_CLEAN_BATCH_SIZE);
+            throw e;
+        }
+
+        ChunkedValue previous = ChunkedValue.parse((byte[]) jedisCluster.eval(SWAP_MANIFEST_SCRIPT, 1, rawKey,
+                manifest.toBytes(), rawString(String.valueOf(ttlMillis))));
+        if (previous != null) {
+            unlinkRaw(previous.chunkKeys(rawKey), CHUNK_CLEAN_BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Read a value stored by {@link #setChunked(Object, Object, Duration)}, one chunk at a time. Values stored by the
+     * other methods are read as usual.
+     *
+     * @param key the key
+     * @return the value, {@literal null} if the key or one of its chunks does not exist.
+     * @since 1.2
+     */
+    @SuppressWarnings("unchecked")
+    public V getChunked(K key) {
+        byte[] rawKey = rawKey(key);
+        byte[] value = jedisCluster.get(rawKey);
+        ChunkedValue manifest = ChunkedValue.parse(value);
+        if (manifest == null) {
+            return deserializeValue(value);
+        }
+        try {
+            return (V) streamingValueSerializer.deserialize(
+                    new ChunkedValue.ChunkInputStream(rawKey, manifest, jedisCluster::get));
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof ChunkedValue.MissingChunkException) {
+                    // expired or evicted before the manifest
+                    return null;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remove a value stored by {@link #setChunked(Object, Object, Duration)} together with its chunks, other values are
+     * removed as by {@link #del(Object[])}.
+     *
+     * @param key the key
+     * @return the number of removed keys, chunks included.
+     * @since 1.2
+     */
+    public long delChunked(K key) {
+        byte[] rawKey = rawKey(key);
+        ChunkedValue manifest = ChunkedValue.parse(jedisCluster.get(rawKey));
+        long result = jedisCluster.del(rawKey);
+        if (manifest != null) {
+            result += unlinkRaw(manifest.chunkKeys(rawKey), CHUNK_CLEAN_BATCH_SIZE);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<K, Exception> mSet(Map<K, V> entries, Duration ttl) {
+        return mSet(entries, key -> ttl);
+    }
+
+    @Override
+    public Map<K, Exception> mSet(Map<K, V> entries, Function<? super K, Duration> ttlFunction) {
+        if (entries == null)
+            throw new IllegalArgumentException("entries cannot be null");
+        if (ttlFunction == null)
+            throw new IllegalArgumentException("ttlFunction cannot be null");
+
+        Map<K, Exception> failedKeys = new HashMap<>();
+        List<K> keyList = new ArrayList<>(entries.size());
+        List<SlotKey> rawKeys = new ArrayList<>(entries.size());
+        List<byte[]> rawValues = new ArrayList<>(entries.size());
+        List<Long> ttlMillis = new ArrayList<>(entries.size());
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            try {
+                SlotKey rawKey = rawSlotKey(entry.getKey());
+                byte[] rawValue = rawValue(entry.getValue());
+                Duration ttl = ttlFunction.apply(entry.getKey());
+                keyList.add(entry.getKey());
+                rawKeys.add(rawKey);
+                rawValues.add(rawValue);
+                ttlMillis.add(ttl == null ? 0L : ttl.toMillis());
+            } catch (Exception e) {
+                // failure of one entry does not abort the others
+                failedKeys.put(entry.getKey(), e);
+            }
+        }
+
+        Set<Integer> retryIndexes;
+        if (keyList.size() > 1) {
+            Map<Integer, Exception> failures = new HashMap<>();
+            getClusterPipeline().execute(rawKeys, (pipeline, index) ->
+                    setPipelined(pipeline, rawKeys.get(index).getRawKey(), rawValues.get(index), ttlMillis.get(index)), failures);
+            retryIndexes = failures.keySet();
+        } else {
+            retryIndexes = keyList.isEmpty() ? Collections.emptySet() : Collections.singleton(0);
+        }
+        for (Integer index : retryIndexes) {
+            // retry the failed ones(moved slots etc.) by JedisCluster
+            try {
+                setRaw(rawKeys.get(index).getRawKey(), rawValues.get(index), ttlMillis.get(index));
+            } catch (Exception e) {
+                failedKeys.put(keyList.get(index), e);
+            }
+        }
+        return failedKeys;
+    }
+
+    @Override
+    public Map<K, V> mGet(Collection<K> keys) {
+        if (keys == null)
+            throw new IllegalArgumentException("keys cannot be null");
+
+        List<K> keyList = new ArrayList<>(keys);
+        Map<K, V> result = new HashMap<>(keyList.size() * 4 / 3 + 1);
+        if (keyList.isEmpty()) {
+            return result;
+        }
+
+        if (keyList.size() == 1) {
+            byte[] value = jedisCluster.get(rawKey(keyList.get(0)));
+            if (value != null) {
+                result.put(keyList.get(0), deserializeValue(value));
+            }
+            return result;
+        }
+
+        List<SlotKey> rawKeys = new ArrayList<>(keyList.size());
+        for (K key : keyList) {
+            rawKeys.add(rawSlotKey(key));
+        }
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<byte[]> values = getClusterPipeline().execute(rawKeys, (pipeline, index) ->
+                pipeline.get(rawKeys.get(index).getRawKey()), failures);
+        for (int i = 0; i < keyList.size(); i++) {
+            // retry the failed ones(moved slots etc.) by JedisCluster
+            byte[] value = failures.containsKey(i) ? jedisCluster.get(rawKeys.get(i).getRawKey()) : values.get(i);
+            if (value != null) {
+                result.put(keyList.get(i), deserializeValue(value));
+            }
+        }
+        return result;
+    }
+
     @Override
     @Deprecated
     public Set<K> keys(String pattern) {
@@ -185,6 +523,91 @@ public class JedisCache<K, V> implements Cache<K, V> {
         return new ScanResult<>(scanResult.getCursorAsBytes(), scanResult.getResult());
     }
 
+    /**
+     * Scan the keys of all master nodes concurrently, unlike {@link #scan(String, String, long)} which walks the node
+     * owning the slot of {@code pattern} only.
+     *
+     * @param pattern the MATCH pattern of the raw keys, must not be {@literal null}.
+     * @param count   the COUNT hint of every SCAN
+     * @return the keys, {@link ClusterScanIterator#close()} it if not iterated to the end.
+     * @since 1.2
+     */
+    public ClusterScanIterator scanCluster(String pattern, int count) {
+        return scanCluster(ClusterScanCursor.initial(), pattern, count);
+    }
+
+    /**
+     * Resume a scan of all master nodes.
+     *
+     * @param cursor  position to resume from, see {@link ClusterScanIterator#getCursor()}.
+     * @param pattern the MATCH pattern of the raw keys, must not be {@literal null}.
+     * @param count   the COUNT hint of every SCAN
+     * @return the keys, {@link ClusterScanIterator#close()} it if not iterated to the end.
+     * @since 1.2
+     */
+    public ClusterScanIterator scanCluster(ClusterScanCursor cursor, String pattern, int count) {
+        if (pattern == null)
+            throw new IllegalArgumentException("pattern cannot be null");
+
+        return new ClusterScanIterator(jedisCluster, getClusterPipeline().getMasterNodes(), cursor, rawString(pattern), count);
+    }
+
+    /**
+     * Remove the given raw keys without blocking Redis on freeing large values: one {@code UNLINK} per slot and batch,
+     * the batches of a node are pipelined and the nodes are served in parallel.
+     *
+     * @param rawKeys   the binary keys, must not be {@literal null}.
+     * @param batchSize maximum number of keys of one {@code UNLINK}, must be positive and at most a few thousands.
+     * @return the number of removed keys
+     * @since 1.2
+     */
+    public long unlinkRaw(Collection<byte[]> rawKeys, int batchSize) {
+        if (rawKeys == null)
+            throw new IllegalArgumentException("rawKeys cannot be null");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be positive");
+
+        // group by hash slot, cross slot commands are not allowed
+        Map<Integer, List<byte[]>> slotKeyMap = new HashMap<>();
+        for (byte[] rawKey : rawKeys) {
+            int slot = JedisClusterCRC16.getSlot(rawKey);
+            if (!slotKeyMap.containsKey(slot)) {
+                slotKeyMap.put(slot, new ArrayList<>());
+            }
+            slotKeyMap.get(slot)
+                    .add(rawKey);
+        }
+        List<byte[][]> batches = new ArrayList<>();
+        List<SlotKey> routingKeys = new ArrayList<>();
+        for (Map.Entry<Integer, List<byte[]>> entry : slotKeyMap.entrySet()) {
+            List<byte[]> slotKeys = entry.getValue();
+            for (int from = 0; from < slotKeys.size(); from += batchSize) {
+                byte[][] batch = slotKeys.subList(from, Math.min(from + batchSize, slotKeys.size())).toArray(new byte[0][]);
+                batches.add(batch);
+                routingKeys.add(SlotKey.of(batch[0], entry.getKey()));
+            }
+        }
+
+        if (batches.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<Object> removed = batches.size() == 1
+                ? Collections.singletonList(jedisCluster.eval(UNLINK_SCRIPT, batches.get(0).length, batches.get(0)))
+                : getClusterPipeline().execute(routingKeys, (pipeline, index) ->
+                pipeline.eval(UNLINK_SCRIPT, batches.get(index).length, batches.get(index)), failures);
+        long result = 0;
+        for (int i = 0; i < batches.size(); i++) {
+            // retry the failed ones(moved slots etc.) by JedisCluster
+            Object count = failures.containsKey(i)
+                    ? jedisCluster.eval(UNLINK_SCRIPT, batches.get(i).length, batches.get(i))
+                    : removed.get(i);
+            result += (Long) count;
+        }
+        return result;
+    }
+
     @Override
     public boolean exists(K key) {
         return jedisCluster.exists(rawKey(key));
@@ -229,12 +652,14 @@ public class JedisCache<K, V> implements Cache<K, V> {
     @Override
     @SuppressWarnings("unchecked")
     public String rename(K oldKey, K newKey, RedisConstant.Operation operation) {
-        if (JedisClusterCRC16.getSlot(rawKey(oldKey)) == JedisClusterCRC16.getSlot(rawKey(newKey))) {
-            return jedisCluster.rename(rawKey(oldKey), rawKey(newKey));
+        SlotKey rawOldKey = rawSlotKey(oldKey);
+        SlotKey rawNewKey = rawSlotKey(newKey);
+        if (rawOldKey.getSlot() == rawNewKey.getSlot()) {
+            return jedisCluster.rename(rawOldKey.getRawKey(), rawNewKey.getRawKey());
         }
 
         if (operation == RedisConstant.Operation.HASH) {
-            String response = jedisCluster.hmset(rawKey(newKey), jedisCluster.hgetAll(rawKey(oldKey)));
+            String response = jedisCluster.hmset(rawNewKey.getRawKey(), jedisCluster.hgetAll(rawOldKey.getRawKey()));
             if (Objects.equals(response, "OK")) {
                 expire(newKey, ttl(oldKey));
                 del(oldKey);
@@ -373,18 +798,145 @@ public class JedisCache<K, V> implements Cache<K, V> {
         return jedisCluster.eval(script, keyCount, params);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Execute a single-key script once per key, the executions of a node are pipelined and the nodes are served in
+     * parallel. Like {@link #eval(String, int, String...)}, the keys are not prefixed.
+     *
+     * @param script the lua script, must not be {@literal null}.
+     * @param keys   the key of every execution, must not be {@literal null}.
+     * @param args   the arguments of every execution, in order of {@code keys}, must not be {@literal null}.
+     * @return the responses in order of {@code keys}
+     * @since 1.2
+     */
+    public List<Object> evalEach(String script, List<String> keys, List<String[]> args) {
+        if (script == null)
+            throw new IllegalArgumentException("script cannot be null");
+        if (keys == null || args == null)
+            throw new IllegalArgumentException("keys and args cannot be null");
+        if (keys.size() != args.size())
+            throw new IllegalArgumentException("keys and args must have the same size");
+
+        if (keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (keys.size() == 1) {
+            return new ArrayList<>(Collections.singletonList(jedisCluster.eval(script, 1, scriptParams(keys.get(0), args.get(0)))));
+        }
+
+        List<SlotKey> rawKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            rawKeys.add(SlotKey.of(rawString(key)));
+        }
+        Map<Integer, Exception> failures = new HashMap<>();
+        byte[] rawScript = rawString(script);
+        // the binary eval of Pipeline keeps integer replies, like JedisCluster#eval
+        List<Object> results = getClusterPipeline().execute(rawKeys, (pipeline, index) ->
+                pipeline.eval(rawScript, 1, rawScriptParams(keys.get(index), args.get(index))), failures);
+        for (int i = 0; i < results.size(); i++) {
+            results.set(i, evalResult(results.get(i)));
+        }
+        for (Integer index : failures.keySet()) {
+            // retry the failed ones(moved slots etc.) by JedisCluster
+            results.set(index, jedisCluster.eval(script, 1, scriptParams(keys.get(index), args.get(index))));
+        }
+        return results;
+    }
+
+    private static String[] scriptParams(String key, String[] args) {
+        String[] params = new String[args.length + 1];
+        params[0] = key;
+        System.arraycopy(args, 0, params, 1, args.length);
+        return params;
+    }
+
+    private byte[][] rawScriptParams(String key, String[] args) {
+        byte[][] params = new byte[args.length + 1][];
+        params[0] = rawString(key);
+        for (int i = 0; i < args.length; i++) {
+            params[i + 1] = rawString(args[i]);
+        }
+        return params;
+    }
+
+    /**
+     * Bulk replies as strings, as returned by {@link JedisCluster#eval(String, int, String...)}
+     */
+    private static Object evalResult(Object result) {
+        if (result instanceof byte[]) {
+            return STRING_SERIALIZER.deserialize((byte[]) result);
+        }
+        if (result instanceof List) {
+            List<Object> results = new ArrayList<>(((List<?>) result).size());
+            for (Object element : (List<?>) result) {
+                results.add(evalResult(element));
+            }
+            return results;
+        }
+        return result;
+    }
+
+    /**
+     * Publish {@code message} to {@code channel}, the channel is not prefixed.
+     *
+     * @param channel the channel
+     * @param message the message
+     * @return the number of clients that received the message on the node
+     * @since 1.2
+     */
+    public long publish(String channel, String message) {
+        if (channel == null || message == null)
+            throw new IllegalArgumentException("channel and message cannot be null");
+
+        return jedisCluster.publish(channel, message);
+    }
+
+    private void setRaw(byte[] rawKey, byte[] rawValue, long ttlMillis) {
+        if (ttlMillis <= 0) {// never expires
+            jedisCluster.set(rawKey, rawValue);
+        } else if (ttlMillis % 1000 == 0) {
+            jedisCluster.setex(rawKey, (int) (ttlMillis / 1000), rawValue);
+        } else {
+            jedisCluster.eval(SET_MILLISECONDS_SCRIPT, 1, rawKey, rawValue, rawString(String.valueOf(ttlMillis)));
+        }
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static Response<String> setPipelined(Pipeline pipeline, byte[] rawKey, byte[] rawValue, long ttlMillis) {
+        if (ttlMillis <= 0) {// never expires
+            return pipeline.set(rawKey, rawValue);
+        } else if (ttlMillis % 1000 == 0) {
+            return pipeline.setex(rawKey, (int) (ttlMillis / 1000), rawValue);
+        }
+        return pipeline.psetex(rawKey, ttlMillis, rawValue);
+    }
+
     private byte[] rawKey(Object key) {
-        if (keyPrefix != null) {
-            return new RedisCacheKey(key).usePrefix(keyPrefix).withKeySerializer(getKeySerializer()).getKeyBytes();
+        KeyEncoder encoder = keyEncoder;
+        if (encoder == null) {
+            encoder = new KeyEncoder(keyPrefix, getKeySerializer());
+            keyEncoder = encoder;
         }
+        return encoder.encode(key);
+    }
 
-        return getKeySerializer().serialize(key);
+    private SlotKey rawSlotKey(Object key) {
+        return SlotKey.of(rawKey(key));
     }
 
     @SuppressWarnings("unchecked")
     private byte[] rawValue(Object value) {
-        return getValueSerializer().serialize(value);
+        byte[] rawValue = getValueCodec().serialize(value);
+        // not to be taken for the header of early recomputation
+        return xFetchBeta > 0 ? XFetchValue.escape(rawValue) : rawValue;
     }
 
     @SuppressWarnings("unchecked")
@@ -399,7 +951,7 @@ public class JedisCache<K, V> implements Cache<K, V> {
 
     @SuppressWarnings("unchecked")
     private V deserializeValue(byte[] value) {
-        return (V) getValueSerializer().deserialize(value);
+        return (V) getValueCodec().deserialize(xFetchBeta > 0 ? XFetchValue.unwrap(value) : value);
     }
 
     @SuppressWarnings("unchecked")
@@ -416,6 +968,32 @@ public class JedisCache<K, V> implements Cache<K, V> {
         return STRING_SERIALIZER.serialize(string);
     }
 
+    @SuppressWarnings("unchecked")
+    private Serializer getValueCodec() {
+        Serializer codec = valueCodec;
+        if (codec == null) {
+            codec = valueCompressionThreshold < 0
+                    ? valueSerializer
+                    : new CompressingSerializer<>(valueSerializer, valueCompressionThreshold);
+            valueCodec = codec;
+        }
+        return codec;
+    }
+
+    private JedisClusterPipeline getClusterPipeline() {
+        JedisClusterPipeline pipeline = clusterPipeline;
+        if (pipeline == null) {
+            synchronized (this) {
+                pipeline = clusterPipeline;
+                if (pipeline == null) {
+                    pipeline = new JedisClusterPipeline(new ClusterRouter(jedisCluster));
+                    clusterPipeline = pipeline;
+                }
+            }
+        }
+        return pipeline;
+    }
+
     public Serializer getKeySerializer() {
         return keySerializer;
     }
@@ -434,10 +1012,90 @@ public class JedisCache<K, V> implements Cache<K, V> {
 
     public void setKeySerializer(Serializer keySerializer) {
         this.keySerializer = keySerializer;
+        this.keyEncoder = null;
     }
 
     public void setValueSerializer(Serializer valueSerializer) {
         this.valueSerializer = valueSerializer;
+        this.valueCodec = null;
+    }
+
+    public int getValueCompressionThreshold() {
+        return valueCompressionThreshold;
+    }
+
+    /**
+     * Compress values of more serialized bytes than {@code valueCompressionThreshold} by LZ4, values stored before
+     * stay readable.
+     *
+     * @param valueCompressionThreshold in bytes, negative to disable compression (default).
+     * @see CompressingSerializer
+     * @since 1.2
+     */
+    public void setValueCompressionThreshold(int valueCompressionThreshold) {
+        this.valueCompressionThreshold = valueCompressionThreshold;
+        this.valueCodec = null;
+    }
+
+    public double getXFetchBeta() {
+        return xFetchBeta;
+    }
+
+    /**
+     * Protect {@link #get(Object, Function, Duration)} from stampedes by probabilistic early recomputation (XFetch)
+     * instead of refreshing ahead: the loaded values are stored with their load time and expiration, and every reader
+     * reloads a value before it expires with a probability growing with both, so that the reloads of a hot key are
+     * spread out before its expiration. The other reads return these values as usual. The values are read with the
+     * header only while enabled, so enable it on all instances sharing the keys, and on none after disabling it.
+     *
+     * @param xFetchBeta {@literal 0} to disable (default), {@link XFetchValue#DEFAULT_BETA} as recommended, above to
+     *                   reload earlier.
+     * @see XFetchValue
+     * @since 1.2
+     */
+    public void setXFetchBeta(double xFetchBeta) {
+        if (xFetchBeta < 0)
+            throw new IllegalArgumentException("xFetchBeta must not be negative");
+
+        this.xFetchBeta = xFetchBeta;
+    }
+
+    /**
+     * @return the loader of {@link #get(Object, Function, Duration)}, to configure its refresh-ahead factor and executor.
+     * @since 1.2
+     */
+    public RefreshAheadLoader<K, V> getRefreshAheadLoader() {
+        return refreshAheadLoader;
+    }
+
+    public StreamingSerializer getStreamingValueSerializer() {
+        return streamingValueSerializer;
+    }
+
+    /**
+     * @param streamingValueSerializer serializer of the values stored in chunks, must not be {@literal null}.
+     * @since 1.2
+     */
+    public void setStreamingValueSerializer(StreamingSerializer streamingValueSerializer) {
+        if (streamingValueSerializer == null)
+            throw new IllegalArgumentException("streamingValueSerializer cannot be null");
+
+        this.streamingValueSerializer = streamingValueSerializer;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize bytes per chunk of the values stored in chunks, must be positive.
+     * @since 1.2
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize must be positive");
+
+        this.chunkSize = chunkSize;
     }
 
     public void setHashKeySerializer(Serializer hashKeySerializer) {
@@ -454,6 +1112,9 @@ public class JedisCache<K, V> implements Cache<K, V> {
      */
     @Override
     public void close() throws IOException {
+        if (clusterPipeline != null) {
+            clusterPipeline.shutdown();
+        }
         try {
             if (jedisCluster != null)
                 jedisCluster.close();
@@ -468,6 +1129,7 @@ public class JedisCache<K, V> implements Cache<K, V> {
 
     public void setKeyPrefix(byte[] keyPrefix) {
         this.keyPrefix = keyPrefix;
+        this.keyEncoder = null;
     }
 
     public void setName(String name) {
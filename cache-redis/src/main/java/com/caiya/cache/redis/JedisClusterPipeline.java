@@ -0,0 +1,192 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.CacheException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends single-key commands of a batch as one pipeline per owning master node of the {@link JedisCluster}.
+ * <p>
+ * The node pipelines are flushed in parallel, so a batch costs one network round trip per node instead of one per key.
+ * Keys are routed by their precomputed slot through a {@link ClusterRouter}, which learns from redirections and
+ * connection failures; the affected keys are reported as failed, so that the caller can retry them through
+ * {@link JedisCluster}, which follows the redirection itself.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+class JedisClusterPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(JedisClusterPipeline.class);
+
+    private static final int DEFAULT_POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final ClusterRouter router;
+
+    private final ExecutorService executor;
+
+    JedisClusterPipeline(ClusterRouter router) {
+        if (router == null)
+            throw new IllegalArgumentException("router cannot be null");
+
+        this.router = router;
+        this.executor = createExecutor();
+    }
+
+    /**
+     * Execute {@code command} for every key, pipelined per node.
+     *
+     * @param keys     the binary keys with their slots, must not be {@literal null}.
+     * @param command  builds the pipelined command of the key at the given index
+     * @param failures collects the failure of each key index, the caller may retry them one by one
+     * @param <T>      type of the command response
+     * @return the responses in order of {@code keys}, {@literal null} at the failed indexes
+     */
+    <T> List<T> execute(List<SlotKey> keys, PipelineCommand<T> command, Map<Integer, Exception> failures) {
+        Object[] results = new Object[keys.size()];
+        Map<Integer, Exception> nodeFailures = new ConcurrentHashMap<>();
+
+        Map<String, List<Integer>> nodeIndexes = groupByNode(keys);
+        List<Future<?>> futures = new ArrayList<>(nodeIndexes.size());
+        Iterator<Map.Entry<String, List<Integer>>> iterator = nodeIndexes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, List<Integer>> entry = iterator.next();
+            if (!iterator.hasNext()) {
+                // the last node is served by the calling thread
+                executeOnNode(entry.getKey(), entry.getValue(), command, results, nodeFailures);
+                break;
+            }
+            futures.add(executor.submit(() -> executeOnNode(entry.getKey(), entry.getValue(), command, results, nodeFailures)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CacheException("Interrupted while waiting for the pipelines", e);
+            } catch (ExecutionException e) {
+                throw new CacheException("Pipeline execution failed", e);
+            }
+        }
+
+        failures.putAll(nodeFailures);
+        List<T> resultList = new ArrayList<>(results.length);
+        for (Object result : results) {
+            resultList.add(cast(result));
+        }
+        return resultList;
+    }
+
+    /**
+     * @return "host:port" of every master node owning slots.
+     */
+    Set<String> getMasterNodes() {
+        return router.getMasterNodes();
+    }
+
+    /**
+     * Release the pipeline threads.
+     */
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private Map<String, List<Integer>> groupByNode(List<SlotKey> keys) {
+        Map<String, List<Integer>> nodeIndexes = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String node = router.getNode(keys.get(i).getSlot());
+            if (!nodeIndexes.containsKey(node)) {
+                nodeIndexes.put(node, new ArrayList<>());
+            }
+            nodeIndexes.get(node)
+                    .add(i);
+        }
+        return nodeIndexes;
+    }
+
+    private <T> void executeOnNode(String node, List<Integer> indexes, PipelineCommand<T> command,
+                                   Object[] results, Map<Integer, Exception> failures) {
+        JedisPool pool = router.getPool(node);
+        if (pool == null) {
+            router.invalidate();
+            CacheException e = new CacheException("No connection pool for the node: " + node);
+            for (Integer index : indexes) {
+                failures.put(index, e);
+            }
+            return;
+        }
+
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<T>> responses = new ArrayList<>(indexes.size());
+            for (Integer index : indexes) {
+                responses.add(command.apply(pipeline, index));
+            }
+            pipeline.sync();
+
+            for (int i = 0; i < indexes.size(); i++) {
+                try {
+                    results[indexes.get(i)] = responses.get(i).get();
+                } catch (JedisRedirectionException e) {
+                    router.onRedirection(e);
+                    failures.put(indexes.get(i), e);
+                } catch (JedisDataException e) {
+                    failures.put(indexes.get(i), e);
+                }
+            }
+        } catch (JedisException e) {
+            logger.warn("pipeline on node {} failed", node, e);
+            router.invalidate();
+            for (Integer index : indexes) {
+                failures.put(index, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object result) {
+        return (T) result;
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_POOL_SIZE, DEFAULT_POOL_SIZE,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "jedis-cluster-pipeline-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Builds the pipelined command of a single key.
+     *
+     * @param <T> type of the command response
+     */
+    @FunctionalInterface
+    interface PipelineCommand<T> {
+
+        /**
+         * @param pipeline the pipeline of the node owning the key
+         * @param index    index of the key in the batch
+         * @return the pending response
+         */
+        Response<T> apply(Pipeline pipeline, int index);
+
+    }
+
+}
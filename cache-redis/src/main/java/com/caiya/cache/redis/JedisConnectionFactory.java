@@ -1,5 +1,11 @@
 package com.caiya.cache.redis;
 
+import com.caiya.cache.AsyncCacheApi;
+import com.caiya.cache.redis.nio.NioCache;
+import com.caiya.cache.redis.nio.NioClusterConnection;
+import com.caiya.cache.redis.nio.NioRedisCache;
+import com.caiya.cache.redis.nio.NioRedisClient;
+import com.caiya.cache.redis.serializer.CompressingSerializer;
 import com.caiya.serialization.Serializer;
 import com.caiya.serialization.jdk.JdkSerializationSerializer;
 import com.caiya.serialization.jdk.StringSerializer;
@@ -11,6 +17,8 @@ import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.Protocol;
 
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -32,6 +40,11 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
     private Set<HostAndPort> clusterNodes;
     private Integer maxRedirects;
     private JedisCache<?, ?> jedisCache;
+    private volatile JedisMessageSubscriber messageSubscriber;
+    private volatile AsyncJedisCache<?, ?> asyncJedisCache;
+
+    private ClientEngine clientEngine = ClientEngine.JEDIS;
+    private NioCache<?, ?> nioCache;
 
     private String cacheName;
     private byte[] keyPrefix;
@@ -47,6 +60,10 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
     private Serializer<?> hashKeySerializer = null;
     private Serializer<?> hashValueSerializer = null;
 
+    private int valueCompressionThreshold = -1;
+
+    private double xFetchBeta = 0;
+
     public JedisConnectionFactory() {
     }
 
@@ -54,6 +71,29 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
         this.clusterNodes = clusterNodes;
     }
 
+    /**
+     * Parse cluster nodes written as "host:port" and separated by commas.
+     *
+     * @param nodes the nodes, must not be {@literal null}.
+     * @return the nodes in the given order
+     * @since 1.2
+     */
+    public static Set<HostAndPort> parseClusterNodes(String nodes) {
+        if (nodes == null)
+            throw new IllegalArgumentException("nodes cannot be null");
+
+        Set<HostAndPort> clusterNodes = new LinkedHashSet<>();
+        for (String node : nodes.split(",")) {
+            int separator = node.lastIndexOf(':');
+            if (separator < 0)
+                throw new IllegalArgumentException("invalid node, host:port expected: " + node);
+
+            clusterNodes.add(new HostAndPort(node.substring(0, separator).trim(),
+                    Integer.parseInt(node.substring(separator + 1).trim())));
+        }
+        return clusterNodes;
+    }
+
     @Override
     public void afterPropertiesSet() {
         synchronized (this) {
@@ -70,14 +110,29 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
                 if (hashValueSerializer == null) {
                     hashValueSerializer = defaultSerializer;
                 }
-
-                jedisCache = createCluster();
-                jedisCache.setName(getCacheName());
-                jedisCache.setKeyPrefix(getKeyPrefix());
-                jedisCache.setKeySerializer(keySerializer);
-                jedisCache.setValueSerializer(valueSerializer);
-                jedisCache.setHashKeySerializer(hashKeySerializer);
-                jedisCache.setHashValueSerializer(hashValueSerializer);
+                Serializer<?> valueCodec = valueCompressionThreshold < 0
+                        ? valueSerializer
+                        : new CompressingSerializer<>(valueSerializer, valueCompressionThreshold);
+
+                if (clientEngine == ClientEngine.NIO) {
+                    NioRedisCache<?, ?> nioRedisCache = createNioCluster();
+                    nioRedisCache.setName(getCacheName());
+                    nioRedisCache.setKeyPrefix(getKeyPrefix());
+                    nioRedisCache.setKeySerializer(keySerializer);
+                    nioRedisCache.setValueSerializer(valueCodec);
+                    nioRedisCache.setHashKeySerializer(hashKeySerializer);
+                    nioRedisCache.setHashValueSerializer(hashValueSerializer);
+                    nioCache = new NioCache<>(nioRedisCache);
+                } else {
+                    jedisCache = createCluster();
+                    jedisCache.setName(getCacheName());
+                    jedisCache.setKeyPrefix(getKeyPrefix());
+                    jedisCache.setKeySerializer(keySerializer);
+                    jedisCache.setValueSerializer(valueCodec);
+                    jedisCache.setHashKeySerializer(hashKeySerializer);
+                    jedisCache.setHashValueSerializer(hashValueSerializer);
+                    jedisCache.setXFetchBeta(xFetchBeta);
+                }
 
                 initialized = true;
             }
@@ -86,6 +141,15 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
 
     @Override
     public void destroy() {
+        if (messageSubscriber != null) {
+            messageSubscriber.shutdown();
+        }
+        if (asyncJedisCache != null) {
+            asyncJedisCache.close();
+        }
+        if (nioCache != null) {
+            nioCache.close();
+        }
         if (jedisCache != null) {
             try {
                 jedisCache.close();
@@ -107,6 +171,9 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
         if (!initialized) {
             afterPropertiesSet();
         }
+        if (nioCache != null) {
+            return new NioClusterConnection(nioCache);
+        }
         if (jedisCache == null) {
             throw new IllegalArgumentException("Cluster is not configured!");
         }
@@ -114,6 +181,60 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
         return new JedisClusterConnection(jedisCache);
     }
 
+    /**
+     * Get the non-blocking API of this factory: the {@link NioRedisCache} with {@link ClientEngine#NIO}, an
+     * {@link AsyncJedisCache} running on its own thread pool with {@link ClientEngine#JEDIS}.
+     *
+     * @return never {@literal null}.
+     * @since 1.2
+     */
+    @SuppressWarnings("unchecked")
+    public AsyncCacheApi<?, ?> getAsyncCache() {
+        if (!initialized) {
+            afterPropertiesSet();
+        }
+        if (nioCache != null) {
+            return nioCache.getAsyncCache();
+        }
+        AsyncJedisCache<?, ?> asyncCache = asyncJedisCache;
+        if (asyncCache == null) {
+            synchronized (this) {
+                asyncCache = asyncJedisCache;
+                if (asyncCache == null) {
+                    asyncCache = new AsyncJedisCache<>((JedisCache<Object, Object>) jedisCache);
+                    asyncJedisCache = asyncCache;
+                }
+            }
+        }
+        return asyncCache;
+    }
+
+    /**
+     * Get the subscriber of this factory, all subscriptions share its single connection and thread.
+     *
+     * @return never {@literal null}.
+     * @since 1.2
+     */
+    public JedisMessageSubscriber getMessageSubscriber() {
+        JedisMessageSubscriber subscriber = messageSubscriber;
+        if (subscriber == null) {
+            synchronized (this) {
+                if (!initialized) {
+                    afterPropertiesSet();
+                }
+                subscriber = messageSubscriber;
+                if (subscriber == null) {
+                    if (jedisCache == null)
+                        throw new IllegalStateException("Pub/sub needs client engine " + ClientEngine.JEDIS);
+
+                    subscriber = new JedisMessageSubscriber(jedisCache.getNativeJedisCluster());
+                    messageSubscriber = subscriber;
+                }
+            }
+        }
+        return subscriber;
+    }
+
     private JedisCache<?, ?> createCluster() {
         return createCluster(this.clusterNodes, this.poolConfig);
     }
@@ -138,6 +259,21 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
         return new JedisCache<>(jedisCluster);
     }
 
+    /**
+     * Creates {@link NioRedisCache} on top of a {@link NioRedisClient}, the command timeout is {@link #getTimeout()}.
+     *
+     * @return NioRedisCache
+     * @since 1.2
+     */
+    protected NioRedisCache<?, ?> createNioCluster() {
+        if (clusterNodes == null || clusterNodes.isEmpty())
+            throw new IllegalArgumentException("Cluster configuration must not be null!");
+
+        int redirects = getMaxRedirects() != null ? getMaxRedirects() : 5;
+
+        return new NioRedisCache<>(new NioRedisClient(clusterNodes, password, Duration.ofMillis(timeout), redirects));
+    }
+
     public void setPoolConfig(JedisPoolConfig poolConfig) {
         this.poolConfig = poolConfig;
     }
@@ -165,6 +301,31 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
         this.maxRedirects = maxRedirects;
     }
 
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Select the client engine, must be called before {@link #afterPropertiesSet()}.
+     *
+     * @param clientEngine must not be {@literal null}.
+     * @since 1.2
+     */
+    public void setClientEngine(ClientEngine clientEngine) {
+        if (clientEngine == null)
+            throw new IllegalArgumentException("ClientEngine must not be null!");
+
+        this.clientEngine = clientEngine;
+    }
+
+    public ClientEngine getClientEngine() {
+        return clientEngine;
+    }
+
     public void setPassword(String password) {
         this.password = password;
     }
@@ -226,4 +387,35 @@ public class JedisConnectionFactory implements RedisConnectionFactory {
         this.defaultSerializer = defaultSerializer;
     }
 
+    public int getValueCompressionThreshold() {
+        return valueCompressionThreshold;
+    }
+
+    /**
+     * Compress values of more serialized bytes than {@code valueCompressionThreshold} by LZ4, values stored before
+     * stay readable. {@link #getValueSerializer()} still returns the plain serializer.
+     *
+     * @param valueCompressionThreshold in bytes, negative to disable compression (default).
+     * @see CompressingSerializer
+     * @since 1.2
+     */
+    public void setValueCompressionThreshold(int valueCompressionThreshold) {
+        this.valueCompressionThreshold = valueCompressionThreshold;
+    }
+
+    public double getXFetchBeta() {
+        return xFetchBeta;
+    }
+
+    /**
+     * Protect the cache-aside reads of the {@link ClientEngine#JEDIS} engine by probabilistic early recomputation.
+     *
+     * @param xFetchBeta {@literal 0} to refresh ahead instead (default).
+     * @see JedisCache#setXFetchBeta(double)
+     * @since 1.2
+     */
+    public void setXFetchBeta(double xFetchBeta) {
+        this.xFetchBeta = xFetchBeta;
+    }
+
 }
@@ -0,0 +1,271 @@
+package com.caiya.cache.redis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Receives the messages of Redis channels on one dedicated thread and dispatches them to the registered
+ * {@link RedisMessageListener}s.
+ * <p>
+ * Published messages are broadcast to every node of a Redis Cluster, so a single subscription connection to any node is
+ * enough. The subscription is re-established after a connection failure.
+ * <p>
+ * Registering or removing a listener never blocks on the connection: the changed channels are queued and a second
+ * thread sends the {@code SUBSCRIBE} and {@code UNSUBSCRIBE} commands, so that a caller, e.g. a thread starting to wait
+ * for a lock, does not wait for the socket writes of other callers.
+ *
+ * @author wangnan
+ * @see JedisConnectionFactory#getMessageSubscriber()
+ * @since 1.2
+ */
+public class JedisMessageSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(JedisMessageSubscriber.class);
+
+    private static final long RECONNECT_INTERVAL_MILLIS = 1000L;
+
+    private final JedisCluster jedisCluster;
+
+    private final ConcurrentMap<String, List<RedisMessageListener>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * Channels whose listeners changed, drained by the sync thread
+     */
+    private final BlockingQueue<String> changedChannels = new LinkedBlockingQueue<>();
+
+    /**
+     * Guards starting and stopping the threads, never held during socket writes
+     */
+    private final Object lifecycleLock = new Object();
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    private Thread syncThread;
+
+    /**
+     * The subscription in use, {@literal null} while (re)connecting
+     */
+    private volatile Subscription subscription;
+
+    public JedisMessageSubscriber(JedisCluster jedisCluster) {
+        if (jedisCluster == null)
+            throw new IllegalArgumentException("JedisCluster must not be null!");
+
+        this.jedisCluster = jedisCluster;
+    }
+
+    /**
+     * Register the {@code listener} of {@code channel}, starts the subscriber threads if necessary. A new channel is
+     * subscribed asynchronously.
+     *
+     * @param channel  must not be {@literal null}.
+     * @param listener must not be {@literal null}.
+     */
+    public void subscribe(String channel, RedisMessageListener listener) {
+        if (channel == null || listener == null)
+            throw new IllegalArgumentException("channel and listener cannot be null");
+
+        listeners.compute(channel, (key, channelListeners) -> {
+            List<RedisMessageListener> result = channelListeners != null ? channelListeners : new CopyOnWriteArrayList<>();
+            result.add(listener);
+            return result;
+        });
+
+        if (!running) {
+            start();
+        }
+        changedChannels.offer(channel);
+    }
+
+    /**
+     * Remove the {@code listener} of {@code channel}, the last one of a channel unsubscribes it asynchronously.
+     *
+     * @param channel  must not be {@literal null}.
+     * @param listener must not be {@literal null}.
+     */
+    public void unsubscribe(String channel, RedisMessageListener listener) {
+        boolean[] removed = new boolean[1];
+        listeners.computeIfPresent(channel, (key, channelListeners) -> {
+            removed[0] = channelListeners.remove(listener) && channelListeners.isEmpty();
+            return channelListeners.isEmpty() ? null : channelListeners;
+        });
+        if (removed[0]) {
+            changedChannels.offer(channel);
+        }
+    }
+
+    /**
+     * Close the subscription and stop the subscriber threads.
+     */
+    public void shutdown() {
+        synchronized (lifecycleLock) {
+            running = false;
+            synchronized (this) {
+                // not while the sync thread writes to the connection
+                Subscription current = subscription;
+                if (current != null && current.isSubscribed()) {
+                    try {
+                        current.unsubscribe();
+                    } catch (JedisException e) {
+                        logger.warn("unsubscribe failed", e);
+                    }
+                }
+            }
+            if (thread != null) {
+                thread.interrupt();
+                thread = null;
+            }
+            if (syncThread != null) {
+                syncThread.interrupt();
+                syncThread = null;
+            }
+        }
+    }
+
+    private void start() {
+        synchronized (lifecycleLock) {
+            if (running) {
+                return;
+            }
+            running = true;
+            thread = new Thread(this::run, "jedis-message-subscriber");
+            thread.setDaemon(true);
+            thread.start();
+            syncThread = new Thread(this::drainChangedChannels, "jedis-message-subscriber-sync");
+            syncThread.setDaemon(true);
+            syncThread.start();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            String[] channels;
+            synchronized (this) {
+                channels = listeners.keySet().toArray(new String[0]);
+                if (channels.length == 0) {
+                    try {
+                        wait(RECONNECT_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    continue;
+                }
+            }
+
+            Subscription current = new Subscription();
+            subscription = current;
+            try {
+                // blocks until all channels are unsubscribed or the connection is broken
+                jedisCluster.subscribe(current, channels);
+            } catch (JedisException e) {
+                if (running) {
+                    logger.warn("subscription failed, reconnect in {}ms", RECONNECT_INTERVAL_MILLIS, e);
+                    try {
+                        Thread.sleep(RECONNECT_INTERVAL_MILLIS);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            } finally {
+                subscription = null;
+            }
+        }
+    }
+
+    /**
+     * Send the changes of the channels queued by {@link #subscribe} and {@link #unsubscribe}, in batches.
+     */
+    private void drainChangedChannels() {
+        while (running) {
+            try {
+                changedChannels.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // one sync aligns all channels
+            changedChannels.clear();
+            synchronized (this) {
+                // wake the subscriber thread waiting for a first channel
+                notifyAll();
+            }
+            try {
+                syncChannels();
+            } catch (JedisException e) {
+                // the subscriber thread reconnects and catches up
+                logger.warn("sync channels failed", e);
+            }
+        }
+    }
+
+    /**
+     * Align the channels of the established subscription with the registered listeners, on the sync thread or on the
+     * subscriber thread after (re)connecting.
+     */
+    private synchronized void syncChannels() {
+        Subscription current = subscription;
+        if (current == null || !current.isSubscribed()) {
+            // the channels will be subscribed on (re)connecting
+            return;
+        }
+        Set<String> toSubscribe = new HashSet<>(listeners.keySet());
+        toSubscribe.removeAll(current.channels);
+        Set<String> toUnsubscribe = new HashSet<>(current.channels);
+        toUnsubscribe.removeAll(listeners.keySet());
+        if (!toSubscribe.isEmpty()) {
+            current.channels.addAll(toSubscribe);
+            current.subscribe(toSubscribe.toArray(new String[0]));
+        }
+        if (!toUnsubscribe.isEmpty()) {
+            current.channels.removeAll(toUnsubscribe);
+            current.unsubscribe(toUnsubscribe.toArray(new String[0]));
+        }
+    }
+
+    private class Subscription extends JedisPubSub {
+
+        /**
+         * channels requested on this connection
+         */
+        private final Set<String> channels = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            channels.add(channel);
+            // catch up the channels registered while connecting
+            syncChannels();
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            List<RedisMessageListener> channelListeners = listeners.get(channel);
+            if (channelListeners == null) {
+                return;
+            }
+            for (RedisMessageListener listener : channelListeners) {
+                try {
+                    listener.onMessage(channel, message);
+                } catch (Exception e) {
+                    logger.error("message listener of channel {} failed", channel, e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.caiya.cache.redis;
+
+import com.caiya.serialization.Serializer;
+import com.caiya.serialization.jdk.StringSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encodes keys to their binary representation with the key prefix of a cache, the hot path of every operation.
+ * <p>
+ * {@link String} keys of a UTF-8 {@link StringSerializer} are encoded straight into one array holding prefix and key,
+ * other keys are serialized and prefixed with a single copy. Unlike {@link RedisCacheKey} no wrapper is created per
+ * key. Instances are immutable and thread-safe, caches create a new one when their prefix or key serializer changes.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public final class KeyEncoder {
+
+    private static final String UTF8_PROBE = "a\u00e9\u4e2d\ud83d\ude00";
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final byte[] prefix;
+
+    @SuppressWarnings("rawtypes")
+    private final Serializer serializer;
+
+    private final boolean utf8Strings;
+
+    /**
+     * @param prefix     can be {@literal null}, copied.
+     * @param serializer the key serializer, must not be {@literal null}.
+     */
+    public KeyEncoder(byte[] prefix, Serializer<?> serializer) {
+        if (serializer == null)
+            throw new IllegalArgumentException("serializer cannot be null");
+
+        this.prefix = prefix != null ? prefix.clone() : EMPTY;
+        this.serializer = serializer;
+        this.utf8Strings = isUtf8StringSerializer(serializer);
+    }
+
+    /**
+     * @param key the key, {@link String} keys take the fast path.
+     * @return the prefixed binary key.
+     */
+    @SuppressWarnings("unchecked")
+    public byte[] encode(Object key) {
+        if (utf8Strings && key instanceof String) {
+            return encodeUtf8(prefix, (String) key);
+        }
+
+        byte[] rawKey = serializer.serialize(key);
+        if (prefix.length == 0) {
+            return rawKey;
+        }
+        byte[] prefixedKey = Arrays.copyOf(prefix, prefix.length + rawKey.length);
+        System.arraycopy(rawKey, 0, prefixedKey, prefix.length, rawKey.length);
+        return prefixedKey;
+    }
+
+    /**
+     * @return {@literal true} if {@link String} keys are encoded without calling the serializer.
+     */
+    public boolean isUtf8Strings() {
+        return utf8Strings;
+    }
+
+    /**
+     * Encode {@code prefix} followed by the UTF-8 bytes of {@code key} into a right-sized array, the bytes equal
+     * {@code key.getBytes(StandardCharsets.UTF_8)} (unpaired surrogates become {@code '?'}).
+     *
+     * @param prefix must not be {@literal null}.
+     * @param key    must not be {@literal null}.
+     * @return never {@literal null}.
+     */
+    static byte[] encodeUtf8(byte[] prefix, String key) {
+        int length = key.length();
+        int encodedLength = 0;
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                encodedLength++;
+                continue;
+            }
+            ascii = false;
+            if (c < 0x800) {
+                encodedLength += 2;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+                    encodedLength += 4;
+                    i++;
+                } else {
+                    encodedLength++;
+                }
+            } else {
+                encodedLength += 3;
+            }
+        }
+
+        byte[] encoded = new byte[prefix.length + encodedLength];
+        System.arraycopy(prefix, 0, encoded, 0, prefix.length);
+        int position = prefix.length;
+        if (ascii) {
+            for (int i = 0; i < length; i++) {
+                encoded[position++] = (byte) key.charAt(i);
+            }
+            return encoded;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                encoded[position++] = (byte) c;
+            } else if (c < 0x800) {
+                encoded[position++] = (byte) (0xC0 | (c >> 6));
+                encoded[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(key.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, key.charAt(++i));
+                    encoded[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    encoded[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    encoded[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    encoded[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    encoded[position++] = '?';
+                }
+            } else {
+                encoded[position++] = (byte) (0xE0 | (c >> 12));
+                encoded[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                encoded[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * A {@link StringSerializer} may use another charset, probe it once.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isUtf8StringSerializer(Serializer serializer) {
+        if (!(serializer instanceof StringSerializer)) {
+            return false;
+        }
+        try {
+            return Arrays.equals(serializer.serialize(UTF8_PROBE), UTF8_PROBE.getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+}
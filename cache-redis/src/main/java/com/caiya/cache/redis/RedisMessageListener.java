@@ -0,0 +1,21 @@
+package com.caiya.cache.redis;
+
+/**
+ * Listener of messages published to a Redis channel.
+ *
+ * @author wangnan
+ * @see JedisMessageSubscriber
+ * @since 1.2
+ */
+@FunctionalInterface
+public interface RedisMessageListener {
+
+    /**
+     * Called on the subscriber thread for every message received, keep it short.
+     *
+     * @param channel the channel the message was published to
+     * @param message the message
+     */
+    void onMessage(String channel, String message);
+
+}
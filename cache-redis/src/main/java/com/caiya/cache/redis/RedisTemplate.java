@@ -4,10 +4,13 @@ import com.caiya.cache.RedisConstant;
 import com.caiya.cache.ScanResult;
 import com.caiya.cache.SetOption;
 
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Helper class that simplifies Redis data access code.
@@ -96,6 +99,26 @@ public class RedisTemplate<K, V> extends RedisAccessor<K, V> implements RedisOpe
         return execute(redisCache -> redisCache.get(key));
     }
 
+    @Override
+    public V get(K key, Function<? super K, ? extends V> loader, Duration ttl) {
+        return execute(redisCache -> redisCache.get(key, loader, ttl));
+    }
+
+    @Override
+    public Map<K, Exception> mSet(Map<K, V> entries, Duration ttl) {
+        return execute(redisCache -> redisCache.mSet(entries, ttl));
+    }
+
+    @Override
+    public Map<K, Exception> mSet(Map<K, V> entries, Function<? super K, Duration> ttlFunction) {
+        return execute(redisCache -> redisCache.mSet(entries, ttlFunction));
+    }
+
+    @Override
+    public Map<K, V> mGet(Collection<K> keys) {
+        return execute(redisCache -> redisCache.mGet(keys));
+    }
+
     @Override
     @Deprecated
     public Set<K> keys(String pattern) {
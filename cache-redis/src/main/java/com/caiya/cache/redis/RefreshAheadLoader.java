@@ -0,0 +1,150 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.CacheApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Cache-aside reads with refresh-ahead: a miss is loaded and set by the caller, a hit within the last
+ * {@link #setRefreshAheadFactor(double) fraction} of its live time is returned at once while one reload per key runs in
+ * the background, so that hot keys are replaced before they expire instead of all callers missing at the same time.
+ * <p>
+ * The remaining live time is read by {@link CacheApi#ttl(Object)}, the stored values keep their format.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class RefreshAheadLoader<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAheadLoader.class);
+
+    private static final double DEFAULT_REFRESH_AHEAD_FACTOR = 0.2;
+
+    /**
+     * Reloads of all caches without an own executor, a reload is skipped rather than queued when all threads are busy
+     */
+    private static final Executor DEFAULT_EXECUTOR = createExecutor(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+    private final CacheApi<K, V> cache;
+
+    /**
+     * Keys being reloaded
+     */
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    private volatile double refreshAheadFactor = DEFAULT_REFRESH_AHEAD_FACTOR;
+
+    private volatile Executor executor = DEFAULT_EXECUTOR;
+
+    public RefreshAheadLoader(CacheApi<K, V> cache) {
+        if (cache == null)
+            throw new IllegalArgumentException("cache cannot be null");
+
+        this.cache = cache;
+    }
+
+    /**
+     * @see CacheApi#get(Object, Function, Duration)
+     */
+    public V get(K key, Function<? super K, ? extends V> loader, Duration ttl) {
+        if (loader == null)
+            throw new IllegalArgumentException("loader cannot be null");
+        if (ttl == null || ttl.isZero() || ttl.isNegative())
+            throw new IllegalArgumentException("ttl must be positive");
+
+        V value = cache.get(key);
+        if (value == null) {
+            return load(key, loader, ttl);
+        }
+
+        double factor = refreshAheadFactor;
+        if (factor > 0) {
+            long remaining = cache.ttl(key);
+            // -1: never expires, -2: expired since the read
+            if (remaining != -1 && remaining * 1000 <= ttl.toMillis() * factor) {
+                refreshAsync(key, loader, ttl);
+            }
+        }
+        return value;
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader, Duration ttl) {
+        V value = loader.apply(key);
+        if (value != null) {
+            // rounded up to seconds, live times in milliseconds are only supported for raw string values
+            long seconds = TimeUnit.MILLISECONDS.toSeconds(ttl.toMillis() + 999);
+            cache.set(key, value, seconds, TimeUnit.SECONDS);
+        }
+        return value;
+    }
+
+    private void refreshAsync(K key, Function<? super K, ? extends V> loader, Duration ttl) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    load(key, loader, ttl);
+                } catch (RuntimeException e) {
+                    logger.warn("refresh ahead of key:{} failed, the current value is kept until it expires", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // retried by a later hit
+            refreshing.remove(key);
+        }
+    }
+
+    public double getRefreshAheadFactor() {
+        return refreshAheadFactor;
+    }
+
+    /**
+     * @param refreshAheadFactor fraction of the live time left at which a hit triggers a reload, from 0 (never) to 1.
+     */
+    public void setRefreshAheadFactor(double refreshAheadFactor) {
+        if (refreshAheadFactor < 0 || refreshAheadFactor > 1)
+            throw new IllegalArgumentException("refreshAheadFactor must be between 0 and 1");
+
+        this.refreshAheadFactor = refreshAheadFactor;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param executor runs the reloads, a rejected reload is skipped.
+     */
+    public void setExecutor(Executor executor) {
+        if (executor == null)
+            throw new IllegalArgumentException("executor cannot be null");
+
+        this.executor = executor;
+    }
+
+    private static Executor createExecutor(int maxPoolSize) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(0, maxPoolSize,
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-ahead-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.caiya.cache.redis;
+
+import redis.clients.util.JedisClusterCRC16;
+
+/**
+ * An encoded key together with its hash slot, computed once and carried through batch operations.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class SlotKey {
+
+    private final byte[] rawKey;
+
+    private final int slot;
+
+    private SlotKey(byte[] rawKey, int slot) {
+        this.rawKey = rawKey;
+        this.slot = slot;
+    }
+
+    /**
+     * @param rawKey must not be {@literal null}.
+     * @return the key with its slot.
+     */
+    static SlotKey of(byte[] rawKey) {
+        return new SlotKey(rawKey, JedisClusterCRC16.getSlot(rawKey));
+    }
+
+    /**
+     * @param rawKey must not be {@literal null}.
+     * @param slot   the slot of {@code rawKey}, e.g. of a key of the same group.
+     * @return the key with its slot.
+     */
+    static SlotKey of(byte[] rawKey, int slot) {
+        return new SlotKey(rawKey, slot);
+    }
+
+    byte[] getRawKey() {
+        return rawKey;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+}
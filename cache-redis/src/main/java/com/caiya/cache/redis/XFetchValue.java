@@ -0,0 +1,146 @@
+package com.caiya.cache.redis;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A stored value together with the time its computation took and its expiration time, for the probabilistic early
+ * recomputation (XFetch) of "Optimal Probabilistic Cache Stampede Prevention" (Vattani et al., VLDB 2015): every reader
+ * recomputes the value before it expires with a probability growing as the expiration approaches and with the
+ * computation time, so that the reloads of a hot key are spread out instead of all landing at the expiration.
+ * <p>
+ * Layout: magic {@code 0xFF 'X'}, {@code 1}, computation time in milliseconds (4 bytes), expiration time in epoch
+ * milliseconds (8 bytes), then the value as stored without early recomputation. A value stored without header while early
+ * recomputation is enabled is {@link #escape(byte[]) escaped} by the header {@code 0xFF 'X' 0} if it starts with the
+ * magic bytes itself, so that the readers can tell the two apart. Readers must {@link #unwrap(byte[])} the values only
+ * while early recomputation is enabled.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public final class XFetchValue {
+
+    /**
+     * The beta of the paper, above 1 favors earlier recomputation, below 1 later
+     */
+    public static final double DEFAULT_BETA = 1.0;
+
+    private static final byte[] MAGIC = {(byte) 0xFF, 'X'};
+
+    private static final byte ESCAPED = 0;
+
+    private static final byte WRAPPED = 1;
+
+    private static final int ESCAPE_LENGTH = MAGIC.length + 1;
+
+    private static final int HEADER_LENGTH = ESCAPE_LENGTH + 4 + 8;
+
+    private final byte[] value;
+
+    private final int delta;
+
+    private final long expiry;
+
+    private XFetchValue(byte[] value, int delta, long expiry) {
+        this.value = value;
+        this.delta = delta;
+        this.expiry = expiry;
+    }
+
+    /**
+     * @param value       the value as stored without early recomputation, must not be {@literal null}.
+     * @param deltaMillis time the computation of the value took
+     * @param ttlMillis   live time of the stored value, must be positive.
+     * @return the value to store
+     */
+    public static byte[] wrap(byte[] value, long deltaMillis, long ttlMillis) {
+        if (value == null)
+            throw new IllegalArgumentException("value cannot be null");
+
+        return ByteBuffer.allocate(HEADER_LENGTH + value.length)
+                .put(MAGIC)
+                .put(WRAPPED)
+                .putInt((int) Math.min(Math.max(deltaMillis, 0), Integer.MAX_VALUE))
+                .putLong(System.currentTimeMillis() + ttlMillis)
+                .put(value)
+                .array();
+    }
+
+    /**
+     * @param stored the stored value, can be {@literal null}.
+     * @return the parsed value, {@literal null} if not written by {@link #wrap(byte[], long, long)}.
+     */
+    public static XFetchValue parse(byte[] stored) {
+        if (stored == null || stored.length < HEADER_LENGTH || !startsWithMagic(stored) || stored[MAGIC.length] != WRAPPED) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(stored, ESCAPE_LENGTH, HEADER_LENGTH - ESCAPE_LENGTH);
+        return new XFetchValue(Arrays.copyOfRange(stored, HEADER_LENGTH, stored.length), buffer.getInt(), buffer.getLong());
+    }
+
+    /**
+     * @param value the value to store without header, can be {@literal null}.
+     * @return {@code value} itself, escaped if it starts with the magic bytes.
+     */
+    public static byte[] escape(byte[] value) {
+        if (value == null || !startsWithMagic(value)) {
+            return value;
+        }
+        return ByteBuffer.allocate(ESCAPE_LENGTH + value.length).put(MAGIC).put(ESCAPED).put(value).array();
+    }
+
+    /**
+     * @param stored the stored value, can be {@literal null}.
+     * @return the value without the header or escape, {@code stored} itself if it has none.
+     */
+    public static byte[] unwrap(byte[] stored) {
+        XFetchValue value = parse(stored);
+        if (value != null) {
+            return value.value;
+        }
+        if (stored != null && stored.length >= ESCAPE_LENGTH && startsWithMagic(stored)
+                && stored[MAGIC.length] == ESCAPED) {
+            return Arrays.copyOfRange(stored, ESCAPE_LENGTH, stored.length);
+        }
+        return stored;
+    }
+
+    /**
+     * Roll the dice of this reader: {@code now - delta * beta * ln(random) >= expiry}.
+     *
+     * @param beta must be positive.
+     * @return {@literal true} if this reader should recompute the value.
+     */
+    public boolean shouldRecompute(double beta) {
+        // (0, 1], as ln(0) is infinite
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return System.currentTimeMillis() - delta * beta * Math.log(random) >= expiry;
+    }
+
+    /**
+     * @return the value as stored without early recomputation.
+     */
+    public byte[] getValue() {
+        return value;
+    }
+
+    /**
+     * @return time the computation of the value took, in milliseconds.
+     */
+    public int getDelta() {
+        return delta;
+    }
+
+    /**
+     * @return expiration time in epoch milliseconds.
+     */
+    public long getExpiry() {
+        return expiry;
+    }
+
+    private static boolean startsWithMagic(byte[] bytes) {
+        return bytes.length >= MAGIC.length && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1];
+    }
+
+}
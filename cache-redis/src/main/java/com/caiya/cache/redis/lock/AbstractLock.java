@@ -31,7 +31,7 @@ public abstract class AbstractLock<T> implements RLock<T> {
      * If null at runtime, it will be a random UUID
      * </p>
      */
-    private String valuePrefix;
+    private volatile String valuePrefix;
 
     /*
     The value splitter, concat valuePrefix and threadId as the default
@@ -93,10 +93,18 @@ public abstract class AbstractLock<T> implements RLock<T> {
      * @return the unique global lock value
      */
     String getValueByThreadId(long threadId) {
-        if (this.valuePrefix == null) {
-            this.valuePrefix = getRandomUUID().replaceAll("-", "");
+        String prefix = this.valuePrefix;
+        if (prefix == null) {
+            // once for all threads, a value changing while held would never be released
+            synchronized (this) {
+                prefix = this.valuePrefix;
+                if (prefix == null) {
+                    prefix = getRandomUUID().replaceAll("-", "");
+                    this.valuePrefix = prefix;
+                }
+            }
         }
-        return this.valuePrefix + this.valueSplitter + threadId;
+        return prefix + this.valueSplitter + threadId;
     }
 
     public void setValuePrefix(String valuePrefix) {
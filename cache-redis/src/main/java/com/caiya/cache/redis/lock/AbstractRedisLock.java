@@ -0,0 +1,289 @@
+package com.caiya.cache.redis.lock;
+
+import com.caiya.cache.CacheApi;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The waiting of the locks stored in redis: an attempt is retried on the published releases and by polling with a
+ * jittered exponential backoff.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public abstract class AbstractRedisLock extends AbstractLock<String> {
+
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /**
+     * Upper bound of the polling interval without release notifications
+     */
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * Upper bound of the polling interval with release notifications, which only cover missed messages and expired leases
+     */
+    private static final long MAX_NOTIFIED_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The cache client
+     */
+    protected final CacheApi<String, String> cache;
+
+    /**
+     * Wakes the waiters on release, polling only if {@literal null}
+     */
+    private final LockReleaseNotifier releaseNotifier;
+
+    /**
+     * Renews the leases of the acquisitions with the default lease time, can be {@literal null}
+     */
+    private final LockWatchdog watchdog;
+
+
+    AbstractRedisLock(CacheApi<String, String> cache, String name, LockReleaseNotifier releaseNotifier, LockWatchdog watchdog) {
+        if (cache == null) {
+            throw new IllegalArgumentException("the cache client cannot be null");
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("the lock name cannot be null");
+        }
+
+        this.cache = cache;
+        this.releaseNotifier = releaseNotifier;
+        this.watchdog = watchdog;
+        super.setName(name);
+        if (watchdog != null) {
+            super.setDefaultLeaseTime(watchdog.getLeaseTime());
+        }
+    }
+
+    /**
+     * Try to acquire the lock once for the current thread.
+     *
+     * @param leaseTime max lease time
+     * @return lock result
+     */
+    abstract boolean lockInternal(Duration leaseTime);
+
+    /**
+     * Try to acquire the lock once, the lease is renewed by the watchdog if {@code watched}.
+     */
+    private boolean acquire(Duration leaseTime, boolean watched) {
+        if (!lockInternal(leaseTime)) {
+            return false;
+        }
+        if (watched && watchdog != null) {
+            watchdog.watch(getKey(), getCurrentThreadValue());
+        }
+        return true;
+    }
+
+    /**
+     * Called before the current thread starts waiting for the lock.
+     */
+    void beforeWait() {
+    }
+
+    /**
+     * Called after the current thread stopped waiting for the lock, also on timeout and interruption.
+     *
+     * @param acquired if the lock was acquired
+     */
+    void afterWait(boolean acquired) {
+    }
+
+    /**
+     * Stop renewing the lease of the current thread, to be called on release.
+     */
+    void unwatch() {
+        if (watchdog != null) {
+            watchdog.unwatch(getKey(), getCurrentThreadValue());
+        }
+    }
+
+    @Override
+    public void lock() {
+        if (!tryLock()) {
+            try {
+                doAcquireMillis(getDefaultWaitTime(), getDefaultLeaseTime(), true, false);
+            } catch (InterruptedException e) {
+                // ignore exception
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void lock(Duration leaseTime) {
+        if (!acquire(leaseTime, false)) {
+            try {
+                doAcquireMillis(getDefaultWaitTime(), leaseTime, false, false);
+            } catch (InterruptedException e) {
+                // ignore exception
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (!tryLock()) {
+            doAcquireMillis(getDefaultWaitTime(), getDefaultLeaseTime(), true, true);
+        }
+    }
+
+    @Override
+    public void lockInterruptibly(Duration leaseTime) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (!acquire(leaseTime, false)) {
+            doAcquireMillis(getDefaultWaitTime(), leaseTime, false, true);
+        }
+    }
+
+    @Override
+    public boolean tryLock() {
+        return acquire(getDefaultLeaseTime(), true);
+    }
+
+    @Override
+    public boolean tryLock(Duration waitTime) throws InterruptedException {
+        if (waitTime == null) {
+            throw new IllegalArgumentException("waitTime cannot be null");
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        return acquire(getDefaultLeaseTime(), true) || doAcquireMillis(waitTime, getDefaultLeaseTime(), true, true);
+    }
+
+    @Override
+    public boolean tryLock(Duration waitTime, Duration leaseTime) throws InterruptedException {
+        if (waitTime == null) {
+            throw new IllegalArgumentException("waitTime cannot be null");
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        return acquire(leaseTime, false) || doAcquireMillis(waitTime, leaseTime, false, true);
+    }
+
+    /**
+     * 尝试加锁：释放锁时发布通知唤醒等待线程，未收到通知时以带随机抖动的指数退避轮询
+     *
+     * @param waitTime    max wait time
+     * @param leaseTime   max lease time, can be nullable or zero
+     * @param watched     if the lease is renewed by the watchdog
+     * @param interrupted if interrupted or not
+     * @return lock result
+     * @throws InterruptedException InterruptedException
+     */
+    private boolean doAcquireMillis(Duration waitTime, Duration leaseTime, boolean watched, boolean interrupted) throws InterruptedException {
+        long nanosTimeout;
+        if (waitTime == null || (nanosTimeout = waitTime.toNanos()) <= 0L) {
+            return false;
+        }
+        final long deadline = System.nanoTime() + nanosTimeout;
+        LockReleaseNotifier.Waiters waiters = releaseNotifier != null
+                ? releaseNotifier.join(getChannel(), getCurrentThreadValue())
+                : null;
+        long maxBackoff = waiters != null ? MAX_NOTIFIED_BACKOFF_NANOS : MAX_BACKOFF_NANOS;
+        long backoff = INITIAL_BACKOFF_NANOS;
+        boolean failed = true;
+        boolean wasInterrupted = false;
+        beforeWait();
+        try {
+            for (; ; ) {
+                if (acquire(leaseTime, watched)) {
+                    failed = false;
+                    return true;
+                }
+                nanosTimeout = deadline - System.nanoTime();
+                if (nanosTimeout <= 0L) {
+                    return false;
+                }
+                // half fixed, half random, so that the waiters of several processes do not poll in step
+                long parkNanos = Math.min(nanosTimeout,
+                        backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+                if (waiters != null) {
+                    waiters.await(parkNanos);
+                } else {
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+                backoff = Math.min(backoff * 2, maxBackoff);
+                if (Thread.interrupted()) {
+                    if (interrupted) {
+                        throw new InterruptedException();
+                    }
+                    // parking returns at once while interrupted, restore it after acquiring
+                    wasInterrupted = true;
+                }
+            }
+        } finally {
+            afterWait(!failed);
+            if (waiters != null) {
+                waiters.leave(getCurrentThreadValue());
+            }
+            if (wasInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failed) {
+                logger.warn("doAcquireMillis failed");
+            }
+        }
+    }
+
+    /**
+     * @return the lock key as stored, with the key prefix, as the keys of Lua scripts are not prefixed
+     */
+    String getKey() {
+        return (cache.getKeyPrefix() == null || cache.getKeyPrefix().length == 0)
+                ? getLockName()
+                : (new String(cache.getKeyPrefix(), StandardCharsets.UTF_8) + getLockName());
+    }
+
+    /**
+     * @return the lock key without the key prefix
+     */
+    String getLockName() {
+        return getName();
+    }
+
+    /**
+     * @return the channel the releases of the lock are published on
+     */
+    String getChannel() {
+        return LockReleaseNotifier.channelOf(getKey());
+    }
+
+    String getCurrentThreadValue() {
+        return getValueByThreadId(Thread.currentThread().getId());
+    }
+
+    @Override
+    public boolean isLocked() {
+        return cache.exists(getLockName());
+    }
+
+    @Override
+    public boolean isHeldByCurrentThread() {
+        return isHeldByThread(Thread.currentThread().getId());
+    }
+
+    @Override
+    public Duration remainTimeToLive() {
+        return Duration.ofSeconds(cache.ttl(getLockName()));
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.caiya.cache.redis.lock;
+
+import com.caiya.cache.CacheApi;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fair distributed lock based-on redis: the waiting threads of all processes acquire the lock in the order they
+ * started waiting, instead of whoever retries first after a release. Reentrant like {@link ReentrantRedisLock}.
+ * <p>
+ * A thread blocked in {@code lock} or a timed {@code tryLock} is appended to a queue (a list) with a deadline (a hash
+ * of the waiters), which every retry extends. Only the head of the queue acquires a free lock, and a release wakes
+ * that waiter only. A waiter that stopped retrying, e.g. after a crash, is skipped once its deadline passed, so it delays
+ * the queue by at most {@value #WAITER_TIMEOUT_SECONDS} seconds. A single {@link RLock#tryLock()} does not queue and
+ * fails while others wait.
+ * <p>
+ * The lock key is wrapped in a hash tag, so that the queue keys are in its cluster slot. The scripts take the deadlines
+ * from the Redis {@code TIME} and the clients only pass the time to wait, so the clocks of the processes do not matter;
+ * like {@link RedisReadWriteLock} this requires Redis 3.2 or later for {@code redis.replicate_commands()}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class FairRedisLock extends ReentrantRedisLock {
+
+    private static final long WAITER_TIMEOUT_SECONDS = 5;
+
+    private static final long WAITER_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(WAITER_TIMEOUT_SECONDS);
+
+    /**
+     * Acquires the lock if free and no live waiter is ahead, or held by the given value, otherwise queues the value
+     * for the given time, if any
+     */
+    private static final String LOCK_SCRIPT = "redis.replicate_commands() local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "while true do "
+            + "local first = redis.call('lindex',KEYS[2],0) "
+            + "if not first then break end "
+            + "local deadline = tonumber(redis.call('hget',KEYS[3],first)) "
+            + "if deadline and deadline > now then break end "
+            + "redis.call('lpop',KEYS[2]) redis.call('hdel',KEYS[3],first) "
+            + "end "
+            + "if redis.call('exists',KEYS[1]) == 0 then "
+            + "local first = redis.call('lindex',KEYS[2],0) "
+            + "if not first or first == ARGV[2] then "
+            + "if first then redis.call('lpop',KEYS[2]) redis.call('hdel',KEYS[3],ARGV[2]) end "
+            + "redis.call('hincrby',KEYS[1],ARGV[2],1) redis.call('pexpire',KEYS[1],ARGV[1]) return 1 end "
+            + "elseif redis.call('hexists',KEYS[1],ARGV[2]) == 1 then "
+            + "redis.call('hincrby',KEYS[1],ARGV[2],1) redis.call('pexpire',KEYS[1],ARGV[1]) return 1 end "
+            + "if tonumber(ARGV[3]) > 0 then "
+            + "if redis.call('hexists',KEYS[3],ARGV[2]) == 0 then redis.call('rpush',KEYS[2],ARGV[2]) end "
+            + "redis.call('hset',KEYS[3],ARGV[2],now + tonumber(ARGV[3])) "
+            + "redis.call('pexpire',KEYS[2],ARGV[3]) redis.call('pexpire',KEYS[3],ARGV[3]) end "
+            + "return 0";
+
+    /**
+     * Removes the given number of holds of the given value, at none left deletes the lock and hands it off to the first
+     * live waiter
+     */
+    private static final String UNLOCK_SCRIPT = "redis.replicate_commands() local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "if redis.call('hexists',KEYS[1],ARGV[1]) == 0 then return 0 end "
+            + "if redis.call('hincrby',KEYS[1],ARGV[1],-tonumber(ARGV[2])) > 0 then return 0 end "
+            + "redis.call('del',KEYS[1]) "
+            + "while true do "
+            + "local first = redis.call('lindex',KEYS[2],0) "
+            + "if not first then break end "
+            + "local deadline = tonumber(redis.call('hget',KEYS[3],first)) "
+            + "if deadline and deadline > now then redis.call('publish',ARGV[3],first) break end "
+            + "redis.call('lpop',KEYS[2]) redis.call('hdel',KEYS[3],first) "
+            + "end "
+            + "return 1";
+
+    /**
+     * Removes the given value from the queue, handing a free lock off to the next live waiter
+     */
+    private static final String CANCEL_WAIT_SCRIPT = "redis.replicate_commands() local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "if redis.call('hdel',KEYS[3],ARGV[1]) == 0 then return 0 end "
+            + "redis.call('lrem',KEYS[2],0,ARGV[1]) "
+            + "if redis.call('exists',KEYS[1]) == 1 then return 1 end "
+            + "while true do "
+            + "local first = redis.call('lindex',KEYS[2],0) "
+            + "if not first then break end "
+            + "local deadline = tonumber(redis.call('hget',KEYS[3],first)) "
+            + "if deadline and deadline > now then redis.call('publish',ARGV[2],first) break end "
+            + "redis.call('lpop',KEYS[2]) redis.call('hdel',KEYS[3],first) "
+            + "end "
+            + "return 1";
+
+    /**
+     * Ids of the threads of this process waiting for the lock
+     */
+    private final Set<Long> waitingThreads = ConcurrentHashMap.newKeySet();
+
+
+    FairRedisLock(CacheApi<String, String> cache, String name, LockReleaseNotifier releaseNotifier, LockWatchdog watchdog) {
+        super(cache, name, releaseNotifier, watchdog);
+    }
+
+    @Override
+    String getLockName() {
+        return "{" + getName() + "}";
+    }
+
+    @Override
+    void beforeWait() {
+        waitingThreads.add(Thread.currentThread().getId());
+    }
+
+    @Override
+    void afterWait(boolean acquired) {
+        waitingThreads.remove(Thread.currentThread().getId());
+        if (!acquired) {
+            String key = getKey();
+            cache.eval(CANCEL_WAIT_SCRIPT, 3, key, getQueueKey(key), getTimeoutKey(key),
+                    getCurrentThreadValue(), getChannel());
+        }
+    }
+
+    @Override
+    boolean acquireInRedis(long leaseMillis, long threadId) {
+        String key = getKey();
+        // every retry of a waiting thread extends its deadline
+        long waiterTimeout = waitingThreads.contains(threadId) ? WAITER_TIMEOUT_MILLIS : 0;
+        return ACQUIRED.equals(cache.eval(LOCK_SCRIPT, 3, key, getQueueKey(key), getTimeoutKey(key),
+                String.valueOf(leaseMillis), getValueByThreadId(threadId), String.valueOf(waiterTimeout)));
+    }
+
+    @Override
+    void releaseInRedis(long threadId, int redisCount) {
+        String key = getKey();
+        cache.eval(UNLOCK_SCRIPT, 3, key, getQueueKey(key), getTimeoutKey(key),
+                getValueByThreadId(threadId), String.valueOf(redisCount), getChannel());
+    }
+
+    private static String getQueueKey(String key) {
+        return key + ":queue";
+    }
+
+    private static String getTimeoutKey(String key) {
+        return key + ":timeouts";
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.caiya.cache.redis.lock;
+
+import com.caiya.cache.redis.JedisMessageSubscriber;
+import com.caiya.cache.redis.RedisMessageListener;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Wakes the threads waiting for a {@link RedisLock} when its release is published by {@link RedisLock#unlock()}.
+ * <p>
+ * A lock channel is subscribed while threads of this process wait for the lock, every release wakes all waiting threads
+ * of the process, or only the waiter whose lock value is the message, if any. Messages are not guaranteed: the
+ * subscription becomes active some time after the first waiter arrives and an expired lease publishes nothing, so
+ * waiters also poll with a bounded backoff.
+ *
+ * @author wangnan
+ * @see RedisLockFactory#create(com.caiya.cache.CacheApi, JedisMessageSubscriber)
+ * @since 1.2
+ */
+public class LockReleaseNotifier {
+
+    private static final String CHANNEL_SUFFIX = ":released";
+
+    private final JedisMessageSubscriber subscriber;
+
+    private final ConcurrentMap<String, Waiters> waitersByChannel = new ConcurrentHashMap<>();
+
+    public LockReleaseNotifier(JedisMessageSubscriber subscriber) {
+        if (subscriber == null)
+            throw new IllegalArgumentException("subscriber cannot be null");
+
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * @param lockKey the lock key as stored, with the key prefix
+     * @return the channel of the releases of the lock
+     */
+    static String channelOf(String lockKey) {
+        return lockKey + CHANNEL_SUFFIX;
+    }
+
+    /**
+     * Register the current thread as a waiter of the channel, to be {@link Waiters#leave(String) left} in a finally block.
+     * Threads joining waiters of the process only update the waiters, the first waiter of a channel also subscribes it
+     * by {@link JedisMessageSubscriber#subscribe(String, RedisMessageListener)}, which only queues the channel for the
+     * thread of the subscriber sending the SUBSCRIBE command, so no waiter blocks on the connection.
+     *
+     * @param value the lock value of the current thread, woken by a message of this value
+     */
+    Waiters join(String channel, String value) {
+        for (; ; ) {
+            Waiters waiters = waitersByChannel.get(channel);
+            if (waiters == null) {
+                Waiters created = new Waiters(channel);
+                waiters = waitersByChannel.putIfAbsent(channel, created);
+                if (waiters == null) {
+                    subscriber.subscribe(channel, created);
+                    created.add(value);
+                    return created;
+                }
+            }
+            if (waiters.retain()) {
+                waiters.add(value);
+                return waiters;
+            }
+            // the last waiter is leaving, wait on a new subscription
+        }
+    }
+
+    /**
+     * The threads of this process waiting for one lock.
+     */
+    final class Waiters implements RedisMessageListener {
+
+        private final String channel;
+
+        private final Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+
+        private final ConcurrentMap<String, Thread> threadsByValue = new ConcurrentHashMap<>();
+
+        /**
+         * Number of joined waiters, 0 once unsubscribed for good
+         */
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        private Waiters(String channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Park the current thread until the lock is released, interrupted or {@code nanos} elapsed.
+         */
+        void await(long nanos) {
+            LockSupport.parkNanos(this, nanos);
+        }
+
+        private void add(String value) {
+            threads.add(Thread.currentThread());
+            threadsByValue.put(value, Thread.currentThread());
+        }
+
+        /**
+         * @param value the lock value given to {@link #join(String, String)}
+         */
+        void leave(String value) {
+            threads.remove(Thread.currentThread());
+            threadsByValue.remove(value, Thread.currentThread());
+            if (count.decrementAndGet() == 0) {
+                waitersByChannel.remove(channel, this);
+                subscriber.unsubscribe(channel, this);
+            }
+        }
+
+        private boolean retain() {
+            for (; ; ) {
+                int current = count.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (count.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            if (message == null || message.isEmpty()) {
+                // a release may admit several waiters, e.g. all readers, those not admitted park again
+                for (Thread thread : threads) {
+                    LockSupport.unpark(thread);
+                }
+                return;
+            }
+            // handed off to one waiter, maybe of another process
+            Thread thread = threadsByValue.get(message);
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+}
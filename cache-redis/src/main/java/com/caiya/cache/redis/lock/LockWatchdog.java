@@ -0,0 +1,184 @@
+package com.caiya.cache.redis.lock;
+
+import com.caiya.cache.CacheApi;
+import com.caiya.cache.redis.JedisCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renews the leases of the locks held by the threads of this process, so that a short lease only releases the lock of
+ * a crashed process or a terminated thread, never the one of a long critical section.
+ * <p>
+ * Every {@link #getLeaseTime() lease time} / 3 all watched leases are renewed in one batch, one pipelined script per
+ * lock and node on a {@link JedisCache}. The watchdogs of all factories share one scheduler thread.
+ *
+ * @author wangnan
+ * @see RedisLockFactory#withWatchdog(Duration)
+ * @since 1.2
+ */
+public class LockWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(LockWatchdog.class);
+
+    /**
+     * Extends the lease of a plain or reentrant lock if held by the given value
+     */
+    private static final String RENEW_SCRIPT = "local t = redis.call('type',KEYS[1]).ok "
+            + "if (t == 'string' and redis.call('get',KEYS[1]) == ARGV[1]) "
+            + "or (t == 'hash' and redis.call('hexists',KEYS[1],ARGV[1]) == 1) then "
+            + "return redis.call('pexpire',KEYS[1],ARGV[2]) else return 0 end";
+
+    private static final Long RENEWED = 1L;
+
+    private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+    private final CacheApi<String, String> cache;
+
+    private final Duration leaseTime;
+
+    /**
+     * The watched leases by lock key and value, a lease of a new acquisition replaces the previous one
+     */
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private final ScheduledFuture<?> renewal;
+
+    LockWatchdog(CacheApi<String, String> cache, Duration leaseTime) {
+        if (cache == null)
+            throw new IllegalArgumentException("cache cannot be null");
+        if (leaseTime == null || leaseTime.toMillis() < 3)
+            throw new IllegalArgumentException("leaseTime must be at least 3 milliseconds");
+
+        this.cache = cache;
+        this.leaseTime = leaseTime;
+        long period = leaseTime.toMillis() / 3;
+        this.renewal = SCHEDULER.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renew the lease of the lock held by the current thread until {@link #unwatch(String, String) unwatched} or the
+     * thread terminates.
+     *
+     * @param key   the lock key as stored, with the key prefix
+     * @param value the lock value of the current thread
+     */
+    void watch(String key, String value) {
+        leases.put(leaseId(key, value), new Lease(key, value, Thread.currentThread()));
+    }
+
+    void unwatch(String key, String value) {
+        leases.remove(leaseId(key, value));
+    }
+
+    /**
+     * Renew all watched leases, dropping the ones lost or of terminated threads.
+     */
+    void renew() {
+        List<Lease> batch = new ArrayList<>(leases.size());
+        for (Lease lease : leases.values()) {
+            if (lease.thread.isAlive()) {
+                batch.add(lease);
+            } else {
+                logger.warn("lock:{} is not renewed any more, its holder thread:{} terminated without unlocking",
+                        lease.key, lease.thread.getName());
+                leases.remove(leaseId(lease.key, lease.value), lease);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Object> results;
+        try {
+            results = renew(batch);
+        } catch (RuntimeException e) {
+            // retried at the next period, before the leases expire
+            logger.warn("renewal of {} lock leases failed", batch.size(), e);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (!RENEWED.equals(results.get(i))) {
+                // released meanwhile, or expired and maybe acquired by another holder
+                Lease lease = batch.get(i);
+                leases.remove(leaseId(lease.key, lease.value), lease);
+            }
+        }
+    }
+
+    private List<Object> renew(List<Lease> batch) {
+        String leaseMillis = String.valueOf(leaseTime.toMillis());
+        List<String> keys = new ArrayList<>(batch.size());
+        List<String[]> args = new ArrayList<>(batch.size());
+        for (Lease lease : batch) {
+            keys.add(lease.key);
+            args.add(new String[]{lease.value, leaseMillis});
+        }
+        if (cache instanceof JedisCache) {
+            return ((JedisCache<String, String>) cache).evalEach(RENEW_SCRIPT, keys, args);
+        }
+
+        List<Object> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.add(cache.eval(RENEW_SCRIPT, 1, keys.get(i), args.get(i)[0], args.get(i)[1]));
+        }
+        return results;
+    }
+
+    /**
+     * @return the lease every renewal extends the locks to
+     */
+    public Duration getLeaseTime() {
+        return leaseTime;
+    }
+
+    /**
+     * Stop renewing, the watched leases expire.
+     */
+    public void shutdown() {
+        renewal.cancel(false);
+        leases.clear();
+    }
+
+    private static String leaseId(String key, String value) {
+        return key + '\u0000' + value;
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "redis-lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * A lock held by a thread.
+     */
+    private static final class Lease {
+
+        private final String key;
+
+        private final String value;
+
+        private final Thread thread;
+
+        private Lease(String key, String value, Thread thread) {
+            this.key = key;
+            this.value = value;
+            this.thread = thread;
+        }
+    }
+
+}
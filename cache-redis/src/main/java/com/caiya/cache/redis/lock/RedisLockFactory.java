@@ -1,6 +1,7 @@
 package com.caiya.cache.redis.lock;
 
 import com.caiya.cache.CacheApi;
+import com.caiya.cache.redis.JedisMessageSubscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +21,16 @@ public class RedisLockFactory {
      */
     private CacheApi<String, String> cache;
 
+    /**
+     * Wakes the waiting threads on release, can be {@literal null}
+     */
+    private LockReleaseNotifier releaseNotifier;
+
+    /**
+     * Renews the leases of the held locks, can be {@literal null}
+     */
+    private LockWatchdog watchdog;
+
 
     private RedisLockFactory() {
     }
@@ -29,8 +40,68 @@ public class RedisLockFactory {
         return new RedisLockFactory().setCache(cache);
     }
 
+    /**
+     * The threads waiting for a lock are woken by the releases published on {@code subscriber}, instead of polling
+     * only.
+     *
+     * @param cache      the cache client
+     * @param subscriber must not be {@literal null}, e.g. {@link com.caiya.cache.redis.JedisConnectionFactory#getMessageSubscriber()}.
+     * @return the factory
+     * @since 1.2
+     */
+    public static RedisLockFactory create(CacheApi<String, String> cache, JedisMessageSubscriber subscriber) {
+        RedisLockFactory factory = create(cache);
+        factory.releaseNotifier = new LockReleaseNotifier(subscriber);
+        return factory;
+    }
+
+    /**
+     * Renew the leases of the locks held by the threads of this process, so that a short lease is safe for long
+     * critical sections: the built locks default to {@code leaseTime}, and while held with the default lease time, they
+     * are renewed every {@code leaseTime / 3} until unlocked or their thread terminates. A lock acquired with an
+     * explicit lease time expires as requested.
+     *
+     * @param leaseTime the default lease time of the built locks, e.g. 30 seconds.
+     * @return the factory
+     * @since 1.2
+     */
+    public RedisLockFactory withWatchdog(Duration leaseTime) {
+        if (watchdog != null) {
+            watchdog.shutdown();
+        }
+        watchdog = new LockWatchdog(cache, leaseTime);
+        return this;
+    }
+
     public RedisLock buildLock(String name) {
-        return new RedisLock(cache, name);
+        return new RedisLock(cache, name, releaseNotifier, watchdog);
+    }
+
+    /**
+     * @param name the lock name
+     * @return a lock the holding thread can acquire again
+     * @since 1.2
+     */
+    public ReentrantRedisLock buildReentrantLock(String name) {
+        return new ReentrantRedisLock(cache, name, releaseNotifier, watchdog);
+    }
+
+    /**
+     * @param name the lock name
+     * @return a reentrant lock acquired by the waiting threads in order
+     * @since 1.2
+     */
+    public FairRedisLock buildFairLock(String name) {
+        return new FairRedisLock(cache, name, releaseNotifier, watchdog);
+    }
+
+    /**
+     * @param name the lock name
+     * @return a lock shared by the readers and exclusive to one writer
+     * @since 1.2
+     */
+    public RedisReadWriteLock buildReadWriteLock(String name) {
+        return new RedisReadWriteLock(cache, name, releaseNotifier, watchdog);
     }
 
 
@@ -43,6 +114,9 @@ public class RedisLockFactory {
      * The destroy method
      */
     public void destroy() {
+        if (watchdog != null) {
+            watchdog.shutdown();
+        }
         if (cache instanceof Closeable) {
             try {
                 ((Closeable) cache).close();
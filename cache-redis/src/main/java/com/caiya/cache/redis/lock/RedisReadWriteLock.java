@@ -0,0 +1,212 @@
+package com.caiya.cache.redis.lock;
+
+import com.caiya.cache.CacheApi;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distributed read-write lock based-on redis: any number of threads hold the {@link #readLock() read lock} together,
+ * the {@link #writeLock() write lock} is exclusive. Both are reentrant.
+ * <p>
+ * The lock key is a hash of the mode ({@code read} or {@code write}), the writer, the hold count of every holder and
+ * the writers waiting for the lock, updated by Lua scripts. Writers are preferred: while a writer waits, only the threads
+ * already holding the lock acquire the read lock, so that a steady flow of readers does not starve the writers. A writer
+ * counts as waiting while blocked in {@code lock} or a timed {@code tryLock}, a single {@link RLock#tryLock()} does not.
+ * The scripts take the time of the registrations from the Redis {@code TIME}, so the clocks of the clients do not
+ * matter; they call {@code redis.replicate_commands()} for that, which requires Redis 3.2 or later.
+ * <p>
+ * The holder of the write lock can also acquire the read lock, and keeps it after releasing the write lock
+ * (downgrading). Upgrading a held read lock to the write lock is not supported, it waits forever like
+ * {@link java.util.concurrent.locks.ReentrantReadWriteLock}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class RedisReadWriteLock {
+
+    /**
+     * A waiting writer is forgotten once it did not retry for this long, e.g. after a crash
+     */
+    private static final long WRITER_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(3);
+
+    /**
+     * Acquires the read lock unless held for writing by another thread, or free of holders but awaited by a live
+     * writer, counting one more hold of the reader
+     */
+    private static final String READ_LOCK_SCRIPT = "redis.replicate_commands() local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "local mode = redis.call('hget',KEYS[1],'mode') "
+            + "if mode == 'write' and redis.call('hexists',KEYS[1],ARGV[3]) == 0 then return 0 end "
+            + "if mode ~= 'write' and redis.call('hexists',KEYS[1],ARGV[2]) == 0 then "
+            + "local fields = redis.call('hgetall',KEYS[1]) "
+            + "for i = 1, #fields, 2 do "
+            + "if string.sub(fields[i],1,5) == 'wait:' and tonumber(fields[i+1]) > now then return 0 end "
+            + "end end "
+            + "if not mode then redis.call('hset',KEYS[1],'mode','read') end "
+            + "redis.call('hincrby',KEYS[1],ARGV[2],1) "
+            + "if redis.call('pttl',KEYS[1]) < tonumber(ARGV[1]) then redis.call('pexpire',KEYS[1],ARGV[1]) end "
+            + "return 1";
+
+    /**
+     * Acquires the write lock if free or held for writing by the writer, otherwise registers the writer as waiting for
+     * the given time, if any
+     */
+    private static final String WRITE_LOCK_SCRIPT = "redis.replicate_commands() local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "local mode = redis.call('hget',KEYS[1],'mode') "
+            + "if not mode or (mode == 'write' and redis.call('hget',KEYS[1],'writer') == ARGV[2]) then "
+            + "redis.call('hmset',KEYS[1],'mode','write','writer',ARGV[2]) "
+            + "redis.call('hdel',KEYS[1],'wait:' .. ARGV[2]) "
+            + "redis.call('hincrby',KEYS[1],ARGV[2],1) "
+            + "redis.call('pexpire',KEYS[1],ARGV[1]) return 1 end "
+            + "if tonumber(ARGV[3]) > 0 then redis.call('hset',KEYS[1],'wait:' .. ARGV[2],now + tonumber(ARGV[3])) end "
+            + "return 0";
+
+    /**
+     * Removes the given number of holds of the given holder. At none left, the lock is downgraded to read if the writer
+     * left readers, or released, and the change is published
+     */
+    private static final String UNLOCK_SCRIPT = "redis.replicate_commands() local time = redis.call('time') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "if redis.call('hexists',KEYS[1],ARGV[1]) == 0 then return 0 end "
+            + "if redis.call('hincrby',KEYS[1],ARGV[1],-tonumber(ARGV[2])) > 0 then return 0 end "
+            + "redis.call('hdel',KEYS[1],ARGV[1]) "
+            + "local holders = 0 local waiting = 0 "
+            + "local fields = redis.call('hgetall',KEYS[1]) "
+            + "for i = 1, #fields, 2 do "
+            + "if string.sub(fields[i],1,5) == 'wait:' then "
+            + "if tonumber(fields[i+1]) > now then waiting = waiting + 1 else redis.call('hdel',KEYS[1],fields[i]) end "
+            + "elseif fields[i] ~= 'mode' and fields[i] ~= 'writer' then holders = holders + 1 end "
+            + "end "
+            + "if holders > 0 then "
+            + "if redis.call('hget',KEYS[1],'writer') ~= ARGV[1] then return 0 end "
+            + "redis.call('hset',KEYS[1],'mode','read') redis.call('hdel',KEYS[1],'writer') "
+            + "elseif waiting > 0 then redis.call('hdel',KEYS[1],'mode','writer') "
+            + "else redis.call('del',KEYS[1]) end "
+            + "redis.call('publish',ARGV[3],'') return 1";
+
+    /**
+     * Unregisters a writer that stopped waiting and lets the readers it held back in
+     */
+    private static final String CANCEL_WAIT_SCRIPT = "if redis.call('hdel',KEYS[1],'wait:' .. ARGV[1]) == 0 then return 0 end "
+            + "redis.call('publish',ARGV[2],'') return 1";
+
+    /**
+     * The mode the lock is held in, nil if not held
+     */
+    private static final String MODE_SCRIPT = "return redis.call('hget',KEYS[1],'mode')";
+
+    private static final String WRITE_MODE = "write";
+
+    private final ReadLock readLock;
+
+    private final WriteLock writeLock;
+
+
+    RedisReadWriteLock(CacheApi<String, String> cache, String name, LockReleaseNotifier releaseNotifier, LockWatchdog watchdog) {
+        this.writeLock = new WriteLock(cache, name, releaseNotifier, watchdog);
+        this.readLock = new ReadLock(cache, name, releaseNotifier, watchdog, writeLock);
+    }
+
+    /**
+     * @return the lock shared by the readers
+     */
+    public ReadLock readLock() {
+        return readLock;
+    }
+
+    /**
+     * @return the lock exclusive to one writer
+     */
+    public WriteLock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * The lock shared by the readers.
+     */
+    public static final class ReadLock extends ReentrantRedisLock {
+
+        private final WriteLock writeLock;
+
+        private ReadLock(CacheApi<String, String> cache, String name, LockReleaseNotifier releaseNotifier,
+                         LockWatchdog watchdog, WriteLock writeLock) {
+            super(cache, name, releaseNotifier, watchdog);
+            this.writeLock = writeLock;
+        }
+
+        @Override
+        boolean acquireInRedis(long leaseMillis, long threadId) {
+            return ACQUIRED.equals(cache.eval(READ_LOCK_SCRIPT, 1, getKey(), String.valueOf(leaseMillis),
+                    getValueByThreadId(threadId), writeLock.getValueByThreadId(threadId)));
+        }
+
+        @Override
+        void releaseInRedis(long threadId, int redisCount) {
+            cache.eval(UNLOCK_SCRIPT, 1, getKey(), getValueByThreadId(threadId), String.valueOf(redisCount),
+                    getChannel());
+        }
+
+        /**
+         * @return {@literal true} if held by any reader or writer.
+         */
+        @Override
+        public boolean isLocked() {
+            return cache.eval(MODE_SCRIPT, 1, getKey()) != null;
+        }
+    }
+
+    /**
+     * The lock exclusive to one writer.
+     */
+    public static final class WriteLock extends ReentrantRedisLock {
+
+        /**
+         * Ids of the threads of this process waiting for the lock
+         */
+        private final Set<Long> waitingThreads = ConcurrentHashMap.newKeySet();
+
+        private WriteLock(CacheApi<String, String> cache, String name, LockReleaseNotifier releaseNotifier,
+                          LockWatchdog watchdog) {
+            super(cache, name, releaseNotifier, watchdog);
+        }
+
+        @Override
+        void beforeWait() {
+            waitingThreads.add(Thread.currentThread().getId());
+        }
+
+        @Override
+        void afterWait(boolean acquired) {
+            waitingThreads.remove(Thread.currentThread().getId());
+            if (!acquired) {
+                cache.eval(CANCEL_WAIT_SCRIPT, 1, getKey(), getCurrentThreadValue(), getChannel());
+            }
+        }
+
+        @Override
+        boolean acquireInRedis(long leaseMillis, long threadId) {
+            // every retry of a waiting writer extends its registration
+            long waitMillis = waitingThreads.contains(threadId) ? WRITER_WAIT_MILLIS : 0;
+            return ACQUIRED.equals(cache.eval(WRITE_LOCK_SCRIPT, 1, getKey(), String.valueOf(leaseMillis),
+                    getValueByThreadId(threadId), String.valueOf(waitMillis)));
+        }
+
+        @Override
+        void releaseInRedis(long threadId, int redisCount) {
+            cache.eval(UNLOCK_SCRIPT, 1, getKey(), getValueByThreadId(threadId), String.valueOf(redisCount),
+                    getChannel());
+        }
+
+        /**
+         * @return {@literal true} if held by a writer.
+         */
+        @Override
+        public boolean isLocked() {
+            return WRITE_MODE.equals(cache.eval(MODE_SCRIPT, 1, getKey()));
+        }
+    }
+
+}
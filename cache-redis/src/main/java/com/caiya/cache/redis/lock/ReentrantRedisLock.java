@@ -0,0 +1,152 @@
+package com.caiya.cache.redis.lock;
+
+import com.caiya.cache.CacheApi;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reentrant distributed lock based-on redis: the lock key is a hash of the holder to its hold count, updated by Lua
+ * scripts.
+ * <p>
+ * A thread acquiring the lock again while its lease has not elapsed is only counted locally, without a round trip.
+ * Once the lease may have elapsed, the acquisition renews it in redis, or competes for the lock again if it expired
+ * meanwhile. The lock is released when {@link #unlock()} has been invoked as many times as it was acquired.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class ReentrantRedisLock extends AbstractRedisLock {
+
+    /**
+     * Acquires or renews the lock if free or held by the given value, counting one more hold
+     */
+    private static final String LOCK_SCRIPT = "if redis.call('exists',KEYS[1]) == 0 or redis.call('hexists',KEYS[1],ARGV[2]) == 1 then "
+            + "redis.call('hincrby',KEYS[1],ARGV[2],1) redis.call('pexpire',KEYS[1],ARGV[1]) return 1 else return 0 end";
+
+    /**
+     * Removes the given number of holds of the given value, deletes the lock and publishes its release at none left
+     */
+    private static final String UNLOCK_SCRIPT = "if redis.call('hexists',KEYS[1],ARGV[1]) == 0 then return 0 end "
+            + "if redis.call('hincrby',KEYS[1],ARGV[1],-tonumber(ARGV[2])) > 0 then return 0 end "
+            + "redis.call('del',KEYS[1]) redis.call('publish',ARGV[3],'') return 1";
+
+    /**
+     * The hold count of the given value, nil if not held by it
+     */
+    private static final String HOLD_COUNT_SCRIPT = "return redis.call('hget',KEYS[1],ARGV[1])";
+
+    static final Long ACQUIRED = 1L;
+
+    /**
+     * The holds of the threads of this process, by thread id
+     */
+    private final ConcurrentMap<Long, Hold> holds = new ConcurrentHashMap<>();
+
+
+    ReentrantRedisLock(CacheApi<String, String> cache, String name, LockReleaseNotifier releaseNotifier, LockWatchdog watchdog) {
+        super(cache, name, releaseNotifier, watchdog);
+    }
+
+    @Override
+    boolean lockInternal(Duration leaseTime) {
+        if (leaseTime == null || leaseTime.isZero()) {
+            throw new IllegalArgumentException("leaseTime cannot be null or zero");
+        }
+
+        long threadId = Thread.currentThread().getId();
+        Hold hold = holds.get(threadId);
+        long now = System.nanoTime();
+        if (hold != null && now - hold.leaseDeadline < 0L) {
+            hold.count++;
+            return true;
+        }
+
+        if (!acquireInRedis(leaseTime.toMillis(), threadId)) {
+            return false;
+        }
+        if (hold == null) {
+            hold = new Hold();
+            holds.put(threadId, hold);
+        }
+        hold.count++;
+        hold.redisCount++;
+        // measured from before the request, so the local lease never outlives the one in redis
+        hold.leaseDeadline = now + leaseTime.toNanos();
+        return true;
+    }
+
+    /**
+     * Releases one hold of the current thread, the lock at the last one.
+     *
+     * @throws IllegalMonitorStateException if the current thread does not hold this lock
+     */
+    @Override
+    public void unlock() {
+        long threadId = Thread.currentThread().getId();
+        Hold hold = holds.get(threadId);
+        if (hold == null) {
+            throw new IllegalMonitorStateException("the lock is not held by the current thread");
+        }
+        if (--hold.count > 0) {
+            return;
+        }
+
+        holds.remove(threadId);
+        unwatch();
+        releaseInRedis(threadId, hold.redisCount);
+    }
+
+    /**
+     * Acquire the lock in redis, or count one more hold if held by the thread already.
+     *
+     * @param leaseMillis max lease time
+     * @param threadId    the acquiring thread
+     * @return lock result
+     */
+    boolean acquireInRedis(long leaseMillis, long threadId) {
+        return ACQUIRED.equals(cache.eval(LOCK_SCRIPT, 1, getKey(), String.valueOf(leaseMillis), getValueByThreadId(threadId)));
+    }
+
+    /**
+     * Remove the holds of the thread counted in redis, releasing the lock at none left.
+     */
+    void releaseInRedis(long threadId, int redisCount) {
+        cache.eval(UNLOCK_SCRIPT, 1, getKey(), getValueByThreadId(threadId), String.valueOf(redisCount), getChannel());
+    }
+
+    @Override
+    public boolean isHeldByThread(long threadId) {
+        return cache.eval(HOLD_COUNT_SCRIPT, 1, getKey(), getValueByThreadId(threadId)) != null;
+    }
+
+    /**
+     * @return holds of the current thread, {@code 0} if it does not hold this lock, counted locally.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public int getHoldCount() {
+        Hold hold = holds.get(Thread.currentThread().getId());
+        return hold != null ? hold.count : 0;
+    }
+
+    /**
+     * The holds of one thread, only accessed by that thread.
+     */
+    private static final class Hold {
+
+        private int count;
+
+        /**
+         * Number of the holds counted in redis
+         */
+        private int redisCount;
+
+        /**
+         * {@link System#nanoTime()} at which the lease may have elapsed
+         */
+        private long leaseDeadline;
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.caiya.cache.redis.nio;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Names and keywords of the commands sent by the NIO engine.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class Commands {
+
+    static final byte[] APPEND = bytes("APPEND");
+    static final byte[] ASKING = bytes("ASKING");
+    static final byte[] AUTH = bytes("AUTH");
+    static final byte[] CLUSTER = bytes("CLUSTER");
+    static final byte[] COUNT = bytes("COUNT");
+    static final byte[] DBSIZE = bytes("DBSIZE");
+    static final byte[] DECR = bytes("DECR");
+    static final byte[] DECRBY = bytes("DECRBY");
+    static final byte[] DEL = bytes("DEL");
+    static final byte[] EVAL = bytes("EVAL");
+    static final byte[] EXISTS = bytes("EXISTS");
+    static final byte[] EXPIRE = bytes("EXPIRE");
+    static final byte[] FLUSHDB = bytes("FLUSHDB");
+    static final byte[] GET = bytes("GET");
+    static final byte[] HDEL = bytes("HDEL");
+    static final byte[] HEXISTS = bytes("HEXISTS");
+    static final byte[] HGET = bytes("HGET");
+    static final byte[] HGETALL = bytes("HGETALL");
+    static final byte[] HKEYS = bytes("HKEYS");
+    static final byte[] HMSET = bytes("HMSET");
+    static final byte[] HSET = bytes("HSET");
+    static final byte[] INCR = bytes("INCR");
+    static final byte[] INCRBY = bytes("INCRBY");
+    static final byte[] LLEN = bytes("LLEN");
+    static final byte[] LPOP = bytes("LPOP");
+    static final byte[] LPUSH = bytes("LPUSH");
+    static final byte[] LRANGE = bytes("LRANGE");
+    static final byte[] LREM = bytes("LREM");
+    static final byte[] LTRIM = bytes("LTRIM");
+    static final byte[] MATCH = bytes("MATCH");
+    static final byte[] PING = bytes("PING");
+    static final byte[] PSETEX = bytes("PSETEX");
+    static final byte[] RENAME = bytes("RENAME");
+    static final byte[] SCAN = bytes("SCAN");
+    static final byte[] SET = bytes("SET");
+    static final byte[] SETEX = bytes("SETEX");
+    static final byte[] SLOTS = bytes("SLOTS");
+    static final byte[] TTL = bytes("TTL");
+
+    private Commands() {
+    }
+
+    static byte[] bytes(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] bytes(long number) {
+        return Long.toString(number).getBytes(StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,286 @@
+package com.caiya.cache.redis.nio;
+
+import com.caiya.cache.*;
+import com.caiya.cache.redis.RefreshAheadLoader;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Blocking {@link Cache} implementation on top of {@link NioRedisCache}, so the non-blocking engine can be used
+ * wherever a {@link com.caiya.cache.redis.JedisCache} is.
+ * <p>
+ * Concurrent callers still share one connection per node, their commands are pipelined together.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class NioCache<K, V> implements Cache<K, V> {
+
+    private final NioRedisCache<K, V> delegate;
+
+    private final RefreshAheadLoader<K, V> refreshAheadLoader = new RefreshAheadLoader<>(this);
+
+    public NioCache(NioRedisCache<K, V> delegate) {
+        if (delegate == null)
+            throw new IllegalArgumentException("NioRedisCache must not be null!");
+
+        this.delegate = delegate;
+    }
+
+    @SafeVarargs
+    @Override
+    public final long del(K... keys) {
+        return join(delegate.del(keys));
+    }
+
+    @Override
+    public void set(K key, V value, long seconds) {
+        join(delegate.set(key, value, seconds));
+    }
+
+    @Override
+    public void set(K key, V value, long liveTime, TimeUnit timeUnit) {
+        join(delegate.set(key, value, liveTime, timeUnit));
+    }
+
+    @Override
+    public String set(K key, V value, SetOption setOption, long expirationTime, TimeUnit timeUnit) {
+        return join(delegate.set(key, value, setOption, expirationTime, timeUnit));
+    }
+
+    @Override
+    public Map<K, Exception> mSet(Map<K, V> entries, Duration ttl) {
+        return join(delegate.mSet(entries, ttl));
+    }
+
+    @Override
+    public Map<K, Exception> mSet(Map<K, V> entries, Function<? super K, Duration> ttlFunction) {
+        return join(delegate.mSet(entries, ttlFunction));
+    }
+
+    @Override
+    public V get(K key) {
+        return join(delegate.get(key));
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> loader, Duration ttl) {
+        return refreshAheadLoader.get(key, loader, ttl);
+    }
+
+    @Override
+    public Map<K, V> mGet(Collection<K> keys) {
+        return join(delegate.mGet(keys));
+    }
+
+    @Override
+    @Deprecated
+    public Set<K> keys(String pattern) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    @Deprecated
+    public List<K> scan(String pattern, long count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScanResult<String> scan(String cursor, String pattern, long count) {
+        return join(delegate.scan(cursor, pattern, count));
+    }
+
+    @Override
+    public boolean exists(K key) {
+        return join(delegate.exists(key));
+    }
+
+    @Override
+    public boolean expire(K key, long seconds) {
+        return join(delegate.expire(key, seconds));
+    }
+
+    @Override
+    public long ttl(K key) {
+        return join(delegate.ttl(key));
+    }
+
+    @Override
+    public Long incr(K key) {
+        return join(delegate.incr(key));
+    }
+
+    @Override
+    public Long incrBy(K key, long value) {
+        return join(delegate.incrBy(key, value));
+    }
+
+    @Override
+    public Long decr(K key) {
+        return join(delegate.decr(key));
+    }
+
+    @Override
+    public Long decrBy(K key, long value) {
+        return join(delegate.decrBy(key, value));
+    }
+
+    @Override
+    public String rename(K oldKey, K newKey) {
+        return join(delegate.rename(oldKey, newKey));
+    }
+
+    @Override
+    public String rename(K oldKey, K newKey, RedisConstant.Operation operation) {
+        return join(delegate.rename(oldKey, newKey, operation));
+    }
+
+    @Override
+    public Long append(K key, V value) {
+        return join(delegate.append(key, value));
+    }
+
+    @Override
+    public void flushDB() {
+        join(delegate.flushDB());
+    }
+
+    @Override
+    public long dbSize() {
+        return join(delegate.dbSize());
+    }
+
+    @Override
+    public String ping() {
+        return join(delegate.ping());
+    }
+
+    @Override
+    public <HK, HV> boolean hSet(K key, HK field, HV value) {
+        return join(delegate.hSet(key, field, value));
+    }
+
+    @Override
+    public <HK, HV> HV hGet(K key, HK field) {
+        return join(delegate.<HK, HV>hGet(key, field));
+    }
+
+    @Override
+    public <HK> Boolean hExists(K key, HK field) {
+        return join(delegate.hExists(key, field));
+    }
+
+    @Override
+    public <HK> Set<HK> hKeys(K key) {
+        return join(delegate.<HK>hKeys(key));
+    }
+
+    @SafeVarargs
+    @Override
+    public final <HK> long hDel(K key, HK... fields) {
+        return join(delegate.hDel(key, fields));
+    }
+
+    @Override
+    public void hMSet(K key, Map<String, Object> hashes) {
+        join(delegate.hMSet(key, hashes));
+    }
+
+    @Override
+    public <HK, HV> Map<HK, HV> hGetAll(K key) {
+        return join(delegate.<HK, HV>hGetAll(key));
+    }
+
+    @SafeVarargs
+    @Override
+    public final long lPush(K key, V... values) {
+        return join(delegate.lPush(key, values));
+    }
+
+    @Override
+    public List<V> lRange(K key, long begin, long end) {
+        return join(delegate.lRange(key, begin, end));
+    }
+
+    @Override
+    public long lRem(K key, long count, V value) {
+        return join(delegate.lRem(key, count, value));
+    }
+
+    @Override
+    public void lTrim(K key, long begin, long end) {
+        join(delegate.lTrim(key, begin, end));
+    }
+
+    @Override
+    public V lPop(K key) {
+        return join(delegate.lPop(key));
+    }
+
+    @Override
+    public long lLen(K key) {
+        return join(delegate.lLen(key));
+    }
+
+    @Override
+    public Object eval(String script, int keyCount, String... params) {
+        return join(delegate.eval(script, keyCount, params));
+    }
+
+    @Override
+    public byte[] getKeyPrefix() {
+        return delegate.getKeyPrefix();
+    }
+
+    /**
+     * @return the loader of {@link #get(Object, Function, Duration)}, to configure its refresh-ahead factor and executor.
+     */
+    public RefreshAheadLoader<K, V> getRefreshAheadLoader() {
+        return refreshAheadLoader;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    /**
+     * Close the underlying {@link NioRedisClient}.
+     */
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    /**
+     * Get the non-blocking cache behind this one.
+     *
+     * @return never {@literal null}.
+     */
+    public NioRedisCache<K, V> getAsyncCache() {
+        return delegate;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheException("Interrupted while waiting for redis reply", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw cause instanceof Exception
+                    ? new CacheException((Exception) cause)
+                    : new CacheException(String.valueOf(cause));
+        }
+    }
+
+}
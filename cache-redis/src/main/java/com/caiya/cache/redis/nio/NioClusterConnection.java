@@ -0,0 +1,38 @@
+package com.caiya.cache.redis.nio;
+
+import com.caiya.cache.redis.RedisClusterConnection;
+
+/**
+ * {@link RedisClusterConnection} implementation on top of {@link NioCache}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class NioClusterConnection implements RedisClusterConnection<NioCache> {
+
+    private final NioCache<?, ?> nioCache;
+
+    private boolean closed;
+
+    public NioClusterConnection(NioCache<?, ?> nioCache) {
+        this.nioCache = nioCache;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            // the client is shared, it is closed by the connection factory
+            closed = true;
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public NioCache<?, ?> getNativeConnection() {
+        return nioCache;
+    }
+}
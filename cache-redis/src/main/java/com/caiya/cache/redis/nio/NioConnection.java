@@ -0,0 +1,291 @@
+package com.caiya.cache.redis.nio;
+
+import com.caiya.cache.CacheException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking connection to one Redis node, shared by all callers.
+ * <p>
+ * Commands are queued by any thread and written by the {@link NioEventLoop}: all commands queued until the event loop
+ * gets to the connection go out in one write (automatic pipelining). Replies arrive in command order and complete the
+ * futures of the commands on the event loop thread, so dependent stages must not block.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class NioConnection {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final NioEventLoop eventLoop;
+
+    private final String node;
+
+    private final SocketChannel channel;
+
+    private final Queue<Command> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    // state below is confined to the event loop thread
+
+    private final ArrayDeque<Command> inFlight = new ArrayDeque<>();
+
+    private SelectionKey selectionKey;
+
+    private boolean connected;
+
+    private ByteBuffer outBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private ByteBuffer inBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private NioConnection(NioEventLoop eventLoop, String node, SocketChannel channel) {
+        this.eventLoop = eventLoop;
+        this.node = node;
+        this.channel = channel;
+    }
+
+    /**
+     * Open a connection to {@code node}, commands may be sent while connecting.
+     *
+     * @param eventLoop the event loop doing the I/O
+     * @param node      "host:port" of the node
+     * @param password  sent by {@code AUTH} first, can be {@literal null}.
+     * @return the connection
+     * @throws IOException if the channel cannot be opened
+     */
+    static NioConnection open(NioEventLoop eventLoop, String node, byte[] password) throws IOException {
+        int separator = node.lastIndexOf(':');
+        InetSocketAddress address = new InetSocketAddress(node.substring(0, separator),
+                Integer.parseInt(node.substring(separator + 1)));
+
+        SocketChannel channel = SocketChannel.open();
+        NioConnection connection = new NioConnection(eventLoop, node, channel);
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            channel.connect(address);
+        } catch (IOException | RuntimeException e) {
+            // e.g. UnresolvedAddressException
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+
+        if (password != null) {
+            connection.send(new byte[][]{Commands.AUTH, password})
+                    .thenAccept(reply -> {
+                        if (reply instanceof RespError) {
+                            connection.fail(new CacheException("Authentication failed: " + reply));
+                        }
+                    });
+        }
+        eventLoop.execute(connection::register);
+        return connection;
+    }
+
+    /**
+     * Send one command.
+     *
+     * @param args command name and arguments
+     * @return the reply, see {@link RespCodec}
+     */
+    CompletableFuture<Object> send(byte[][] args) {
+        return sendAll(new byte[][][]{args});
+    }
+
+    /**
+     * Send commands which must not be interleaved with commands of other callers, e.g. {@code ASKING} and the
+     * redirected command.
+     *
+     * @param commands the commands
+     * @return the reply of the last command
+     */
+    CompletableFuture<Object> sendAll(byte[][]... commands) {
+        Command command = new Command(commands);
+        if (closed) {
+            command.future.completeExceptionally(closedException(null));
+            return command.future;
+        }
+
+        pending.offer(command);
+        if (closed) {
+            // closed concurrently, the queue may have been drained already
+            failPending(closedException(null));
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::flushOrFail);
+        }
+        return command.future;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    String getNode() {
+        return node;
+    }
+
+    /**
+     * Close the connection, pending commands fail.
+     */
+    void close() {
+        eventLoop.execute(() -> fail(closedException(null)));
+    }
+
+    private void register() {
+        try {
+            boolean connectedAlready = channel.isConnected();
+            selectionKey = eventLoop.register(channel,
+                    connectedAlready ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+            if (connectedAlready) {
+                connected = true;
+                flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    void finishConnect() throws IOException {
+        if (channel.finishConnect()) {
+            connected = true;
+            selectionKey.interestOps(SelectionKey.OP_READ);
+            flush();
+        }
+    }
+
+    private void flushOrFail() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Write the queued commands, called on the event loop thread.
+     */
+    void flush() throws IOException {
+        flushScheduled.set(false);
+        if (!connected || closed) {
+            return;
+        }
+
+        Command command;
+        while ((command = pending.poll()) != null) {
+            if (command.future.isDone()) {
+                // timed out before it was written
+                continue;
+            }
+            for (byte[][] args : command.commands) {
+                outBuffer = RespCodec.encode(outBuffer, args);
+            }
+            inFlight.add(command);
+        }
+
+        if (outBuffer.position() == 0) {
+            return;
+        }
+        outBuffer.flip();
+        channel.write(outBuffer);
+        outBuffer.compact();
+        // wait for the socket to drain if not everything was written
+        selectionKey.interestOps(outBuffer.position() > 0
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                : SelectionKey.OP_READ);
+    }
+
+    /**
+     * Read the available replies, called on the event loop thread.
+     */
+    void read() throws IOException {
+        if (channel.read(inBuffer) < 0) {
+            throw new IOException("Connection closed by " + node);
+        }
+
+        inBuffer.flip();
+        Object reply;
+        while ((reply = RespCodec.decode(inBuffer)) != RespCodec.INCOMPLETE) {
+            Command command = inFlight.peek();
+            if (command == null) {
+                throw new CacheException("Unexpected reply from " + node + ": " + reply);
+            }
+            if (++command.replies == command.commands.length) {
+                inFlight.poll();
+                command.future.complete(reply);
+            }
+        }
+        inBuffer.compact();
+
+        if (!inBuffer.hasRemaining()) {
+            // a reply larger than the buffer
+            inBuffer = RespCodec.ensureCapacity(inBuffer, inBuffer.capacity());
+        }
+    }
+
+    /**
+     * Close the channel and fail all commands.
+     */
+    void fail(Throwable cause) {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignore
+        }
+
+        CacheException exception = closedException(cause);
+        Command command;
+        while ((command = inFlight.poll()) != null) {
+            command.future.completeExceptionally(exception);
+        }
+        failPending(exception);
+    }
+
+    private void failPending(CacheException exception) {
+        Command command;
+        while ((command = pending.poll()) != null) {
+            command.future.completeExceptionally(exception);
+        }
+    }
+
+    private CacheException closedException(Throwable cause) {
+        if (cause instanceof CacheException) {
+            return (CacheException) cause;
+        }
+        return cause instanceof Exception
+                ? new CacheException("Connection to " + node + " failed", (Exception) cause)
+                : new CacheException("Connection to " + node + " is closed");
+    }
+
+    private static final class Command {
+
+        private final byte[][][] commands;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        /**
+         * replies received so far, event loop only
+         */
+        private int replies;
+
+        private Command(byte[][][] commands) {
+            this.commands = commands;
+        }
+    }
+
+}
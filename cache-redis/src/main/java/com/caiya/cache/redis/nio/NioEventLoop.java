@@ -0,0 +1,138 @@
+package com.caiya.cache.redis.nio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single thread doing the network I/O of all {@link NioConnection}s of a {@link NioRedisClient}.
+ * <p>
+ * Other threads hand over work by {@link #execute(Runnable)}, the selector is woken up at most once per batch of
+ * tasks.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class NioEventLoop implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioEventLoop.class);
+
+    private final Selector selector;
+
+    private final Thread thread;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean wakenUp = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    NioEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Run {@code task} on the event loop thread.
+     */
+    void execute(Runnable task) {
+        tasks.offer(task);
+        if (!inEventLoop() && wakenUp.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Register {@code channel}, must be called on the event loop thread.
+     */
+    SelectionKey register(SelectableChannel channel, int interestOps, NioConnection connection)
+            throws ClosedChannelException {
+        return channel.register(selector, interestOps, connection);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                wakenUp.set(false);
+                processSelectedKeys();
+                runTasks();
+            } catch (IOException | RuntimeException e) {
+                logger.error("nio event loop failure", e);
+            }
+        }
+        closeSelector();
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+
+            NioConnection connection = (NioConnection) key.attachment();
+            try {
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isConnectable()) {
+                    connection.finishConnect();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    connection.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                connection.fail(e);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("nio event loop task failed", e);
+            }
+        }
+    }
+
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            ((NioConnection) key.attachment()).fail(new ClosedChannelException());
+        }
+        runTasks();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.warn("close selector failed", e);
+        }
+    }
+
+}
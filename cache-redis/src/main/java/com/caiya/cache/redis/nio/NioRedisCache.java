@@ -0,0 +1,693 @@
+package com.caiya.cache.redis.nio;
+
+import com.caiya.cache.*;
+import com.caiya.cache.redis.KeyEncoder;
+import com.caiya.serialization.Serializer;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import redis.clients.util.JedisClusterCRC16;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.caiya.cache.redis.nio.Commands.*;
+
+/**
+ * {@link AsyncCacheApi} implementation on top of the non-blocking {@link NioRedisClient}.
+ * <p>
+ * Commands of many callers share one connection per node and are pipelined automatically, batch operations like
+ * {@link #mGet(Collection)} and {@link #mSet(Map, Function)} send one command per key without waiting for the previous
+ * replies. The futures complete on the I/O thread, dependent stages must not block; use the {@code *Async} variants
+ * of {@link CompletableFuture} to continue on another executor.
+ * <p>
+ * Method {@link #close()} closes the underlying {@link NioRedisClient}.
+ *
+ * @author wangnan
+ * @see NioCache
+ * @since 1.2
+ */
+public class NioRedisCache<K, V> implements AsyncCacheApi<K, V>, Closeable {
+
+    private static final Serializer<?> DEFAULT_SERIALIZER = new JdkSerializationSerializer();
+
+    private static final String OK = "OK";
+
+    /**
+     * UNLINK frees the values in the background, DEL before Redis 4.0
+     */
+    private static final byte[] UNLINK_SCRIPT = bytes(
+            "local removed = redis.pcall('UNLINK', unpack(KEYS)) "
+                    + "if type(removed) == 'table' and removed.err then return redis.call('DEL', unpack(KEYS)) end "
+                    + "return removed");
+
+    private final NioRedisClient client;
+
+    private String name;
+
+    private byte[] keyPrefix;
+
+    /**
+     * Encodes the keys with the prefix, created on first use after a change of prefix or key serializer
+     */
+    private volatile KeyEncoder keyEncoder;
+
+    private Serializer keySerializer = DEFAULT_SERIALIZER;
+    private Serializer valueSerializer = DEFAULT_SERIALIZER;
+    private Serializer hashKeySerializer = DEFAULT_SERIALIZER;
+    private Serializer hashValueSerializer = DEFAULT_SERIALIZER;
+
+    public NioRedisCache(NioRedisClient client) {
+        if (client == null)
+            throw new IllegalArgumentException("NioRedisClient must not be null!");
+
+        this.client = client;
+    }
+
+    @SafeVarargs
+    @Override
+    public final CompletableFuture<Long> del(K... keys) {
+        // one DEL per key, cross slot DEL is not allowed in cluster mode
+        List<CompletableFuture<Object>> replies = new ArrayList<>(keys.length);
+        for (K key : keys) {
+            byte[] rawKey = rawKey(key);
+            replies.add(client.execute(rawKey, DEL, rawKey));
+        }
+        return allOf(replies).thenApply(values -> {
+            long removed = 0;
+            for (Object value : values) {
+                removed += (Long) value;
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Remove the given raw keys without blocking Redis on freeing large values: one {@code UNLINK} per slot and batch,
+     * {@code DEL} before Redis 4.0. The batches are pipelined on the connections of their nodes.
+     *
+     * @param rawKeys   the binary keys, must not be {@literal null}.
+     * @param batchSize maximum number of keys of one {@code UNLINK}, must be positive and at most a few thousands.
+     * @return the number of removed keys
+     * @see com.caiya.cache.redis.JedisCache#unlinkRaw(Collection, int)
+     */
+    public CompletableFuture<Long> unlinkRaw(Collection<byte[]> rawKeys, int batchSize) {
+        if (rawKeys == null)
+            throw new IllegalArgumentException("rawKeys cannot be null");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize must be positive");
+
+        // group by hash slot, cross slot commands are not allowed
+        Map<Integer, List<byte[]>> slotKeyMap = new HashMap<>();
+        for (byte[] rawKey : rawKeys) {
+            slotKeyMap.computeIfAbsent(JedisClusterCRC16.getSlot(rawKey), slot -> new ArrayList<>())
+                    .add(rawKey);
+        }
+        List<CompletableFuture<Object>> replies = new ArrayList<>();
+        for (List<byte[]> slotKeys : slotKeyMap.values()) {
+            for (int from = 0; from < slotKeys.size(); from += batchSize) {
+                List<byte[]> batch = slotKeys.subList(from, Math.min(from + batchSize, slotKeys.size()));
+                byte[][] args = new byte[batch.size() + 3][];
+                args[0] = EVAL;
+                args[1] = UNLINK_SCRIPT;
+                args[2] = bytes(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    args[i + 3] = batch.get(i);
+                }
+                replies.add(client.execute(args[3], args));
+            }
+        }
+        return allOf(replies).thenApply(values -> {
+            long removed = 0;
+            for (Object value : values) {
+                removed += (Long) value;
+            }
+            return removed;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> set(K key, V value, long seconds) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, SETEX, rawKey, bytes(seconds), rawValue(value))
+                .thenApply(reply -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> set(K key, V value, long liveTime, TimeUnit timeUnit) {
+        if (liveTime > 0 && timeUnit == null)
+            throw new IllegalArgumentException("the TimeUnit of liveTime cannot be null");
+
+        return setRaw(rawKey(key), rawValue(value), liveTime <= 0 ? 0 : timeUnit.toMillis(liveTime))
+                .thenApply(reply -> null);
+    }
+
+    @Override
+    public CompletableFuture<String> set(K key, V value, SetOption setOption, long expirationTime, TimeUnit timeUnit) {
+        if (setOption == null)
+            throw new IllegalArgumentException("set option cannot be null");
+        if (expirationTime <= 0)
+            throw new IllegalArgumentException("expiration time cannot be zero or negative");
+
+        Expiration expiration = Expiration.from(expirationTime, timeUnit);
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, SET, rawKey, rawValue(value), bytes(setOption.getName()),
+                bytes(expiration.toSetCommandExPxArgument()), bytes(expiration.getExpirationTime()))
+                .thenApply(reply -> (String) reply);
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Exception>> mSet(Map<K, V> entries, Duration ttl) {
+        return mSet(entries, key -> ttl);
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Exception>> mSet(Map<K, V> entries, Function<? super K, Duration> ttlFunction) {
+        if (entries == null)
+            throw new IllegalArgumentException("entries cannot be null");
+        if (ttlFunction == null)
+            throw new IllegalArgumentException("ttlFunction cannot be null");
+
+        Map<K, Exception> failedKeys = new LinkedHashMap<>();
+        Map<K, CompletableFuture<Object>> replies = new LinkedHashMap<>();
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            try {
+                Duration ttl = ttlFunction.apply(entry.getKey());
+                long ttlMillis = ttl == null || ttl.isNegative() ? 0 : ttl.toMillis();
+                replies.put(entry.getKey(), setRaw(rawKey(entry.getKey()), rawValue(entry.getValue()), ttlMillis));
+            } catch (RuntimeException e) {
+                failedKeys.put(entry.getKey(), e);
+            }
+        }
+
+        return CompletableFuture.allOf(replies.values().toArray(new CompletableFuture[0]))
+                .handle((ignored, ignoredException) -> {
+                    for (Map.Entry<K, CompletableFuture<Object>> entry : replies.entrySet()) {
+                        try {
+                            entry.getValue().join();
+                        } catch (RuntimeException e) {
+                            failedKeys.put(entry.getKey(), unwrap(e));
+                        }
+                    }
+                    return failedKeys;
+                });
+    }
+
+    @Override
+    public CompletableFuture<V> get(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, GET, rawKey)
+                .thenApply(reply -> deserializeValue((byte[]) reply));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, V>> mGet(Collection<K> keys) {
+        if (keys == null)
+            throw new IllegalArgumentException("keys cannot be null");
+
+        List<K> keyList = new ArrayList<>(keys);
+        List<CompletableFuture<Object>> replies = new ArrayList<>(keyList.size());
+        for (K key : keyList) {
+            byte[] rawKey = rawKey(key);
+            replies.add(client.execute(rawKey, GET, rawKey));
+        }
+        return allOf(replies).thenApply(values -> {
+            Map<K, V> result = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    result.put(keyList.get(i), deserializeValue((byte[]) values.get(i)));
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Scan the master node owning the slot of {@code pattern}, use a hash tag to address the keys of one node.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<ScanResult<String>> scan(String cursor, String pattern, long count) {
+        String node = client.getNodeForSlot(JedisClusterCRC16.getSlot(pattern));
+        return client.executeOnNode(node, SCAN, bytes(cursor), MATCH, bytes(pattern), COUNT, bytes(count))
+                .thenApply(reply -> {
+                    List<Object> cursorAndKeys = (List<Object>) reply;
+                    List<String> keys = new ArrayList<>();
+                    for (Object rawKey : (List<Object>) cursorAndKeys.get(1)) {
+                        keys.add(new String((byte[]) rawKey, StandardCharsets.UTF_8));
+                    }
+                    return new ScanResult<>((byte[]) cursorAndKeys.get(0), keys);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, EXISTS, rawKey)
+                .thenApply(reply -> Long.valueOf(1L).equals(reply));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> expire(K key, long seconds) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, EXPIRE, rawKey, bytes(seconds))
+                .thenApply(reply -> Long.valueOf(1L).equals(reply));
+    }
+
+    @Override
+    public CompletableFuture<Long> ttl(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, TTL, rawKey)
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    public CompletableFuture<Long> incr(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, INCR, rawKey)
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(K key, long value) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, INCRBY, rawKey, bytes(value))
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    public CompletableFuture<Long> decr(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, DECR, rawKey)
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    public CompletableFuture<Long> decrBy(K key, long value) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, DECRBY, rawKey, bytes(value))
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    public CompletableFuture<String> rename(K oldKey, K newKey) {
+        return rename(oldKey, newKey, null);
+    }
+
+    /**
+     * Keys of different slots are copied and deleted, like {@link com.caiya.cache.redis.JedisCache} does.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<String> rename(K oldKey, K newKey, RedisConstant.Operation operation) {
+        byte[] rawOldKey = rawKey(oldKey);
+        byte[] rawNewKey = rawKey(newKey);
+        if (JedisClusterCRC16.getSlot(rawOldKey) == JedisClusterCRC16.getSlot(rawNewKey)) {
+            return client.execute(rawOldKey, RENAME, rawOldKey, rawNewKey)
+                    .thenApply(reply -> (String) reply);
+        }
+
+        if (operation == RedisConstant.Operation.HASH) {
+            return client.execute(rawOldKey, HGETALL, rawOldKey)
+                    .thenCompose(reply -> {
+                        List<Object> fieldsAndValues = (List<Object>) reply;
+                        if (fieldsAndValues.isEmpty()) {
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        byte[][] args = new byte[fieldsAndValues.size() + 2][];
+                        args[0] = HMSET;
+                        args[1] = rawNewKey;
+                        for (int i = 0; i < fieldsAndValues.size(); i++) {
+                            args[i + 2] = (byte[]) fieldsAndValues.get(i);
+                        }
+                        return client.execute(rawNewKey, args);
+                    })
+                    .thenCompose(reply -> OK.equals(reply)
+                            ? moveTtlAndDelete(rawOldKey, rawNewKey).thenApply(ignored -> OK)
+                            : CompletableFuture.completedFuture((String) reply));
+        }
+
+        return client.execute(rawOldKey, GET, rawOldKey)
+                .thenCompose(reply -> {
+                    byte[] rawValue = (byte[]) reply;
+                    if (rawValue == null || rawValue.length == 0) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return client.execute(rawOldKey, TTL, rawOldKey)
+                            .thenCompose(ttl -> setRaw(rawNewKey, rawValue, (Long) ttl > 0 ? (Long) ttl * 1000 : 0))
+                            .thenCompose(ignored -> client.execute(rawOldKey, DEL, rawOldKey))
+                            .thenApply(ignored -> OK);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Long> append(K key, V value) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, APPEND, rawKey, rawValue(value))
+                .thenApply(reply -> (Long) reply);
+    }
+
+    /**
+     * Flush every master node.
+     */
+    @Override
+    public CompletableFuture<Void> flushDB() {
+        return onMasters(FLUSHDB).thenApply(replies -> null);
+    }
+
+    /**
+     * Sum of the key counts of all master nodes.
+     */
+    @Override
+    public CompletableFuture<Long> dbSize() {
+        return onMasters(DBSIZE).thenApply(replies -> {
+            long size = 0;
+            for (Object reply : replies) {
+                size += (Long) reply;
+            }
+            return size;
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> ping() {
+        return client.executeOnNode(client.getMasterNodes().get(0), PING)
+                .thenApply(reply -> (String) reply);
+    }
+
+    @Override
+    public <HK, HV> CompletableFuture<Boolean> hSet(K key, HK field, HV value) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, HSET, rawKey, rawHashKey(field), rawHashValue(value))
+                .thenApply(reply -> Long.valueOf(0L).equals(reply) || Long.valueOf(1L).equals(reply));
+    }
+
+    @Override
+    public <HK, HV> CompletableFuture<HV> hGet(K key, HK field) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, HGET, rawKey, rawHashKey(field))
+                .thenApply(reply -> this.<HV>deserializeHashValue((byte[]) reply));
+    }
+
+    @Override
+    public <HK> CompletableFuture<Boolean> hExists(K key, HK field) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, HEXISTS, rawKey, rawHashKey(field))
+                .thenApply(reply -> Long.valueOf(1L).equals(reply));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <HK> CompletableFuture<Set<HK>> hKeys(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, HKEYS, rawKey)
+                .thenApply(reply -> {
+                    Set<HK> fields = new LinkedHashSet<>();
+                    for (Object rawField : (List<Object>) reply) {
+                        fields.add(this.<HK>deserializeHashKey((byte[]) rawField));
+                    }
+                    return fields;
+                });
+    }
+
+    @SafeVarargs
+    @Override
+    public final <HK> CompletableFuture<Long> hDel(K key, HK... fields) {
+        byte[] rawKey = rawKey(key);
+        byte[][] args = new byte[fields.length + 2][];
+        args[0] = HDEL;
+        args[1] = rawKey;
+        for (int i = 0; i < fields.length; i++) {
+            args[i + 2] = rawHashKey(fields[i]);
+        }
+        return client.execute(rawKey, args)
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    public CompletableFuture<Void> hMSet(K key, Map<String, Object> hashes) {
+        byte[] rawKey = rawKey(key);
+        byte[][] args = new byte[hashes.size() * 2 + 2][];
+        args[0] = HMSET;
+        args[1] = rawKey;
+        int index = 2;
+        for (Map.Entry<String, Object> entry : hashes.entrySet()) {
+            args[index++] = rawHashKey(entry.getKey());
+            args[index++] = rawHashValue(entry.getValue());
+        }
+        return client.execute(rawKey, args)
+                .thenApply(reply -> null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <HK, HV> CompletableFuture<Map<HK, HV>> hGetAll(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, HGETALL, rawKey)
+                .thenApply(reply -> {
+                    List<Object> fieldsAndValues = (List<Object>) reply;
+                    Map<HK, HV> hashes = new HashMap<>();
+                    for (int i = 0; i < fieldsAndValues.size(); i += 2) {
+                        hashes.put(this.<HK>deserializeHashKey((byte[]) fieldsAndValues.get(i)),
+                                this.<HV>deserializeHashValue((byte[]) fieldsAndValues.get(i + 1)));
+                    }
+                    return hashes;
+                });
+    }
+
+    @SafeVarargs
+    @Override
+    public final CompletableFuture<Long> lPush(K key, V... values) {
+        byte[] rawKey = rawKey(key);
+        byte[][] args = new byte[values.length + 2][];
+        args[0] = LPUSH;
+        args[1] = rawKey;
+        for (int i = 0; i < values.length; i++) {
+            args[i + 2] = rawValue(values[i]);
+        }
+        return client.execute(rawKey, args)
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<V>> lRange(K key, long begin, long end) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, LRANGE, rawKey, bytes(begin), bytes(end))
+                .thenApply(reply -> {
+                    List<V> values = new ArrayList<>();
+                    for (Object rawValue : (List<Object>) reply) {
+                        values.add(deserializeValue((byte[]) rawValue));
+                    }
+                    return values;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Long> lRem(K key, long count, V value) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, LREM, rawKey, bytes(count), rawValue(value))
+                .thenApply(reply -> (Long) reply);
+    }
+
+    @Override
+    public CompletableFuture<Void> lTrim(K key, long begin, long end) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, LTRIM, rawKey, bytes(begin), bytes(end))
+                .thenApply(reply -> null);
+    }
+
+    @Override
+    public CompletableFuture<V> lPop(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, LPOP, rawKey)
+                .thenApply(reply -> deserializeValue((byte[]) reply));
+    }
+
+    @Override
+    public CompletableFuture<Long> lLen(K key) {
+        byte[] rawKey = rawKey(key);
+        return client.execute(rawKey, LLEN, rawKey)
+                .thenApply(reply -> (Long) reply);
+    }
+
+    /**
+     * The script is sent to the node owning the first key, bulk replies are converted to {@link String}s like Jedis
+     * does.
+     */
+    @Override
+    public CompletableFuture<Object> eval(String script, int keyCount, String... params) {
+        byte[][] args = new byte[params.length + 3][];
+        args[0] = EVAL;
+        args[1] = bytes(script);
+        args[2] = bytes(keyCount);
+        for (int i = 0; i < params.length; i++) {
+            args[i + 3] = bytes(params[i]);
+        }
+        CompletableFuture<Object> reply = keyCount > 0
+                ? client.execute(args[3], args)
+                : client.executeOnNode(client.getMasterNodes().get(0), args);
+        return reply.thenApply(NioRedisCache::toJedisEvalResult);
+    }
+
+    /**
+     * Close the underlying {@link NioRedisClient}.
+     */
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    public NioRedisClient getNativeClient() {
+        return client;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public byte[] getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public void setKeyPrefix(byte[] keyPrefix) {
+        this.keyPrefix = keyPrefix;
+        this.keyEncoder = null;
+    }
+
+    public Serializer getKeySerializer() {
+        return keySerializer;
+    }
+
+    public Serializer getValueSerializer() {
+        return valueSerializer;
+    }
+
+    public Serializer getHashKeySerializer() {
+        return hashKeySerializer;
+    }
+
+    public Serializer getHashValueSerializer() {
+        return hashValueSerializer;
+    }
+
+    public void setKeySerializer(Serializer keySerializer) {
+        this.keySerializer = keySerializer;
+        this.keyEncoder = null;
+    }
+
+    public void setValueSerializer(Serializer valueSerializer) {
+        this.valueSerializer = valueSerializer;
+    }
+
+    public void setHashKeySerializer(Serializer hashKeySerializer) {
+        this.hashKeySerializer = hashKeySerializer;
+    }
+
+    public void setHashValueSerializer(Serializer hashValueSerializer) {
+        this.hashValueSerializer = hashValueSerializer;
+    }
+
+    private CompletableFuture<Object> setRaw(byte[] rawKey, byte[] rawValue, long ttlMillis) {
+        if (ttlMillis <= 0) {// never expires
+            return client.execute(rawKey, SET, rawKey, rawValue);
+        } else if (ttlMillis % 1000 == 0) {
+            return client.execute(rawKey, SETEX, rawKey, bytes(ttlMillis / 1000), rawValue);
+        }
+        return client.execute(rawKey, PSETEX, rawKey, bytes(ttlMillis), rawValue);
+    }
+
+    private CompletableFuture<Object> moveTtlAndDelete(byte[] rawOldKey, byte[] rawNewKey) {
+        return client.execute(rawOldKey, TTL, rawOldKey)
+                .thenCompose(ttl -> (Long) ttl > 0
+                        ? client.execute(rawNewKey, EXPIRE, rawNewKey, bytes((Long) ttl))
+                        : CompletableFuture.completedFuture(null))
+                .thenCompose(ignored -> client.execute(rawOldKey, DEL, rawOldKey));
+    }
+
+    private CompletableFuture<List<Object>> onMasters(byte[]... args) {
+        List<CompletableFuture<Object>> replies = new ArrayList<>();
+        for (String node : client.getMasterNodes()) {
+            replies.add(client.executeOnNode(node, args));
+        }
+        return allOf(replies);
+    }
+
+    private static CompletableFuture<List<Object>> allOf(List<CompletableFuture<Object>> replies) {
+        return CompletableFuture.allOf(replies.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<Object> values = new ArrayList<>(replies.size());
+                    for (CompletableFuture<Object> reply : replies) {
+                        values.add(reply.join());
+                    }
+                    return values;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toJedisEvalResult(Object reply) {
+        if (reply instanceof byte[]) {
+            return new String((byte[]) reply, StandardCharsets.UTF_8);
+        }
+        if (reply instanceof List) {
+            List<Object> converted = new ArrayList<>();
+            for (Object element : (List<Object>) reply) {
+                converted.add(toJedisEvalResult(element));
+            }
+            return converted;
+        }
+        return reply;
+    }
+
+    private static Exception unwrap(RuntimeException e) {
+        Throwable cause = e.getCause();
+        return e instanceof java.util.concurrent.CompletionException && cause instanceof Exception ? (Exception) cause : e;
+    }
+
+    private byte[] rawKey(Object key) {
+        KeyEncoder encoder = keyEncoder;
+        if (encoder == null) {
+            encoder = new KeyEncoder(keyPrefix, getKeySerializer());
+            keyEncoder = encoder;
+        }
+        return encoder.encode(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return getValueSerializer().serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashKey(Object key) {
+        return getHashKeySerializer().serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashValue(Object value) {
+        return getHashValueSerializer().serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V deserializeValue(byte[] value) {
+        return (V) getValueSerializer().deserialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <HK> HK deserializeHashKey(byte[] hk) {
+        return (HK) getHashKeySerializer().deserialize(hk);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <HV> HV deserializeHashValue(byte[] hv) {
+        return (HV) getHashValueSerializer().deserialize(hv);
+    }
+
+}
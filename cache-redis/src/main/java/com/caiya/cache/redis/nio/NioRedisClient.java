@@ -0,0 +1,303 @@
+package com.caiya.cache.redis.nio;
+
+import com.caiya.cache.CacheException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.util.JedisClusterCRC16;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking Redis Cluster client multiplexing all requests over one {@link NioConnection} per node.
+ * <p>
+ * Keyed commands are routed by the slot of the key, the slot owners are read by {@code CLUSTER SLOTS} and reloaded
+ * after a {@code MOVED} redirection or a connection failure. {@code ASK} redirections are followed for the command
+ * only. A standalone Redis server (cluster support disabled) is served as the owner of all slots.
+ * <p>
+ * The returned futures complete with the raw reply (see {@link RespCodec}), or exceptionally with a
+ * {@link CacheException} for error replies and a {@link TimeoutException} after the configured timeout. They are
+ * completed on the I/O thread, so dependent stages must not block.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class NioRedisClient implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(NioRedisClient.class);
+
+    private static final int SLOT_COUNT = 16384;
+
+    private static final AtomicInteger CLIENT_NUMBER = new AtomicInteger();
+
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nio-redis-client-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<String> seedNodes = new LinkedHashSet<>();
+
+    private final byte[] password;
+
+    private final long timeoutMillis;
+
+    private final int maxRedirects;
+
+    private final NioEventLoop eventLoop;
+
+    private final ConcurrentMap<String, NioConnection> connections = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * slot -> "host:port" of the master node
+     */
+    private volatile String[] slotNodes = new String[SLOT_COUNT];
+
+    private volatile List<String> masterNodes = Collections.emptyList();
+
+    /**
+     * Connect to the cluster and load the slot owners.
+     *
+     * @param seedNodes    some nodes of the cluster, must not be empty.
+     * @param password     can be {@literal null}.
+     * @param timeout      per command timeout, must be positive.
+     * @param maxRedirects maximum number of redirections followed by a command.
+     */
+    public NioRedisClient(Set<HostAndPort> seedNodes, String password, Duration timeout, int maxRedirects) {
+        if (seedNodes == null || seedNodes.isEmpty())
+            throw new IllegalArgumentException("Cluster configuration must not be null!");
+        if (timeout == null || timeout.isZero() || timeout.isNegative())
+            throw new IllegalArgumentException("Timeout must be positive");
+
+        for (HostAndPort seedNode : seedNodes) {
+            this.seedNodes.add(seedNode.getHost() + ":" + seedNode.getPort());
+        }
+        this.password = password == null ? null : password.getBytes(StandardCharsets.UTF_8);
+        this.timeoutMillis = timeout.toMillis();
+        this.maxRedirects = maxRedirects;
+        try {
+            this.eventLoop = new NioEventLoop("nio-redis-client-" + CLIENT_NUMBER.incrementAndGet());
+        } catch (IOException e) {
+            throw new CacheException("Cannot open selector", e);
+        }
+
+        try {
+            updateSlotNodes(loadSlotNodes(this.seedNodes.iterator()).get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CacheException("Interrupted while loading cluster slots", e);
+        } catch (ExecutionException | TimeoutException e) {
+            close();
+            throw new CacheException("Cannot load cluster slots", e);
+        }
+    }
+
+    /**
+     * Send a command to the node owning {@code key}.
+     *
+     * @param key  the key deciding the slot, must not be {@literal null}.
+     * @param args command name and arguments
+     * @return the reply
+     */
+    public CompletableFuture<Object> execute(byte[] key, byte[]... args) {
+        int slot = JedisClusterCRC16.getSlot(key);
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        dispatch(getNodeForSlot(slot), args, false, maxRedirects, result);
+        return withTimeout(result);
+    }
+
+    /**
+     * Send a command to the given node, redirections are not followed.
+     *
+     * @param node "host:port" of the node
+     * @param args command name and arguments
+     * @return the reply
+     */
+    public CompletableFuture<Object> executeOnNode(String node, byte[]... args) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        dispatch(node, args, false, 0, result);
+        return withTimeout(result);
+    }
+
+    /**
+     * @return "host:port" of every master node.
+     */
+    public List<String> getMasterNodes() {
+        return masterNodes;
+    }
+
+    /**
+     * @param slot the hash slot
+     * @return "host:port" of the master node owning {@code slot} as far as known.
+     */
+    public String getNodeForSlot(int slot) {
+        String node = slotNodes[slot];
+        if (node != null) {
+            return node;
+        }
+        List<String> masters = masterNodes;
+        if (masters.isEmpty()) {
+            throw new CacheException("No node serves slot " + slot);
+        }
+        // the node will redirect
+        return masters.get(0);
+    }
+
+    @Override
+    public void close() {
+        for (NioConnection connection : connections.values()) {
+            connection.close();
+        }
+        connections.clear();
+        eventLoop.close();
+    }
+
+    private void dispatch(String node, byte[][] args, boolean asking, int redirects,
+                          CompletableFuture<Object> result) {
+        NioConnection connection;
+        try {
+            connection = getConnection(node);
+        } catch (IOException e) {
+            refreshSlotNodes();
+            result.completeExceptionally(new CacheException("Cannot connect to " + node, e));
+            return;
+        }
+
+        CompletableFuture<Object> reply = asking
+                ? connection.sendAll(new byte[][]{Commands.ASKING}, args)
+                : connection.send(args);
+        reply.whenComplete((value, e) -> {
+            if (e != null) {
+                refreshSlotNodes();
+                result.completeExceptionally(e);
+                return;
+            }
+            if (!(value instanceof RespError)) {
+                result.complete(value);
+                return;
+            }
+
+            String message = ((RespError) value).getMessage();
+            boolean moved = message.startsWith("MOVED ");
+            if ((moved || message.startsWith("ASK ")) && redirects > 0 && !result.isDone()) {
+                // MOVED|ASK <slot> <host>:<port>
+                String[] parts = message.split(" ");
+                if (moved) {
+                    slotNodes[Integer.parseInt(parts[1])] = parts[2];
+                    refreshSlotNodes();
+                }
+                dispatch(parts[2], args, !moved, redirects - 1, result);
+                return;
+            }
+            result.completeExceptionally(new CacheException(message));
+        });
+    }
+
+    private NioConnection getConnection(String node) throws IOException {
+        NioConnection connection = connections.get(node);
+        if (connection != null && !connection.isClosed()) {
+            return connection;
+        }
+        synchronized (connections) {
+            connection = connections.get(node);
+            if (connection == null || connection.isClosed()) {
+                connection = NioConnection.open(eventLoop, node, password);
+                connections.put(node, connection);
+            }
+            return connection;
+        }
+    }
+
+    private CompletableFuture<Object> withTimeout(CompletableFuture<Object> result) {
+        if (result.isDone()) {
+            return result;
+        }
+        ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(
+                () -> result.completeExceptionally(new TimeoutException("Redis command timed out after " + timeoutMillis + "ms")),
+                timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, e) -> timeout.cancel(false));
+        return result;
+    }
+
+    private void refreshSlotNodes() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Set<String> candidates = new LinkedHashSet<>(masterNodes);
+        candidates.addAll(seedNodes);
+        loadSlotNodes(candidates.iterator())
+                .whenComplete((nodes, e) -> {
+                    if (nodes != null) {
+                        updateSlotNodes(nodes);
+                    } else {
+                        logger.warn("refresh cluster slots failed", e);
+                    }
+                    refreshing.set(false);
+                });
+    }
+
+    private void updateSlotNodes(String[] nodes) {
+        Set<String> masters = new LinkedHashSet<>();
+        for (String node : nodes) {
+            if (node != null) {
+                masters.add(node);
+            }
+        }
+        this.slotNodes = nodes;
+        this.masterNodes = Collections.unmodifiableList(new ArrayList<>(masters));
+    }
+
+    private CompletableFuture<String[]> loadSlotNodes(Iterator<String> candidates) {
+        if (!candidates.hasNext()) {
+            CompletableFuture<String[]> failure = new CompletableFuture<>();
+            failure.completeExceptionally(new CacheException("Cannot load cluster slots from any node"));
+            return failure;
+        }
+
+        String node = candidates.next();
+        return executeOnNode(node, Commands.CLUSTER, Commands.SLOTS)
+                .handle((reply, e) -> {
+                    if (e == null) {
+                        return CompletableFuture.completedFuture(parseSlotNodes(reply));
+                    }
+                    if (e.getMessage() != null && e.getMessage().contains("cluster support disabled")) {
+                        // standalone server
+                        String[] nodes = new String[SLOT_COUNT];
+                        Arrays.fill(nodes, node);
+                        return CompletableFuture.completedFuture(nodes);
+                    }
+                    logger.warn("cannot load cluster slots from node {}, try next one", node, e);
+                    return loadSlotNodes(candidates);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String[] parseSlotNodes(Object reply) {
+        String[] nodes = new String[SLOT_COUNT];
+        for (Object slotInfoObj : (List<Object>) reply) {
+            List<Object> slotInfo = (List<Object>) slotInfoObj;
+            if (slotInfo.size() <= 2) {
+                continue;
+            }
+            int start = ((Long) slotInfo.get(0)).intValue();
+            int end = ((Long) slotInfo.get(1)).intValue();
+            List<Object> master = (List<Object>) slotInfo.get(2);
+            String node = new String((byte[]) master.get(0), StandardCharsets.UTF_8) + ":" + master.get(1);
+            Arrays.fill(nodes, start, end + 1, node);
+        }
+        return nodes;
+    }
+
+}
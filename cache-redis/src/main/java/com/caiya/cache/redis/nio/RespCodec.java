@@ -0,0 +1,202 @@
+package com.caiya.cache.redis.nio;
+
+import com.caiya.cache.CacheException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoder of commands and decoder of replies of the
+ * <a href="https://redis.io/topics/protocol">Redis serialization protocol</a> (RESP).
+ * <p>
+ * Replies are decoded to {@link String} (simple string), {@link RespError} (error), {@link Long} (integer),
+ * {@code byte[]} (bulk string), {@link List} (array) or {@literal null} (null bulk string or array).
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class RespCodec {
+
+    /**
+     * Returned by {@link #decode(ByteBuffer)} if the buffer does not hold a complete reply yet
+     */
+    static final Object INCOMPLETE = new Object();
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[][] NUMBERS = new byte[256][];
+
+    static {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            NUMBERS[i] = Integer.toString(i).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private RespCodec() {
+    }
+
+    /**
+     * Encode a command as an array of bulk strings.
+     *
+     * @param buffer the buffer to write to, in write mode
+     * @param args   command name and arguments
+     * @return the buffer, a larger one if {@code buffer} had not enough space left
+     */
+    static ByteBuffer encode(ByteBuffer buffer, byte[][] args) {
+        int size = 16;
+        for (byte[] arg : args) {
+            size += arg.length + 16;
+        }
+        buffer = ensureCapacity(buffer, size);
+
+        buffer.put((byte) '*');
+        putNumber(buffer, args.length);
+        buffer.put(CRLF);
+        for (byte[] arg : args) {
+            buffer.put((byte) '$');
+            putNumber(buffer, arg.length);
+            buffer.put(CRLF);
+            buffer.put(arg);
+            buffer.put(CRLF);
+        }
+        return buffer;
+    }
+
+    /**
+     * Decode the next reply of {@code buffer}, the position is left unchanged if the reply is incomplete.
+     *
+     * @param buffer the buffer to read from, in read mode
+     * @return the reply, or {@link #INCOMPLETE}
+     */
+    static Object decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        Object reply = parse(buffer);
+        if (reply == INCOMPLETE) {
+            buffer.position(start);
+        }
+        return reply;
+    }
+
+    /**
+     * @param buffer the buffer to grow, in write mode
+     * @param size   the space needed
+     * @return {@code buffer}, or a larger copy of it
+     */
+    static ByteBuffer ensureCapacity(ByteBuffer buffer, int size) {
+        if (buffer.remaining() >= size) {
+            return buffer;
+        }
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < size) {
+            capacity <<= 1;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private static Object parse(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return INCOMPLETE;
+        }
+
+        byte type = buffer.get();
+        switch (type) {
+            case '+': {
+                String line = readLine(buffer);
+                return line == null ? INCOMPLETE : line;
+            }
+            case '-': {
+                String line = readLine(buffer);
+                return line == null ? INCOMPLETE : new RespError(line);
+            }
+            case ':': {
+                return readNumber(buffer);
+            }
+            case '$': {
+                Object length = readNumber(buffer);
+                if (length == INCOMPLETE) {
+                    return INCOMPLETE;
+                }
+                int bulkLength = ((Long) length).intValue();
+                if (bulkLength < 0) {
+                    return null;
+                }
+                if (buffer.remaining() < bulkLength + CRLF.length) {
+                    return INCOMPLETE;
+                }
+                byte[] bulk = new byte[bulkLength];
+                buffer.get(bulk);
+                buffer.position(buffer.position() + CRLF.length);
+                return bulk;
+            }
+            case '*': {
+                Object length = readNumber(buffer);
+                if (length == INCOMPLETE) {
+                    return INCOMPLETE;
+                }
+                int arrayLength = ((Long) length).intValue();
+                if (arrayLength < 0) {
+                    return null;
+                }
+                List<Object> elements = new ArrayList<>(arrayLength);
+                for (int i = 0; i < arrayLength; i++) {
+                    Object element = parse(buffer);
+                    if (element == INCOMPLETE) {
+                        return INCOMPLETE;
+                    }
+                    elements.add(element);
+                }
+                return elements;
+            }
+            default:
+                throw new CacheException("Unknown reply type: " + (char) type);
+        }
+    }
+
+    private static String readLine(ByteBuffer buffer) {
+        int start = buffer.position();
+        for (int i = start; i < buffer.limit() - 1; i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                byte[] line = new byte[i - start];
+                buffer.get(line);
+                buffer.position(i + CRLF.length);
+                return new String(line, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static Object readNumber(ByteBuffer buffer) {
+        long value = 0;
+        boolean negative = false;
+        for (int i = buffer.position(); i < buffer.limit() - 1; i++) {
+            byte b = buffer.get(i);
+            if (b == '\r') {
+                if (buffer.get(i + 1) != '\n') {
+                    throw new CacheException("Malformed reply, CRLF expected");
+                }
+                buffer.position(i + CRLF.length);
+                return negative ? -value : value;
+            }
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+        return INCOMPLETE;
+    }
+
+    private static void putNumber(ByteBuffer buffer, int value) {
+        if (value < NUMBERS.length) {
+            buffer.put(NUMBERS[value]);
+        } else {
+            buffer.put(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+}
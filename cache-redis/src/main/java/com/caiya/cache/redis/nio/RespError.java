@@ -0,0 +1,26 @@
+package com.caiya.cache.redis.nio;
+
+/**
+ * Error reply of Redis, e.g. {@code MOVED 3999 127.0.0.1:6381}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+final class RespError {
+
+    private final String message;
+
+    RespError(String message) {
+        this.message = message;
+    }
+
+    String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.caiya.cache.redis.serializer;
+
+import com.caiya.cache.CacheException;
+import com.caiya.serialization.Serializer;
+
+import java.util.Arrays;
+
+/**
+ * Compresses the output of another {@link Serializer} once it exceeds a size threshold.
+ * <p>
+ * A compressed value starts with a header: two magic bytes {@code 0xFF 'Z'}, the {@link CompressionCodec} id and the
+ * uncompressed length (4 bytes, big-endian). Smaller or incompressible values are stored as serialized, so entries
+ * written before compression was enabled stay readable, and entries written with it stay readable by the plain
+ * serializer as long as they are below the threshold. The rare serialized value starting with the magic bytes itself
+ * is escaped by a header of codec id {@code 0}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class CompressingSerializer<T> implements Serializer<T> {
+
+    /**
+     * {@code 0xFF} is never part of UTF-8 nor the start of a JDK serialization stream
+     */
+    private static final byte[] MAGIC = {(byte) 0xFF, 'Z'};
+
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + 4;
+
+    private static final byte UNCOMPRESSED = 0;
+
+    /**
+     * above the best ratio of the codecs, a bigger length is no header of this serializer
+     */
+    private static final long MAX_RATIO = 1100;
+
+    private final Serializer<T> delegate;
+
+    private final int threshold;
+
+    private final CompressionCodec codec;
+
+    /**
+     * Compress with {@link CompressionCodec#LZ4}.
+     *
+     * @param delegate  must not be {@literal null}.
+     * @param threshold values of more serialized bytes are compressed, must not be negative.
+     */
+    public CompressingSerializer(Serializer<T> delegate, int threshold) {
+        this(delegate, threshold, CompressionCodec.LZ4);
+    }
+
+    /**
+     * @param delegate  must not be {@literal null}.
+     * @param threshold values of more serialized bytes are compressed, must not be negative.
+     * @param codec     must not be {@literal null}, values of other codecs are still readable.
+     */
+    public CompressingSerializer(Serializer<T> delegate, int threshold, CompressionCodec codec) {
+        if (delegate == null)
+            throw new IllegalArgumentException("delegate cannot be null");
+        if (threshold < 0)
+            throw new IllegalArgumentException("threshold cannot be negative");
+        if (codec == null)
+            throw new IllegalArgumentException("codec cannot be null");
+
+        this.delegate = delegate;
+        this.threshold = threshold;
+        this.codec = codec;
+    }
+
+    @Override
+    public byte[] serialize(T t) {
+        byte[] bytes = delegate.serialize(t);
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length > threshold) {
+            byte[] compressed = new byte[HEADER_LENGTH + codec.maxCompressedLength(bytes.length)];
+            int length = codec.compress(bytes, compressed, HEADER_LENGTH);
+            if (HEADER_LENGTH + length < bytes.length) {
+                writeHeader(compressed, codec.getId(), bytes.length);
+                return Arrays.copyOf(compressed, HEADER_LENGTH + length);
+            }
+        }
+        if (!startsWithMagic(bytes)) {
+            return bytes;
+        }
+        byte[] escaped = new byte[HEADER_LENGTH + bytes.length];
+        writeHeader(escaped, UNCOMPRESSED, bytes.length);
+        System.arraycopy(bytes, 0, escaped, HEADER_LENGTH, bytes.length);
+        return escaped;
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_LENGTH || !startsWithMagic(bytes)) {
+            return delegate.deserialize(bytes);
+        }
+        byte id = bytes[MAGIC.length];
+        int length = ((bytes[3] & 0xFF) << 24) | ((bytes[4] & 0xFF) << 16) | ((bytes[5] & 0xFF) << 8) | (bytes[6] & 0xFF);
+        if (id == UNCOMPRESSED && length == bytes.length - HEADER_LENGTH) {
+            return delegate.deserialize(Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length));
+        }
+        CompressionCodec valueCodec = CompressionCodec.of(id);
+        if (valueCodec == null || length < 0 || length > (bytes.length - HEADER_LENGTH) * MAX_RATIO) {
+            // not written by this serializer
+            return delegate.deserialize(bytes);
+        }
+        byte[] decompressed = new byte[length];
+        try {
+            valueCodec.decompress(bytes, HEADER_LENGTH, decompressed);
+        } catch (CacheException e) {
+            // not written by this serializer, unless corrupted
+            return delegate.deserialize(bytes);
+        }
+        return delegate.deserialize(decompressed);
+    }
+
+    public Serializer<T> getDelegate() {
+        return delegate;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    private static boolean startsWithMagic(byte[] bytes) {
+        return bytes.length >= MAGIC.length && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1];
+    }
+
+    private static void writeHeader(byte[] value, byte id, int length) {
+        value[0] = MAGIC[0];
+        value[1] = MAGIC[1];
+        value[2] = id;
+        value[3] = (byte) (length >>> 24);
+        value[4] = (byte) (length >>> 16);
+        value[5] = (byte) (length >>> 8);
+        value[6] = (byte) length;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.caiya.cache.redis.serializer;
+
+import com.caiya.cache.CacheException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Block compression codecs of the {@link CompressingSerializer}, identified by a stable id written in the header of
+ * every compressed value.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public enum CompressionCodec {
+
+    /**
+     * LZ4 by lz4-java, fast in both directions. Requires {@code org.lz4:lz4-java} on the classpath.
+     */
+    LZ4(1) {
+        @Override
+        int maxCompressedLength(int length) {
+            return Lz4.maxCompressedLength(length);
+        }
+
+        @Override
+        int compress(byte[] src, byte[] dest, int destOffset) {
+            return Lz4.compress(src, dest, destOffset);
+        }
+
+        @Override
+        void decompress(byte[] src, int srcOffset, byte[] dest) {
+            Lz4.decompress(src, srcOffset, dest);
+        }
+    },
+
+    /**
+     * DEFLATE of the JDK, smaller output but several times slower than {@link #LZ4}, no further dependency.
+     */
+    DEFLATE(2) {
+        @Override
+        int maxCompressedLength(int length) {
+            // zlib bound
+            return length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+        }
+
+        @Override
+        int compress(byte[] src, byte[] dest, int destOffset) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(src);
+                deflater.finish();
+                int length = deflater.deflate(dest, destOffset, dest.length - destOffset);
+                if (!deflater.finished())
+                    throw new CacheException("DEFLATE output exceeds its bound");
+                return length;
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        void decompress(byte[] src, int srcOffset, byte[] dest) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(src, srcOffset, src.length - srcOffset);
+                int length = inflater.inflate(dest);
+                if (length != dest.length || !inflater.finished())
+                    throw new CacheException("Corrupted DEFLATE value");
+            } catch (DataFormatException e) {
+                throw new CacheException("Corrupted DEFLATE value", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    };
+
+    private final byte id;
+
+    CompressionCodec(int id) {
+        this.id = (byte) id;
+    }
+
+    byte getId() {
+        return id;
+    }
+
+    /**
+     * @param id the id of a header
+     * @return the codec, {@literal null} if unknown.
+     */
+    static CompressionCodec of(byte id) {
+        for (CompressionCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    abstract int maxCompressedLength(int length);
+
+    /**
+     * @return the number of bytes written to {@code dest} from {@code destOffset} on.
+     */
+    abstract int compress(byte[] src, byte[] dest, int destOffset);
+
+    /**
+     * Decompress exactly {@code dest.length} bytes from the remaining bytes of {@code src}.
+     */
+    abstract void decompress(byte[] src, int srcOffset, byte[] dest);
+
+    /**
+     * All references to lz4-java, loaded on first use of {@link #LZ4} only.
+     */
+    private static final class Lz4 {
+
+        private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+
+        private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+        private static int maxCompressedLength(int length) {
+            return COMPRESSOR.maxCompressedLength(length);
+        }
+
+        private static int compress(byte[] src, byte[] dest, int destOffset) {
+            return COMPRESSOR.compress(src, 0, src.length, dest, destOffset, dest.length - destOffset);
+        }
+
+        private static void decompress(byte[] src, int srcOffset, byte[] dest) {
+            try {
+                int read = DECOMPRESSOR.decompress(src, srcOffset, dest, 0, dest.length);
+                if (srcOffset + read != src.length)
+                    throw new CacheException("Corrupted LZ4 value");
+            } catch (LZ4Exception e) {
+                throw new CacheException("Corrupted LZ4 value", e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.caiya.cache.redis.serializer;
+
+import com.caiya.cache.CacheException;
+
+import java.io.*;
+
+/**
+ * A {@link StreamingSerializer} by the JDK serialization, the stream format of
+ * {@link com.caiya.serialization.jdk.JdkSerializationSerializer}.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class JdkStreamingSerializer implements StreamingSerializer<Object> {
+
+    @Override
+    public void serialize(Object t, OutputStream out) {
+        if (!(t instanceof Serializable))
+            throw new IllegalArgumentException("value must implement Serializable");
+
+        try {
+            ObjectOutputStream objectOut = new ObjectOutputStream(out);
+            objectOut.writeObject(t);
+            objectOut.flush();
+        } catch (IOException e) {
+            throw new CacheException("Cannot serialize " + t.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(InputStream in) {
+        try {
+            return new ObjectInputStream(in).readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new CacheException("Cannot deserialize", e);
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.caiya.cache.redis.serializer;
+
+import com.caiya.cache.CacheException;
+import com.caiya.serialization.Serializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A compact binary {@link Serializer} by <a href="https://github.com/EsotericSoftware/kryo">Kryo</a>, several times
+ * smaller and faster than the JDK serialization.
+ * <p>
+ * Registered classes are written as a varint id, the other ones by their name. The ids follow the order of
+ * registration, so every application sharing the cached values must register the same classes in the same order;
+ * appending classes is safe, reordering or removing them is not. Classes need neither implement
+ * {@link java.io.Serializable} nor have a no-arg constructor.
+ * <p>
+ * Kryo instances are not thread-safe, they are pooled together with their output buffer. Requires
+ * {@code com.esotericsoftware:kryo} on the classpath.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class KryoSerializer<T> implements Serializer<T>, StreamingSerializer<T> {
+
+    private static final int MAX_POOL_SIZE = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * bigger buffers are not pooled
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] EMPTY_ARRAY = new byte[0];
+
+    private final List<Class<?>> registeredClasses;
+
+    private final Queue<Worker> pool = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger poolSize = new AtomicInteger();
+
+    public KryoSerializer() {
+        this.registeredClasses = Collections.emptyList();
+    }
+
+    /**
+     * @param registeredClasses the classes written by id, in order of registration.
+     */
+    public KryoSerializer(Class<?>... registeredClasses) {
+        this(Arrays.asList(registeredClasses));
+    }
+
+    /**
+     * @param registeredClasses the classes written by id, in order of registration.
+     */
+    public KryoSerializer(List<Class<?>> registeredClasses) {
+        if (registeredClasses == null)
+            throw new IllegalArgumentException("registeredClasses cannot be null");
+
+        this.registeredClasses = Collections.unmodifiableList(registeredClasses);
+    }
+
+    @Override
+    public byte[] serialize(T t) {
+        if (t == null) {
+            return EMPTY_ARRAY;
+        }
+        Worker worker = borrow();
+        try {
+            worker.output.clear();
+            worker.kryo.writeClassAndObject(worker.output, t);
+            return worker.output.toBytes();
+        } catch (KryoException e) {
+            throw new CacheException("Cannot serialize " + t.getClass().getName(), e);
+        } finally {
+            release(worker);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        Worker worker = borrow();
+        try {
+            return (T) worker.kryo.readClassAndObject(new Input(bytes));
+        } catch (KryoException e) {
+            throw new CacheException("Cannot deserialize", e);
+        } finally {
+            release(worker);
+        }
+    }
+
+    @Override
+    public void serialize(T t, OutputStream out) {
+        if (t == null)
+            throw new IllegalArgumentException("value cannot be null");
+
+        Worker worker = borrow();
+        try {
+            Output output = new Output(out, BUFFER_SIZE);
+            worker.kryo.writeClassAndObject(output, t);
+            output.flush();
+        } catch (KryoException e) {
+            throw new CacheException("Cannot serialize " + t.getClass().getName(), e);
+        } finally {
+            release(worker);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(InputStream in) {
+        Worker worker = borrow();
+        try {
+            return (T) worker.kryo.readClassAndObject(new Input(in, BUFFER_SIZE));
+        } catch (KryoException e) {
+            throw new CacheException("Cannot deserialize", e);
+        } finally {
+            release(worker);
+        }
+    }
+
+    public List<Class<?>> getRegisteredClasses() {
+        return registeredClasses;
+    }
+
+    /**
+     * Create the Kryo instance of a pooled worker, override to register serializers or change its settings.
+     *
+     * @return a new instance.
+     */
+    protected Kryo createKryo() {
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(false);
+        // no-arg constructors when present, otherwise without calling a constructor
+        Kryo.DefaultInstantiatorStrategy instantiatorStrategy = new Kryo.DefaultInstantiatorStrategy();
+        instantiatorStrategy.setFallbackInstantiatorStrategy(new StdInstantiatorStrategy());
+        kryo.setInstantiatorStrategy(instantiatorStrategy);
+        for (Class<?> registeredClass : registeredClasses) {
+            kryo.register(registeredClass);
+        }
+        return kryo;
+    }
+
+    private Worker borrow() {
+        Worker worker = pool.poll();
+        if (worker == null) {
+            return new Worker(createKryo());
+        }
+        poolSize.decrementAndGet();
+        return worker;
+    }
+
+    private void release(Worker worker) {
+        if (worker.output.getBuffer().length > MAX_POOLED_BUFFER_SIZE) {
+            worker.output.setBuffer(new byte[BUFFER_SIZE], -1);
+        }
+        if (poolSize.incrementAndGet() > MAX_POOL_SIZE) {
+            poolSize.decrementAndGet();
+            return;
+        }
+        pool.offer(worker);
+    }
+
+    private static final class Worker {
+
+        private final Kryo kryo;
+
+        private final Output output = new Output(BUFFER_SIZE, -1);
+
+        private Worker(Kryo kryo) {
+            this.kryo = kryo;
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.caiya.cache.redis.serializer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializes values to and from streams, so that large values are never held as one array.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public interface StreamingSerializer<T> {
+
+    /**
+     * @param t   the value, must not be {@literal null}.
+     * @param out the stream to write to, not closed.
+     */
+    void serialize(T t, OutputStream out);
+
+    /**
+     * @param in the stream to read from, not closed.
+     * @return the value.
+     */
+    T deserialize(InputStream in);
+
+}
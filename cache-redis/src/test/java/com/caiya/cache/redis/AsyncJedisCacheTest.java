@@ -0,0 +1,98 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.redis.util.TestRedisCluster;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisCluster;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AsyncJedisCacheTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class AsyncJedisCacheTest {
+
+    private JedisCache<String, Object> jedisCache;
+
+    private AsyncJedisCache<String, Object> asyncCache;
+
+    @Before
+    public void setUp() {
+        Set<HostAndPort> hostAndPorts = TestRedisCluster.nodes();
+        jedisCache = new JedisCache<>(new JedisCluster(hostAndPorts));
+        jedisCache.setKeySerializer(new StringSerializer());
+        jedisCache.setValueSerializer(new JdkSerializationSerializer());
+        asyncCache = new AsyncJedisCache<>(jedisCache, 4, 100, Duration.ofSeconds(1));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        asyncCache.close();
+        jedisCache.close();
+    }
+
+    @Test
+    public void testSetAndGet() throws Exception {
+        String key = "test_async_key";
+        asyncCache.set(key, "test_async_value", 10, TimeUnit.SECONDS).get();
+
+        Assert.assertEquals("test_async_value", asyncCache.get(key).get());
+        Assert.assertEquals(Long.valueOf(1), asyncCache.del(key).get());
+        Assert.assertNull(asyncCache.get(key).get());
+    }
+
+    @Test
+    public void testCompletedOnPoolThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "async-jedis-cache-test"));
+        AsyncJedisCache<String, Object> pausedCache = new AsyncJedisCache<>(jedisCache, executor, Duration.ofSeconds(1));
+        try {
+            // the get completes only after its callback is registered, so not on the caller thread
+            CountDownLatch paused = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    paused.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            CompletableFuture<String> completedOn = new CompletableFuture<>();
+            CompletableFuture<Object> value = pausedCache.get("test_async_key");
+            value.whenComplete((result, e) -> completedOn.complete(Thread.currentThread().getName()));
+            paused.countDown();
+
+            // not value.get(), a thread waiting for the value may run its callbacks itself
+            String threadName = completedOn.get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(threadName, threadName.startsWith("async-jedis-cache-"));
+        } finally {
+            pausedCache.close();
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testTimeout() throws Exception {
+        AsyncJedisCache<String, Object> shortTimeoutCache = new AsyncJedisCache<>(jedisCache, 1, 10, Duration.ofMillis(1));
+        try {
+            shortTimeoutCache.eval("local i = 0 while i < 10000000 do i = i + 1 end return i", 0).get();
+        } finally {
+            shortTimeoutCache.close();
+        }
+    }
+
+}
@@ -7,10 +7,13 @@ import org.junit.Test;
 import org.junit.runners.MethodSorters;
 import redis.clients.util.JedisClusterCRC16;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
@@ -83,12 +86,14 @@ public abstract class BaseCacheTest {
 
     @Test
     @Ignore
+    @SuppressWarnings("deprecation")
     public void testKeys() {
         cache.keys("");
     }
 
     @Test
     @Ignore
+    @SuppressWarnings("deprecation")
     public void test_C1_Scan() {
 //
         cache.scan("", 1);
@@ -294,6 +299,66 @@ public abstract class BaseCacheTest {
         assertTrue(result > 0);
     }
 
+    @Test
+    public void test_J1_MGet() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String key = "test_jedis_mget" + i;
+            keys.add(key);
+            if (i % 2 == 0) {
+                cache.set(key, "mget" + i, 600);
+            }
+        }
+        Map<String, Object> result = cache.mGet(keys);
+        assertEquals(100, result.size());
+        assertEquals("mget0", result.get("test_jedis_mget0"));
+        assertFalse(result.containsKey("test_jedis_mget1"));
+
+        cache.del(keys.toArray(new String[0]));// delete
+    }
+
+    @Test
+    public void test_J2_MSet() {
+        Map<String, Object> entries = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            entries.put("test_jedis_mset" + i, "mset" + i);
+        }
+        Map<String, Exception> failures = cache.mSet(entries, Duration.ofMinutes(10));
+        assertTrue(failures.isEmpty());
+        assertEquals(entries, cache.mGet(entries.keySet()));
+        long ttl = cache.ttl("test_jedis_mset0");
+        assertTrue(ttl > 590 && ttl <= 600);
+
+        failures = cache.mSet(entries, key -> key.endsWith("0") ? Duration.ofMillis(1500) : null);
+        assertTrue(failures.isEmpty());
+        assertTrue(cache.ttl("test_jedis_mset10") <= 2);
+        assertEquals(-1, cache.ttl("test_jedis_mset11"));
+
+        cache.del(entries.keySet().toArray(new String[0]));// delete
+    }
+
+    @Test
+    public void test_J3_GetWithLoader() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, Object> loader = key -> "loaded" + loads.incrementAndGet();
+        cache.del("test_jedis_loader");
+
+        assertEquals("loaded1", cache.get("test_jedis_loader", loader, Duration.ofMinutes(10)));
+        assertEquals("loaded1", cache.get("test_jedis_loader", loader, Duration.ofMinutes(10)));
+        assertEquals(1, loads.get());
+
+        // close to expiration, the current value is returned while reloading
+        cache.set("test_jedis_loader", "old", 5);
+        assertEquals("old", cache.get("test_jedis_loader", loader, Duration.ofMinutes(10)));
+        for (int i = 0; i < 50 && "old".equals(cache.get("test_jedis_loader")); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals("loaded2", cache.get("test_jedis_loader"));
+        assertTrue(cache.ttl("test_jedis_loader") > 5);
+
+        cache.del("test_jedis_loader");
+    }
+
     @Test
     public void test_I_eval() {
         Object result = cache.eval("if redis.call('get',KEYS[1]) == ARGV[1] then return redis.call('del',KEYS[1]) else return 0 end", 1, "test_jedis_cache", "vvvvalue");
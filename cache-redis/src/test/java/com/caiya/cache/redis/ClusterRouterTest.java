@@ -0,0 +1,93 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.redis.util.TestRedisCluster;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * ClusterRouterTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class ClusterRouterTest {
+
+    private JedisCluster jedisCluster;
+
+    private ClusterRouter router;
+
+    @Before
+    public void setUp() {
+        jedisCluster = new JedisCluster(TestRedisCluster.nodes());
+        router = new ClusterRouter(jedisCluster);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        jedisCluster.close();
+    }
+
+    @Test
+    public void testRouteWithoutRedirection() {
+        assertEquals(masterNodes(), router.getMasterNodes());
+        for (int i = 0; i < 100; i++) {
+            SlotKey key = SlotKey.of(("router" + i).getBytes());
+            try (Jedis jedis = router.getPool(router.getNode(key.getSlot())).getResource()) {
+                // the owner answers without MOVED
+                assertEquals("OK", jedis.set(key.getRawKey(), key.getRawKey()));
+            }
+        }
+    }
+
+    @Test
+    public void testRedirection() {
+        SlotKey key = SlotKey.of("router".getBytes());
+        String owner = router.getNode(key.getSlot());
+        int neighbour = key.getSlot() == 0 ? 1 : key.getSlot() - 1;
+        String neighbourOwner = router.getNode(neighbour);
+        List<String> nodes = new ArrayList<>(router.getMasterNodes());
+        nodes.remove(owner);
+        HostAndPort other = HostAndPort.parseString(nodes.get(0));
+
+        router.onRedirection(new JedisAskDataException("ASK", other, key.getSlot()));
+        assertEquals(owner, router.getNode(key.getSlot()));
+
+        router.onRedirection(new JedisMovedDataException("MOVED", other, key.getSlot()));
+        assertEquals(nodes.get(0), router.getNode(key.getSlot()));
+        assertEquals(neighbourOwner, router.getNode(neighbour));
+
+        router.invalidate();
+        assertEquals(owner, router.getNode(key.getSlot()));
+    }
+
+    /**
+     * @return the masters of CLUSTER SLOTS, the known nodes also include the replicas
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> masterNodes() {
+        try (Jedis jedis = jedisCluster.getClusterNodes().values().iterator().next().getResource()) {
+            Set<String> masterNodes = new HashSet<>();
+            for (Object slotInfo : jedis.clusterSlots()) {
+                List<Object> master = (List<Object>) ((List<Object>) slotInfo).get(2);
+                masterNodes.add(SafeEncoder.encode((byte[]) master.get(0)) + ":" + master.get(1));
+            }
+            return masterNodes;
+        }
+    }
+
+}
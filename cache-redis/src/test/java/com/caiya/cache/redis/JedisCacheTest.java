@@ -1,5 +1,6 @@
 package com.caiya.cache.redis;
 
+import com.caiya.cache.redis.util.TestRedisCluster;
 import com.caiya.serialization.jdk.JdkSerializationSerializer;
 import com.caiya.serialization.jdk.StringSerializer;
 import org.junit.*;
@@ -8,7 +9,14 @@ import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.JedisCluster;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JedisCacheTest.
@@ -21,13 +29,7 @@ public class JedisCacheTest extends BaseCacheTest {
 
     @Before
     public void setUp() {
-        Set<HostAndPort> hostAndPorts = new HashSet<>();
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7000));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7001));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7002));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7003));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7004));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7005));
+        Set<HostAndPort> hostAndPorts = TestRedisCluster.nodes();
         JedisCluster jedisCluster = new JedisCluster(hostAndPorts);
         StringSerializer stringSerializer = new StringSerializer();
         JdkSerializationSerializer jdkSerializationSerializer = new JdkSerializationSerializer();
@@ -49,6 +51,137 @@ public class JedisCacheTest extends BaseCacheTest {
     }
 
 
+    @Test
+    public void test_C3_ScanCluster() {
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add("test_scan_cluster_" + i);
+            cache.set("test_scan_cluster_" + i, i, 60);
+        }
+        Set<String> scanned = new HashSet<>();
+        try (ClusterScanIterator iterator = ((JedisCache) cache).scanCluster("test_scan_cluster_*", 10)) {
+            iterator.forEachRemaining(key -> scanned.add(new String(key, StandardCharsets.UTF_8)));
+            for (String node : iterator.getCursor().getNodeCursors().keySet()) {
+                Assert.assertTrue(iterator.getCursor().isFinished(node));
+            }
+        }
+        // keys of all nodes, not only of one
+        Assert.assertEquals(keys, scanned);
+        cache.del(keys.toArray(new String[0]));
+    }
+
+    @Test
+    public void test_C4_UnlinkRaw() {
+        List<byte[]> rawKeys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // hash tagged keys share a slot and are unlinked in batches
+            String key = (i % 2 == 0 ? "{test_unlink}_" : "test_unlink_") + i;
+            cache.set(key, i, 60);
+            rawKeys.add(key.getBytes(StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals(100L, ((JedisCache<?, ?>) cache).unlinkRaw(rawKeys, 10));
+        Assert.assertFalse(cache.exists("test_unlink_1"));
+        Assert.assertEquals(0L, ((JedisCache<?, ?>) cache).unlinkRaw(rawKeys, 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_C5_RawBuffers() {
+        JedisCache<String, Object> jedisCache = (JedisCache<String, Object>) cache;
+        byte[] blob = new byte[64 * 1024];
+        new Random(0).nextBytes(blob);
+        ByteBuffer direct = ByteBuffer.allocateDirect(blob.length + 10);
+        direct.position(10);
+        direct.put(blob);
+        direct.position(10);
+
+        jedisCache.setRaw("test_raw_buffer", direct, Duration.ofSeconds(60));
+        Assert.assertEquals(10, direct.position());
+        Assert.assertEquals(ByteBuffer.wrap(blob), jedisCache.getRaw("test_raw_buffer"));
+        Assert.assertTrue(jedisCache.ttl("test_raw_buffer") > 0);
+
+        // the stored bytes of a serialized value
+        cache.set("test_raw_buffer", "value", 60);
+        Assert.assertEquals(ByteBuffer.wrap(jedisCache.getValueSerializer().serialize("value")),
+                jedisCache.getRaw("test_raw_buffer"));
+        cache.del("test_raw_buffer");
+        Assert.assertNull(jedisCache.getRaw("test_raw_buffer"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_C6_ChunkedValues() {
+        JedisCache<String, Object> jedisCache = (JedisCache<String, Object>) cache;
+        int chunkSize = jedisCache.getChunkSize();
+        jedisCache.setChunkSize(64 * 1024);
+        try {
+            byte[] blob = new byte[1024 * 1024];
+            new Random(0).nextBytes(blob);
+            jedisCache.setChunked("test_chunked", blob, Duration.ofSeconds(60));
+            Assert.assertArrayEquals(blob, (byte[]) jedisCache.getChunked("test_chunked"));
+
+            // replaced, the chunks of the previous value are removed
+            jedisCache.setChunked("test_chunked", "small", Duration.ofSeconds(60));
+            Assert.assertEquals("small", jedisCache.getChunked("test_chunked"));
+            Assert.assertEquals(2, jedisCache.delChunked("test_chunked"));
+            Assert.assertNull(jedisCache.getChunked("test_chunked"));
+
+            // values stored by set
+            cache.set("test_chunked", "value", 60);
+            Assert.assertEquals("value", jedisCache.getChunked("test_chunked"));
+            Assert.assertEquals(1, jedisCache.delChunked("test_chunked"));
+        } finally {
+            jedisCache.setChunkSize(chunkSize);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_C6_ChunkedValuesConcurrently() throws Exception {
+        JedisCache<String, Object> jedisCache = (JedisCache<String, Object>) cache;
+        int chunkSize = jedisCache.getChunkSize();
+        jedisCache.setChunkSize(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                byte[] blob = new byte[8 * 1024];
+                new Random(i).nextBytes(blob);
+                writes.add(executor.submit(() -> jedisCache.setChunked("test_chunked_race", blob, Duration.ZERO)));
+            }
+            for (Future<?> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+
+            // the chunks of every replaced value are removed, only the last value remains
+            Assert.assertTrue(jedisCache.delChunked("test_chunked_race") > 1);
+            try (ClusterScanIterator iterator = jedisCache.scanCluster("test_chunked_race*", 100)) {
+                Assert.assertFalse(iterator.hasNext());
+            }
+        } finally {
+            executor.shutdownNow();
+            jedisCache.setChunkSize(chunkSize);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_C7_XFetch() {
+        JedisCache<String, Object> jedisCache = (JedisCache<String, Object>) cache;
+        jedisCache.setXFetchBeta(XFetchValue.DEFAULT_BETA);
+        try {
+            cache.del("test_xfetch");
+            Assert.assertEquals("loaded", cache.get("test_xfetch", key -> "loaded", Duration.ofMinutes(10)));
+            Assert.assertNotNull(XFetchValue.parse(jedisCache.getRaw("test_xfetch").array()));
+            // far from expiration
+            Assert.assertEquals("loaded", cache.get("test_xfetch", key -> "reloaded", Duration.ofMinutes(10)));
+            Assert.assertEquals("loaded", cache.get("test_xfetch"));
+        } finally {
+            jedisCache.setXFetchBeta(0);
+            cache.del("test_xfetch");
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected long getLength(Object obj) {
@@ -0,0 +1,89 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.redis.util.TestRedisCluster;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisCluster;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * JedisMessageSubscriberTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class JedisMessageSubscriberTest {
+
+    private JedisCluster jedisCluster;
+
+    private JedisMessageSubscriber subscriber;
+
+    @Before
+    public void setUp() {
+        jedisCluster = new JedisCluster(TestRedisCluster.nodes());
+        subscriber = new JedisMessageSubscriber(jedisCluster);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        subscriber.shutdown();
+        jedisCluster.close();
+    }
+
+    @Test
+    public void testConcurrentSubscribe() throws Exception {
+        int channels = 20;
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        RedisMessageListener listener = (channel, message) -> received.add(channel);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(channels);
+        try {
+            List<Future<?>> subscriptions = new ArrayList<>();
+            for (int i = 0; i < channels; i++) {
+                String channel = "test_subscriber_" + i;
+                subscriptions.add(executorService.submit(() -> {
+                    start.await();
+                    subscriber.subscribe(channel, listener);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> subscription : subscriptions) {
+                // only queued, never waits for the connection
+                subscription.get(1, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // the channels are subscribed asynchronously
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < channels && System.nanoTime() < deadline) {
+            for (int i = 0; i < channels; i++) {
+                jedisCluster.publish("test_subscriber_" + i, "");
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertEquals(channels, received.size());
+
+        subscriber.unsubscribe("test_subscriber_0", listener);
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jedisCluster.publish("test_subscriber_0", "") > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        assertEquals(Long.valueOf(0), jedisCluster.publish("test_subscriber_0", ""));
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.caiya.cache.redis;
+
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * KeyEncoderTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class KeyEncoderTest {
+
+    private static final byte[] PREFIX = "caiya_cache:".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testEncodeUtf8() {
+        String[] keys = {"", "UserService:getUser:tomcat", "测试jedis缓存", "café", "😀!",
+                "lone\ud83d", "\ude00lone", "߿ࠀ￿"};
+        for (String key : keys) {
+            assertArrayEquals(key, key.getBytes(StandardCharsets.UTF_8), KeyEncoder.encodeUtf8(new byte[0], key));
+        }
+
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            char[] chars = new char[random.nextInt(20)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) random.nextInt(Character.MAX_VALUE + 1);
+            }
+            String key = new String(chars);
+            assertArrayEquals(("caiya_cache:" + key).getBytes(StandardCharsets.UTF_8), KeyEncoder.encodeUtf8(PREFIX, key));
+        }
+    }
+
+    @Test
+    public void testEncode() {
+        KeyEncoder stringEncoder = new KeyEncoder(PREFIX, new StringSerializer());
+        assertTrue(stringEncoder.isUtf8Strings());
+        assertArrayEquals("caiya_cache:测试".getBytes(StandardCharsets.UTF_8), stringEncoder.encode("测试"));
+
+        JdkSerializationSerializer jdkSerializer = new JdkSerializationSerializer();
+        KeyEncoder jdkEncoder = new KeyEncoder(PREFIX, jdkSerializer);
+        assertFalse(jdkEncoder.isUtf8Strings());
+        assertArrayEquals(new RedisCacheKey(42L).usePrefix(PREFIX).withKeySerializer(jdkSerializer).getKeyBytes(),
+                jdkEncoder.encode(42L));
+        assertArrayEquals(jdkSerializer.serialize("key"), new KeyEncoder(null, jdkSerializer).encode("key"));
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.caiya.cache.redis;
+
+import com.caiya.cache.AsyncCacheApi;
+import com.caiya.cache.redis.nio.NioCache;
+import com.caiya.cache.redis.nio.NioRedisCache;
+import com.caiya.cache.redis.util.TestRedisCluster;
+import com.caiya.serialization.Serializer;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import com.caiya.serialization.jdk.StringSerializer;
+import org.junit.*;
+import org.junit.runners.MethodSorters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * NioCacheTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class NioCacheTest extends BaseCacheTest {
+
+    private JedisConnectionFactory connectionFactory;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        connectionFactory = new JedisConnectionFactory(TestRedisCluster.nodes());
+        connectionFactory.setClientEngine(ClientEngine.NIO);
+        connectionFactory.setKeySerializer(new StringSerializer());
+        connectionFactory.setValueSerializer(new JdkSerializationSerializer());
+        connectionFactory.setHashKeySerializer(new StringSerializer());
+        connectionFactory.setHashValueSerializer(new JdkSerializationSerializer());
+        connectionFactory.afterPropertiesSet();
+        cache = (NioCache<String, Object>) connectionFactory.getClusterConnection().getNativeConnection();
+    }
+
+    @After
+    public void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    public void testPipelined() {
+        @SuppressWarnings("unchecked")
+        AsyncCacheApi<String, Object> asyncCache = (AsyncCacheApi<String, Object>) connectionFactory.getAsyncCache();
+        List<CompletableFuture<Long>> replies = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            replies.add(asyncCache.incr("test_nio_pipelined"));
+        }
+        CompletableFuture.allOf(replies.toArray(new CompletableFuture[0])).join();
+        // replies arrive in command order
+        for (int i = 1; i < replies.size(); i++) {
+            Assert.assertEquals(replies.get(i - 1).join() + 1, (long) replies.get(i).join());
+        }
+        Assert.assertEquals(1L, cache.del("test_nio_pipelined"));
+    }
+
+    @Test
+    public void testUnlinkRaw() {
+        NioRedisCache<?, ?> asyncCache = (NioRedisCache<?, ?>) connectionFactory.getAsyncCache();
+        List<byte[]> rawKeys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // hash tagged keys share a slot and are unlinked in batches
+            String key = (i % 2 == 0 ? "{test_nio_unlink}_" : "test_nio_unlink_") + i;
+            cache.set(key, i, 60);
+            rawKeys.add(key.getBytes(StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals(100L, (long) asyncCache.unlinkRaw(rawKeys, 10).join());
+        Assert.assertFalse(cache.exists("test_nio_unlink_1"));
+        Assert.assertEquals(0L, (long) asyncCache.unlinkRaw(rawKeys, 10).join());
+    }
+
+    @Test
+    public void testDbSizeAndPing() {
+        Assert.assertEquals("PONG", cache.ping());
+        Assert.assertTrue(cache.dbSize() >= 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected long getLength(Object obj) {
+        return ((Serializer) connectionFactory.getValueSerializer()).serialize(obj).length;
+    }
+
+}
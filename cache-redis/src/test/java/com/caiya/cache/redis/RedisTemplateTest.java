@@ -1,5 +1,6 @@
 package com.caiya.cache.redis;
 
+import com.caiya.cache.redis.util.TestRedisCluster;
 import com.caiya.serialization.Serializer;
 import com.caiya.serialization.jdk.JdkSerializationSerializer;
 import com.caiya.serialization.jdk.StringSerializer;
@@ -22,13 +23,7 @@ public class RedisTemplateTest extends BaseCacheTest {
 
     @Before
     public void setUp() {
-        Set<HostAndPort> hostAndPorts = new HashSet<>();
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7000));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7001));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7002));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7003));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7004));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7005));
+        Set<HostAndPort> hostAndPorts = TestRedisCluster.nodes();
         StringSerializer stringSerializer = new StringSerializer();
         JdkSerializationSerializer jdkSerializationSerializer = new JdkSerializationSerializer();
         redisTemplate = new RedisTemplate<>();
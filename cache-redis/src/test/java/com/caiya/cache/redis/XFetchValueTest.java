@@ -0,0 +1,65 @@
+package com.caiya.cache.redis;
+
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * XFetchValueTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class XFetchValueTest {
+
+    @Test
+    public void testWrap() {
+        byte[] value = new JdkSerializationSerializer().serialize("value");
+        long now = System.currentTimeMillis();
+        XFetchValue xFetchValue = XFetchValue.parse(XFetchValue.wrap(value, 250, 60000));
+        assertNotNull(xFetchValue);
+        assertArrayEquals(value, xFetchValue.getValue());
+        assertEquals(250, xFetchValue.getDelta());
+        assertTrue(xFetchValue.getExpiry() >= now + 60000);
+
+        // stored without early recomputation
+        assertNull(XFetchValue.parse(value));
+        assertNull(XFetchValue.parse(null));
+        assertSame(value, XFetchValue.unwrap(value));
+        assertArrayEquals(value, XFetchValue.unwrap(XFetchValue.wrap(value, 0, 1000)));
+    }
+
+    @Test
+    public void testEscape() {
+        // a stored value starting like a header
+        byte[] value = XFetchValue.wrap(new byte[]{1, 2, 3}, 250, 60000);
+        byte[] escaped = XFetchValue.escape(value);
+        assertNull(XFetchValue.parse(escaped));
+        assertArrayEquals(value, XFetchValue.unwrap(escaped));
+        assertArrayEquals(value, XFetchValue.unwrap(XFetchValue.wrap(value, 0, 1000)));
+
+        byte[] plain = {1, 2, 3};
+        assertSame(plain, XFetchValue.escape(plain));
+        assertNull(XFetchValue.escape(null));
+    }
+
+    @Test
+    public void testShouldRecompute() {
+        byte[] value = {1, 2, 3};
+        XFetchValue fresh = XFetchValue.parse(XFetchValue.wrap(value, 0, 60000));
+        XFetchValue expired = XFetchValue.parse(XFetchValue.wrap(value, 0, -1));
+        // a load of 1 second, expiring in 1 second: recomputed by about 1 / e of the readers
+        XFetchValue expiring = XFetchValue.parse(XFetchValue.wrap(value, 1000, 1000));
+        int recomputed = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertFalse(fresh.shouldRecompute(XFetchValue.DEFAULT_BETA));
+            assertTrue(expired.shouldRecompute(XFetchValue.DEFAULT_BETA));
+            if (expiring.shouldRecompute(XFetchValue.DEFAULT_BETA)) {
+                recomputed++;
+            }
+        }
+        assertTrue(String.valueOf(recomputed), recomputed > 2000 && recomputed < 5000);
+    }
+
+}
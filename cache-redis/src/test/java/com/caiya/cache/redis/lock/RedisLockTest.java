@@ -2,9 +2,12 @@ package com.caiya.cache.redis.lock;
 
 import com.caiya.cache.CacheApi;
 import com.caiya.cache.redis.util.Constant;
+import com.caiya.cache.redis.util.TestRedisCluster;
 import com.caiya.cache.redis.JedisCache;
+import com.caiya.cache.redis.JedisMessageSubscriber;
 import com.caiya.serialization.jdk.StringSerializer;
 import org.junit.After;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -15,12 +18,18 @@ import redis.clients.jedis.JedisCluster;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * RedisLockTest.
@@ -34,6 +43,10 @@ public class RedisLockTest {
 
     private RedisLockFactory redisLockFactory;
 
+    private JedisCluster jedisCluster;
+
+    private CacheApi<String, String> cache;
+
     @Before
     public void before() {
         initLockFactory();
@@ -45,16 +58,10 @@ public class RedisLockTest {
     }
 
     private void initLockFactory() {
-        Set<HostAndPort> hostAndPorts = new HashSet<>();
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7000));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7001));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7002));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7003));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7004));
-        hostAndPorts.add(new HostAndPort("192.168.1.249", 7005));
-        JedisCluster jedisCluster = new JedisCluster(hostAndPorts);
+        Set<HostAndPort> hostAndPorts = TestRedisCluster.nodes();
+        jedisCluster = new JedisCluster(hostAndPorts);
         StringSerializer stringSerializer = new StringSerializer();
-        CacheApi<String, String> cache = new JedisCache<>(jedisCluster);
+        cache = new JedisCache<>(jedisCluster);
         ((JedisCache) cache).setKeySerializer(stringSerializer);
         ((JedisCache) cache).setValueSerializer(stringSerializer);
         ((JedisCache) cache).setKeyPrefix((Constant.DEFAULT_CACHE_NAME + ":lock:").getBytes(StandardCharsets.UTF_8));
@@ -101,6 +108,262 @@ public class RedisLockTest {
     }
 
 
+    /**
+     * 释放锁时通知等待线程：等待足够久后轮询间隔达到上限（0.5~1秒），仍应在释放后远早于下次轮询获得锁
+     */
+    @Test
+    public void testLockNotified() throws Exception {
+        JedisMessageSubscriber subscriber = new JedisMessageSubscriber(jedisCluster);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            RedisLockFactory notifiedLockFactory = RedisLockFactory.create(cache, subscriber);
+            List<RedisLock> holders = new ArrayList<>();
+            List<Future<Long>> acquisitions = new ArrayList<>();
+            // several locks, so that polling by chance right after a release cannot pass for all of them
+            for (int i = 0; i < 3; i++) {
+                String name = "testLockNotified" + i;
+                RedisLock holder = notifiedLockFactory.buildLock(name);
+                holder.setDefaultLeaseTime(Duration.ofSeconds(30));
+                Assert.assertTrue(holder.tryLock());
+                holders.add(holder);
+                acquisitions.add(executor.submit(() -> {
+                    RedisLock redisLock = notifiedLockFactory.buildLock(name);
+                    redisLock.setDefaultLeaseTime(Duration.ofSeconds(30));
+                    Assert.assertTrue(redisLock.tryLock(Duration.ofSeconds(10)));
+                    long acquiredAt = System.nanoTime();
+                    redisLock.unlock();
+                    return acquiredAt;
+                }));
+            }
+            TimeUnit.MILLISECONDS.sleep(1500);
+
+            List<Long> releasedAt = new ArrayList<>();
+            for (RedisLock holder : holders) {
+                releasedAt.add(System.nanoTime());
+                holder.unlock();
+            }
+            for (int i = 0; i < holders.size(); i++) {
+                long millis = TimeUnit.NANOSECONDS.toMillis(acquisitions.get(i).get(5, TimeUnit.SECONDS) - releasedAt.get(i));
+                logger.info("acquired {}ms after release", millis);
+                Assert.assertTrue("acquired " + millis + "ms after release", millis < 100);
+            }
+        } finally {
+            executor.shutdownNow();
+            subscriber.shutdown();
+        }
+    }
+
+    /**
+     * 可重入锁：持有线程重复加锁只在本地计数
+     */
+    @Test
+    public void testReentrantLock() throws InterruptedException {
+        ReentrantRedisLock redisLock = redisLockFactory.buildReentrantLock("testReentrantLock");
+        redisLock.setDefaultLeaseTime(Duration.ofSeconds(30));
+        Assert.assertTrue(redisLock.tryLock());
+        try {
+            Assert.assertTrue(redisLock.tryLock());
+            Assert.assertEquals(2, redisLock.getHoldCount());
+            Assert.assertTrue(redisLock.isHeldByCurrentThread());
+
+            AtomicBoolean acquiredByOther = new AtomicBoolean(true);
+            Thread other = new Thread(() -> acquiredByOther.set(redisLock.tryLock()));
+            other.start();
+            other.join();
+            Assert.assertFalse(acquiredByOther.get());
+
+            redisLock.unlock();
+            Assert.assertEquals(1, redisLock.getHoldCount());
+            Assert.assertTrue(redisLock.isLocked());
+        } finally {
+            redisLock.unlock();
+        }
+        Assert.assertEquals(0, redisLock.getHoldCount());
+        Assert.assertFalse(redisLock.isLocked());
+    }
+
+    /**
+     * 看门狗：持有期间自动续期短租期
+     */
+    @Test
+    public void testWatchdog() throws InterruptedException {
+        RedisLockFactory watchedLockFactory = RedisLockFactory.create(cache).withWatchdog(Duration.ofSeconds(3));
+        try {
+            RedisLock redisLock = watchedLockFactory.buildLock("testWatchdog");
+            Assert.assertEquals(Duration.ofSeconds(3), redisLock.getDefaultLeaseTime());
+            redisLock.lock();
+            try {
+                TimeUnit.SECONDS.sleep(5);
+                Assert.assertTrue(redisLock.isHeldByCurrentThread());
+            } finally {
+                redisLock.unlock();
+            }
+            Assert.assertFalse(redisLock.isLocked());
+        } finally {
+            watchedLockFactory.destroy();
+        }
+    }
+
+    /**
+     * 读写锁：读锁共享，写锁互斥，等待中的写者优先
+     */
+    @Test
+    public void testReadWriteLock() throws Exception {
+        RedisReadWriteLock readWriteLock = redisLockFactory.buildReadWriteLock("testReadWriteLock");
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            CountDownLatch readersIn = new CountDownLatch(2);
+            CountDownLatch releaseReaders = new CountDownLatch(1);
+            for (int i = 0; i < 2; i++) {
+                executorService.execute(() -> {
+                    readWriteLock.readLock().lock();
+                    readersIn.countDown();
+                    try {
+                        releaseReaders.await();
+                    } catch (InterruptedException e) {
+                        logger.error(e.getMessage(), e);
+                    } finally {
+                        readWriteLock.readLock().unlock();
+                    }
+                });
+            }
+            Assert.assertTrue(readersIn.await(5, TimeUnit.SECONDS));
+
+            Future<Boolean> writer = executorService.submit(() -> {
+                boolean locked = readWriteLock.writeLock().tryLock(Duration.ofSeconds(10));
+                if (locked) {
+                    readWriteLock.writeLock().unlock();
+                }
+                return locked;
+            });
+            TimeUnit.MILLISECONDS.sleep(500);
+            // the waiting writer keeps new readers out
+            Assert.assertFalse(readWriteLock.writeLock().isLocked());
+            Assert.assertFalse(readWriteLock.readLock().tryLock());
+
+            releaseReaders.countDown();
+            Assert.assertTrue(writer.get(10, TimeUnit.SECONDS));
+            Assert.assertFalse(readWriteLock.readLock().isLocked());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * 读写锁：写锁释放时通知唤醒所有等待的读者，而非只唤醒一个
+     */
+    @Test
+    public void testReadersNotified() throws Exception {
+        JedisMessageSubscriber subscriber = new JedisMessageSubscriber(jedisCluster);
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            RedisReadWriteLock readWriteLock = RedisLockFactory.create(cache, subscriber)
+                    .buildReadWriteLock("testReadersNotified");
+            readWriteLock.writeLock().lock();
+            CountDownLatch releaseReaders = new CountDownLatch(1);
+            List<Future<Long>> readers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executorService.submit(() -> {
+                    Assert.assertTrue(readWriteLock.readLock().tryLock(Duration.ofSeconds(10)));
+                    long acquiredAt = System.nanoTime();
+                    try {
+                        releaseReaders.await();
+                    } finally {
+                        readWriteLock.readLock().unlock();
+                    }
+                    return acquiredAt;
+                }));
+            }
+            // long enough for the polling interval to reach its cap
+            TimeUnit.MILLISECONDS.sleep(1500);
+
+            long releasedAt = System.nanoTime();
+            readWriteLock.writeLock().unlock();
+            TimeUnit.MILLISECONDS.sleep(200);
+            releaseReaders.countDown();
+            for (Future<Long> reader : readers) {
+                long millis = TimeUnit.NANOSECONDS.toMillis(reader.get(5, TimeUnit.SECONDS) - releasedAt);
+                Assert.assertTrue("acquired " + millis + "ms after release", millis < 100);
+            }
+        } finally {
+            executorService.shutdownNow();
+            subscriber.shutdown();
+        }
+    }
+
+    /**
+     * 公平锁：等待线程按排队顺序获得锁
+     */
+    @Test
+    public void testFairLock() throws Exception {
+        JedisMessageSubscriber subscriber = new JedisMessageSubscriber(jedisCluster);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            RedisLockFactory fairLockFactory = RedisLockFactory.create(cache, subscriber);
+            CountDownLatch held = new CountDownLatch(1);
+            CountDownLatch releaseHolder = new CountDownLatch(1);
+            executorService.execute(() -> {
+                FairRedisLock holder = fairLockFactory.buildFairLock("testFairLock");
+                holder.lock();
+                held.countDown();
+                try {
+                    releaseHolder.await();
+                } catch (InterruptedException e) {
+                    logger.error(e.getMessage(), e);
+                } finally {
+                    holder.unlock();
+                }
+            });
+            Assert.assertTrue(held.await(5, TimeUnit.SECONDS));
+
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            List<Future<?>> waiters = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                int index = i;
+                waiters.add(executorService.submit(() -> {
+                    FairRedisLock redisLock = fairLockFactory.buildFairLock("testFairLock");
+                    if (redisLock.tryLock(Duration.ofSeconds(10))) {
+                        order.add(index);
+                        redisLock.unlock();
+                    }
+                    return null;
+                }));
+                // queued in this order
+                TimeUnit.MILLISECONDS.sleep(300);
+            }
+
+            releaseHolder.countDown();
+            for (Future<?> waiter : waiters) {
+                waiter.get(10, TimeUnit.SECONDS);
+            }
+            Assert.assertEquals(Arrays.asList(0, 1, 2), order);
+        } finally {
+            executorService.shutdownNow();
+            subscriber.shutdown();
+        }
+    }
+
+    /**
+     * 公平锁：等待者的截止时间按Redis时间判断，过期的等待者被跳过
+     */
+    @Test
+    public void testFairLockWaiterDeadline() {
+        FairRedisLock redisLock = redisLockFactory.buildFairLock("testFairLockWaiterDeadline");
+        String key = redisLock.getKey();
+        // a live waiter ahead, the deadline far in the future of the Redis clock
+        jedisCluster.rpush(key + ":queue", "live");
+        jedisCluster.hset(key + ":timeouts", "live", String.valueOf(Long.MAX_VALUE / 2));
+        try {
+            Assert.assertFalse(redisLock.tryLock());
+            // crashed long ago
+            jedisCluster.hset(key + ":timeouts", "live", "1");
+            Assert.assertTrue(redisLock.tryLock());
+            redisLock.unlock();
+        } finally {
+            jedisCluster.del(key + ":queue", key + ":timeouts");
+        }
+    }
+
     @Test
     public void testSingle() {
         testTryOnceCallbackInternal("Mutuki官方旗舰店");
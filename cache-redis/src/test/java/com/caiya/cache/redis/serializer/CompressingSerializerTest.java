@@ -0,0 +1,92 @@
+package com.caiya.cache.redis.serializer;
+
+import com.caiya.serialization.Serializer;
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * CompressingSerializerTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class CompressingSerializerTest {
+
+    private static final Serializer<byte[]> BYTES = new Serializer<byte[]>() {
+        @Override
+        public byte[] serialize(byte[] bytes) {
+            return bytes;
+        }
+
+        @Override
+        public byte[] deserialize(byte[] bytes) {
+            return bytes;
+        }
+    };
+
+    @Test
+    public void testThreshold() {
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            CompressingSerializer<byte[]> serializer = new CompressingSerializer<>(BYTES, 1024, codec);
+            byte[] small = repeat(1024);
+            assertSame(small, serializer.serialize(small));
+
+            byte[] large = repeat(100 * 1024);
+            byte[] compressed = serializer.serialize(large);
+            assertTrue(codec + ": " + compressed.length, compressed.length < large.length / 10);
+            assertArrayEquals(large, serializer.deserialize(compressed));
+        }
+    }
+
+    @Test
+    public void testIncompressible() {
+        byte[] random = new byte[10 * 1024];
+        new Random(0).nextBytes(random);
+        random[0] = 0;
+        CompressingSerializer<byte[]> serializer = new CompressingSerializer<>(BYTES, 0, CompressionCodec.LZ4);
+        assertSame(random, serializer.serialize(random));
+        assertSame(random, serializer.deserialize(random));
+    }
+
+    @Test
+    public void testValuesStartingWithMagic() {
+        CompressingSerializer<byte[]> serializer = new CompressingSerializer<>(BYTES, 1024, CompressionCodec.LZ4);
+        byte[] value = {(byte) 0xFF, 'Z', 1, 2, 3};
+        byte[] escaped = serializer.serialize(value);
+        assertFalse(Arrays.equals(value, escaped));
+        assertArrayEquals(value, serializer.deserialize(escaped));
+
+        // stored without this serializer
+        byte[] foreign = {(byte) 0xFF, 'Z', 1, 0, 0, 0, 100, 1, 2, 3};
+        assertArrayEquals(foreign, serializer.deserialize(foreign));
+    }
+
+    @Test
+    public void testRollout() {
+        Serializer<Object> plain = new JdkSerializationSerializer();
+        CompressingSerializer<Object> compressing = new CompressingSerializer<>(plain, 512);
+        String small = "small";
+        String large = new String(repeat(64 * 1024));
+
+        // old entries are readable after enabling compression
+        assertEquals(small, compressing.deserialize(plain.serialize(small)));
+        assertEquals(large, compressing.deserialize(plain.serialize(large)));
+        // small new entries are readable after disabling it
+        assertEquals(small, plain.deserialize(compressing.serialize(small)));
+        assertEquals(large, compressing.deserialize(compressing.serialize(large)));
+    }
+
+    private static byte[] repeat(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) ('a' + i % 16);
+        }
+        return bytes;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.caiya.cache.redis.serializer;
+
+import com.caiya.serialization.jdk.JdkSerializationSerializer;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * KryoSerializerTest.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public class KryoSerializerTest {
+
+    private final KryoSerializer<Object> serializer = new KryoSerializer<>(User.class, ArrayList.class);
+
+    @Test
+    public void testRoundTrip() {
+        User user = new User(12345L, "tomcat");
+        User result = (User) serializer.deserialize(serializer.serialize(user));
+        assertEquals(user.id, result.id);
+        assertEquals(user.name, result.name);
+        assertEquals(user.roles, result.roles);
+
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", 12345L);
+        map.put("name", "测试jedis缓存");
+        assertEquals(map, serializer.deserialize(serializer.serialize(map)));
+
+        assertEquals(0, serializer.serialize(null).length);
+        assertNull(serializer.deserialize((byte[]) null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    public void testSmallerThanJdkSerialization() {
+        User user = new User(12345L, "tomcat");
+        assertTrue(serializer.serialize(user).length * 3 < new JdkSerializationSerializer().serialize(user).length);
+    }
+
+    @Test
+    public void testLargeValue() {
+        byte[] value = new byte[1024 * 1024];
+        value[value.length - 1] = 1;
+        assertArrayEquals(value, (byte[]) serializer.deserialize(serializer.serialize(value)));
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 10000; j++) {
+                        User user = (User) serializer.deserialize(serializer.serialize(new User(j, "user" + j)));
+                        assertEquals("user" + j, user.name);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * No no-arg constructor on purpose.
+     */
+    static class User implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long id;
+
+        private final String name;
+
+        private final List<String> roles = new ArrayList<>();
+
+        User(long id, String name) {
+            this.id = id;
+            this.name = name;
+            this.roles.add("admin");
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.caiya.cache.redis.util;
+
+import com.caiya.cache.redis.JedisConnectionFactory;
+import com.caiya.cache.redis.embedded.EmbeddedRedisServer;
+import redis.clients.jedis.HostAndPort;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+
+/**
+ * The Redis Cluster of the tests: the nodes of the system property {@value #NODES_PROPERTY} ("host:port" separated
+ * by commas), otherwise an {@link EmbeddedRedisServer} of 3 nodes shared by all tests of the JVM.
+ *
+ * @author wangnan
+ * @since 1.2
+ */
+public final class TestRedisCluster {
+
+    public static final String NODES_PROPERTY = "cache.test.nodes";
+
+    private static EmbeddedRedisServer embeddedServer;
+
+    private TestRedisCluster() {
+    }
+
+    public static Set<HostAndPort> nodes() {
+        String nodes = System.getProperty(NODES_PROPERTY);
+        if (nodes == null) {
+            nodes = String.join(",", embeddedServer().getNodes());
+        }
+        return JedisConnectionFactory.parseClusterNodes(nodes);
+    }
+
+    /**
+     * @return the embedded server, started on first use and stopped with the JVM.
+     */
+    public static synchronized EmbeddedRedisServer embeddedServer() {
+        if (embeddedServer == null) {
+            EmbeddedRedisServer server = new EmbeddedRedisServer(3);
+            try {
+                server.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            embeddedServer = server;
+        }
+        return embeddedServer;
+    }
+
+}